@@ -0,0 +1,375 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.api.data;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.izforge.izpack.api.exception.ResourceException;
+
+
+/**
+ * A langpack in a compact, sorted binary format, written by the compiler alongside each XML langpack so that
+ * messages can be looked up at install time without parsing XML.
+ * <p/>
+ * The format is:
+ * <pre>
+ * int    MAGIC
+ * int    VERSION
+ * int    count
+ * int    offsets[count * 2 + 1]
+ * byte   strings[]
+ * </pre>
+ * The string table holds the UTF-8 encoded identifier and message of each entry, sorted on the identifier bytes.
+ * Identifier <em>i</em> spans <em>[offsets[2i], offsets[2i + 1])</em>, and its message spans
+ * <em>[offsets[2i + 1], offsets[2i + 2])</em>.
+ * <p/>
+ * Reading a langpack only loads its bytes. Identifiers are located by binary search over the raw bytes, and only
+ * the messages that are requested are decoded.
+ * <p/>
+ * Instances are immutable, and may be shared between threads.
+ *
+ * @author agent
+ */
+public class BinaryLangPack implements Serializable
+{
+
+    private static final long serialVersionUID = -5017455946296093475L;
+
+    /**
+     * The magic number identifying the format: <em>IZLP</em>.
+     */
+    public static final int MAGIC = 0x495A4C50;
+
+    /**
+     * The format version.
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * The suffix appended to the name of an XML langpack resource to give the name of its binary langpack.
+     */
+    public static final String SUFFIX = ".bin";
+
+    /**
+     * The size of the header, in bytes.
+     */
+    private static final int HEADER_SIZE = 12;
+
+    /**
+     * The character encoding.
+     */
+    private static final String UTF8 = "UTF-8";
+
+    /**
+     * The langpack data.
+     */
+    private final byte[] data;
+
+    /**
+     * The no. of entries.
+     */
+    private final int count;
+
+    /**
+     * The position of the string table.
+     */
+    private final int strings;
+
+
+    /**
+     * Constructs a {@code BinaryLangPack}.
+     *
+     * @param data the langpack data
+     * @throws ResourceException if the data is not a valid binary langpack
+     */
+    public BinaryLangPack(byte[] data)
+    {
+        this.data = data;
+        if (data.length < HEADER_SIZE || getInt(0) != MAGIC)
+        {
+            throw new ResourceException("Invalid IzPack binary langpack");
+        }
+        int version = getInt(4);
+        if (version > VERSION)
+        {
+            throw new ResourceException("Unsupported binary langpack version: " + version);
+        }
+        count = getInt(8);
+        strings = HEADER_SIZE + (count * 2 + 1) * 4;
+        if (count < 0 || strings > data.length || strings + getOffset(count * 2) != data.length)
+        {
+            throw new ResourceException("Invalid IzPack binary langpack");
+        }
+    }
+
+    /**
+     * Reads a binary langpack.
+     *
+     * @param in the stream to read from. This is not closed
+     * @return the langpack
+     * @throws IOException       for any I/O error
+     * @throws ResourceException if the stream is not a valid binary langpack
+     */
+    public static BinaryLangPack read(InputStream in) throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(in.available(), 4096));
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1)
+        {
+            out.write(buffer, 0, read);
+        }
+        return new BinaryLangPack(out.toByteArray());
+    }
+
+    /**
+     * Writes messages as a binary langpack.
+     * <p/>
+     * Entries with {@code null} messages are excluded.
+     *
+     * @param messages the messages, keyed on identifier
+     * @param out      the stream to write to. This is not closed
+     * @throws IOException for any I/O error
+     */
+    public static void write(Map<String, String> messages, OutputStream out) throws IOException
+    {
+        List<byte[][]> entries = new ArrayList<byte[][]>();
+        for (Map.Entry<String, String> entry : messages.entrySet())
+        {
+            if (entry.getKey() != null && entry.getValue() != null)
+            {
+                entries.add(new byte[][]{encode(entry.getKey()), encode(entry.getValue())});
+            }
+        }
+        Collections.sort(entries, new Comparator<byte[][]>()
+        {
+            @Override
+            public int compare(byte[][] o1, byte[][] o2)
+            {
+                return BinaryLangPack.compare(o1[0], 0, o1[0].length, o2[0], 0, o2[0].length);
+            }
+        });
+
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(entries.size());
+        int offset = 0;
+        data.writeInt(offset);
+        for (byte[][] entry : entries)
+        {
+            offset += entry[0].length;
+            data.writeInt(offset);
+            offset += entry[1].length;
+            data.writeInt(offset);
+        }
+        for (byte[][] entry : entries)
+        {
+            data.write(entry[0]);
+            data.write(entry[1]);
+        }
+        data.flush();
+    }
+
+    /**
+     * Returns the no. of messages.
+     *
+     * @return the no. of messages
+     */
+    public int size()
+    {
+        return count;
+    }
+
+    /**
+     * Returns a message.
+     *
+     * @param id the message identifier
+     * @return the message, or {@code null} if none is found
+     */
+    public String get(String id)
+    {
+        int index = indexOf(id);
+        return (index >= 0) ? decode(index * 2 + 1) : null;
+    }
+
+    /**
+     * Determines if a message exists.
+     *
+     * @param id the message identifier
+     * @return {@code true} if the message exists
+     */
+    public boolean containsKey(String id)
+    {
+        return indexOf(id) >= 0;
+    }
+
+    /**
+     * Decodes all of the messages.
+     *
+     * @return the messages, keyed on identifier
+     */
+    public Map<String, String> getMessages()
+    {
+        Map<String, String> result = new TreeMap<String, String>();
+        for (int i = 0; i < count; ++i)
+        {
+            result.put(decode(i * 2), decode(i * 2 + 1));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the index of an entry.
+     *
+     * @param id the message identifier
+     * @return the entry index, or {@code -1} if the identifier is not found
+     */
+    private int indexOf(String id)
+    {
+        if (id == null)
+        {
+            return -1;
+        }
+        byte[] key = encode(id);
+        int low = 0;
+        int high = count - 1;
+        while (low <= high)
+        {
+            int mid = (low + high) >>> 1;
+            int start = getOffset(mid * 2);
+            int end = getOffset(mid * 2 + 1);
+            int compare = compare(data, strings + start, end - start, key, 0, key.length);
+            if (compare < 0)
+            {
+                low = mid + 1;
+            }
+            else if (compare > 0)
+            {
+                high = mid - 1;
+            }
+            else
+            {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns a string table offset.
+     *
+     * @param index the offset index
+     * @return the offset, relative to the start of the string table
+     */
+    private int getOffset(int index)
+    {
+        return getInt(HEADER_SIZE + index * 4);
+    }
+
+    /**
+     * Reads a big-endian integer.
+     *
+     * @param position the position to read from
+     * @return the integer
+     */
+    private int getInt(int position)
+    {
+        return ((data[position] & 0xff) << 24) | ((data[position + 1] & 0xff) << 16)
+                | ((data[position + 2] & 0xff) << 8) | (data[position + 3] & 0xff);
+    }
+
+    /**
+     * Decodes a string from the string table.
+     *
+     * @param index the string index
+     * @return the string
+     */
+    private String decode(int index)
+    {
+        int start = getOffset(index);
+        int end = getOffset(index + 1);
+        try
+        {
+            return new String(data, strings + start, end - start, UTF8);
+        }
+        catch (UnsupportedEncodingException exception)
+        {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    /**
+     * Encodes a string as UTF-8.
+     *
+     * @param value the string to encode
+     * @return the encoded string
+     */
+    private static byte[] encode(String value)
+    {
+        try
+        {
+            return value.getBytes(UTF8);
+        }
+        catch (UnsupportedEncodingException exception)
+        {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    /**
+     * Compares two byte ranges as unsigned bytes.
+     *
+     * @param a       the first array
+     * @param aOffset the offset of the first range
+     * @param aLength the length of the first range
+     * @param b       the second array
+     * @param bOffset the offset of the second range
+     * @param bLength the length of the second range
+     * @return a negative value, zero, or a positive value as the first range is less than, equal to, or greater than
+     *         the second
+     */
+    private static int compare(byte[] a, int aOffset, int aLength, byte[] b, int bOffset, int bLength)
+    {
+        int length = Math.min(aLength, bLength);
+        for (int i = 0; i < length; ++i)
+        {
+            int diff = (a[aOffset + i] & 0xff) - (b[bOffset + i] & 0xff);
+            if (diff != 0)
+            {
+                return diff;
+            }
+        }
+        return aLength - bLength;
+    }
+
+}
@@ -19,10 +19,20 @@
 
 package com.izforge.izpack.api.data;
 
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.SortedMap;
 import java.util.TreeMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -37,6 +47,16 @@ import com.izforge.izpack.api.resource.Messages;
 
 /**
  * Represents a database of a locale.
+ * <p/>
+ * Messages may be read from XML langpacks, or from {@link BinaryLangPack binary langpacks}. Binary langpacks
+ * are not copied into the map; messages are looked up in them on demand. Messages read from XML, or
+ * {@link #put put} directly, take precedence over those in binary langpacks added before them.
+ * <p/>
+ * Any map view of the database (e.g. {@link #entrySet()}, {@link #size()}) first copies the binary langpack
+ * messages into the map, so should be avoided where only message lookups are required.
+ * <p/>
+ * Once populated, the database may be read by multiple threads. Message lookups and the copying of binary langpack
+ * messages are synchronized, as the copy modifies the map.
  *
  * @author Julien Ponge
  * @author J. Chris Folsom <jchrisfolsom@gmail.com>
@@ -71,6 +91,11 @@ public class LocaleDatabase extends TreeMap<String, String> implements Messages
      */
     private final Locales locales;
 
+    /**
+     * The binary langpacks, in the order they were added.
+     */
+    private final List<BinaryLangPack> packs = new ArrayList<BinaryLangPack>();
+
     /**
      * The logger.
      */
@@ -96,7 +121,7 @@ public class LocaleDatabase extends TreeMap<String, String> implements Messages
      */
     public LocaleDatabase(Messages parent, Locales locales)
     {
-        this(null, parent, locales);
+        this((InputStream) null, parent, locales);
     }
 
     /**
@@ -117,15 +142,45 @@ public class LocaleDatabase extends TreeMap<String, String> implements Messages
         }
     }
 
+    /**
+     * Constructs a {@code LocaleDatabase}.
+     *
+     * @param pack    the binary langpack to read the translation from
+     * @param parent  the parent messages. May be {@code null}
+     * @param locales the supported locales
+     */
+    public LocaleDatabase(BinaryLangPack pack, Messages parent, Locales locales)
+    {
+        this(parent, locales);
+        add(pack);
+    }
+
     /**
      * Adds the contents of the given stream to the data base. The stream have to contain key value
-     * pairs as declared by the DTD langpack.dtd.
+     * pairs as declared by the DTD langpack.dtd, or be a {@link BinaryLangPack binary langpack}.
      *
      * @param in an InputStream to read the translation from.
      * @throws ResourceException if the stream is not an IzPack langpack file or cannot be read
      */
     public void add(InputStream in)
     {
+        in = new BufferedInputStream(in);
+        try
+        {
+            in.mark(4);
+            int magic = new DataInputStream(in).readInt();
+            in.reset();
+            if (magic == BinaryLangPack.MAGIC)
+            {
+                add(BinaryLangPack.read(in));
+                return;
+            }
+        }
+        catch (IOException exception)
+        {
+            throw new ResourceException("Failed to read langpack stream", exception);
+        }
+
         IXMLElement data;
 
         try
@@ -159,6 +214,27 @@ public class LocaleDatabase extends TreeMap<String, String> implements Messages
         }
     }
 
+    /**
+     * Adds a binary langpack to the database.
+     * <p/>
+     * Its messages replace any existing messages with the same identifiers.
+     *
+     * @param pack the binary langpack
+     */
+    public synchronized void add(BinaryLangPack pack)
+    {
+        // NOTE: super.keySet() delegates to navigableKeySet(), which would materialise the existing packs
+        Iterator<Map.Entry<String, String>> iterator = super.entrySet().iterator();
+        while (iterator.hasNext())
+        {
+            if (pack.containsKey(iterator.next().getKey()))
+            {
+                iterator.remove();
+            }
+        }
+        packs.add(pack);
+    }
+
     /**
      * Returns the message with the specified identifier.
      *
@@ -168,10 +244,22 @@ public class LocaleDatabase extends TreeMap<String, String> implements Messages
     @Override
     public String get(Object id)
     {
-        String result = super.get(id);
+        String result = lookup(id);
         return result != null ? result : id.toString();
     }
 
+    /**
+     * Determines if a message exists.
+     *
+     * @param id the message identifier
+     * @return {@code true} if the message exists
+     */
+    @Override
+    public boolean containsKey(Object id)
+    {
+        return lookup(id) != null;
+    }
+
     /**
      * Formats the message with the specified identifier, replacing placeholders with the supplied arguments.
      * <p/>
@@ -185,7 +273,7 @@ public class LocaleDatabase extends TreeMap<String, String> implements Messages
     public String get(String id, Object... args)
     {
         String result;
-        String pattern = super.get(id);
+        String pattern = lookup(id);
         if (pattern != null)
         {
             try
@@ -228,7 +316,27 @@ public class LocaleDatabase extends TreeMap<String, String> implements Messages
     @Override
     public void add(Messages messages)
     {
-        putAll(messages.getMessages());
+        if (messages instanceof LocaleDatabase)
+        {
+            // share the binary langpacks rather than copying their messages
+            LocaleDatabase other = (LocaleDatabase) messages;
+            List<BinaryLangPack> otherPacks;
+            Map<String, String> entries;
+            synchronized (other)
+            {
+                otherPacks = new ArrayList<BinaryLangPack>(other.packs);
+                entries = other.getEntries();
+            }
+            for (BinaryLangPack pack : otherPacks)
+            {
+                add(pack);
+            }
+            super.putAll(entries);
+        }
+        else
+        {
+            putAll(messages.getMessages());
+        }
     }
 
     /**
@@ -239,6 +347,7 @@ public class LocaleDatabase extends TreeMap<String, String> implements Messages
     @Override
     public Map<String, String> getMessages()
     {
+        materialise();
         return Collections.unmodifiableMap(this);
     }
 
@@ -257,6 +366,166 @@ public class LocaleDatabase extends TreeMap<String, String> implements Messages
         return result;
     }
 
+    /**
+     * Returns the number of messages.
+     *
+     * @return the number of messages
+     */
+    @Override
+    public int size()
+    {
+        materialise();
+        return super.size();
+    }
+
+    /**
+     * Determines if a message exists with the specified format.
+     *
+     * @param value the message format
+     * @return {@code true} if the message exists
+     */
+    @Override
+    public boolean containsValue(Object value)
+    {
+        materialise();
+        return super.containsValue(value);
+    }
+
+    /**
+     * Removes a message.
+     *
+     * @param id the message identifier
+     * @return the removed message format, or {@code null} if none was removed
+     */
+    @Override
+    public String remove(Object id)
+    {
+        materialise();
+        return super.remove(id);
+    }
+
+    /**
+     * Removes all messages.
+     */
+    @Override
+    public synchronized void clear()
+    {
+        packs.clear();
+        super.clear();
+    }
+
+    /**
+     * Returns the first message identifier.
+     *
+     * @return the first message identifier
+     */
+    @Override
+    public String firstKey()
+    {
+        materialise();
+        return super.firstKey();
+    }
+
+    /**
+     * Returns the last message identifier.
+     *
+     * @return the last message identifier
+     */
+    @Override
+    public String lastKey()
+    {
+        materialise();
+        return super.lastKey();
+    }
+
+    /**
+     * Returns the messages with identifiers less than {@code toKey}.
+     *
+     * @param toKey the high endpoint (exclusive)
+     * @return the messages
+     */
+    @Override
+    public SortedMap<String, String> headMap(String toKey)
+    {
+        materialise();
+        return super.headMap(toKey);
+    }
+
+    /**
+     * Returns the messages with identifiers greater than or equal to {@code fromKey}.
+     *
+     * @param fromKey the low endpoint (inclusive)
+     * @return the messages
+     */
+    @Override
+    public SortedMap<String, String> tailMap(String fromKey)
+    {
+        materialise();
+        return super.tailMap(fromKey);
+    }
+
+    /**
+     * Returns the messages with identifiers in the range {@code fromKey} (inclusive) to {@code toKey} (exclusive).
+     *
+     * @param fromKey the low endpoint (inclusive)
+     * @param toKey   the high endpoint (exclusive)
+     * @return the messages
+     */
+    @Override
+    public SortedMap<String, String> subMap(String fromKey, String toKey)
+    {
+        materialise();
+        return super.subMap(fromKey, toKey);
+    }
+
+    /**
+     * Returns the message identifiers.
+     *
+     * @return the message identifiers
+     */
+    @Override
+    public Set<String> keySet()
+    {
+        materialise();
+        return super.keySet();
+    }
+
+    /**
+     * Returns the message identifiers.
+     *
+     * @return the message identifiers
+     */
+    @Override
+    public NavigableSet<String> navigableKeySet()
+    {
+        materialise();
+        return super.navigableKeySet();
+    }
+
+    /**
+     * Returns the message formats.
+     *
+     * @return the message formats
+     */
+    @Override
+    public Collection<String> values()
+    {
+        materialise();
+        return super.values();
+    }
+
+    /**
+     * Returns the messages.
+     *
+     * @return the messages
+     */
+    @Override
+    public Set<Map.Entry<String, String>> entrySet()
+    {
+        materialise();
+        return super.entrySet();
+    }
+
     /**
      * Convenience method to retrieve an element.
      *
@@ -325,4 +594,55 @@ public class LocaleDatabase extends TreeMap<String, String> implements Messages
         return message.replace(TEMP_QUOTING_CHARACTER, '\'');
     }
 
+    /**
+     * Looks up a message.
+     *
+     * @param id the message identifier
+     * @return the message format, or {@code null} if none is found
+     */
+    private synchronized String lookup(Object id)
+    {
+        String result = super.get(id);
+        if (result == null && id instanceof String)
+        {
+            for (int i = packs.size() - 1; i >= 0 && result == null; --i)
+            {
+                result = packs.get(i).get((String) id);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the messages held in the map, excluding those in binary langpacks.
+     *
+     * @return the messages
+     */
+    private Map<String, String> getEntries()
+    {
+        Map<String, String> result = new TreeMap<String, String>();
+        for (Map.Entry<String, String> entry : super.entrySet())
+        {
+            result.put(entry.getKey(), entry.getValue());
+        }
+        return result;
+    }
+
+    /**
+     * Copies the messages from the binary langpacks into the map, so that the map views reflect all messages.
+     */
+    private synchronized void materialise()
+    {
+        if (!packs.isEmpty())
+        {
+            Map<String, String> entries = getEntries();
+            for (BinaryLangPack pack : packs)
+            {
+                super.putAll(pack.getMessages());
+            }
+            packs.clear();
+            super.putAll(entries);
+        }
+    }
+
 }
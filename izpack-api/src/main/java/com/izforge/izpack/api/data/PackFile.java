@@ -203,6 +203,37 @@ public class PackFile implements Serializable
         this(src, FileUtil.getRelativeFileName(src, baseDir), target, osList, override, overrideRenameTo, blockable, additionals);
     }
 
+    /**
+     * Constructs a <tt>PackFile</tt> from previously encoded meta-data.
+     *
+     * @param relativePath     the path relative to the compile time base directory
+     * @param targetPath       the path to install the file to
+     * @param osList           OS constraints. May be {@code null}
+     * @param length           the length of the file in bytes
+     * @param mtime            the last-modification time of the file
+     * @param isDirectory      determines if the file is a directory
+     * @param override         what to do when the file already exists
+     * @param overrideRenameTo the glob mapper expression used to rename existing files. May be {@code null}
+     * @param blockable        determines if the file may be blocked by the operating system
+     * @param additionals      additional attributes. May be {@code null}
+     * @see PackFileCodec
+     */
+    PackFile(String relativePath, String targetPath, List<OsModel> osList, long length, long mtime,
+             boolean isDirectory, OverrideType override, String overrideRenameTo, Blockable blockable,
+             Map additionals)
+    {
+        this.relativePath = relativePath;
+        this.targetPath = targetPath;
+        this.osConstraints = osList;
+        this.length = length;
+        this.mtime = mtime;
+        this.isDirectory = isDirectory;
+        this.override = override;
+        this.overrideRenameTo = overrideRenameTo;
+        this.blockable = blockable;
+        this.additionals = additionals;
+    }
+
     public void setPreviousPackFileRef(String previousPackId, Long offsetInPreviousPack)
     {
         this.previousPackId = previousPackId;
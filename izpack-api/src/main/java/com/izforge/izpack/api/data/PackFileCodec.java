@@ -0,0 +1,494 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.api.data;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.izforge.izpack.api.data.binding.OsModel;
+
+
+/**
+ * Encodes and decodes {@link PackFile} and {@link XPackFile} meta-data without using java serialization.
+ * <p/>
+ * A stream of pack files starts with a header of {@link #MAGIC} and {@link #VERSION}, followed by the pack files.
+ * Each pack file is encoded as:
+ * <pre>
+ *   flags relativePath targetPath osConstraints length mtime override overrideRenameTo blockable condition
+ *   [previousPackId offsetInPreviousPack] [position] [additionals]
+ * </pre>
+ * Strings are interned: the first occurrence of a string is written in full, and subsequent occurrences as an
+ * index. Paths are split into their parent directory and name, so that the directory is only written once.
+ * OS constraint lists are interned in the same way. Integers are written as variable length quantities.
+ * <p/>
+ * The codec is stateful, so the same instance must be used to decode a stream as was used to encode it, i.e.
+ * use one instance per stream.
+ *
+ * @author agent
+ */
+public class PackFileCodec
+{
+
+    /**
+     * The header magic number, "IZPF".
+     */
+    public static final int MAGIC = 0x495A5046;
+
+    /**
+     * The current encoding version.
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * Flag indicating the file is a directory.
+     */
+    private static final int DIRECTORY = 1;
+
+    /**
+     * Flag indicating the file is a pack200 jar.
+     */
+    private static final int PACK200 = 1 << 1;
+
+    /**
+     * Flag indicating the file is a back reference to a file in a previous pack.
+     */
+    private static final int BACK_REFERENCE = 1 << 2;
+
+    /**
+     * Flag indicating the file is an {@link XPackFile}.
+     */
+    private static final int XPACKFILE = 1 << 3;
+
+    /**
+     * Flag indicating the file has additional attributes.
+     */
+    private static final int ADDITIONALS = 1 << 4;
+
+    /**
+     * The strings written, and their indexes.
+     */
+    private final Map<String, Integer> stringIds = new HashMap<String, Integer>();
+
+    /**
+     * The strings read, by index.
+     */
+    private final List<String> strings = new ArrayList<String>();
+
+    /**
+     * The OS constraint lists written, and their indexes.
+     */
+    private final Map<List<OsModel>, Integer> osIds = new IdentityHashMap<List<OsModel>, Integer>();
+
+    /**
+     * The OS constraint lists read, by index.
+     */
+    private final List<List<OsModel>> osConstraints = new ArrayList<List<OsModel>>();
+
+
+    /**
+     * Writes the header.
+     *
+     * @param out the stream to write to
+     * @throws IOException for any I/O error
+     */
+    public void writeHeader(ObjectOutput out) throws IOException
+    {
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+    }
+
+    /**
+     * Reads the header.
+     *
+     * @param in the stream to read from
+     * @throws IOException if the header is invalid, or for any I/O error
+     */
+    public void readHeader(ObjectInput in) throws IOException
+    {
+        int magic = in.readInt();
+        if (magic != MAGIC)
+        {
+            throw new IOException("Invalid pack file header (installer corrupted?)");
+        }
+        int version = in.readUnsignedByte();
+        if (version > VERSION)
+        {
+            throw new IOException("Unsupported pack file version: " + version);
+        }
+    }
+
+    /**
+     * Writes a pack file.
+     *
+     * @param file the pack file to write
+     * @param out  the stream to write to
+     * @throws IOException for any I/O error
+     */
+    public void write(PackFile file, ObjectOutput out) throws IOException
+    {
+        int flags = 0;
+        if (file.isDirectory())
+        {
+            flags |= DIRECTORY;
+        }
+        if (file.isPack200Jar())
+        {
+            flags |= PACK200;
+        }
+        if (file.isBackReference())
+        {
+            flags |= BACK_REFERENCE;
+        }
+        if (file instanceof XPackFile)
+        {
+            flags |= XPACKFILE;
+        }
+        if (file.getAdditionals() != null)
+        {
+            flags |= ADDITIONALS;
+        }
+        out.writeByte(flags);
+        writePath(file.getRelativeSourcePath(), out);
+        writePath(file.getTargetPath(), out);
+        writeOsConstraints(file.osConstraints(), out);
+        writeLong(file.length(), out);
+        out.writeLong(file.lastModified());
+        writeEnum(file.override(), out);
+        writeString(file.overrideRenameTo(), out);
+        writeEnum(file.blockable(), out);
+        writeString(file.getCondition(), out);
+        if (file.isBackReference())
+        {
+            writeString(file.previousPackId, out);
+            writeLong(file.offsetInPreviousPack, out);
+        }
+        if (file instanceof XPackFile)
+        {
+            writeLong(((XPackFile) file).getArchiveFilePosition(), out);
+        }
+        if (file.getAdditionals() != null)
+        {
+            out.writeObject(file.getAdditionals());
+        }
+    }
+
+    /**
+     * Reads a pack file.
+     *
+     * @param in the stream to read from
+     * @return the pack file
+     * @throws IOException            for any I/O error
+     * @throws ClassNotFoundException if the additional attributes refer to an unknown class
+     */
+    public PackFile read(ObjectInput in) throws IOException, ClassNotFoundException
+    {
+        int flags = in.readUnsignedByte();
+        String relativePath = readPath(in);
+        String targetPath = readPath(in);
+        List<OsModel> osList = readOsConstraints(in);
+        long length = readLong(in);
+        long mtime = in.readLong();
+        OverrideType override = readEnum(OverrideType.values(), in);
+        String overrideRenameTo = readString(in);
+        Blockable blockable = readEnum(Blockable.values(), in);
+        String condition = readString(in);
+        String previousPackId = null;
+        long offsetInPreviousPack = -1;
+        if ((flags & BACK_REFERENCE) != 0)
+        {
+            previousPackId = readString(in);
+            offsetInPreviousPack = readLong(in);
+        }
+        long position = ((flags & XPACKFILE) != 0) ? readLong(in) : 0;
+        Map additionals = ((flags & ADDITIONALS) != 0) ? (Map) in.readObject() : null;
+        boolean isDirectory = (flags & DIRECTORY) != 0;
+
+        PackFile result;
+        if ((flags & XPACKFILE) != 0)
+        {
+            result = new XPackFile(relativePath, targetPath, osList, length, mtime, isDirectory, override,
+                                   overrideRenameTo, blockable, additionals, position);
+        }
+        else
+        {
+            result = new PackFile(relativePath, targetPath, osList, length, mtime, isDirectory, override,
+                                  overrideRenameTo, blockable, additionals);
+        }
+        result.setCondition(condition);
+        result.setPack200Jar((flags & PACK200) != 0);
+        if (previousPackId != null)
+        {
+            result.setPreviousPackFileRef(previousPackId, offsetInPreviousPack);
+        }
+        return result;
+    }
+
+    /**
+     * Writes a path, interning its parent directory.
+     *
+     * @param path the path to write. May be {@code null}
+     * @param out  the stream to write to
+     * @throws IOException for any I/O error
+     */
+    private void writePath(String path, ObjectOutput out) throws IOException
+    {
+        int index = (path != null) ? path.lastIndexOf('/') : -1;
+        if (index == -1)
+        {
+            writeString(null, out);
+            writeString(path, out);
+        }
+        else
+        {
+            writeString(path.substring(0, index), out);
+            out.writeUTF(path.substring(index + 1));
+        }
+    }
+
+    /**
+     * Reads a path written by {@link #writePath}.
+     *
+     * @param in the stream to read from
+     * @return the path. May be {@code null}
+     * @throws IOException for any I/O error
+     */
+    private String readPath(ObjectInput in) throws IOException
+    {
+        String parent = readString(in);
+        return (parent == null) ? readString(in) : parent + '/' + in.readUTF();
+    }
+
+    /**
+     * Writes an interned string.
+     * <p/>
+     * This writes {@code 0} for {@code null}, the index + 1 of a previously written string, or the next index
+     * followed by the string, if it hasn't been written before.
+     *
+     * @param value the string to write. May be {@code null}
+     * @param out   the stream to write to
+     * @throws IOException for any I/O error
+     */
+    private void writeString(String value, ObjectOutput out) throws IOException
+    {
+        if (value == null)
+        {
+            writeLong(0, out);
+        }
+        else
+        {
+            Integer id = stringIds.get(value);
+            if (id != null)
+            {
+                writeLong(id, out);
+            }
+            else
+            {
+                id = stringIds.size() + 1;
+                stringIds.put(value, id);
+                writeLong(id, out);
+                out.writeUTF(value);
+            }
+        }
+    }
+
+    /**
+     * Reads a string written by {@link #writeString}.
+     *
+     * @param in the stream to read from
+     * @return the string. May be {@code null}
+     * @throws IOException for any I/O error
+     */
+    private String readString(ObjectInput in) throws IOException
+    {
+        int id = (int) readLong(in);
+        if (id == 0)
+        {
+            return null;
+        }
+        if (id <= strings.size())
+        {
+            return strings.get(id - 1);
+        }
+        if (id != strings.size() + 1)
+        {
+            throw new IOException("Invalid string reference: " + id);
+        }
+        String result = in.readUTF();
+        strings.add(result);
+        return result;
+    }
+
+    /**
+     * Writes an interned OS constraint list.
+     *
+     * @param list the list to write. May be {@code null}
+     * @param out  the stream to write to
+     * @throws IOException for any I/O error
+     */
+    private void writeOsConstraints(List<OsModel> list, ObjectOutput out) throws IOException
+    {
+        if (list == null)
+        {
+            writeLong(0, out);
+        }
+        else
+        {
+            Integer id = osIds.get(list);
+            if (id != null)
+            {
+                writeLong(id, out);
+            }
+            else
+            {
+                id = osIds.size() + 1;
+                osIds.put(list, id);
+                writeLong(id, out);
+                writeLong(list.size(), out);
+                for (OsModel model : list)
+                {
+                    writeString(model.getArch(), out);
+                    writeString(model.getFamily(), out);
+                    writeString(model.getJre(), out);
+                    writeString(model.getName(), out);
+                    writeString(model.getVersion(), out);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads an OS constraint list written by {@link #writeOsConstraints}.
+     *
+     * @param in the stream to read from
+     * @return the list. May be {@code null}
+     * @throws IOException for any I/O error
+     */
+    private List<OsModel> readOsConstraints(ObjectInput in) throws IOException
+    {
+        int id = (int) readLong(in);
+        if (id == 0)
+        {
+            return null;
+        }
+        if (id <= osConstraints.size())
+        {
+            return osConstraints.get(id - 1);
+        }
+        if (id != osConstraints.size() + 1)
+        {
+            throw new IOException("Invalid OS constraint reference: " + id);
+        }
+        int size = (int) readLong(in);
+        List<OsModel> result = new ArrayList<OsModel>(size);
+        for (int i = 0; i < size; ++i)
+        {
+            String arch = readString(in);
+            String family = readString(in);
+            String jre = readString(in);
+            String name = readString(in);
+            String version = readString(in);
+            result.add(new OsModel(arch, family, jre, name, version));
+        }
+        osConstraints.add(result);
+        return result;
+    }
+
+    /**
+     * Writes an enum as its ordinal + 1, or {@code 0} if it is {@code null}.
+     *
+     * @param value the value to write. May be {@code null}
+     * @param out   the stream to write to
+     * @throws IOException for any I/O error
+     */
+    private void writeEnum(Enum value, ObjectOutput out) throws IOException
+    {
+        out.writeByte((value != null) ? value.ordinal() + 1 : 0);
+    }
+
+    /**
+     * Reads an enum written by {@link #writeEnum}.
+     *
+     * @param values the enum values
+     * @param in     the stream to read from
+     * @return the enum value. May be {@code null}
+     * @throws IOException for any I/O error
+     */
+    private <T extends Enum> T readEnum(T[] values, ObjectInput in) throws IOException
+    {
+        int ordinal = in.readUnsignedByte();
+        if (ordinal > values.length)
+        {
+            throw new IOException("Invalid enum ordinal: " + ordinal);
+        }
+        return (ordinal != 0) ? values[ordinal - 1] : null;
+    }
+
+    /**
+     * Writes a long as a variable length quantity, using 7 bits per byte.
+     * <p/>
+     * Negative values are zig-zag encoded, so that small negative values are also compact.
+     *
+     * @param value the value to write
+     * @param out   the stream to write to
+     * @throws IOException for any I/O error
+     */
+    private void writeLong(long value, ObjectOutput out) throws IOException
+    {
+        long encoded = (value << 1) ^ (value >> 63);
+        while ((encoded & ~0x7FL) != 0)
+        {
+            out.writeByte((int) ((encoded & 0x7F) | 0x80));
+            encoded >>>= 7;
+        }
+        out.writeByte((int) encoded);
+    }
+
+    /**
+     * Reads a long written by {@link #writeLong}.
+     *
+     * @param in the stream to read from
+     * @return the value
+     * @throws IOException for any I/O error
+     */
+    private long readLong(ObjectInput in) throws IOException
+    {
+        long encoded = 0;
+        int shift = 0;
+        int b;
+        do
+        {
+            if (shift > 63)
+            {
+                throw new IOException("Malformed variable length quantity");
+            }
+            b = in.readUnsignedByte();
+            encoded |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        }
+        while ((b & 0x80) != 0);
+        return (encoded >>> 1) ^ -(encoded & 1);
+    }
+}
@@ -23,6 +23,7 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 
 import com.izforge.izpack.api.data.binding.OsModel;
 
@@ -72,6 +73,31 @@ public class XPackFile extends PackFile implements Comparable<XPackFile>
         this.setCondition(file.getCondition());
     }
 
+    /**
+     * Constructs an <tt>XPackFile</tt> from previously encoded meta-data.
+     *
+     * @param relativePath     the path relative to the compile time base directory
+     * @param targetPath       the path to install the file to
+     * @param osList           OS constraints. May be {@code null}
+     * @param length           the length of the file in bytes
+     * @param mtime            the last-modification time of the file
+     * @param isDirectory      determines if the file is a directory
+     * @param override         what to do when the file already exists
+     * @param overrideRenameTo the glob mapper expression used to rename existing files. May be {@code null}
+     * @param blockable        determines if the file may be blocked by the operating system
+     * @param additionals      additional attributes. May be {@code null}
+     * @param position         the position of the file in the archive
+     * @see PackFileCodec
+     */
+    XPackFile(String relativePath, String targetPath, List<OsModel> osList, long length, long mtime,
+              boolean isDirectory, OverrideType override, String overrideRenameTo, Blockable blockable,
+              Map additionals, long position)
+    {
+        super(relativePath, targetPath, osList, length, mtime, isDirectory, override, overrideRenameTo, blockable,
+              additionals);
+        this.position = position;
+    }
+
     /**
      * Returns the position of the file in the archive.
      *
@@ -0,0 +1,41 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.api.event;
+
+
+/**
+ * A {@link ProgressListener} that is notified of the no. of bytes processed by an action.
+ *
+ * @author agent
+ */
+public interface ThroughputProgressListener extends ProgressListener
+{
+
+    /**
+     * Invoked to notify the no. of bytes processed.
+     *
+     * @param bytes          the no. of bytes processed since the action started
+     * @param totalBytes     the total no. of bytes the action is expected to process, or {@code 0} if it is unknown
+     * @param bytesPerSecond the average no. of bytes processed per second
+     * @param remaining      the estimated time remaining in milliseconds, or {@code -1} if it is unknown
+     */
+    void throughput(long bytes, long totalBytes, long bytesPerSecond, long remaining);
+
+}
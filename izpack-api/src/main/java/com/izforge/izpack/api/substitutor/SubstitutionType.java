@@ -30,12 +30,12 @@ public enum SubstitutionType
     /**
      * Shell file.
      */
-    TYPE_SHELL("shell"),
+    TYPE_SHELL("shell", '%'),
 
     /**
      * Plain file with '@' start char.
      */
-    TYPE_AT("at"),
+    TYPE_AT("at", '@'),
 
     /**
      * Java file, where \ have to be escaped.
@@ -45,13 +45,24 @@ public enum SubstitutionType
     /**
      * Plain file with ANT-like variable markers, ie @param@
      */
-    TYPE_ANT("ant");
+    TYPE_ANT("ant", '@');
 
     private String type;
 
+    /**
+     * The character that starts a variable reference.
+     */
+    private char variableStart;
+
     SubstitutionType(String type)
+    {
+        this(type, '$');
+    }
+
+    SubstitutionType(String type, char variableStart)
     {
         this.type = type;
+        this.variableStart = variableStart;
     }
 
     private static Map<String, SubstitutionType> lookup;
@@ -70,6 +81,18 @@ public enum SubstitutionType
         return type;
     }
 
+    /**
+     * Returns the character that starts a variable reference.
+     * <p/>
+     * Content that doesn't contain this character has nothing to substitute.
+     *
+     * @return the variable start character
+     */
+    public char getVariableStart()
+    {
+        return variableStart;
+    }
+
     public static final SubstitutionType getDefault()
     {
         return TYPE_PLAIN;
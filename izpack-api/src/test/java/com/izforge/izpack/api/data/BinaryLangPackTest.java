@@ -0,0 +1,127 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.api.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.izforge.izpack.api.exception.ResourceException;
+
+
+/**
+ * Tests the {@link BinaryLangPack} class.
+ *
+ * @author agent
+ */
+public class BinaryLangPackTest
+{
+
+    /**
+     * Verifies that messages can be written and looked up, including those with non-ASCII identifiers.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testReadWrite() throws Exception
+    {
+        Map<String, String> messages = new HashMap<String, String>();
+        for (int i = 0; i < 1000; ++i)
+        {
+            messages.put("key." + i, "value " + i);
+        }
+        messages.put("été", "summer");
+        messages.put("😀", "smile");
+        messages.put("empty", "");
+        messages.put("null", null);
+
+        BinaryLangPack pack = read(messages);
+        assertEquals(1003, pack.size());
+        for (int i = 0; i < 1000; ++i)
+        {
+            assertEquals("value " + i, pack.get("key." + i));
+        }
+        assertEquals("summer", pack.get("été"));
+        assertEquals("smile", pack.get("😀"));
+        assertEquals("", pack.get("empty"));
+        assertTrue(pack.containsKey("empty"));
+
+        // null messages are excluded
+        assertFalse(pack.containsKey("null"));
+        assertNull(pack.get("missing"));
+        assertNull(pack.get(null));
+
+        messages.remove("null");
+        assertEquals(messages, pack.getMessages());
+    }
+
+    /**
+     * Verifies an empty langpack can be written and read.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testEmpty() throws Exception
+    {
+        BinaryLangPack pack = read(new HashMap<String, String>());
+        assertEquals(0, pack.size());
+        assertNull(pack.get("key"));
+    }
+
+    /**
+     * Verifies that invalid data is rejected.
+     */
+    @Test
+    public void testInvalid()
+    {
+        try
+        {
+            new BinaryLangPack("<langpack/>".getBytes());
+            fail("Expected ResourceException");
+        }
+        catch (ResourceException expected)
+        {
+            // expected
+        }
+    }
+
+    /**
+     * Writes messages to a binary langpack, and reads them back.
+     *
+     * @param messages the messages
+     * @return the langpack
+     * @throws Exception for any error
+     */
+    private BinaryLangPack read(Map<String, String> messages) throws Exception
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryLangPack.write(messages, out);
+        return BinaryLangPack.read(new ByteArrayInputStream(out.toByteArray()));
+    }
+}
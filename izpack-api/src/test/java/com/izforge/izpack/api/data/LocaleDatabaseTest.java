@@ -20,6 +20,13 @@
 package com.izforge.izpack.api.data;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.HashMap;
+import java.util.Map;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -75,4 +82,94 @@ public class LocaleDatabaseTest
                 "string.with.quoted.arguments", new String[]{"one", null}));
     }
 
+    @Test
+    public void testBinaryLangPack() throws Exception
+    {
+        // convert the XML langpack to binary, and verify it can be read back the same
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryLangPack.write(db.getMessages(), out);
+        LocaleDatabase binary = new LocaleDatabase(new ByteArrayInputStream(out.toByteArray()),
+                                                   Mockito.mock(Locales.class));
+        assertEquals("String Text", binary.get("string"));
+        assertEquals("none", binary.get("none"));
+        assertEquals("Argument1: one, Argument2: two", binary.get("string.with.arguments", "one", "two"));
+        assertEquals(db.getMessages(), binary.getMessages());
+    }
+
+    @Test
+    public void testBinaryLangPackPrecedence() throws Exception
+    {
+        Map<String, String> messages = new HashMap<String, String>();
+        messages.put("string", "Binary Text");
+        messages.put("binary", "Binary Only");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryLangPack.write(messages, out);
+        BinaryLangPack pack = BinaryLangPack.read(new ByteArrayInputStream(out.toByteArray()));
+
+        // messages in a binary langpack replace those added before it
+        LocaleDatabase merged = new LocaleDatabase(db, Mockito.mock(Locales.class));
+        merged.add(db);
+        merged.add(pack);
+        assertEquals("Binary Text", merged.get("string"));
+        assertEquals("Binary Only", merged.get("binary"));
+        assertEquals("Argument1: one, Argument2: two", merged.get("string.with.arguments", "one", "two"));
+        assertTrue(merged.containsKey("binary"));
+        assertFalse(merged.containsKey("none"));
+
+        // ... and are replaced by those put after it
+        merged.put("binary", "Put Text");
+        assertEquals("Put Text", merged.get("binary"));
+
+        // map views include the binary langpack messages
+        assertEquals(db.size() + 1, merged.size());
+        assertEquals("Binary Text", merged.getMessages().get("string"));
+        assertEquals("Put Text", merged.getMessages().get("binary"));
+    }
+
+    /**
+     * Verifies that adding binary langpacks and looking up messages doesn't copy the binary langpack messages
+     * into the map.
+     */
+    @Test
+    public void testBinaryLangPackNotMaterialised() throws Exception
+    {
+        Map<String, String> messages1 = new HashMap<String, String>();
+        messages1.put("string", "Binary Text 1");
+        messages1.put("binary1", "Binary Only 1");
+        BinaryLangPack pack1 = Mockito.spy(createPack(messages1));
+
+        Map<String, String> messages2 = new HashMap<String, String>();
+        messages2.put("string", "Binary Text 2");
+        messages2.put("binary2", "Binary Only 2");
+        BinaryLangPack pack2 = Mockito.spy(createPack(messages2));
+
+        LocaleDatabase merged = new LocaleDatabase(pack1, null, Mockito.mock(Locales.class));
+        merged.add(db);
+        merged.add(pack2);
+        merged.add(pack1);
+
+        assertEquals("Binary Text 1", merged.get("string"));
+        assertEquals("Binary Only 1", merged.get("binary1"));
+        assertEquals("Binary Only 2", merged.get("binary2"));
+        assertEquals("Argument1: one, Argument2: two", merged.get("string.with.arguments", "one", "two"));
+        assertTrue(merged.containsKey("binary2"));
+
+        Mockito.verify(pack1, Mockito.never()).getMessages();
+        Mockito.verify(pack2, Mockito.never()).getMessages();
+    }
+
+    /**
+     * Creates a binary langpack.
+     *
+     * @param messages the messages
+     * @return a new binary langpack
+     * @throws Exception for any error
+     */
+    private BinaryLangPack createPack(Map<String, String> messages) throws Exception
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryLangPack.write(messages, out);
+        return BinaryLangPack.read(new ByteArrayInputStream(out.toByteArray()));
+    }
+
 }
@@ -0,0 +1,176 @@
+package com.izforge.izpack.api.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.izforge.izpack.api.data.binding.OsModel;
+
+
+/**
+ * Tests the {@link PackFileCodec}.
+ *
+ * @author agent
+ */
+public class PackFileCodecTest
+{
+    /**
+     * Temporary folder.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * Verifies that pack files can be encoded and decoded.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testReadWrite() throws Exception
+    {
+        File baseDir = temporaryFolder.getRoot();
+        List<OsModel> os = Arrays.asList(new OsModel(null, "unix", null, null, null));
+        Map<String, String> additionals = new HashMap<String, String>();
+        additionals.put("key", "value");
+
+        PackFile file1 = new PackFile(baseDir, createFile("lib/a.jar"), "$INSTALL_PATH/lib/a.jar", os,
+                                      OverrideType.OVERRIDE_UPDATE, "*.bak", Blockable.BLOCKABLE_AUTO, additionals);
+        file1.setCondition("haveUnix");
+        file1.setPack200Jar(true);
+        PackFile file2 = new PackFile(baseDir, createFile("lib/b.jar"), "$INSTALL_PATH/lib/b.jar", os,
+                                      OverrideType.OVERRIDE_TRUE, null, Blockable.BLOCKABLE_NONE);
+        file2.setPreviousPackFileRef("base", 1234L);
+        PackFile dir = new PackFile(baseDir, temporaryFolder.newFolder("doc"), "$INSTALL_PATH/doc", null,
+                                    OverrideType.OVERRIDE_FALSE, null, Blockable.BLOCKABLE_NONE);
+        XPackFile file3 = new XPackFile(file2);
+        file3.setArchiveFilePosition(999999999999L);
+
+        List<PackFile> read = roundTrip(file1, file2, dir, file3);
+
+        check(file1, read.get(0));
+        check(file2, read.get(1));
+        check(dir, read.get(2));
+        check(file3, read.get(3));
+
+        assertEquals("value", read.get(0).getAdditionals().get("key"));
+        assertSame(read.get(0).osConstraints(), read.get(1).osConstraints());
+        assertEquals("unix", read.get(0).osConstraints().get(0).getFamily());
+        assertNull(read.get(2).osConstraints());
+        assertTrue(read.get(0).isPack200Jar());
+        assertEquals("haveUnix", read.get(0).getCondition());
+        assertTrue(read.get(1).isBackReference());
+        assertEquals("base", read.get(1).previousPackId);
+        assertEquals(1234, read.get(1).offsetInPreviousPack);
+        assertTrue(read.get(2).isDirectory());
+        assertFalse(read.get(2).isBackReference());
+        assertEquals(999999999999L, ((XPackFile) read.get(3)).getArchiveFilePosition());
+    }
+
+    /**
+     * Verifies that an invalid header is rejected.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testInvalidHeader() throws Exception
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeInt(10);
+        out.close();
+
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        try
+        {
+            new PackFileCodec().readHeader(in);
+            fail("Expected readHeader() to fail");
+        }
+        catch (IOException expected)
+        {
+            // expected
+        }
+    }
+
+    /**
+     * Encodes and decodes pack files.
+     *
+     * @param files the files to encode
+     * @return the decoded files
+     * @throws Exception for any error
+     */
+    private List<PackFile> roundTrip(PackFile... files) throws Exception
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        PackFileCodec codec = new PackFileCodec();
+        codec.writeHeader(out);
+        for (PackFile file : files)
+        {
+            codec.write(file, out);
+        }
+        out.close();
+
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        codec = new PackFileCodec();
+        codec.readHeader(in);
+        List<PackFile> result = new ArrayList<PackFile>();
+        for (int i = 0; i < files.length; ++i)
+        {
+            result.add(codec.read(in));
+        }
+        assertEquals(-1, in.read());
+        return result;
+    }
+
+    /**
+     * Verifies that a decoded pack file matches that expected.
+     *
+     * @param expected the expected pack file
+     * @param actual   the actual pack file
+     */
+    private void check(PackFile expected, PackFile actual)
+    {
+        assertEquals(expected.getClass(), actual.getClass());
+        assertEquals(expected.getRelativeSourcePath(), actual.getRelativeSourcePath());
+        assertEquals(expected.getTargetPath(), actual.getTargetPath());
+        assertEquals(expected.length(), actual.length());
+        assertEquals(expected.lastModified(), actual.lastModified());
+        assertEquals(expected.override(), actual.override());
+        assertEquals(expected.overrideRenameTo(), actual.overrideRenameTo());
+        assertEquals(expected.blockable(), actual.blockable());
+    }
+
+    /**
+     * Creates a file.
+     *
+     * @param path the file path, relative to the temporary folder
+     * @return the file
+     * @throws IOException for any I/O error
+     */
+    private File createFile(String path) throws IOException
+    {
+        File file = new File(temporaryFolder.getRoot(), path);
+        assertTrue(file.getParentFile().isDirectory() || file.getParentFile().mkdirs());
+        assertTrue(file.createNewFile());
+        return file;
+    }
+}
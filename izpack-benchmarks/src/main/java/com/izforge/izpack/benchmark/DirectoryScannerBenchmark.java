@@ -0,0 +1,126 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.benchmark;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.izforge.izpack.util.file.DirectoryScanner;
+import com.izforge.izpack.util.file.FileUtils;
+
+
+/**
+ * Benchmarks {@link DirectoryScanner} scans of a directory tree, as performed when compiling filesets.
+ *
+ * @author agent
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DirectoryScannerBenchmark
+{
+
+    /**
+     * The root of the directory tree.
+     */
+    private File root;
+
+
+    /**
+     * Creates a tree of 4 levels, with 5 sub-directories and 10 files per directory, i.e. 1560 files.
+     *
+     * @throws Exception for any error
+     */
+    @Setup
+    public void setUp() throws Exception
+    {
+        root = SyntheticData.createTempDirectory("scan");
+        new SyntheticData(42).createTree(root, 4, 5, 10, 16);
+    }
+
+    /**
+     * Removes the directory tree.
+     *
+     * @throws Exception for any error
+     */
+    @TearDown
+    public void tearDown() throws Exception
+    {
+        FileUtils.deleteRecursively(root);
+    }
+
+    /**
+     * Scans the tree for all files.
+     *
+     * @return the no. of files found
+     * @throws Exception for any error
+     */
+    @Benchmark
+    public int scanAll() throws Exception
+    {
+        return scan(null, null);
+    }
+
+    /**
+     * Scans the tree using include and exclude patterns.
+     *
+     * @return the no. of files found
+     * @throws Exception for any error
+     */
+    @Benchmark
+    public int scanPatterns() throws Exception
+    {
+        return scan(new String[]{"**/*.txt", "**/lib*/**"}, new String[]{"**/data*/**", "**/*0.txt"});
+    }
+
+    /**
+     * Scans the tree.
+     *
+     * @param includes the include patterns. May be {@code null}
+     * @param excludes the exclude patterns. May be {@code null}
+     * @return the no. of files found
+     * @throws Exception for any error
+     */
+    private int scan(String[] includes, String[] excludes) throws Exception
+    {
+        DirectoryScanner scanner = new DirectoryScanner();
+        scanner.setBasedir(root);
+        scanner.setIncludes(includes);
+        scanner.setExcludes(excludes);
+        scanner.addDefaultExcludes();
+        scanner.scan();
+        return scanner.getIncludedFilesCount();
+    }
+}
@@ -0,0 +1,429 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.benchmark;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.izforge.izpack.api.data.Blockable;
+import com.izforge.izpack.api.data.Info;
+import com.izforge.izpack.api.data.OverrideType;
+import com.izforge.izpack.api.data.Pack;
+import com.izforge.izpack.api.event.ProgressListener;
+import com.izforge.izpack.api.handler.Prompt;
+import com.izforge.izpack.api.merge.Mergeable;
+import com.izforge.izpack.api.resource.Resources;
+import com.izforge.izpack.compiler.compressor.DefaultPackCompressor;
+import com.izforge.izpack.compiler.data.CompilerData;
+import com.izforge.izpack.compiler.listener.PackagerListener;
+import com.izforge.izpack.compiler.merge.resolve.ClassPathCrawler;
+import com.izforge.izpack.compiler.merge.resolve.CompilerPathResolver;
+import com.izforge.izpack.compiler.packager.impl.Packager;
+import com.izforge.izpack.compiler.stream.JarOutputStream;
+import com.izforge.izpack.core.data.DefaultVariables;
+import com.izforge.izpack.core.handler.ConsolePrompt;
+import com.izforge.izpack.core.metrics.Metrics;
+import com.izforge.izpack.core.resource.ResourceManager;
+import com.izforge.izpack.core.rules.RulesEngineImpl;
+import com.izforge.izpack.core.substitutor.VariableSubstitutorImpl;
+import com.izforge.izpack.data.PackInfo;
+import com.izforge.izpack.installer.data.InstallData;
+import com.izforge.izpack.installer.data.UninstallData;
+import com.izforge.izpack.installer.event.InstallerListeners;
+import com.izforge.izpack.installer.unpacker.ConsolePackResources;
+import com.izforge.izpack.installer.unpacker.FileQueueFactory;
+import com.izforge.izpack.installer.unpacker.Unpacker;
+import com.izforge.izpack.merge.MergeManager;
+import com.izforge.izpack.merge.MergeManagerImpl;
+import com.izforge.izpack.merge.resolve.MergeableResolver;
+import com.izforge.izpack.merge.resolve.PathResolver;
+import com.izforge.izpack.util.Console;
+import com.izforge.izpack.util.Housekeeper;
+import com.izforge.izpack.util.Platforms;
+import com.izforge.izpack.util.file.FileUtils;
+
+
+/**
+ * Benchmarks writing a pack to an installer, and unpacking it again.
+ * <p/>
+ * The pack is built from a synthetic tree of 168 text and binary files, of up to 256KB each.
+ * A single pack is used, as multiple packs cannot share the bzip2 stream used by the <em>bzip2</em> compression
+ * format; only the <em>default</em> format is benchmarked here, at the jar compression levels supplied.
+ *
+ * @author agent
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PackBenchmark
+{
+
+    /**
+     * The jar compression level. {@code 0} stores entries uncompressed.
+     */
+    @Param({"0", "6", "9"})
+    public int level;
+
+    /**
+     * The working directory.
+     */
+    private File dir;
+
+    /**
+     * The pack source directory.
+     */
+    private File sourceDir;
+
+    /**
+     * The pack source files.
+     */
+    private List<File> files;
+
+    /**
+     * The installer, used by the unpack benchmark.
+     */
+    private File installer;
+
+    /**
+     * The installation directory.
+     */
+    private File installDir;
+
+
+    /**
+     * Creates the pack source files, and an installer to unpack.
+     *
+     * @throws Exception for any error
+     */
+    @Setup
+    public void setUp() throws Exception
+    {
+        dir = SyntheticData.createTempDirectory("pack");
+        sourceDir = new File(dir, "source");
+        files = new SyntheticData(42).createTree(sourceDir, 3, 4, 8, 256 * 1024);
+        installer = new File(dir, "installer.jar");
+        writeInstaller(installer);
+        installDir = new File(dir, "install");
+    }
+
+    /**
+     * Removes the prior installation.
+     */
+    @Setup(Level.Invocation)
+    public void clean()
+    {
+        if (installDir.exists())
+        {
+            FileUtils.deleteRecursively(installDir);
+        }
+    }
+
+    /**
+     * Removes the working directory.
+     */
+    @TearDown
+    public void tearDown()
+    {
+        FileUtils.deleteRecursively(dir);
+    }
+
+    /**
+     * Writes the pack to an installer.
+     *
+     * @return the installer
+     * @throws Exception for any error
+     */
+    @Benchmark
+    public File pack() throws Exception
+    {
+        File jar = new File(dir, "pack.jar");
+        writeInstaller(jar);
+        return jar;
+    }
+
+    /**
+     * Unpacks the pack.
+     *
+     * @return the install directory
+     * @throws Exception for any error
+     */
+    @Benchmark
+    public File unpack() throws Exception
+    {
+        URLClassLoader loader = new URLClassLoader(new URL[]{installer.toURI().toURL()},
+                                                   getClass().getClassLoader());
+        Resources resources = new ResourceManager(new Properties(), loader);
+        InstallData installData = new InstallData(new DefaultVariables());
+        installData.setInstallPath(installDir.getPath());
+        installData.setInfo(new Info());
+        List<Pack> packs = readPacks(resources);
+        installData.setAvailablePacks(packs);
+        installData.getSelectedPacks().addAll(packs);
+
+        Prompt prompt = new ConsolePrompt(new Console());
+        Metrics metrics = new Metrics();
+        // file queues are only used on Windows, so no librarian is required
+        Unpacker unpacker = new Unpacker(installData, new ConsolePackResources(resources, installData),
+                                         new RulesEngineImpl(installData, null, Platforms.LINUX),
+                                         new VariableSubstitutorImpl(installData.getVariables()), new UninstallData(),
+                                         new FileQueueFactory(Platforms.LINUX, null), new Housekeeper(),
+                                         new InstallerListeners(installData, prompt, metrics), prompt, metrics);
+        unpacker.setProgressListener(new NullProgressListener());
+        unpacker.unpack();
+        if (!unpacker.getResult())
+        {
+            throw new IllegalStateException("Unpacking failed");
+        }
+        return installDir;
+    }
+
+    /**
+     * Writes an installer containing the pack.
+     *
+     * @param jar the installer jar to write
+     * @throws Exception for any error
+     */
+    private void writeInstaller(File jar) throws Exception
+    {
+        JarOutputStream out = new JarOutputStream(jar);
+        out.setLevel(level);
+        CompilerData data = new CompilerData(null, dir.getPath(), jar.getPath(), true);
+        MergeableResolver resolver = new MergeableResolver();
+        Packager packager = new Packager(new Properties(), new NullPackagerListener(), out,
+                                         new DefaultPackCompressor(), out, new NullMergeManager(resolver),
+                                         new CompilerPathResolver(resolver, new ClassPathCrawler(resolver),
+                                                                  new Properties()),
+                                         resolver, data);
+        packager.setInfo(new Info());
+
+        PackInfo pack = new PackInfo("base", "base", "The base package", true, false, null, true);
+        String base = sourceDir.getPath();
+        for (File file : files)
+        {
+            String path = file.getPath().substring(base.length() + 1).replace(File.separatorChar, '/');
+            pack.addFile(sourceDir, file, "$INSTALL_PATH/" + path, null, OverrideType.OVERRIDE_TRUE, null,
+                         Blockable.BLOCKABLE_NONE, null, null);
+        }
+        packager.addPack(pack);
+        packager.createInstaller();
+    }
+
+    /**
+     * Reads the pack meta-data from an installer.
+     *
+     * @param resources the installer resources
+     * @return the packs
+     * @throws Exception for any error
+     */
+    private List<Pack> readPacks(Resources resources) throws Exception
+    {
+        InputStream in = resources.getInputStream("packs.info");
+        ObjectInputStream objIn = new ObjectInputStream(in);
+        try
+        {
+            int size = objIn.readInt();
+            List<Pack> result = new ArrayList<Pack>();
+            for (int i = 0; i < size; i++)
+            {
+                result.add((Pack) objIn.readObject());
+            }
+            return result;
+        }
+        finally
+        {
+            FileUtils.close(objIn);
+        }
+    }
+
+    /**
+     * A {@link MergeManager} that ignores the installer classes and resources, so that only the pack is written.
+     */
+    private static class NullMergeManager extends MergeManagerImpl
+    {
+
+        /**
+         * Constructs a <tt>NullMergeManager</tt>.
+         *
+         * @param resolver the mergeable resolver
+         */
+        public NullMergeManager(MergeableResolver resolver)
+        {
+            super(new PathResolver(resolver));
+        }
+
+        /**
+         * Ignores a resource.
+         *
+         * @param mergeable the resource
+         */
+        @Override
+        public void addResourceToMerge(Mergeable mergeable)
+        {
+        }
+
+        /**
+         * Ignores a resource.
+         *
+         * @param resourcePath the resource path
+         */
+        @Override
+        public void addResourceToMerge(String resourcePath)
+        {
+        }
+
+        /**
+         * Ignores a resource.
+         *
+         * @param resourcePath the resource path
+         * @param destination  the destination of the resource
+         */
+        @Override
+        public void addResourceToMerge(String resourcePath, String destination)
+        {
+        }
+    }
+
+    /**
+     * A {@link PackagerListener} that ignores all notifications.
+     */
+    private static class NullPackagerListener implements PackagerListener
+    {
+
+        /**
+         * Ignores a message.
+         *
+         * @param info the message
+         */
+        @Override
+        public void packagerMsg(String info)
+        {
+        }
+
+        /**
+         * Ignores a message.
+         *
+         * @param info     the message
+         * @param priority the message priority
+         */
+        @Override
+        public void packagerMsg(String info, int priority)
+        {
+        }
+
+        /**
+         * Ignores the start of packaging.
+         */
+        @Override
+        public void packagerStart()
+        {
+        }
+
+        /**
+         * Ignores the end of packaging.
+         */
+        @Override
+        public void packagerStop()
+        {
+        }
+    }
+
+    /**
+     * A {@link ProgressListener} that ignores all notifications.
+     */
+    private static class NullProgressListener implements ProgressListener
+    {
+
+        /**
+         * Ignores the start of an action.
+         *
+         * @param name  the name of the action
+         * @param steps the number of steps the action consists of
+         */
+        @Override
+        public void startAction(String name, int steps)
+        {
+        }
+
+        /**
+         * Ignores the end of an action.
+         */
+        @Override
+        public void stopAction()
+        {
+        }
+
+        /**
+         * Ignores the start of a step.
+         *
+         * @param stepName the name of the step
+         * @param step     the step number
+         * @param subSteps the number of sub-steps the step consists of
+         */
+        @Override
+        public void nextStep(String stepName, int step, int subSteps)
+        {
+        }
+
+        /**
+         * Ignores the no. of sub-steps.
+         *
+         * @param subSteps the number of sub-steps
+         */
+        @Override
+        public void setSubStepNo(int subSteps)
+        {
+        }
+
+        /**
+         * Ignores progress.
+         *
+         * @param subStep the sub-step which will be performed next
+         * @param message an additional message describing the sub-step
+         */
+        @Override
+        public void progress(int subStep, String message)
+        {
+        }
+    }
+}
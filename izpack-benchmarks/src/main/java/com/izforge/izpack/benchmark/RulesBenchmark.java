@@ -0,0 +1,163 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.benchmark;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.izforge.izpack.api.data.AutomatedInstallData;
+import com.izforge.izpack.api.rules.Condition;
+import com.izforge.izpack.core.data.DefaultVariables;
+import com.izforge.izpack.core.rules.RulesEngineImpl;
+import com.izforge.izpack.core.rules.process.VariableCondition;
+import com.izforge.izpack.util.Platforms;
+
+
+/**
+ * Benchmarks condition evaluation over a large rule set.
+ * <p/>
+ * The rule set contains variable conditions, and composite conditions that refer to them.
+ *
+ * @author agent
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RulesBenchmark
+{
+
+    /**
+     * The no. of variable conditions.
+     */
+    @Param({"1000"})
+    public int conditions;
+
+    /**
+     * The rules engine.
+     */
+    private RulesEngineImpl rules;
+
+    /**
+     * The identifiers of all conditions.
+     */
+    private List<String> ids = new ArrayList<String>();
+
+    /**
+     * Composite condition expressions, evaluated without being registered.
+     */
+    private List<String> expressions = new ArrayList<String>();
+
+
+    /**
+     * Sets up the benchmark.
+     */
+    @Setup
+    public void setUp()
+    {
+        SyntheticData data = new SyntheticData(42);
+        Properties properties = data.createVariables(100);
+        DefaultVariables variables = new DefaultVariables(properties);
+        rules = new RulesEngineImpl(new AutomatedInstallData(variables), null, Platforms.LINUX);
+        variables.setRules(rules);
+
+        Map<String, Condition> map = new HashMap<String, Condition>();
+        for (int i = 0; i < conditions; ++i)
+        {
+            String name = "VAR" + data.nextInt(100);
+            // half of the conditions are true
+            String value = (i % 2 == 0) ? properties.getProperty(name) : "/opt/none";
+            VariableCondition condition = new VariableCondition(name, value);
+            condition.setId("var." + i);
+            map.put(condition.getId(), condition);
+            ids.add(condition.getId());
+        }
+        rules.readConditionMap(map);
+
+        map.clear();
+        for (int i = 0; i < conditions / 2; ++i)
+        {
+            String expression = "@var." + data.nextInt(conditions) + " && var." + data.nextInt(conditions)
+                    + " || !var." + data.nextInt(conditions);
+            Condition condition = rules.getCondition(expression);
+            condition.setId("composite." + i);
+            map.put(condition.getId(), condition);
+            ids.add(condition.getId());
+            expressions.add(expression);
+        }
+        rules.readConditionMap(map);
+    }
+
+    /**
+     * Evaluates every registered condition by identifier.
+     *
+     * @return the no. of true conditions
+     */
+    @Benchmark
+    public int evaluateById()
+    {
+        int result = 0;
+        for (String id : ids)
+        {
+            if (rules.isConditionTrue(id))
+            {
+                ++result;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Parses and evaluates composite condition expressions.
+     *
+     * @return the no. of true conditions
+     */
+    @Benchmark
+    public int evaluateExpressions()
+    {
+        int result = 0;
+        for (String expression : expressions)
+        {
+            if (rules.isConditionTrue(expression))
+            {
+                ++result;
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.izforge.izpack.api.substitutor.SubstitutionType;
+import com.izforge.izpack.api.substitutor.VariableSubstitutor;
+import com.izforge.izpack.core.substitutor.VariableSubstitutorImpl;
+
+
+/**
+ * Benchmarks variable substitution over configuration files, as performed for parsable files.
+ *
+ * @author agent
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SubstitutionBenchmark
+{
+
+    /**
+     * The substitution type.
+     */
+    @Param({"TYPE_PLAIN", "TYPE_JAVA_PROPERTIES", "TYPE_XML", "TYPE_SHELL", "TYPE_ANT"})
+    public SubstitutionType type;
+
+    /**
+     * The no. of lines in the configuration file.
+     */
+    @Param({"1000"})
+    public int lines;
+
+    /**
+     * The configuration file.
+     */
+    private byte[] config;
+
+    /**
+     * The substitutor.
+     */
+    private VariableSubstitutor substitutor;
+
+
+    /**
+     * Sets up the benchmark.
+     *
+     * @throws Exception for any error
+     */
+    @Setup
+    public void setUp() throws Exception
+    {
+        SyntheticData data = new SyntheticData(42);
+        Properties variables = data.createVariables(100);
+        List<String> names = new ArrayList<String>(variables.stringPropertyNames());
+        config = data.createConfig(lines, type, names).getBytes("UTF-8");
+        substitutor = new VariableSubstitutorImpl(variables);
+    }
+
+    /**
+     * Substitutes variables in the configuration file.
+     *
+     * @return the substituted configuration
+     * @throws Exception for any error
+     */
+    @Benchmark
+    public byte[] substitute() throws Exception
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(config.length);
+        substitutor.substitute(new ByteArrayInputStream(config), out, type, "UTF-8");
+        return out.toByteArray();
+    }
+}
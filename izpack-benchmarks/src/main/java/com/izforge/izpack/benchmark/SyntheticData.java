@@ -0,0 +1,295 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.benchmark;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+
+import com.izforge.izpack.api.substitutor.SubstitutionType;
+import com.izforge.izpack.util.file.FileUtils;
+
+
+/**
+ * Generates reproducible synthetic data for benchmarks.
+ * <p/>
+ * All data is derived from a seeded {@link Random}, so the same seed produces the same data on any machine.
+ *
+ * @author agent
+ */
+public class SyntheticData
+{
+
+    /**
+     * The words used to generate text.
+     */
+    private static final String[] WORDS = {"install", "path", "server", "config", "lib", "jar", "port", "host",
+            "user", "home", "java", "data", "log", "level", "debug", "cache", "size", "timeout", "url", "name"};
+
+    /**
+     * The random number generator.
+     */
+    private final Random random;
+
+
+    /**
+     * Constructs a <tt>SyntheticData</tt>.
+     *
+     * @param seed the random seed
+     */
+    public SyntheticData(long seed)
+    {
+        random = new Random(seed);
+    }
+
+    /**
+     * Creates a temporary directory.
+     *
+     * @param prefix the directory name prefix
+     * @return a new directory
+     * @throws IOException if the directory cannot be created
+     */
+    public static File createTempDirectory(String prefix) throws IOException
+    {
+        File result = FileUtils.createTempFile(prefix, "");
+        if (!result.delete() || !result.mkdir())
+        {
+            throw new IOException("Failed to create directory: " + result);
+        }
+        return result;
+    }
+
+    /**
+     * Creates a file.
+     * <p/>
+     * Text files compress in a similar ratio to typical application files, whereas binary files are incompressible.
+     *
+     * @param file the file to create
+     * @param size the file size, in bytes
+     * @param text if {@code true}, create a text file, otherwise create a binary file
+     * @return the file
+     * @throws IOException for any I/O error
+     */
+    public File createFile(File file, long size, boolean text) throws IOException
+    {
+        File parent = file.getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs())
+        {
+            throw new IOException("Failed to create directory: " + parent);
+        }
+        OutputStream out = new BufferedOutputStream(new FileOutputStream(file), 65536);
+        try
+        {
+            byte[] buffer = new byte[8192];
+            long remaining = size;
+            while (remaining > 0)
+            {
+                int length = (int) Math.min(buffer.length, remaining);
+                if (text)
+                {
+                    fillText(buffer, length);
+                }
+                else
+                {
+                    random.nextBytes(buffer);
+                }
+                out.write(buffer, 0, length);
+                remaining -= length;
+            }
+        }
+        finally
+        {
+            FileUtils.close(out);
+        }
+        return file;
+    }
+
+    /**
+     * Creates a directory tree of files.
+     *
+     * @param root        the root directory
+     * @param depth       the depth of the tree
+     * @param dirs        the no. of sub-directories per directory
+     * @param files       the no. of files per directory
+     * @param maxFileSize the maximum file size. Sizes are randomly distributed up to this size
+     * @return the files created
+     * @throws IOException for any I/O error
+     */
+    public List<File> createTree(File root, int depth, int dirs, int files, int maxFileSize) throws IOException
+    {
+        List<File> result = new ArrayList<File>();
+        createTree(root, depth, dirs, files, maxFileSize, result);
+        return result;
+    }
+
+    /**
+     * Creates a configuration file body referring to variables.
+     * <p/>
+     * Roughly one line in four refers to a variable, using the variable syntax of the substitution type.
+     *
+     * @param lines     the no. of lines
+     * @param type      the substitution type
+     * @param variables the variable names to refer to
+     * @return the configuration
+     */
+    public String createConfig(int lines, SubstitutionType type, List<String> variables)
+    {
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < lines; ++i)
+        {
+            String key = word() + "." + word() + "." + i;
+            String value = word() + " " + word();
+            if (random.nextInt(4) == 0)
+            {
+                value = reference(variables.get(random.nextInt(variables.size())), type) + "/" + word();
+            }
+            switch (type)
+            {
+                case TYPE_XML:
+                    result.append("<entry key=\"").append(key).append("\">").append(value).append("</entry>");
+                    break;
+                case TYPE_SHELL:
+                    result.append("export ").append(key.replace('.', '_')).append("=\"").append(value).append('"');
+                    break;
+                default:
+                    result.append(key).append('=').append(value);
+            }
+            result.append('\n');
+        }
+        return result.toString();
+    }
+
+    /**
+     * Creates variables.
+     *
+     * @param count the no. of variables
+     * @return the variables, named <em>VAR0</em> to <em>VAR[count - 1]</em>
+     */
+    public Properties createVariables(int count)
+    {
+        Properties result = new Properties();
+        for (int i = 0; i < count; ++i)
+        {
+            result.setProperty("VAR" + i, "/opt/" + word() + "/" + word());
+        }
+        return result;
+    }
+
+    /**
+     * Returns the next random integer.
+     *
+     * @param bound the upper bound, exclusive
+     * @return a random integer between {@code 0} and {@code bound - 1}
+     */
+    public int nextInt(int bound)
+    {
+        return random.nextInt(bound);
+    }
+
+    /**
+     * Returns a random word.
+     *
+     * @return a random word
+     */
+    public String word()
+    {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+
+    /**
+     * Creates a directory tree of files.
+     *
+     * @param dir         the directory
+     * @param depth       the remaining depth of the tree
+     * @param dirs        the no. of sub-directories per directory
+     * @param files       the no. of files per directory
+     * @param maxFileSize the maximum file size
+     * @param result      the files created
+     * @throws IOException for any I/O error
+     */
+    private void createTree(File dir, int depth, int dirs, int files, int maxFileSize, List<File> result)
+            throws IOException
+    {
+        for (int i = 0; i < files; ++i)
+        {
+            boolean text = random.nextInt(4) != 0;
+            String name = word() + i + (text ? ".txt" : ".bin");
+            result.add(createFile(new File(dir, name), random.nextInt(maxFileSize + 1), text));
+        }
+        if (depth > 1)
+        {
+            for (int i = 0; i < dirs; ++i)
+            {
+                createTree(new File(dir, word() + i), depth - 1, dirs, files, maxFileSize, result);
+            }
+        }
+    }
+
+    /**
+     * Fills a buffer with text.
+     *
+     * @param buffer the buffer to fill
+     * @param length the no. of bytes to fill
+     */
+    private void fillText(byte[] buffer, int length)
+    {
+        int i = 0;
+        while (i < length)
+        {
+            String word = word();
+            for (int j = 0; j < word.length() && i < length; ++j)
+            {
+                buffer[i++] = (byte) word.charAt(j);
+            }
+            if (i < length)
+            {
+                buffer[i++] = (byte) ((random.nextInt(8) == 0) ? '\n' : ' ');
+            }
+        }
+    }
+
+    /**
+     * Returns a reference to a variable in the syntax of a substitution type.
+     *
+     * @param name the variable name
+     * @param type the substitution type
+     * @return the variable reference
+     */
+    private String reference(String name, SubstitutionType type)
+    {
+        switch (type)
+        {
+            case TYPE_SHELL:
+                return "%" + name;
+            case TYPE_AT:
+                return "@" + name;
+            case TYPE_ANT:
+                return "@" + name + "@";
+            default:
+                return "${" + name + "}";
+        }
+    }
+}
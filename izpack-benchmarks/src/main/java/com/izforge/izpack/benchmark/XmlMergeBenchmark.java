@@ -0,0 +1,197 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.benchmark;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.izforge.izpack.util.IoHelper;
+import com.izforge.izpack.util.file.FileUtils;
+import com.izforge.izpack.util.xmlmerge.merge.DefaultXmlMerge;
+
+
+/**
+ * Benchmarks merging a patch into a large XML file, in memory and streamed.
+ * <p/>
+ * Run with <em>-prof gc</em> to compare the memory used by each.
+ *
+ * @author agent
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class XmlMergeBenchmark
+{
+
+    /**
+     * The no. of servers in the original file.
+     */
+    @Param({"200000"})
+    public int servers;
+
+    /**
+     * The directory containing the files.
+     */
+    private File root;
+
+    /**
+     * The files to merge.
+     */
+    private File[] sources;
+
+    /**
+     * The merged file.
+     */
+    private File target;
+
+    /**
+     * The merge, performed in memory.
+     */
+    private DefaultXmlMerge merge;
+
+    /**
+     * The merge, streaming the original.
+     */
+    private DefaultXmlMerge streaming;
+
+
+    /**
+     * Sets up the benchmark.
+     *
+     * @throws Exception for any error
+     */
+    @Setup
+    public void setUp() throws Exception
+    {
+        root = SyntheticData.createTempDirectory("xmlmerge");
+        File original = new File(root, "original.xml");
+        Writer writer = new OutputStreamWriter(new FileOutputStream(original), "UTF-8");
+        try
+        {
+            writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<servers>\n");
+            for (int i = 0; i < servers; ++i)
+            {
+                writer.write("  <server id=\"" + i + "\">\n    <name>server " + i + "</name>\n");
+                writer.write("    <property key=\"host\" value=\"host" + i + ".example.com\"/>\n");
+                writer.write("    <property key=\"port\" value=\"" + (1024 + i) + "\"/>\n  </server>\n");
+            }
+            writer.write("</servers>\n");
+        }
+        finally
+        {
+            FileUtils.close(writer);
+        }
+
+        File patch = new File(root, "patch.xml");
+        writer = new OutputStreamWriter(new FileOutputStream(patch), "UTF-8");
+        try
+        {
+            writer.write("<servers><server id='100'><property key='debug' value='true'/></server>"
+                                 + "<server id='new'><name>new server</name></server></servers>");
+        }
+        finally
+        {
+            FileUtils.close(writer);
+        }
+        sources = new File[]{original, patch};
+        target = new File(root, "merged.xml");
+        merge = new DefaultXmlMerge();
+        streaming = new DefaultXmlMerge();
+        streaming.setStreaming(true);
+    }
+
+    /**
+     * Cleans up after the benchmark.
+     *
+     * @throws Exception for any error
+     */
+    @TearDown
+    public void tearDown() throws Exception
+    {
+        FileUtils.deleteRecursively(root);
+    }
+
+    /**
+     * Merges the files by reading them into memory.
+     *
+     * @return the merged file
+     * @throws Exception for any error
+     */
+    @Benchmark
+    public File dom() throws Exception
+    {
+        InputStream[] streams = new InputStream[sources.length];
+        OutputStream out = null;
+        try
+        {
+            for (int i = 0; i < sources.length; ++i)
+            {
+                streams[i] = new FileInputStream(sources[i]);
+            }
+            InputStream merged = merge.merge(streams);
+            out = new FileOutputStream(target);
+            IoHelper.copyStream(merged, out);
+        }
+        finally
+        {
+            for (InputStream stream : streams)
+            {
+                FileUtils.close(stream);
+            }
+            FileUtils.close(out);
+        }
+        return target;
+    }
+
+    /**
+     * Merges the files, streaming the original.
+     *
+     * @return the merged file
+     * @throws Exception for any error
+     */
+    @Benchmark
+    public File streamed() throws Exception
+    {
+        streaming.merge(sources, target);
+        return target;
+    }
+}
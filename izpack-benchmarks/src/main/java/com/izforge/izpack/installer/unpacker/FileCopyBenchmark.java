@@ -0,0 +1,162 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.installer.unpacker;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.izforge.izpack.api.data.Blockable;
+import com.izforge.izpack.api.data.OverrideType;
+import com.izforge.izpack.api.data.PackFile;
+import com.izforge.izpack.benchmark.SyntheticData;
+import com.izforge.izpack.core.handler.ConsolePrompt;
+import com.izforge.izpack.util.Console;
+import com.izforge.izpack.util.file.FileUtils;
+
+
+/**
+ * Compares the throughput of the {@link LooseFileUnpacker} file channel copy with the stream copy used by
+ * {@link FileUnpacker}.
+ * <p/>
+ * Results are reported as operations per second; multiply by the file size to get the throughput in MB/s.
+ *
+ * @author agent
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FileCopyBenchmark
+{
+
+    /**
+     * The file size, in MB.
+     */
+    @Param({"1", "16", "128"})
+    public int size;
+
+    /**
+     * The working directory.
+     */
+    private File dir;
+
+    /**
+     * The file to copy.
+     */
+    private File source;
+
+    /**
+     * The copy target.
+     */
+    private File target;
+
+    /**
+     * The pack file meta-data.
+     */
+    private PackFile file;
+
+    /**
+     * The unpacker, used for both copy methods.
+     */
+    private LooseFileUnpacker unpacker;
+
+
+    /**
+     * Sets up the benchmark.
+     *
+     * @throws Exception for any error
+     */
+    @Setup
+    public void setUp() throws Exception
+    {
+        dir = SyntheticData.createTempDirectory("copy");
+        source = new SyntheticData(42).createFile(new File(dir, "source.bin"), size * 1024L * 1024L, false);
+        target = new File(dir, "target.bin");
+        file = new PackFile(dir, source, target.getName(), null, OverrideType.OVERRIDE_TRUE, null,
+                            Blockable.BLOCKABLE_NONE);
+        Cancellable cancellable = new Cancellable()
+        {
+            @Override
+            public boolean isCancelled()
+            {
+                return false;
+            }
+        };
+        unpacker = new LooseFileUnpacker(dir, cancellable, null, new ConsolePrompt(new Console()));
+    }
+
+    /**
+     * Removes the working directory.
+     */
+    @TearDown
+    public void tearDown()
+    {
+        FileUtils.deleteRecursively(dir);
+    }
+
+    /**
+     * Copies the file using file channels.
+     *
+     * @throws Exception for any error
+     */
+    @Benchmark
+    public void channelCopy() throws Exception
+    {
+        unpacker.copy(file, source, target);
+    }
+
+    /**
+     * Copies the file using streams, as per {@link FileUnpacker#unpack(PackFile, ObjectInputStream, File)}
+     * implementations prior to the introduction of channel copies.
+     *
+     * @throws Exception for any error
+     */
+    @Benchmark
+    public void streamCopy() throws Exception
+    {
+        InputStream in = new FileInputStream(source);
+        try
+        {
+            unpacker.copy(file, in, target);
+        }
+        finally
+        {
+            FileUtils.close(in);
+        }
+    }
+}
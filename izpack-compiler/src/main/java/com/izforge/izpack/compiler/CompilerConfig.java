@@ -1125,6 +1125,9 @@ public class CompilerConfig extends Thread
             val = executableNode.getAttribute("keep");
             executable.keepFile = Boolean.parseBoolean(val);
 
+            // executables in the same group may be run concurrently
+            executable.group = executableNode.getAttribute("group");
+
             // get arguments for this executable
             IXMLElement args = executableNode.getFirstChildNamed("args");
             if (null != args)
@@ -2314,6 +2317,12 @@ public class CompilerConfig extends Thread
                         assertionHelper.parseError(
                                 "Bad execution type " + exectype + " given for dynamic variable " + name);
                     }
+                    if (dynamicVariable.getValue() instanceof ExecValue)
+                    {
+                        // side effect free commands may be run ahead of their evaluation, when prefetching
+                        ((ExecValue) dynamicVariable.getValue()).setSideEffectFree(
+                                Boolean.parseBoolean(var.getAttribute("sideeffectfree")));
+                    }
                     try
                     {
                         dynamicVariable.validate();
@@ -0,0 +1,344 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.compiler.bootstrap;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.cli.ParseException;
+import org.apache.tools.ant.BuildException;
+import org.apache.tools.ant.types.Commandline;
+
+import com.izforge.izpack.compiler.CompilerConfig;
+import com.izforge.izpack.compiler.cli.CliAnalyzer;
+import com.izforge.izpack.compiler.container.CompilerContainer;
+import com.izforge.izpack.compiler.data.CompilerData;
+import com.izforge.izpack.compiler.data.PropertyManager;
+import com.izforge.izpack.compiler.merge.resolve.ClassPathCache;
+import com.izforge.izpack.util.file.FileUtils;
+
+
+/**
+ * Compiles several installers concurrently in the same JVM.
+ * <p/>
+ * Each installer {@link Variant variant} is compiled in its own {@link CompilerContainer}, as it would be by the
+ * {@link CompilerLauncher}, but class loading, and the classpath content used to resolve panels and listeners, is
+ * shared by all of the variants of a {@link #compile(List)} call. This is useful when building many variants of the
+ * same installation, e.g. localised or branded installers from a single descriptor, with different properties.
+ * <p/>
+ * When invoked from the command line, the compiler takes a batch file where each line holds the command line
+ * arguments of one variant. Arguments of the form <em>-Dname=value</em> specify properties for the variant.
+ * Arguments are separated by whitespace, and may be enclosed in single or double quotes to include whitespace.
+ * Blank lines and lines starting with <em>#</em> are ignored. E.g.:
+ * <pre>
+ * install.xml -b . -o out/install-en.jar -Dlocale=eng -Dbrand=acme
+ * install.xml -b . -o out/install-fr.jar -Dlocale=fra "-Dbrand=Acme Corp"
+ * </pre>
+ * The IzPack home directory applies to the whole batch, so it may not be specified per variant. It may be supplied
+ * before the batch file, as <em>-h home batchfile</em>, or via the <em>IZPACK_HOME</em> environment variable.
+ * <br/>
+ * The no. of installers compiled concurrently may be specified by the {@link #THREADS} system property.
+ *
+ * @author agent
+ */
+public class BatchCompiler
+{
+
+    /**
+     * System property to specify the no. of installers to compile concurrently. Defaults to the no. of available
+     * processors.
+     */
+    public static final String THREADS = "izpack.batch.threads";
+
+    /**
+     * The no. of installers to compile concurrently.
+     */
+    private final int threads;
+
+
+    /**
+     * Constructs a <tt>BatchCompiler</tt>.
+     *
+     * @param threads the no. of installers to compile concurrently
+     */
+    public BatchCompiler(int threads)
+    {
+        this.threads = Math.max(threads, 1);
+    }
+
+    /**
+     * Compiles installer variants.
+     * <p/>
+     * The failure of one variant doesn't prevent the others from being compiled.
+     *
+     * @param variants the variants to compile
+     * @return the variants that failed to compile, and the reason for their failure, in the order they were supplied
+     * @throws InterruptedException if interrupted while waiting for compilation to complete
+     */
+    public Map<Variant, Throwable> compile(List<Variant> variants) throws InterruptedException
+    {
+        Map<Variant, Throwable> result = new LinkedHashMap<Variant, Throwable>();
+        final ClassPathCache cache = new ClassPathCache();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, Math.max(variants.size(), 1)));
+        try
+        {
+            List<Future<Void>> futures = new ArrayList<Future<Void>>();
+            for (final Variant variant : variants)
+            {
+                futures.add(executor.submit(new Callable<Void>()
+                {
+                    @Override
+                    public Void call() throws Exception
+                    {
+                        compile(variant, cache);
+                        return null;
+                    }
+                }));
+            }
+            for (int i = 0; i < variants.size(); ++i)
+            {
+                try
+                {
+                    futures.get(i).get();
+                }
+                catch (ExecutionException exception)
+                {
+                    result.put(variants.get(i), exception.getCause());
+                }
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+        return result;
+    }
+
+    /**
+     * Compiles a single installer variant.
+     *
+     * @param variant the variant to compile
+     * @param cache   the classpath content shared by the variants
+     * @throws Exception for any error
+     */
+    protected void compile(Variant variant, ClassPathCache cache) throws Exception
+    {
+        CompilerData compilerData = variant.getCompilerData();
+        CompilerContainer container = new CompilerContainer();
+        container.addConfig("installFile", compilerData.getInstallFile());
+        container.addComponent(CompilerData.class, compilerData);
+        container.addComponent(ClassPathCache.class, cache);
+
+        CompilerConfig compilerConfig = container.getComponent(CompilerConfig.class);
+        PropertyManager propertyManager = container.getComponent(PropertyManager.class);
+        for (String name : variant.getProperties().stringPropertyNames())
+        {
+            propertyManager.addProperty(name, variant.getProperties().getProperty(name));
+        }
+        compilerConfig.executeCompiler();
+    }
+
+    /**
+     * Reads installer variants from a batch file.
+     *
+     * @param path the batch file path
+     * @return the variants
+     * @throws IOException    if the file cannot be read
+     * @throws ParseException if a line contains invalid arguments or unbalanced quotes, or specifies the IzPack home
+     *                        directory
+     */
+    public static List<Variant> readVariants(String path) throws IOException, ParseException
+    {
+        List<Variant> result = new ArrayList<Variant>();
+        CliAnalyzer analyzer = new CliAnalyzer();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(path), "UTF-8"));
+        try
+        {
+            String line;
+            while ((line = reader.readLine()) != null)
+            {
+                line = line.trim();
+                if (line.length() != 0 && !line.startsWith("#"))
+                {
+                    List<String> args = new ArrayList<String>();
+                    Properties properties = new Properties();
+                    String[] tokens;
+                    try
+                    {
+                        tokens = Commandline.translateCommandline(line);
+                    }
+                    catch (BuildException exception)
+                    {
+                        throw new ParseException(exception.getMessage() + ": " + line);
+                    }
+                    for (String arg : tokens)
+                    {
+                        int index = arg.indexOf('=');
+                        if (arg.startsWith("-h"))
+                        {
+                            // the IzPack home is global, so would be shared by all variants
+                            throw new ParseException("The IzPack home may not be specified per variant: " + line);
+                        }
+                        else if (arg.startsWith("-D") && index > 2)
+                        {
+                            properties.setProperty(arg.substring(2, index), arg.substring(index + 1));
+                        }
+                        else
+                        {
+                            args.add(arg);
+                        }
+                    }
+                    CompilerData compilerData = analyzer.parseArgs(args.toArray(new String[args.size()]));
+                    result.add(new Variant(compilerData, properties));
+                }
+            }
+        }
+        finally
+        {
+            FileUtils.close(reader);
+        }
+        return result;
+    }
+
+    /**
+     * The main method if the batch compiler is invoked by a command-line call.
+     *
+     * @param args The arguments passed on the command-line. The last argument is the batch file, optionally preceded
+     *             by <em>-h</em> and the IzPack home directory
+     */
+    public static void main(String[] args)
+    {
+        // exit code 1 means: error
+        int exitCode = 1;
+        if (args.length == 3 && "-h".equals(args[0]))
+        {
+            CompilerData.setIzpackHome(args[1].trim());
+            args = new String[]{args[2]};
+        }
+        if (args.length != 1)
+        {
+            System.err.println("IzPack batch compiler -> Command line parameters are : [-h (IzPack home)] (batch file)");
+            System.err.println("Each line of the batch file holds the compiler command line parameters of an "
+                                       + "installer, and its properties as -Dname=value");
+        }
+        else
+        {
+            try
+            {
+                List<Variant> variants = readVariants(args[0]);
+                int threads = Integer.getInteger(THREADS, Runtime.getRuntime().availableProcessors());
+                Map<Variant, Throwable> failures = new BatchCompiler(threads).compile(variants);
+                for (Variant variant : variants)
+                {
+                    Throwable failure = failures.get(variant);
+                    if (failure == null)
+                    {
+                        System.out.println("-> Built  : " + variant.getCompilerData().getOutput());
+                    }
+                    else
+                    {
+                        System.err.println("-> Failed : " + variant.getCompilerData().getOutput() + ": "
+                                                   + failure.getMessage());
+                        failure.printStackTrace();
+                    }
+                }
+                if (failures.isEmpty())
+                {
+                    exitCode = 0;
+                }
+                System.out.println("Built " + (variants.size() - failures.size()) + " of " + variants.size()
+                                           + " installers");
+                System.out.println("Build time: " + new Date());
+            }
+            catch (Exception err)
+            {
+                // Something bad has happened
+                System.err.println("-> Fatal error :");
+                System.err.println("   " + err.getMessage());
+                err.printStackTrace();
+            }
+        }
+
+        // Closes the JVM
+        System.exit(exitCode);
+    }
+
+    /**
+     * An installer variant.
+     */
+    public static class Variant
+    {
+
+        /**
+         * The compiler data.
+         */
+        private final CompilerData compilerData;
+
+        /**
+         * The variant properties.
+         */
+        private final Properties properties;
+
+        /**
+         * Constructs a <tt>Variant</tt>.
+         *
+         * @param compilerData the compiler data, specifying the installation descriptor and output
+         * @param properties   the properties specific to the variant
+         */
+        public Variant(CompilerData compilerData, Properties properties)
+        {
+            this.compilerData = compilerData;
+            this.properties = properties;
+        }
+
+        /**
+         * Returns the compiler data.
+         *
+         * @return the compiler data
+         */
+        public CompilerData getCompilerData()
+        {
+            return compilerData;
+        }
+
+        /**
+         * Returns the variant properties.
+         *
+         * @return the properties
+         */
+        public Properties getProperties()
+        {
+            return properties;
+        }
+    }
+}
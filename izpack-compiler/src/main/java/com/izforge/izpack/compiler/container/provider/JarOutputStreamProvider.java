@@ -16,6 +16,14 @@ import java.util.zip.Deflater;
 public class JarOutputStreamProvider implements Provider
 {
 
+    /**
+     * System property to specify a fixed modification time for installer jar entries, in milliseconds since the
+     * epoch. If set, the entries don't depend on when or in which time zone the installation was built.
+     * <p/>
+     * Packs still record the modification times of their files, so builds are only identical if those are too.
+     */
+    public static final String TIMESTAMP = "izpack.compiler.timestamp";
+
     public JarOutputStream provide(CompilerData compilerData) throws IOException
     {
         JarOutputStream jarOutputStream;
@@ -39,6 +47,7 @@ public class JarOutputStreamProvider implements Provider
             jarOutputStream.setLevel(Deflater.BEST_COMPRESSION);
         }
         jarOutputStream.setPreventClose(true); // Needed at using FilterOutputStreams which calls close
+        jarOutputStream.setFixedTime(Long.getLong(TIMESTAMP, -1));
         return jarOutputStream;
     }
 }
@@ -0,0 +1,71 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.compiler.merge.resolve;
+
+import java.net.URL;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+
+/**
+ * Caches the classpath content crawled by {@link ClassPathCrawler}s, so that it can be shared by the crawlers of
+ * several compilations.
+ * <p/>
+ * The content is never refreshed, so a cache should only be shared by compilations that run at the same time, e.g.
+ * the variants compiled by a single {@link com.izforge.izpack.compiler.bootstrap.BatchCompiler#compile} call.
+ *
+ * @author agent
+ */
+public class ClassPathCache
+{
+
+    /**
+     * The classpath content, keyed on the classpath urls. The content is not modified once cached.
+     */
+    private final ConcurrentMap<Set<URL>, Map<String, Set<URL>>> content
+            = new ConcurrentHashMap<Set<URL>, Map<String, Set<URL>>>();
+
+
+    /**
+     * Returns the content of a classpath.
+     *
+     * @param urls the classpath urls
+     * @return the classpath content, keyed on file name, or {@code null} if it hasn't been cached
+     */
+    public Map<String, Set<URL>> get(Set<URL> urls)
+    {
+        return content.get(urls);
+    }
+
+    /**
+     * Caches the content of a classpath, if it hasn't already been cached.
+     *
+     * @param urls  the classpath urls
+     * @param value the classpath content, keyed on file name
+     * @return the cached content. This is the existing content, if another crawler cached it first
+     */
+    public Map<String, Set<URL>> put(Set<URL> urls, Map<String, Set<URL>> value)
+    {
+        Map<String, Set<URL>> existing = content.putIfAbsent(urls, value);
+        return (existing != null) ? existing : value;
+    }
+}
@@ -19,10 +19,14 @@ import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
  * Crawl and store a map of all files in classpath when we can't get package directly
+ * <p/>
+ * Crawling the classpath is expensive, so the map may be shared with other crawlers via a {@link ClassPathCache}.
+ * This avoids crawling the classpath for each installer when several are compiled at the same time.
  *
  * @author Anthonin Bonnefoy
  */
@@ -31,14 +35,31 @@ public class ClassPathCrawler
 
     private MergeableResolver mergeableResolver;
 
-    private HashMap<String, Set<URL>> classPathContentCache;
+    private Map<String, Set<URL>> classPathContentCache;
+
+    /**
+     * The cache shared with other crawlers. May be {@code null}.
+     */
+    private final ClassPathCache sharedCache;
 
 
     private static final List<String> acceptedJar = Arrays.asList(".*event.*", ".*panel.*", ".*izpack.*");
 
     public ClassPathCrawler(MergeableResolver mergeableResolver)
+    {
+        this(mergeableResolver, null);
+    }
+
+    /**
+     * Constructs a <tt>ClassPathCrawler</tt>.
+     *
+     * @param mergeableResolver the mergeable resolver
+     * @param sharedCache       the cache of classpath content shared with other crawlers. May be {@code null}
+     */
+    public ClassPathCrawler(MergeableResolver mergeableResolver, ClassPathCache sharedCache)
     {
         this.mergeableResolver = mergeableResolver;
+        this.sharedCache = sharedCache;
     }
 
 
@@ -59,10 +80,31 @@ public class ClassPathCrawler
         {
             return;
         }
-        classPathContentCache = new HashMap<String, Set<URL>>();
+        Set<URL> urls = getClassPathUrl();
+        Map<String, Set<URL>> content = (sharedCache != null) ? sharedCache.get(urls) : null;
+        if (content == null)
+        {
+            content = crawl(urls);
+            if (sharedCache != null)
+            {
+                content = sharedCache.put(urls, content);
+            }
+        }
+        classPathContentCache = content;
+    }
+
+    /**
+     * Crawls the classpath.
+     *
+     * @param urls the classpath urls
+     * @return the classpath content, keyed on file name
+     * @throws MergeException if the classpath cannot be crawled
+     */
+    private Map<String, Set<URL>> crawl(Set<URL> urls)
+    {
+        HashMap<String, Set<URL>> result = new HashMap<String, Set<URL>>();
         try
         {
-            Set<URL> urls = getClassPathUrl();
             for (URL url : urls)
             {
                 Mergeable mergeable = mergeableResolver.getMergeableFromURL(url);
@@ -77,7 +119,7 @@ public class ClassPathCrawler
                 {
                     for (File file : files)
                     {
-                        getOrCreateList(classPathContentCache, file.getName()).add(file.toURI().toURL());
+                        getOrCreateList(result, file.getName()).add(file.toURI().toURL());
                     }
                 }
             }
@@ -86,6 +128,7 @@ public class ClassPathCrawler
         {
             throw new MergeException(e);
         }
+        return result;
     }
 
     private Set<URL> getOrCreateList(HashMap<String, Set<URL>> classPathContentCache, String key)
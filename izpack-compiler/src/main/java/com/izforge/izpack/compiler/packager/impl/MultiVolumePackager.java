@@ -32,6 +32,7 @@ import org.apache.tools.zip.ZipEntry;
 import com.izforge.izpack.api.adaptator.IXMLElement;
 import com.izforge.izpack.api.data.Pack;
 import com.izforge.izpack.api.data.PackFile;
+import com.izforge.izpack.api.data.PackFileCodec;
 import com.izforge.izpack.api.data.XPackFile;
 import com.izforge.izpack.compiler.compressor.PackCompressor;
 import com.izforge.izpack.compiler.data.CompilerData;
@@ -310,6 +311,8 @@ public class MultiVolumePackager extends PackagerBase
     {
         // write the file meta-data
         Set<PackFile> files = packInfo.getPackFiles();
+        PackFileCodec codec = new PackFileCodec();
+        codec.writeHeader(packStream);
         packStream.writeInt(files.size());
 
         for (PackFile packfile : files)
@@ -332,7 +335,7 @@ public class MultiVolumePackager extends PackagerBase
             }
 
             // write pack file meta-data
-            packStream.writeObject(pf);
+            codec.write(pf, packStream);
             packStream.flush(); // make sure it is written
             // even if not written, it counts towards pack size
             pack.addSize(pf.length());
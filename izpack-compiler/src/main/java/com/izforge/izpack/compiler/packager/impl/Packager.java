@@ -38,6 +38,7 @@ import com.izforge.izpack.api.adaptator.IXMLElement;
 import com.izforge.izpack.api.adaptator.impl.XMLElementImpl;
 import com.izforge.izpack.api.data.Pack;
 import com.izforge.izpack.api.data.PackFile;
+import com.izforge.izpack.api.data.PackFileCodec;
 import com.izforge.izpack.compiler.compressor.PackCompressor;
 import com.izforge.izpack.compiler.data.CompilerData;
 import com.izforge.izpack.compiler.listener.PackagerListener;
@@ -150,8 +151,10 @@ public class Packager extends PackagerBase
 
             ByteCountingOutputStream dos = new ByteCountingOutputStream(outputStream);
             ObjectOutputStream objOut = new ObjectOutputStream(dos);
+            PackFileCodec codec = new PackFileCodec();
 
             // We write the actual pack files
+            codec.writeHeader(objOut);
             objOut.writeInt(packInfo.getPackFiles().size());
 
             for (PackFile packFile : packInfo.getPackFiles())
@@ -176,10 +179,12 @@ public class Packager extends PackagerBase
                     addFile = false;
                 }
 
-                objOut.writeObject(packFile); // base info
+                codec.write(packFile, objOut); // base info
 
                 if (addFile && !packFile.isDirectory())
                 {
+                    // the codec writes primitives, which are buffered until flushed
+                    objOut.flush();
                     long pos = dos.getByteCount(); // get the position
 
                     if (pack200)
@@ -40,12 +40,17 @@ import java.util.zip.ZipInputStream;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 
+import com.izforge.izpack.api.data.BinaryLangPack;
 import com.izforge.izpack.api.data.DynamicInstallerRequirementValidator;
 import com.izforge.izpack.api.data.DynamicVariable;
 import com.izforge.izpack.api.data.GUIPrefs;
 import com.izforge.izpack.api.data.Info;
 import com.izforge.izpack.api.data.InstallerRequirement;
+import com.izforge.izpack.api.data.LocaleDatabase;
+import com.izforge.izpack.api.data.PackFile;
+import com.izforge.izpack.api.data.PackFileCodec;
 import com.izforge.izpack.api.data.Panel;
+import com.izforge.izpack.api.exception.ResourceException;
 import com.izforge.izpack.api.rules.Condition;
 import com.izforge.izpack.compiler.compressor.PackCompressor;
 import com.izforge.izpack.compiler.data.CompilerData;
@@ -153,6 +158,18 @@ public abstract class PackagerBase implements IPackager
      */
     private List<String> langpackNameList = new ArrayList<String>();
 
+    /**
+     * The resource names of the XML langpacks added via {@link #addLangPack}.
+     */
+    private final Set<String> langPackResources = new HashSet<String>();
+
+    /**
+     * The names of the XML langpack resources read by the installer. These may be suffixed by the locale
+     * (e.g. packsLang.xml_eng).
+     */
+    private static final String[] LANGPACK_RESOURCES = {"CustomLangPack.xml", "packsLang.xml",
+                                                        "userInputLang.xml", "CustomActionsLang.xml"};
+
     /**
      * The ordered custom actions information.
      */
@@ -250,7 +267,9 @@ public abstract class PackagerBase implements IPackager
         // names
         langpackNameList.add(iso3);
         addResource("flag." + iso3, flagURL);
-        installerResourceURLMap.put("langpacks/" + iso3 + ".xml", xmlURL);
+        String name = "langpacks/" + iso3 + ".xml";
+        installerResourceURLMap.put(name, xmlURL);
+        langPackResources.add(name);
     }
 
     /* (non-Javadoc)
@@ -451,6 +470,7 @@ public abstract class PackagerBase implements IPackager
 
         // Pack File Data may be written to separate jars
         writePacks();
+        writePackIndexes();
     }
 
     /**
@@ -524,6 +544,33 @@ public abstract class PackagerBase implements IPackager
         }
     }
 
+    /**
+     * Writes the pack file meta-data of each pack to the installer jar.
+     * <p/>
+     * This enables the installer to plan an installation without reading the packs.
+     *
+     * @throws IOException for any I/O error
+     */
+    protected void writePackIndexes() throws IOException
+    {
+        for (PackInfo packInfo : packsList)
+        {
+            Set<PackFile> files = packInfo.getPackFiles();
+            installerJar.putNextEntry(new org.apache.tools.zip.ZipEntry(RESOURCES_PATH + "packs/index-"
+                                                                                + packInfo.getPack().getName()));
+            ObjectOutputStream out = new ObjectOutputStream(installerJar);
+            PackFileCodec codec = new PackFileCodec();
+            codec.writeHeader(out);
+            out.writeInt(files.size());
+            for (PackFile file : files)
+            {
+                codec.write(file, out);
+            }
+            out.flush();
+            installerJar.closeEntry();
+        }
+    }
+
     /**
      * Write the data referenced by URL to installer jar.
      *
@@ -550,7 +597,77 @@ public abstract class PackagerBase implements IPackager
             IoHelper.copyStream(in, installerJar);
             installerJar.closeEntry();
             in.close();
+
+            if (isLangPack(stringURLEntry.getKey()))
+            {
+                writeBinaryLangPack(stringURLEntry.getKey(), url, dateTime);
+            }
+        }
+    }
+
+    /**
+     * Determines if a resource is an XML langpack.
+     * <p/>
+     * A resource is a langpack if it was added via {@link #addLangPack}, or is one of the langpack resources
+     * read by the installer.
+     *
+     * @param name the resource name
+     * @return {@code true} if the resource is an XML langpack
+     */
+    protected boolean isLangPack(String name)
+    {
+        if (langPackResources.contains(name))
+        {
+            return true;
+        }
+        for (String resource : LANGPACK_RESOURCES)
+        {
+            if (name.equals(resource) || name.startsWith(resource + "_"))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Writes the {@link BinaryLangPack binary} form of an XML langpack, so that the installer doesn't need to parse
+     * the XML.
+     * <p/>
+     * Resources that aren't valid langpacks are ignored.
+     *
+     * @param name     the XML langpack resource name
+     * @param url      the XML langpack URL
+     * @param dateTime the XML langpack modification time, or {@code -1} if it is not known
+     * @throws IOException for any I/O error
+     */
+    protected void writeBinaryLangPack(String name, URL url, long dateTime) throws IOException
+    {
+        Map<String, String> messages;
+        InputStream in = url.openStream();
+        try
+        {
+            messages = new LocaleDatabase(in, null).getMessages();
+        }
+        catch (ResourceException exception)
+        {
+            sendMsg("Not a langpack: " + name + ": " + exception.getMessage(), PackagerListener.MSG_VERBOSE);
+            return;
+        }
+        finally
+        {
+            in.close();
+        }
+
+        org.apache.tools.zip.ZipEntry entry = new org.apache.tools.zip.ZipEntry(
+                RESOURCES_PATH + name + BinaryLangPack.SUFFIX);
+        if (dateTime != -1)
+        {
+            entry.setTime(dateTime);
         }
+        installerJar.putNextEntry(entry);
+        BinaryLangPack.write(messages, installerJar);
+        installerJar.closeEntry();
     }
 
     /**
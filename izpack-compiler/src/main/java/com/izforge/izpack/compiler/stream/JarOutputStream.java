@@ -26,6 +26,7 @@ import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.TimeZone;
 import java.util.jar.JarFile;
 import java.util.jar.Manifest;
 //import java.util.zip.ZipException;
@@ -46,6 +47,9 @@ import java.util.jar.Manifest;
  * java.util.jar.JarOutputStream. Therefore we create an own class
  * which supports it. Really the hole work will be delegated to the
  * ZipOutputStream from the apache team which solves the problem.
+ * <p/>
+ * A {@link #setFixedTime fixed time} may be set for all entries, so that the entries don't depend on when the jar
+ * was built.
  *
  * @author Klaus Bartz
  */
@@ -55,6 +59,11 @@ public class JarOutputStream extends org.apache.tools.zip.ZipOutputStream
     private boolean firstEntry = true;
     private boolean preventClose = false;
 
+    /**
+     * The modification time for all entries, or <tt>-1</tt> to use the entry times.
+     */
+    private long fixedTime = -1;
+
     /**
      * Creates a new <code>JarOutputStream</code> with no manifest.
      * Using this constructor it will be NOT possible to write
@@ -142,9 +151,26 @@ public class JarOutputStream extends org.apache.tools.zip.ZipOutputStream
             ze.setExtra(edata);
             firstEntry = false;
         }
+        if (fixedTime != -1)
+        {
+            ze.setTime(getLocalTime(fixedTime, TimeZone.getDefault()));
+        }
         super.putNextEntry(ze);
     }
 
+    /**
+     * Sets a modification time to use for all subsequent entries.
+     * <p/>
+     * Entry times are stored as local date and time fields. The fields of the fixed time are those of UTC, so
+     * that they don't depend on the time zone of the build.
+     *
+     * @param time the time, in milliseconds since the epoch, or <tt>-1</tt> to use the entry times
+     */
+    public void setFixedTime(long time)
+    {
+        fixedTime = time;
+    }
+
     /**
      * @return Returns the preventClose.
      */
@@ -201,6 +227,20 @@ public class JarOutputStream extends org.apache.tools.zip.ZipOutputStream
         close();
     }
 
+    /**
+     * Returns the time in a time zone that has the same date and time fields as a time in UTC.
+     *
+     * @param time the time, in milliseconds since the epoch
+     * @param zone the time zone
+     * @return the local time
+     */
+    static long getLocalTime(long time, TimeZone zone)
+    {
+        long result = time - zone.getOffset(time);
+        // the offset may differ either side of a daylight saving transition
+        return time - zone.getOffset(result);
+    }
+
     /*
      * Returns true if specified byte array contains the
      * jar magic extra field id.
@@ -0,0 +1,226 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.compiler.bootstrap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.ObjectInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.zip.ZipFile;
+
+import org.apache.commons.cli.ParseException;
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.izforge.izpack.api.data.Info;
+import com.izforge.izpack.compiler.bootstrap.BatchCompiler.Variant;
+import com.izforge.izpack.compiler.data.CompilerData;
+import com.izforge.izpack.compiler.merge.resolve.ClassPathCache;
+import com.izforge.izpack.util.FileUtil;
+
+
+/**
+ * Tests the {@link BatchCompiler} class.
+ *
+ * @author agent
+ */
+public class BatchCompilerTest
+{
+
+    /**
+     * Temporary folder.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+
+    /**
+     * Verifies that variants of the same installation are compiled concurrently, each with its own properties.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testCompile() throws Exception
+    {
+        File installFile = FileUtil.convertUrlToFile(getClass().getClassLoader().getResource("samples/variant.xml"));
+        String baseDir = installFile.getParentFile().getAbsolutePath();
+
+        List<Variant> variants = new ArrayList<Variant>();
+        for (String name : Arrays.asList("Foo", "Bar", "Baz"))
+        {
+            File output = new File(temporaryFolder.getRoot(), name + ".jar");
+            CompilerData data = new CompilerData(installFile.getAbsolutePath(), baseDir, output.getAbsolutePath(),
+                                                 false);
+            Properties properties = new Properties();
+            properties.setProperty("app.name", name);
+            variants.add(new Variant(data, properties));
+        }
+
+        Map<Variant, Throwable> failures = new BatchCompiler(3).compile(variants);
+        assertTrue(failures.isEmpty());
+
+        for (Variant variant : variants)
+        {
+            Info info = getInfo(new File(variant.getCompilerData().getOutput()));
+            assertEquals(variant.getProperties().getProperty("app.name"), info.getAppName());
+        }
+    }
+
+    /**
+     * Tests the {@link BatchCompiler#readVariants(String)} method.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testReadVariants() throws Exception
+    {
+        File batch = temporaryFolder.newFile("batch.txt");
+        FileUtils.writeLines(batch, Arrays.asList(
+                "# comment",
+                "install.xml -b base -o out/install-en.jar -Dlocale=eng -Dbrand=acme",
+                "",
+                "install.xml -o out/install-fr.jar -Dlocale=fra"));
+
+        List<Variant> variants = BatchCompiler.readVariants(batch.getPath());
+        assertEquals(2, variants.size());
+
+        Variant english = variants.get(0);
+        assertEquals("install.xml", english.getCompilerData().getInstallFile());
+        assertEquals("base", english.getCompilerData().getBasedir());
+        assertEquals("out/install-en.jar", english.getCompilerData().getOutput());
+        assertEquals(2, english.getProperties().size());
+        assertEquals("eng", english.getProperties().getProperty("locale"));
+        assertEquals("acme", english.getProperties().getProperty("brand"));
+
+        Variant french = variants.get(1);
+        assertEquals("out/install-fr.jar", french.getCompilerData().getOutput());
+        assertEquals(1, french.getProperties().size());
+        assertEquals("fra", french.getProperties().getProperty("locale"));
+    }
+
+    /**
+     * Verifies that {@link BatchCompiler#readVariants(String)} supports quoted arguments.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testReadVariantsWithQuotes() throws Exception
+    {
+        File batch = temporaryFolder.newFile("batch.txt");
+        FileUtils.writeLines(batch, Arrays.asList(
+                "install.xml -o \"out/install en.jar\" \"-Dbrand=Acme Corp\" '-Dtitle=The \"Best\" App'"));
+
+        List<Variant> variants = BatchCompiler.readVariants(batch.getPath());
+        assertEquals(1, variants.size());
+        Variant variant = variants.get(0);
+        assertEquals("out/install en.jar", variant.getCompilerData().getOutput());
+        assertEquals("Acme Corp", variant.getProperties().getProperty("brand"));
+        assertEquals("The \"Best\" App", variant.getProperties().getProperty("title"));
+    }
+
+    /**
+     * Verifies that {@link BatchCompiler#readVariants(String)} rejects lines with unbalanced quotes.
+     *
+     * @throws Exception for any error
+     */
+    @Test(expected = ParseException.class)
+    public void testReadVariantsWithUnbalancedQuotes() throws Exception
+    {
+        File batch = temporaryFolder.newFile("batch.txt");
+        FileUtils.writeLines(batch, Arrays.asList("install.xml -o out/install.jar \"-Dbrand=Acme Corp"));
+        BatchCompiler.readVariants(batch.getPath());
+    }
+
+    /**
+     * Verifies that {@link BatchCompiler#readVariants(String)} rejects variants that specify the IzPack home.
+     *
+     * @throws Exception for any error
+     */
+    @Test(expected = ParseException.class)
+    public void testReadVariantsWithIzPackHome() throws Exception
+    {
+        File batch = temporaryFolder.newFile("batch.txt");
+        FileUtils.writeLines(batch, Arrays.asList("install.xml -h /opt/izpack -o out/install-en.jar"));
+        BatchCompiler.readVariants(batch.getPath());
+    }
+
+    /**
+     * Verifies that the classpath content is shared by the variants of a single compilation only.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testClassPathCacheScope() throws Exception
+    {
+        final Set<ClassPathCache> caches = Collections.synchronizedSet(new HashSet<ClassPathCache>());
+        BatchCompiler compiler = new BatchCompiler(2)
+        {
+            @Override
+            protected void compile(Variant variant, ClassPathCache cache)
+            {
+                caches.add(cache);
+            }
+        };
+        List<Variant> variants = new ArrayList<Variant>();
+        for (int i = 0; i < 3; ++i)
+        {
+            variants.add(new Variant(new CompilerData("install.xml", ".", "out" + i + ".jar", false),
+                                     new Properties()));
+        }
+
+        assertTrue(compiler.compile(variants).isEmpty());
+        assertEquals(1, caches.size());
+
+        assertTrue(compiler.compile(variants).isEmpty());
+        assertEquals(2, caches.size());
+    }
+
+    /**
+     * Reads the installation information from an installer.
+     *
+     * @param installer the installer
+     * @return the installation information
+     * @throws Exception for any error
+     */
+    private Info getInfo(File installer) throws Exception
+    {
+        ZipFile zip = new ZipFile(installer);
+        try
+        {
+            ObjectInputStream in = new ObjectInputStream(zip.getInputStream(zip.getEntry("resources/info")));
+            return (Info) in.readObject();
+        }
+        finally
+        {
+            zip.close();
+        }
+    }
+}
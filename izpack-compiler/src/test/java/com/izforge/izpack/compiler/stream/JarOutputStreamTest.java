@@ -0,0 +1,186 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.compiler.stream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+
+/**
+ * Tests the {@link JarOutputStream} class.
+ *
+ * @author agent
+ */
+public class JarOutputStreamTest
+{
+
+    /**
+     * Temporary folder.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * The fixed entry time, 2012-01-01 00:00 UTC.
+     */
+    private static final long TIME = 1325376000000L;
+
+
+    /**
+     * Verifies that jars written with a fixed time are identical, regardless of when their entries were created.
+     *
+     * @throws IOException for any I/O error
+     */
+    @Test
+    public void testFixedTime() throws IOException
+    {
+        List<byte[]> contents = createContents();
+
+        File first = write(contents, TIME - 86400000L, "first.jar");
+        File second = write(contents, System.currentTimeMillis(), "second.jar");
+
+        assertArrayEquals(FileUtils.readFileToByteArray(first), FileUtils.readFileToByteArray(second));
+
+        ZipInputStream in = new ZipInputStream(new FileInputStream(second));
+        try
+        {
+            Calendar calendar = Calendar.getInstance();
+            for (int i = 0; i < contents.size(); ++i)
+            {
+                ZipEntry entry = in.getNextEntry();
+                assertEquals("entry" + i, entry.getName());
+                calendar.setTimeInMillis(entry.getTime());
+                assertEquals(2012, calendar.get(Calendar.YEAR));
+                assertEquals(Calendar.JANUARY, calendar.get(Calendar.MONTH));
+                assertEquals(1, calendar.get(Calendar.DAY_OF_MONTH));
+                assertEquals(0, calendar.get(Calendar.HOUR_OF_DAY));
+                assertArrayEquals(contents.get(i), IOUtils.toByteArray(in));
+            }
+            assertNull(in.getNextEntry());
+        }
+        finally
+        {
+            in.close();
+        }
+    }
+
+    /**
+     * Verifies that the fixed time has the date and time fields of UTC, in any time zone.
+     */
+    @Test
+    public void testLocalTime()
+    {
+        Calendar utc = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        utc.setTimeInMillis(TIME);
+        for (String id : new String[]{"UTC", "Australia/Sydney", "America/New_York", "Asia/Kolkata"})
+        {
+            TimeZone zone = TimeZone.getTimeZone(id);
+            Calendar local = Calendar.getInstance(zone);
+            local.setTimeInMillis(JarOutputStream.getLocalTime(TIME, zone));
+            assertEquals(id, utc.get(Calendar.YEAR), local.get(Calendar.YEAR));
+            assertEquals(id, utc.get(Calendar.DAY_OF_YEAR), local.get(Calendar.DAY_OF_YEAR));
+            assertEquals(id, utc.get(Calendar.HOUR_OF_DAY), local.get(Calendar.HOUR_OF_DAY));
+            assertEquals(id, utc.get(Calendar.MINUTE), local.get(Calendar.MINUTE));
+        }
+    }
+
+    /**
+     * Creates entry contents, including an empty entry, and a large one.
+     *
+     * @return the entry contents
+     */
+    private List<byte[]> createContents()
+    {
+        Random random = new Random(42);
+        List<byte[]> result = new ArrayList<byte[]>();
+        for (int i = 0; i < 50; ++i)
+        {
+            int size = (i == 10) ? 0 : (i == 20) ? 5 * 1024 * 1024 : random.nextInt(100000);
+            byte[] data = new byte[size];
+            for (int j = 0; j < size; ++j)
+            {
+                // compressible data
+                data[j] = (byte) ('a' + random.nextInt(4));
+            }
+            result.add(data);
+        }
+        return result;
+    }
+
+    /**
+     * Writes a jar.
+     * <p/>
+     * Every 7th entry is stored rather than deflated. Entries are written in 64KB chunks.
+     *
+     * @param contents the entry contents
+     * @param time     the entry modification time
+     * @param name     the jar name
+     * @return the jar
+     * @throws IOException for any I/O error
+     */
+    private File write(List<byte[]> contents, long time, String name) throws IOException
+    {
+        File file = new File(temporaryFolder.getRoot(), name);
+        JarOutputStream out = new JarOutputStream(file);
+        out.setLevel(9);
+        out.setFixedTime(TIME);
+        for (int i = 0; i < contents.size(); ++i)
+        {
+            byte[] data = contents.get(i);
+            org.apache.tools.zip.ZipEntry entry = new org.apache.tools.zip.ZipEntry("entry" + i);
+            entry.setTime(time);
+            if (i % 7 == 6)
+            {
+                CRC32 crc = new CRC32();
+                crc.update(data);
+                entry.setMethod(org.apache.tools.zip.ZipEntry.STORED);
+                entry.setSize(data.length);
+                entry.setCrc(crc.getValue());
+            }
+            out.putNextEntry(entry);
+            for (int offset = 0; offset < data.length; offset += 65536)
+            {
+                out.write(data, offset, Math.min(65536, data.length - offset));
+            }
+            out.closeEntry();
+        }
+        out.closeAlways();
+        return file;
+    }
+}
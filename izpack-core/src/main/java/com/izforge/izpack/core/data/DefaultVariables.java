@@ -3,6 +3,11 @@ package com.izforge.izpack.core.data;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -12,6 +17,9 @@ import com.izforge.izpack.api.exception.IzPackException;
 import com.izforge.izpack.api.rules.RulesEngine;
 import com.izforge.izpack.api.substitutor.VariableSubstitutor;
 import com.izforge.izpack.core.substitutor.VariableSubstitutorImpl;
+import com.izforge.izpack.core.trace.TraceRecorder;
+import com.izforge.izpack.core.variable.ValueCache;
+import com.izforge.izpack.core.variable.ValueImpl;
 
 
 /**
@@ -42,6 +50,25 @@ public class DefaultVariables implements Variables
      */
     private RulesEngine rules;
 
+    /**
+     * The recorder of variable writes. May be {@code null}.
+     */
+    private final TraceRecorder recorder;
+
+    /**
+     * The cache of dynamic variable sources.
+     */
+    private final ValueCache cache;
+
+    /**
+     * The no. of dynamic variables whose sources have been prefetched.
+     */
+    private int prefetched;
+
+    /**
+     * The maximum no. of threads used to prefetch dynamic variable sources.
+     */
+    private static final int MAX_PREFETCH_THREADS = 8;
 
     /**
      * The logger.
@@ -62,8 +89,33 @@ public class DefaultVariables implements Variables
      * @param properties the properties
      */
     public DefaultVariables(Properties properties)
+    {
+        this(properties, new ValueCache());
+    }
+
+    /**
+     * Constructs a <tt>DefaultVariables</tt>, from properties.
+     *
+     * @param properties the properties
+     * @param cache      the cache of dynamic variable sources
+     */
+    public DefaultVariables(Properties properties, ValueCache cache)
+    {
+        this(properties, cache, null);
+    }
+
+    /**
+     * Constructs a <tt>DefaultVariables</tt>, from properties.
+     *
+     * @param properties the properties
+     * @param cache      the cache of dynamic variable sources
+     * @param recorder   the recorder of variable writes. May be {@code null}
+     */
+    public DefaultVariables(Properties properties, ValueCache cache, TraceRecorder recorder)
     {
         this.properties = properties;
+        this.cache = cache;
+        this.recorder = recorder;
         replacer = new VariableSubstitutorImpl(properties);
     }
 
@@ -94,6 +146,10 @@ public class DefaultVariables implements Variables
         {
             properties.remove(name);
         }
+        if (recorder != null)
+        {
+            recorder.variable(name, value);
+        }
     }
 
     /**
@@ -274,6 +330,25 @@ public class DefaultVariables implements Variables
      */
     @Override
     public synchronized void refresh()
+    {
+        cache.startRefresh();
+        try
+        {
+            prefetch();
+            evaluate();
+        }
+        finally
+        {
+            cache.endRefresh();
+        }
+    }
+
+    /**
+     * Evaluates dynamic variables, in the order they were added.
+     *
+     * @throws IzPackException if variables cannot be evaluated
+     */
+    private void evaluate()
     {
         for (DynamicVariable variable : dynamicVariables)
         {
@@ -319,6 +394,67 @@ public class DefaultVariables implements Variables
         }
     }
 
+    /**
+     * Loads the sources of unconditional dynamic variables concurrently, ahead of their first evaluation.
+     * <p/>
+     * Sources are determined from the variables before evaluation. Those that depend on other dynamic variables may
+     * differ when evaluated, and are then loaded again. Variables are still evaluated in order, from the loaded
+     * sources. Any failure is reported on evaluation.
+     * <p/>
+     * Dynamic variables added since the last refresh are also given the cache.
+     */
+    private void prefetch()
+    {
+        List<ValueImpl> values = new ArrayList<ValueImpl>();
+        for (DynamicVariable variable : dynamicVariables.subList(prefetched, dynamicVariables.size()))
+        {
+            if (variable.getValue() instanceof ValueImpl)
+            {
+                ValueImpl value = (ValueImpl) variable.getValue();
+                value.setValueCache(cache);
+                if (variable.getConditionid() == null)
+                {
+                    values.add(value);
+                }
+            }
+        }
+        prefetched = dynamicVariables.size();
+        if (values.size() > 1)
+        {
+            int threads = Math.min(values.size(), MAX_PREFETCH_THREADS);
+            ExecutorService executor = Executors.newFixedThreadPool(threads, new PrefetchThreadFactory());
+            for (final ValueImpl value : values)
+            {
+                executor.execute(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        try
+                        {
+                            value.prefetch(replacer);
+                        }
+                        catch (Exception exception)
+                        {
+                            logger.log(Level.FINE, "Failed to prefetch dynamic variable value: " + exception,
+                                       exception);
+                        }
+                    }
+                });
+            }
+            executor.shutdown();
+            try
+            {
+                executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            }
+            catch (InterruptedException exception)
+            {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
     /**
      * Exposes the variables as properties.
      *
@@ -330,4 +466,30 @@ public class DefaultVariables implements Variables
         return properties;
     }
 
+    /**
+     * Creates daemon threads to prefetch dynamic variable sources.
+     */
+    private static class PrefetchThreadFactory implements ThreadFactory
+    {
+
+        /**
+         * The thread counter.
+         */
+        private final AtomicInteger count = new AtomicInteger();
+
+        /**
+         * Constructs a new thread.
+         *
+         * @param runnable the runnable to run
+         * @return a new thread
+         */
+        @Override
+        public Thread newThread(Runnable runnable)
+        {
+            Thread thread = new Thread(runnable, "IzPack-variables-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
 }
@@ -0,0 +1,68 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.core.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * A thread safe counter.
+ *
+ * @author agent
+ * @see Metrics#getCounter(String)
+ */
+public class Counter
+{
+
+    /**
+     * The count.
+     */
+    private final AtomicLong count = new AtomicLong();
+
+
+    /**
+     * Increments the counter by one.
+     */
+    public void increment()
+    {
+        count.incrementAndGet();
+    }
+
+    /**
+     * Adds to the counter.
+     *
+     * @param value the value to add
+     */
+    public void add(long value)
+    {
+        count.addAndGet(value);
+    }
+
+    /**
+     * Returns the count.
+     *
+     * @return the count
+     */
+    public long getCount()
+    {
+        return count.get();
+    }
+
+}
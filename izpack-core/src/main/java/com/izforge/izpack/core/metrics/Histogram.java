@@ -0,0 +1,168 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.core.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/**
+ * A thread safe histogram of non-negative values.
+ * <p/>
+ * Values are counted in power-of-two buckets, so recording is constant time and space, and percentiles are
+ * approximate; a percentile is reported as the upper bound of the bucket it falls in, capped at the maximum value.
+ *
+ * @author agent
+ * @see Metrics#getHistogram(String)
+ */
+public class Histogram
+{
+
+    /**
+     * The bucket counts. Bucket <em>0</em> counts zero, and bucket <em>n</em> counts values in the range
+     * <em>[2^(n-1), 2^n)</em>.
+     */
+    private final AtomicLongArray buckets = new AtomicLongArray(Long.SIZE);
+
+    /**
+     * The no. of values.
+     */
+    private final AtomicLong count = new AtomicLong();
+
+    /**
+     * The sum of the values.
+     */
+    private final AtomicLong sum = new AtomicLong();
+
+    /**
+     * The minimum value.
+     */
+    private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+
+    /**
+     * The maximum value.
+     */
+    private final AtomicLong max = new AtomicLong(Long.MIN_VALUE);
+
+
+    /**
+     * Records a value.
+     *
+     * @param value the value. Negative values are recorded as {@code 0}
+     */
+    public void update(long value)
+    {
+        if (value < 0)
+        {
+            value = 0;
+        }
+        buckets.incrementAndGet(Long.SIZE - Long.numberOfLeadingZeros(value));
+        count.incrementAndGet();
+        sum.addAndGet(value);
+        long current;
+        while (value < (current = min.get()) && !min.compareAndSet(current, value))
+        {
+            // retry
+        }
+        while (value > (current = max.get()) && !max.compareAndSet(current, value))
+        {
+            // retry
+        }
+    }
+
+    /**
+     * Returns the no. of values recorded.
+     *
+     * @return the no. of values
+     */
+    public long getCount()
+    {
+        return count.get();
+    }
+
+    /**
+     * Returns the sum of the values recorded.
+     *
+     * @return the sum of the values
+     */
+    public long getSum()
+    {
+        return sum.get();
+    }
+
+    /**
+     * Returns the minimum value recorded.
+     *
+     * @return the minimum value, or {@code 0} if no values have been recorded
+     */
+    public long getMin()
+    {
+        return getCount() != 0 ? min.get() : 0;
+    }
+
+    /**
+     * Returns the maximum value recorded.
+     *
+     * @return the maximum value, or {@code 0} if no values have been recorded
+     */
+    public long getMax()
+    {
+        return getCount() != 0 ? max.get() : 0;
+    }
+
+    /**
+     * Returns the mean of the values recorded.
+     *
+     * @return the mean, or {@code 0} if no values have been recorded
+     */
+    public double getMean()
+    {
+        long n = getCount();
+        return n != 0 ? (double) getSum() / n : 0;
+    }
+
+    /**
+     * Returns an approximate percentile.
+     *
+     * @param percentile the percentile, in the range {@code (0, 100]}
+     * @return the approximate value at the percentile, or {@code 0} if no values have been recorded
+     */
+    public long getPercentile(double percentile)
+    {
+        long n = getCount();
+        if (n == 0)
+        {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(n * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < Long.SIZE; ++i)
+        {
+            seen += buckets.get(i);
+            if (seen >= rank)
+            {
+                long upper = (1L << i) - 1;
+                return Math.max(Math.min(upper, getMax()), getMin());
+            }
+        }
+        return getMax();
+    }
+
+}
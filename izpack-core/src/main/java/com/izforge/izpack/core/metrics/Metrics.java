@@ -0,0 +1,501 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.core.metrics;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.izforge.izpack.util.file.FileUtils;
+
+
+/**
+ * A registry of named {@link Counter counters}, {@link Timer timers}, {@link Histogram histograms} and
+ * {@link Timeline timelines}, used to record where installation time goes.
+ * <p/>
+ * The installer registers a registry with its container. The unpacker, installer listeners, variable substitution,
+ * the rules engine and the file queue feed it, and the installers {@link #report() report} it when installation
+ * completes.
+ * <p/>
+ * Metrics are reported as a single line of JSON. Timers are reported in milliseconds, and counters include their
+ * rate per second since the registry was created or last {@link #reset() reset}.
+ * <p/>
+ * If the {@link #FILE} and {@link #INTERVAL} system properties are set, the metrics may also be
+ * {@link #stream() streamed} to the file while installation proceeds.
+ *
+ * @author agent
+ */
+public class Metrics
+{
+
+    /**
+     * System property naming a file to append reports to, one JSON document per line.
+     */
+    public static final String FILE = "izpack.metrics.file";
+
+    /**
+     * System property specifying the interval, in seconds, at which to append reports to the {@link #FILE} while
+     * installation proceeds.
+     */
+    public static final String INTERVAL = "izpack.metrics.interval";
+
+    /**
+     * The percentiles reported for timers and histograms.
+     */
+    private static final int[] PERCENTILES = {50, 90, 99};
+
+    /**
+     * The counters, keyed on name.
+     */
+    private final ConcurrentMap<String, Counter> counters = new ConcurrentHashMap<String, Counter>();
+
+    /**
+     * The timers, keyed on name.
+     */
+    private final ConcurrentMap<String, Timer> timers = new ConcurrentHashMap<String, Timer>();
+
+    /**
+     * The histograms, keyed on name.
+     */
+    private final ConcurrentMap<String, Histogram> histograms = new ConcurrentHashMap<String, Histogram>();
+
+    /**
+     * The timelines, keyed on name.
+     */
+    private final ConcurrentMap<String, Timeline> timelines = new ConcurrentHashMap<String, Timeline>();
+
+    /**
+     * The time when the registry was created or reset, in nanoseconds.
+     */
+    private volatile long start = System.nanoTime();
+
+    /**
+     * The executor used to stream reports, or {@code null} if they aren't being streamed.
+     */
+    private ScheduledExecutorService streamer;
+
+    /**
+     * The logger.
+     */
+    private static final Logger logger = Logger.getLogger(Metrics.class.getName());
+
+
+    /**
+     * Returns a counter, creating it if it doesn't exist.
+     *
+     * @param name the counter name
+     * @return the counter
+     */
+    public Counter getCounter(String name)
+    {
+        Counter result = counters.get(name);
+        if (result == null)
+        {
+            Counter counter = new Counter();
+            result = counters.putIfAbsent(name, counter);
+            if (result == null)
+            {
+                result = counter;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns a timer, creating it if it doesn't exist.
+     *
+     * @param name the timer name
+     * @return the timer
+     */
+    public Timer getTimer(String name)
+    {
+        Timer result = timers.get(name);
+        if (result == null)
+        {
+            Timer timer = new Timer();
+            result = timers.putIfAbsent(name, timer);
+            if (result == null)
+            {
+                result = timer;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns a histogram, creating it if it doesn't exist.
+     *
+     * @param name the histogram name
+     * @return the histogram
+     */
+    public Histogram getHistogram(String name)
+    {
+        Histogram result = histograms.get(name);
+        if (result == null)
+        {
+            Histogram histogram = new Histogram();
+            result = histograms.putIfAbsent(name, histogram);
+            if (result == null)
+            {
+                result = histogram;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns a timeline, creating it if it doesn't exist.
+     * <p/>
+     * A timeline starts when it is created.
+     *
+     * @param name the timeline name
+     * @return the timeline
+     */
+    public Timeline getTimeline(String name)
+    {
+        Timeline result = timelines.get(name);
+        if (result == null)
+        {
+            Timeline timeline = new Timeline(name, this);
+            result = timelines.putIfAbsent(name, timeline);
+            if (result == null)
+            {
+                result = timeline;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Removes all metrics.
+     */
+    public void reset()
+    {
+        counters.clear();
+        timers.clear();
+        histograms.clear();
+        timelines.clear();
+        start = System.nanoTime();
+    }
+
+    /**
+     * Determines if the metrics will be reported anywhere.
+     * <p/>
+     * Callers may use this to avoid the cost of collecting metrics that are never reported.
+     *
+     * @return {@code true} if the {@link #FILE} system property is set, or metrics are logged
+     */
+    public boolean isEnabled()
+    {
+        return getPath() != null || logger.isLoggable(getLogLevel());
+    }
+
+    /**
+     * Starts streaming reports to the file named by the {@link #FILE} system property, at the interval given by the
+     * {@link #INTERVAL} system property.
+     * <p/>
+     * This does nothing if either property isn't set, or reports are already being streamed. Streaming stops when
+     * the metrics are {@link #report() reported}.
+     */
+    public void stream()
+    {
+        long interval = 0;
+        try
+        {
+            interval = Long.parseLong(System.getProperty(INTERVAL, "0"));
+        }
+        catch (NumberFormatException exception)
+        {
+            logger.warning("Invalid " + INTERVAL + ": " + System.getProperty(INTERVAL));
+        }
+        String path = getPath();
+        if (path != null && interval > 0)
+        {
+            stream(path, interval, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Starts streaming reports to a file.
+     * <p/>
+     * This does nothing if reports are already being streamed.
+     *
+     * @param path     the file path
+     * @param interval the interval between reports
+     * @param unit     the interval units
+     */
+    synchronized void stream(final String path, long interval, TimeUnit unit)
+    {
+        if (streamer == null)
+        {
+            streamer = Executors.newSingleThreadScheduledExecutor(new StreamerFactory());
+            streamer.scheduleAtFixedRate(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    synchronized (Metrics.this)
+                    {
+                        // don't write once the metrics have been reported
+                        if (streamer != null)
+                        {
+                            write(path, toJSON());
+                        }
+                    }
+                }
+            }, interval, interval, unit);
+        }
+    }
+
+    /**
+     * Reports the metrics.
+     * <p/>
+     * The metrics are logged at the {@link #getLogLevel() log level}, and appended to the file named by the
+     * {@link #FILE} system property, if set. Any {@link #stream() streaming} is stopped first.
+     */
+    public void report()
+    {
+        synchronized (this)
+        {
+            if (streamer != null)
+            {
+                streamer.shutdownNow();
+                streamer = null;
+            }
+        }
+        String path = getPath();
+        Level level = getLogLevel();
+        if (path == null && !logger.isLoggable(level))
+        {
+            return;
+        }
+        String json = toJSON();
+        logger.log(level, "Installation metrics: " + json);
+        if (path != null)
+        {
+            write(path, json);
+        }
+    }
+
+    /**
+     * Appends a report to a file.
+     * <p/>
+     * This is synchronized, so that streamed reports and the final report aren't interleaved.
+     *
+     * @param path the file path
+     * @param json the report
+     */
+    private synchronized void write(String path, String json)
+    {
+        Writer writer = null;
+        try
+        {
+            writer = new OutputStreamWriter(new FileOutputStream(new File(path), true), "UTF-8");
+            writer.write(json);
+            writer.write('\n');
+        }
+        catch (IOException exception)
+        {
+            logger.log(Level.WARNING, "Failed to write metrics to " + path + ": " + exception.getMessage(),
+                       exception);
+        }
+        finally
+        {
+            FileUtils.close(writer);
+        }
+    }
+
+    /**
+     * Returns the path of the file to append reports to.
+     *
+     * @return the value of the {@link #FILE} system property, or {@code null} if it isn't set
+     */
+    private static String getPath()
+    {
+        String path = System.getProperty(FILE);
+        return (path != null && path.length() != 0) ? path : null;
+    }
+
+    /**
+     * Returns the level to log metrics at.
+     *
+     * @return {@link Level#INFO} if the {@link #FILE} system property is set, otherwise {@link Level#FINE}
+     */
+    public static Level getLogLevel()
+    {
+        return (getPath() != null) ? Level.INFO : Level.FINE;
+    }
+
+    /**
+     * Returns the metrics as JSON.
+     *
+     * @return the metrics, as a single line of JSON
+     */
+    public String toJSON()
+    {
+        double seconds = (System.nanoTime() - start) / 1e9;
+        StringBuilder result = new StringBuilder("{");
+        append(result, "timestamp").append(System.currentTimeMillis());
+        result.append(',');
+        append(result, "elapsedMs").append(format(seconds * 1000));
+
+        result.append(',');
+        append(result, "counters").append('{');
+        String separator = "";
+        for (Map.Entry<String, Counter> entry : new TreeMap<String, Counter>(counters).entrySet())
+        {
+            long count = entry.getValue().getCount();
+            result.append(separator);
+            append(result, entry.getKey()).append('{');
+            append(result, "count").append(count).append(',');
+            append(result, "perSecond").append(format(seconds > 0 ? count / seconds : 0)).append('}');
+            separator = ",";
+        }
+        result.append('}');
+
+        result.append(',');
+        append(result, "timers").append('{');
+        separator = "";
+        for (Map.Entry<String, Timer> entry : new TreeMap<String, Timer>(timers).entrySet())
+        {
+            result.append(separator);
+            append(result, entry.getKey());
+            append(result, entry.getValue().getTimes(), 1e-6, "Ms");
+            separator = ",";
+        }
+        result.append('}');
+
+        result.append(',');
+        append(result, "histograms").append('{');
+        separator = "";
+        for (Map.Entry<String, Histogram> entry : new TreeMap<String, Histogram>(histograms).entrySet())
+        {
+            result.append(separator);
+            append(result, entry.getKey());
+            append(result, entry.getValue(), 1, "");
+            separator = ",";
+        }
+        result.append("}}");
+        return result.toString();
+    }
+
+    /**
+     * Appends a histogram as a JSON object.
+     *
+     * @param buffer    the buffer to append to
+     * @param histogram the histogram
+     * @param scale     the scale to apply to values
+     * @param suffix    the suffix to append to value names
+     */
+    private void append(StringBuilder buffer, Histogram histogram, double scale, String suffix)
+    {
+        buffer.append('{');
+        append(buffer, "count").append(histogram.getCount()).append(',');
+        append(buffer, (suffix.length() == 0) ? "sum" : "total" + suffix).append(format(histogram.getSum() * scale));
+        buffer.append(',');
+        append(buffer, "min" + suffix).append(format(histogram.getMin() * scale)).append(',');
+        append(buffer, "max" + suffix).append(format(histogram.getMax() * scale)).append(',');
+        append(buffer, "mean" + suffix).append(format(histogram.getMean() * scale));
+        for (int percentile : PERCENTILES)
+        {
+            buffer.append(',');
+            append(buffer, "p" + percentile + suffix).append(format(histogram.getPercentile(percentile) * scale));
+        }
+        buffer.append('}');
+    }
+
+    /**
+     * Appends a quoted name, followed by a colon.
+     *
+     * @param buffer the buffer to append to
+     * @param name   the name
+     * @return the buffer
+     */
+    private StringBuilder append(StringBuilder buffer, String name)
+    {
+        buffer.append('"');
+        for (int i = 0; i < name.length(); ++i)
+        {
+            char ch = name.charAt(i);
+            if (ch == '"' || ch == '\\')
+            {
+                buffer.append('\\').append(ch);
+            }
+            else if (ch < ' ')
+            {
+                buffer.append(String.format("\\u%04x", (int) ch));
+            }
+            else
+            {
+                buffer.append(ch);
+            }
+        }
+        return buffer.append("\":");
+    }
+
+    /**
+     * Formats a value to at most 3 decimal places.
+     *
+     * @param value the value
+     * @return the formatted value
+     */
+    private String format(double value)
+    {
+        long rounded = Math.round(value * 1000);
+        if (rounded % 1000 == 0)
+        {
+            return Long.toString(rounded / 1000);
+        }
+        return Double.toString(rounded / 1000.0);
+    }
+
+    /**
+     * Creates the daemon thread used to stream reports, so that it doesn't prevent the installer exiting.
+     */
+    private static class StreamerFactory implements ThreadFactory
+    {
+        /**
+         * Creates a new thread.
+         *
+         * @param runnable the runnable to execute
+         * @return a new thread
+         */
+        @Override
+        public Thread newThread(Runnable runnable)
+        {
+            Thread thread = new Thread(runnable, "izpack-metrics");
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+}
@@ -0,0 +1,163 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.core.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+
+/**
+ * Records a sequence of phases, such as those of installer start-up.
+ * <p/>
+ * Each {@link #mark(String) mark} ends a phase, timing it from the end of the previous phase. Phase times are also
+ * recorded in the {@link Timer timer} named <em>&lt;timeline name&gt;.&lt;phase&gt;</em>, so that they are
+ * included in {@link Metrics#report() reports}.
+ *
+ * @author agent
+ * @see Metrics#getTimeline(String)
+ */
+public class Timeline
+{
+
+    /**
+     * The timeline name.
+     */
+    private final String name;
+
+    /**
+     * The metrics to record phase times in.
+     */
+    private final Metrics metrics;
+
+    /**
+     * The phase times in nanoseconds, keyed on phase, in the order they completed.
+     */
+    private final Map<String, Long> phases = new LinkedHashMap<String, Long>();
+
+    /**
+     * The time the timeline started, in nanoseconds.
+     */
+    private final long start = System.nanoTime();
+
+    /**
+     * The time the last phase ended, in nanoseconds.
+     */
+    private long last = start;
+
+    /**
+     * The logger.
+     */
+    private static final Logger logger = Logger.getLogger(Timeline.class.getName());
+
+
+    /**
+     * Constructs a <tt>Timeline</tt>.
+     *
+     * @param name    the timeline name
+     * @param metrics the metrics to record phase times in
+     */
+    public Timeline(String name, Metrics metrics)
+    {
+        this.name = name;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Ends a phase.
+     * <p/>
+     * If the phase has been marked before, its times are accumulated.
+     *
+     * @param phase the phase name
+     * @return the phase time, in nanoseconds
+     */
+    public synchronized long mark(String phase)
+    {
+        long now = System.nanoTime();
+        long elapsed = now - last;
+        last = now;
+        Long previous = phases.get(phase);
+        phases.put(phase, (previous != null) ? previous + elapsed : elapsed);
+        metrics.getTimer(name + "." + phase).update(elapsed);
+        return elapsed;
+    }
+
+    /**
+     * Returns the phase times.
+     *
+     * @return the phase times in nanoseconds, keyed on phase, in the order they completed
+     */
+    public synchronized Map<String, Long> getPhases()
+    {
+        return new LinkedHashMap<String, Long>(phases);
+    }
+
+    /**
+     * Returns the time from the start of the timeline to the end of the last phase.
+     *
+     * @return the total time, in nanoseconds
+     */
+    public synchronized long getTotal()
+    {
+        return last - start;
+    }
+
+    /**
+     * Logs the timeline, at the {@link Metrics#getLogLevel() metrics log level}.
+     */
+    public void log()
+    {
+        Level level = Metrics.getLogLevel();
+        if (logger.isLoggable(level))
+        {
+            logger.log(level, toString());
+        }
+    }
+
+    /**
+     * Returns a string representation of the timeline, listing each phase and its time in milliseconds.
+     *
+     * @return a string representation of the timeline
+     */
+    @Override
+    public synchronized String toString()
+    {
+        StringBuilder result = new StringBuilder(name).append(" timeline:");
+        for (Map.Entry<String, Long> entry : phases.entrySet())
+        {
+            result.append(' ').append(entry.getKey()).append('=').append(toMillis(entry.getValue())).append("ms");
+        }
+        result.append(" total=").append(toMillis(last - start)).append("ms");
+        return result.toString();
+    }
+
+    /**
+     * Converts nanoseconds to milliseconds.
+     *
+     * @param nanos the time in nanoseconds
+     * @return the time in milliseconds
+     */
+    private static long toMillis(long nanos)
+    {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+}
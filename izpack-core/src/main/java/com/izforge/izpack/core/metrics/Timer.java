@@ -0,0 +1,114 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.core.metrics;
+
+
+/**
+ * A thread safe timer, recording a {@link Histogram} of elapsed times in nanoseconds.
+ * <p/>
+ * Usage:
+ * <pre>
+ * long start = timer.start();
+ * try
+ * {
+ *     ...
+ * }
+ * finally
+ * {
+ *     timer.stop(start);
+ * }
+ * </pre>
+ *
+ * @author agent
+ * @see Metrics#getTimer(String)
+ */
+public class Timer
+{
+
+    /**
+     * The elapsed times, in nanoseconds.
+     */
+    private final Histogram times = new Histogram();
+
+
+    /**
+     * Starts timing.
+     *
+     * @return the start time, to pass to {@link #stop(long)}
+     */
+    public long start()
+    {
+        return System.nanoTime();
+    }
+
+    /**
+     * Stops timing, recording the time elapsed since {@code start}.
+     *
+     * @param start the start time, as returned by {@link #start()}
+     * @return the elapsed time, in nanoseconds
+     */
+    public long stop(long start)
+    {
+        long elapsed = System.nanoTime() - start;
+        update(elapsed);
+        return elapsed;
+    }
+
+    /**
+     * Records an elapsed time.
+     *
+     * @param nanos the elapsed time, in nanoseconds
+     */
+    public void update(long nanos)
+    {
+        times.update(nanos);
+    }
+
+    /**
+     * Returns the no. of times recorded.
+     *
+     * @return the no. of times recorded
+     */
+    public long getCount()
+    {
+        return times.getCount();
+    }
+
+    /**
+     * Returns the total of the times recorded.
+     *
+     * @return the total time, in nanoseconds
+     */
+    public long getTotal()
+    {
+        return times.getSum();
+    }
+
+    /**
+     * Returns the recorded times.
+     *
+     * @return the times, in nanoseconds
+     */
+    public Histogram getTimes()
+    {
+        return times;
+    }
+
+}
@@ -1,6 +1,8 @@
 package com.izforge.izpack.core.resource;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.net.URL;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -10,12 +12,14 @@ import java.util.Map;
 import java.util.MissingResourceException;
 import java.util.logging.Logger;
 
+import com.izforge.izpack.api.data.BinaryLangPack;
 import com.izforge.izpack.api.data.LocaleDatabase;
 import com.izforge.izpack.api.exception.ResourceException;
 import com.izforge.izpack.api.exception.ResourceNotFoundException;
 import com.izforge.izpack.api.resource.Locales;
 import com.izforge.izpack.api.resource.Messages;
 import com.izforge.izpack.api.resource.Resources;
+import com.izforge.izpack.util.file.FileUtils;
 
 
 /**
@@ -166,8 +170,7 @@ public class DefaultLocales implements Locales
         {
             throw new ResourceException("No locale set");
         }
-        InputStream in = resources.getInputStream("langpacks/" + locale.getISO3Language() + ".xml");
-        return new LocaleDatabase(in, this);
+        return read("langpacks/" + locale.getISO3Language() + ".xml");
     }
 
     /**
@@ -180,8 +183,60 @@ public class DefaultLocales implements Locales
     @Override
     public Messages getMessages(String name)
     {
-        InputStream in = resources.getInputStream(name);
-        return new LocaleDatabase(in, this);
+        return read(name);
+    }
+
+    /**
+     * Reads messages.
+     * <p/>
+     * The resource is located by the {@link Resources}, which may select a version specific to the current locale.
+     * The {@link BinaryLangPack binary langpack} written by the compiler alongside the XML langpack is preferred,
+     * as it doesn't need to be parsed. The XML langpack is read if there is no binary langpack, e.g. for
+     * installers built by earlier compilers.
+     *
+     * @param name the XML langpack resource name
+     * @return the messages
+     * @throws ResourceNotFoundException if the resource cannot be found
+     * @throws ResourceException         if the resource is not a valid langpack
+     */
+    private Messages read(String name)
+    {
+        URL url = resources.getURL(name);
+        InputStream in = open(url.toExternalForm() + BinaryLangPack.SUFFIX);
+        try
+        {
+            if (in == null)
+            {
+                in = url.openStream();
+            }
+            return new LocaleDatabase(in, this);
+        }
+        catch (IOException exception)
+        {
+            throw new ResourceException("Failed to read " + name, exception);
+        }
+        finally
+        {
+            FileUtils.close(in);
+        }
+    }
+
+    /**
+     * Opens a URL.
+     *
+     * @param url the URL
+     * @return a stream to the URL, or {@code null} if it cannot be opened
+     */
+    private InputStream open(String url)
+    {
+        try
+        {
+            return new URL(url).openStream();
+        }
+        catch (IOException exception)
+        {
+            return null;
+        }
     }
 
     /**
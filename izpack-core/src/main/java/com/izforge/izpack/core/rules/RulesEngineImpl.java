@@ -42,6 +42,8 @@ import com.izforge.izpack.api.rules.Condition;
 import com.izforge.izpack.api.rules.ConditionReference;
 import com.izforge.izpack.api.rules.ConditionWithMultipleOperands;
 import com.izforge.izpack.api.rules.RulesEngine;
+import com.izforge.izpack.core.metrics.Metrics;
+import com.izforge.izpack.core.metrics.Timer;
 import com.izforge.izpack.core.rules.logic.AndCondition;
 import com.izforge.izpack.core.rules.logic.NotCondition;
 import com.izforge.izpack.core.rules.logic.OrCondition;
@@ -55,6 +57,7 @@ import com.izforge.izpack.core.rules.process.PackSelectionCondition;
 import com.izforge.izpack.core.rules.process.RefCondition;
 import com.izforge.izpack.core.rules.process.UserCondition;
 import com.izforge.izpack.core.rules.process.VariableCondition;
+import com.izforge.izpack.core.trace.TraceRecorder;
 import com.izforge.izpack.util.Platform;
 import com.izforge.izpack.util.Platforms;
 
@@ -81,6 +84,16 @@ public class RulesEngineImpl implements RulesEngine
 
     private final ConditionContainer container;
 
+    /**
+     * The recorder of condition evaluations. May be {@code null}.
+     */
+    private final TraceRecorder recorder;
+
+    /**
+     * The timer to record condition evaluation times in. May be {@code null}.
+     */
+    private final Timer timer;
+
     private static final Logger logger = Logger.getLogger(RulesEngineImpl.class.getName());
 
     /**
@@ -112,9 +125,29 @@ public class RulesEngineImpl implements RulesEngine
     }
 
     public RulesEngineImpl(InstallData installData, ConditionContainer container, Platform platform)
+    {
+        this(installData, container, platform, null, null);
+    }
+
+    /**
+     * Constructs a <tt>RulesEngineImpl</tt>.
+     * <p/>
+     * Conditions are evaluated frequently, so they are only timed if the metrics are
+     * {@link Metrics#isEnabled() enabled}.
+     *
+     * @param installData the installation data. May be {@code null}
+     * @param container   the condition container. May be {@code null}
+     * @param platform    the current platform
+     * @param recorder    the recorder of condition evaluations. May be {@code null}
+     * @param metrics     the metrics to record condition evaluation times in. May be {@code null}
+     */
+    public RulesEngineImpl(InstallData installData, ConditionContainer container, Platform platform,
+                           TraceRecorder recorder, Metrics metrics)
     {
         this.installData = installData;
         this.container = container;
+        this.recorder = recorder;
+        this.timer = (metrics != null && metrics.isEnabled()) ? metrics.getTimer("rules.evaluate") : null;
         initStandardConditions(platform);
     }
 
@@ -341,7 +374,21 @@ public class RulesEngineImpl implements RulesEngine
         {
             cond.setInstallData(this.installData);
         }
-        boolean value = cond.isTrue();
+        boolean value;
+        if (timer != null)
+        {
+            long start = timer.start();
+            value = cond.isTrue();
+            timer.stop(start);
+        }
+        else
+        {
+            value = cond.isTrue();
+        }
+        if (recorder != null)
+        {
+            recorder.condition(cond.getId(), value);
+        }
         logger.fine("Condition " + cond.getId() + ": " + Boolean.toString(value));
         return value;
     }
@@ -24,6 +24,7 @@ package com.izforge.izpack.core.substitutor;
 import com.izforge.izpack.api.data.Value;
 import com.izforge.izpack.api.substitutor.SubstitutionType;
 import com.izforge.izpack.api.substitutor.VariableSubstitutor;
+import com.izforge.izpack.core.metrics.Metrics;
 import com.izforge.izpack.util.IoHelper;
 
 import java.io.*;
@@ -56,6 +57,11 @@ public abstract class VariableSubstitutorBase implements VariableSubstitutor
      */
     protected boolean bracesRequired = false;
 
+    /**
+     * The metrics to record stream substitutions in. May be {@code null}.
+     */
+    private transient Metrics metrics;
+
     /**
      * A constant for file type. Plain file.
      */
@@ -117,6 +123,16 @@ public abstract class VariableSubstitutorBase implements VariableSubstitutor
 
     public abstract Value getValue(String name);
 
+    /**
+     * Sets the metrics to record stream substitutions in.
+     *
+     * @param metrics the metrics. May be {@code null}
+     */
+    public void setMetrics(Metrics metrics)
+    {
+        this.metrics = metrics;
+    }
+
     /**
      * Get whether this substitutor requires braces.
      */
@@ -214,17 +230,23 @@ public abstract class VariableSubstitutorBase implements VariableSubstitutor
             }
         }
 
-        // Create the reader and write
-        InputStreamReader reader = (encoding != null ? new InputStreamReader(in, encoding)
-                : new InputStreamReader(in));
-        OutputStreamWriter writer = (encoding != null ? new OutputStreamWriter(out, encoding)
-                : new OutputStreamWriter(out));
+        // Create the reader and write. These are buffered, as substitution reads and writes a character at a time
+        Reader reader = new BufferedReader(encoding != null ? new InputStreamReader(in, encoding)
+                                                   : new InputStreamReader(in));
+        Writer writer = new BufferedWriter(encoding != null ? new OutputStreamWriter(out, encoding)
+                                                   : new OutputStreamWriter(out));
 
         // Copy the data and substitute variables
+        long start = System.nanoTime();
         int subs = substitute(reader, writer, type);
 
         // Flush the write so that everything gets written out
         writer.flush();
+        if (metrics != null)
+        {
+            metrics.getTimer("substitute.stream").update(System.nanoTime() - start);
+            metrics.getCounter("substitute.variables").add(subs);
+        }
 
         return subs;
     }
@@ -296,26 +318,8 @@ public abstract class VariableSubstitutorBase implements VariableSubstitutor
         }
 
         // determine character which starts (and ends) a variable
-        char variable_start = '$';
-        char variable_end = '\0';
-        switch (type)
-        {
-            case TYPE_SHELL:
-                variable_start = '%';
-                break;
-
-            case TYPE_AT:
-                variable_start = '@';
-                break;
-
-            case TYPE_ANT:
-                variable_start = '@';
-                variable_end = '@';
-                break;
-
-            default:
-                break;
-        }
+        char variable_start = type.getVariableStart();
+        char variable_end = (type == SubstitutionType.TYPE_ANT) ? '@' : '\0';
 
         int subs = 0;
 
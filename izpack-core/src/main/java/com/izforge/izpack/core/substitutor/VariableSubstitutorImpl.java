@@ -26,6 +26,7 @@ import java.util.Properties;
 
 import com.izforge.izpack.api.data.Value;
 import com.izforge.izpack.api.data.Variables;
+import com.izforge.izpack.core.metrics.Metrics;
 import com.izforge.izpack.core.variable.PlainValue;
 
 public class VariableSubstitutorImpl extends VariableSubstitutorBase implements Serializable
@@ -47,6 +48,18 @@ public class VariableSubstitutorImpl extends VariableSubstitutorBase implements
         this(variables.getProperties());
     }
 
+    /**
+     * Constructs a substituter with the specified variables, that records stream substitutions in metrics.
+     *
+     * @param variables the variables
+     * @param metrics   the metrics to record stream substitutions in
+     */
+    public VariableSubstitutorImpl(Variables variables, Metrics metrics)
+    {
+        this(variables);
+        setMetrics(metrics);
+    }
+
     /**
      * Constructs a new substitutor using the specified variable value mappings. The environment
      * hashtable is copied by reference. Braces are not required by default
@@ -0,0 +1,158 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.core.trace;
+
+
+/**
+ * An event recorded by a {@link TraceRecorder}.
+ *
+ * @author agent
+ */
+public class TraceEvent
+{
+
+    /**
+     * The event types.
+     */
+    public enum Type
+    {
+        /**
+         * A variable was set.
+         */
+        VARIABLE,
+
+        /**
+         * A condition was evaluated.
+         */
+        CONDITION,
+
+        /**
+         * A point of interest, such as a panel switch.
+         */
+        MARK
+    }
+
+    /**
+     * The event sequence number.
+     */
+    private final long sequence;
+
+    /**
+     * The time the event occurred, in milliseconds since the epoch.
+     */
+    private final long time;
+
+    /**
+     * The event type.
+     */
+    private final Type type;
+
+    /**
+     * The variable name, condition identifier, or mark description.
+     */
+    private final String name;
+
+    /**
+     * The variable value, or condition result. May be {@code null}
+     */
+    private final String value;
+
+
+    /**
+     * Constructs a <tt>TraceEvent</tt>.
+     *
+     * @param sequence the event sequence number
+     * @param time     the time the event occurred, in milliseconds since the epoch
+     * @param type     the event type
+     * @param name     the variable name, condition identifier, or mark description
+     * @param value    the variable value, or condition result. May be {@code null}
+     */
+    public TraceEvent(long sequence, long time, Type type, String name, String value)
+    {
+        this.sequence = sequence;
+        this.time = time;
+        this.type = type;
+        this.name = name;
+        this.value = value;
+    }
+
+    /**
+     * Returns the event sequence number.
+     * <p/>
+     * Sequence numbers start at zero, and are never reused.
+     *
+     * @return the sequence number
+     */
+    public long getSequence()
+    {
+        return sequence;
+    }
+
+    /**
+     * Returns the time the event occurred.
+     *
+     * @return the time, in milliseconds since the epoch
+     */
+    public long getTime()
+    {
+        return time;
+    }
+
+    /**
+     * Returns the event type.
+     *
+     * @return the event type
+     */
+    public Type getType()
+    {
+        return type;
+    }
+
+    /**
+     * Returns the variable name, condition identifier, or mark description.
+     *
+     * @return the name
+     */
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * Returns the variable value or condition result.
+     *
+     * @return the value. May be {@code null}
+     */
+    public String getValue()
+    {
+        return value;
+    }
+
+    /**
+     * Returns a string representation of the event.
+     *
+     * @return a string representation of the event
+     */
+    @Override
+    public String toString()
+    {
+        return "#" + sequence + " " + type + " " + name + ((value != null) ? "=" + value : "");
+    }
+}
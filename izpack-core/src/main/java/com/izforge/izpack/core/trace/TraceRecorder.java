@@ -0,0 +1,359 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.core.trace;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.izforge.izpack.core.trace.TraceEvent.Type;
+import com.izforge.izpack.util.file.FileUtils;
+
+
+/**
+ * Records variable writes and condition evaluations in a fixed size ring buffer, for the installer debugger.
+ * <p/>
+ * Recording is disabled by default, in which case recording an event costs a single volatile read. When the buffer
+ * is full, the oldest events are discarded.
+ * <p/>
+ * The installer registers a recorder with its container, which injects it into
+ * {@link com.izforge.izpack.core.data.DefaultVariables DefaultVariables} and the rules engine.
+ * <p/>
+ * The values of {@link #mask masked} variables, such as passwords, are never displayed or exported.
+ *
+ * @author agent
+ */
+public class TraceRecorder
+{
+
+    /**
+     * The default no. of events retained.
+     */
+    public static final int DEFAULT_CAPACITY = 10000;
+
+    /**
+     * The text displayed in place of the value of a masked variable.
+     */
+    public static final String MASK = "********";
+
+    /**
+     * The ring buffer.
+     */
+    private final TraceEvent[] events;
+
+    /**
+     * The no. of events recorded since the recorder was created or last cleared. This is also the sequence number
+     * of the next event.
+     */
+    private long count;
+
+    /**
+     * The names of the variables whose values are masked.
+     */
+    private final Set<String> masked = new HashSet<String>();
+
+    /**
+     * Determines if events are recorded.
+     */
+    private volatile boolean enabled;
+
+
+    /**
+     * Constructs a <tt>TraceRecorder</tt> that retains up to {@link #DEFAULT_CAPACITY} events.
+     */
+    public TraceRecorder()
+    {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs a <tt>TraceRecorder</tt>.
+     *
+     * @param capacity the maximum no. of events to retain
+     */
+    public TraceRecorder(int capacity)
+    {
+        if (capacity <= 0)
+        {
+            throw new IllegalArgumentException("Argument 'capacity' must be greater than zero");
+        }
+        events = new TraceEvent[capacity];
+    }
+
+    /**
+     * Determines if events are recorded.
+     *
+     * @param enabled if {@code true}, record events, otherwise ignore them
+     */
+    public void setEnabled(boolean enabled)
+    {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Determines if events are recorded.
+     *
+     * @return {@code true} if events are recorded
+     */
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    /**
+     * Records a variable write.
+     *
+     * @param name  the variable name
+     * @param value the variable value. May be {@code null}, if the variable was removed
+     */
+    public void variable(String name, String value)
+    {
+        if (enabled)
+        {
+            record(Type.VARIABLE, name, value);
+        }
+    }
+
+    /**
+     * Records a condition evaluation.
+     *
+     * @param id     the condition identifier
+     * @param result the evaluation result
+     */
+    public void condition(String id, boolean result)
+    {
+        if (enabled)
+        {
+            record(Type.CONDITION, id, Boolean.toString(result));
+        }
+    }
+
+    /**
+     * Records a point of interest, such as a panel switch.
+     *
+     * @param description the description
+     */
+    public void mark(String description)
+    {
+        if (enabled)
+        {
+            record(Type.MARK, description, null);
+        }
+    }
+
+    /**
+     * Masks the value of a variable, so that it is never displayed or exported.
+     *
+     * @param name the variable name
+     */
+    public synchronized void mask(String name)
+    {
+        masked.add(name);
+    }
+
+    /**
+     * Determines if the value of a variable is masked.
+     *
+     * @param name the variable name
+     * @return {@code true} if the value is masked
+     */
+    public synchronized boolean isMasked(String name)
+    {
+        return masked.contains(name);
+    }
+
+    /**
+     * Returns the value of an event for display or export.
+     *
+     * @param event the event
+     * @return the event value, or {@link #MASK} if it is the value of a masked variable
+     */
+    public synchronized String getValue(TraceEvent event)
+    {
+        String result = event.getValue();
+        if (result != null && event.getType() == Type.VARIABLE && masked.contains(event.getName()))
+        {
+            result = MASK;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the no. of events recorded since the recorder was created or last cleared, including those
+     * discarded.
+     *
+     * @return the no. of events recorded. This is also the sequence number of the next event
+     */
+    public synchronized long getCount()
+    {
+        return count;
+    }
+
+    /**
+     * Returns the sequence number of the oldest retained event.
+     *
+     * @return the sequence number of the oldest event
+     */
+    public synchronized long getFirst()
+    {
+        return Math.max(0, count - events.length);
+    }
+
+    /**
+     * Returns an event.
+     *
+     * @param sequence the event sequence number
+     * @return the event, or {@code null} if it hasn't been recorded, or has been discarded
+     */
+    public synchronized TraceEvent get(long sequence)
+    {
+        if (sequence < getFirst() || sequence >= count)
+        {
+            return null;
+        }
+        return events[(int) (sequence % events.length)];
+    }
+
+    /**
+     * Returns the retained events.
+     *
+     * @return the retained events, oldest first
+     */
+    public synchronized List<TraceEvent> getEvents()
+    {
+        List<TraceEvent> result = new ArrayList<TraceEvent>();
+        for (long sequence = getFirst(); sequence < count; ++sequence)
+        {
+            result.add(events[(int) (sequence % events.length)]);
+        }
+        return result;
+    }
+
+    /**
+     * Discards all events.
+     */
+    public synchronized void clear()
+    {
+        count = 0;
+        for (int i = 0; i < events.length; ++i)
+        {
+            events[i] = null;
+        }
+    }
+
+    /**
+     * Exports the retained events to a file, one tab separated event per line.
+     * <p/>
+     * Tabs, line breaks and backslashes in names and values are escaped, and the values of masked variables are
+     * replaced by {@link #MASK}.
+     *
+     * @param file the file to write to
+     * @throws IOException for any I/O error
+     */
+    public void export(File file) throws IOException
+    {
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try
+        {
+            export(writer);
+        }
+        finally
+        {
+            FileUtils.close(writer);
+        }
+    }
+
+    /**
+     * Exports the retained events, one tab separated event per line.
+     *
+     * @param writer the writer to write to
+     * @throws IOException for any I/O error
+     */
+    public void export(Writer writer) throws IOException
+    {
+        StringBuilder line = new StringBuilder();
+        for (TraceEvent event : getEvents())
+        {
+            line.setLength(0);
+            line.append(event.getSequence()).append('\t');
+            line.append(event.getTime()).append('\t');
+            line.append(event.getType()).append('\t');
+            escape(line, event.getName()).append('\t');
+            escape(line, getValue(event)).append('\n');
+            writer.write(line.toString());
+        }
+        writer.flush();
+    }
+
+    /**
+     * Records an event.
+     *
+     * @param type  the event type
+     * @param name  the variable name, condition identifier, or mark description
+     * @param value the variable value, or condition result. May be {@code null}
+     */
+    private synchronized void record(Type type, String name, String value)
+    {
+        events[(int) (count % events.length)] = new TraceEvent(count, System.currentTimeMillis(), type, name, value);
+        ++count;
+    }
+
+    /**
+     * Appends a string, escaping tabs, line breaks and backslashes.
+     *
+     * @param buffer the buffer to append to
+     * @param value  the value to append. May be {@code null}
+     * @return the buffer
+     */
+    private StringBuilder escape(StringBuilder buffer, String value)
+    {
+        if (value != null)
+        {
+            for (int i = 0; i < value.length(); ++i)
+            {
+                char ch = value.charAt(i);
+                switch (ch)
+                {
+                    case '\t':
+                        buffer.append("\\t");
+                        break;
+                    case '\n':
+                        buffer.append("\\n");
+                        break;
+                    case '\r':
+                        buffer.append("\\r");
+                        break;
+                    case '\\':
+                        buffer.append("\\\\");
+                        break;
+                    default:
+                        buffer.append(ch);
+                }
+            }
+        }
+        return buffer;
+    }
+}
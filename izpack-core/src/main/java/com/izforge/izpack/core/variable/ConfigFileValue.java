@@ -21,13 +21,12 @@
 
 package com.izforge.izpack.core.variable;
 
-import java.io.IOException;
+import java.io.File;
 import java.io.InputStream;
 import java.io.Serializable;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpression;
@@ -36,7 +35,6 @@ import javax.xml.xpath.XPathFactory;
 
 import org.w3c.dom.Document;
 import org.w3c.dom.NodeList;
-import org.xml.sax.SAXException;
 
 import com.izforge.izpack.api.substitutor.VariableSubstitutor;
 import com.izforge.izpack.util.config.base.Ini;
@@ -110,78 +108,110 @@ public abstract class ConfigFileValue extends ValueImpl implements Serializable
 
     protected String resolve(InputStream in) throws Exception
     {
-        switch (type)
-        {
-            case CONFIGFILE_TYPE_OPTIONS:
-                Options opts;
-                opts = new Options(in);
-                return opts.get(key);
-            case CONFIGFILE_TYPE_INI:
-                Ini ini;
-                ini = new Ini(in);
-                return ini.get(section, key);
-            case CONFIGFILE_TYPE_XML:
-                return parseXPath(in, key, System.getProperty("line.separator"));
-            default:
-                throw new Exception("Invalid configuration file type " + type);
-        }
+        return lookup(parse(in, type), section, key);
     }
 
     protected String resolve(InputStream in, VariableSubstitutor... substitutors)
             throws Exception
+    {
+        return lookup(parse(in, type), substitutors);
+    }
+
+    /**
+     * Resolves the value from a configuration file, parsing it via the {@link ValueCache}.
+     *
+     * @param file          the configuration file
+     * @param entry         the zip entry to read from the file. If <tt>null</tt>, the file itself is read
+     * @param substitutors  the substitutors to apply to the section and key
+     * @return the value. May be <tt>null</tt>
+     * @throws Exception if the file cannot be read or parsed
+     */
+    protected String resolve(File file, String entry, VariableSubstitutor... substitutors) throws Exception
+    {
+        return lookup(getValueCache().getConfig(file, entry, type), substitutors);
+    }
+
+    private String lookup(Object config, VariableSubstitutor... substitutors) throws Exception
     {
         String _key_ = key;
+        String _section_ = section;
         for (VariableSubstitutor substitutor : substitutors)
         {
             _key_ = substitutor.substitute(_key_);
         }
+        if (type == CONFIGFILE_TYPE_INI)
+        {
+            for (VariableSubstitutor substitutor : substitutors)
+            {
+                _section_ = substitutor.substitute(_section_);
+            }
+        }
+        return lookup(config, _section_, _key_);
+    }
 
+    /**
+     * Parses a configuration file.
+     *
+     * @param in   the stream to parse
+     * @param type the configuration file type
+     * @return the parsed configuration
+     * @throws Exception if the stream cannot be parsed
+     */
+    static Object parse(InputStream in, int type) throws Exception
+    {
         switch (type)
         {
             case CONFIGFILE_TYPE_OPTIONS:
-                Options opts;
-                opts = new Options(in);
-                return opts.get(_key_);
+                return new Options(in);
             case CONFIGFILE_TYPE_INI:
-                Ini ini;
-                String _section_ = section;
-                for (VariableSubstitutor substitutor : substitutors)
-                {
-                    _key_ = substitutor.substitute(_key_);
-                }
-                ini = new Ini(in);
-                return ini.get(_section_, _key_);
+                return new Ini(in);
+            case CONFIGFILE_TYPE_XML:
+                DocumentBuilderFactory domFactory = DocumentBuilderFactory.newInstance();
+                domFactory.setNamespaceAware(true);
+                DocumentBuilder builder = domFactory.newDocumentBuilder();
+                return builder.parse(in);
+            default:
+                throw new Exception("Invalid configuration file type '" + type + "'");
+        }
+    }
+
+    private String lookup(Object config, String section, String key) throws Exception
+    {
+        switch (type)
+        {
+            case CONFIGFILE_TYPE_OPTIONS:
+                return ((Options) config).get(key);
+            case CONFIGFILE_TYPE_INI:
+                return ((Ini) config).get(section, key);
             case CONFIGFILE_TYPE_XML:
-                return parseXPath(in, _key_, System.getProperty("line.separator"));
+                return parseXPath((Document) config, key, System.getProperty("line.separator"));
             default:
                 throw new Exception("Invalid configuration file type '" + type + "'");
         }
     }
 
-    private static String parseXPath(InputStream in, String expression, String separator)
-            throws ParserConfigurationException, SAXException, IOException, XPathExpressionException
+    private static String parseXPath(Document doc, String expression, String separator)
+            throws XPathExpressionException
     {
-        DocumentBuilderFactory domFactory = DocumentBuilderFactory.newInstance();
-        domFactory.setNamespaceAware(true);
-        DocumentBuilder builder;
-        builder = domFactory.newDocumentBuilder();
-        Document doc = builder.parse(in);
         XPath xpath = XPathFactory.newInstance().newXPath();
         // XPath Query for showing all nodes value
         XPathExpression expr = xpath.compile(expression);
-        Object result = expr.evaluate(doc, XPathConstants.NODESET);
-        NodeList nodes = (NodeList) result;
         StringBuffer sb = new StringBuffer();
-        for (int i = 0; i < nodes.getLength(); i++)
+        // the DOM isn't thread safe, even for reads, and cached documents are shared
+        synchronized (doc)
         {
-            String value = nodes.item(i).getNodeValue();
-            if (value != null)
+            NodeList nodes = (NodeList) expr.evaluate(doc, XPathConstants.NODESET);
+            for (int i = 0; i < nodes.getLength(); i++)
             {
-                if (sb.length() > 0)
+                String value = nodes.item(i).getNodeValue();
+                if (value != null)
                 {
-                    sb.append(separator);
+                    if (sb.length() > 0)
+                    {
+                        sb.append(separator);
+                    }
+                    sb.append(value);
                 }
-                sb.append(value);
             }
         }
         return sb.toString();
@@ -25,7 +25,6 @@ import java.io.Serializable;
 
 import com.izforge.izpack.api.substitutor.VariableSubstitutor;
 import com.izforge.izpack.core.substitutor.VariableSubstitutorImpl;
-import com.izforge.izpack.util.FileExecutor;
 import com.izforge.izpack.util.OsVersion;
 
 
@@ -40,6 +39,11 @@ public class ExecValue extends ValueImpl implements Serializable
     private String dir;
     private boolean useStdErr = true;
 
+    /**
+     * Determines if the command is free of side effects, and so may be run ahead of its evaluation.
+     */
+    private boolean sideEffectFree;
+
     public ExecValue(String[] command, String dir, boolean isShellCommand, boolean useStdErr)
     {
         super();
@@ -88,6 +92,28 @@ public class ExecValue extends ValueImpl implements Serializable
         this.cmd = cmd;
     }
 
+    /**
+     * Determines if the command is free of side effects.
+     *
+     * @return <tt>true</tt> if the command may be run ahead of its evaluation, out of order and concurrently with
+     *         other commands
+     */
+    public boolean isSideEffectFree()
+    {
+        return sideEffectFree;
+    }
+
+    /**
+     * Determines if the command is free of side effects.
+     *
+     * @param sideEffectFree if <tt>true</tt>, the command may be run ahead of its evaluation, out of order and
+     *                       concurrently with other commands
+     */
+    public void setSideEffectFree(boolean sideEffectFree)
+    {
+        this.sideEffectFree = sideEffectFree;
+    }
+
     @Override
     public void validate() throws Exception
     {
@@ -97,6 +123,20 @@ public class ExecValue extends ValueImpl implements Serializable
         }
     }
 
+    /**
+     * Runs the command ahead of its evaluation, if it is free of side effects.
+     *
+     * @param substitutors the substitutors to apply to the command and directory
+     */
+    @Override
+    public void prefetch(VariableSubstitutor... substitutors)
+    {
+        if (sideEffectFree)
+        {
+            getValueCache().execute(getCommand(substitutors), new String[2], getDir(substitutors));
+        }
+    }
+
     @Override
     public String resolve()
     {
@@ -107,13 +147,36 @@ public class ExecValue extends ValueImpl implements Serializable
     @Override
     public String resolve(VariableSubstitutor... substitutors)
     {
-        String _dir_ = null, _cmd_[] = new String[cmd.length];
+        String[] execOut = new String[2];
+        int ret = getValueCache().execute(getCommand(substitutors), execOut, getDir(substitutors));
+        if (ret == 0)
+        {
+            if (useStdErr)
+            {
+                // Some commands return their output on stderr (as java -version)
+                return execOut[1];
+            }
+            else
+            {
+                return execOut[0];
+            }
+        }
+        return null;
+    }
 
+    private String getDir(VariableSubstitutor... substitutors)
+    {
+        String _dir_ = null;
         for (VariableSubstitutor substitutor : substitutors)
         {
             _dir_ = substitutor.substitute(dir, null);
         }
+        return _dir_;
+    }
 
+    private String[] getCommand(VariableSubstitutor... substitutors)
+    {
+        String _cmd_[] = new String[cmd.length];
         for (int i = 0; i < cmd.length; i++)
         {
             String _cmdarg_ = cmd[i];
@@ -123,20 +186,6 @@ public class ExecValue extends ValueImpl implements Serializable
             }
             _cmd_[i] = _cmdarg_;
         }
-        String[] execOut = new String[2];
-        int ret = new FileExecutor().executeCommand(_cmd_, execOut, _dir_);
-        if (ret == 0)
-        {
-            if (useStdErr)
-            {
-                // Some commands return their output on stderr (as java -version)
-                return execOut[1];
-            }
-            else
-            {
-                return execOut[0];
-            }
-        }
-        return null;
+        return _cmd_;
     }
 }
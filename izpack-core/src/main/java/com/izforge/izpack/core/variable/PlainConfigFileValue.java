@@ -23,7 +23,7 @@ package com.izforge.izpack.core.variable;
 
 import com.izforge.izpack.api.substitutor.VariableSubstitutor;
 
-import java.io.FileInputStream;
+import java.io.File;
 import java.io.Serializable;
 
 public class PlainConfigFileValue extends ConfigFileValue implements Serializable
@@ -61,21 +61,32 @@ public class PlainConfigFileValue extends ConfigFileValue implements Serializabl
         }
     }
 
+    @Override
+    public void prefetch(VariableSubstitutor... substitutors) throws Exception
+    {
+        getValueCache().getConfig(getFile(substitutors), null, type);
+    }
+
     @Override
     public String resolve() throws Exception
     {
-        return resolve(new FileInputStream(location));
+        return resolve(new File(location), null);
     }
 
     @Override
     public String resolve(VariableSubstitutor... substitutors)
             throws Exception
+    {
+        return resolve(getFile(substitutors), null, substitutors);
+    }
+
+    private File getFile(VariableSubstitutor... substitutors)
     {
         String _location_ = location;
         for (VariableSubstitutor substitutor : substitutors)
         {
             _location_ = substitutor.substitute(_location_);
         }
-        return resolve(new FileInputStream(_location_), substitutors);
+        return new File(_location_);
     }
 }
@@ -0,0 +1,459 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.core.variable;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+
+import com.izforge.izpack.util.FileExecutor;
+import com.izforge.izpack.util.IoHelper;
+import com.izforge.izpack.util.file.FileUtils;
+
+
+/**
+ * Caches the sources of dynamic variable values, so that they aren't re-read each time variables are refreshed.
+ * <p/>
+ * Configuration files are parsed once, and shared by all values that read them, until the file content changes.
+ * The content is checked against the CRC-32 it had when parsed, at most once per refresh. For zip entries, the CRC
+ * is read from the zip directory, so the entry needn't be inflated.
+ * <br/>
+ * Commands are run once per refresh, and their output shared by all values that run the same command during it.
+ * Commands have no modification stamp to validate against, so their output isn't retained between refreshes.
+ * <p/>
+ * Instances are registered with the installer container, and supplied to the values of dynamic variables by
+ * {@link com.izforge.izpack.core.data.DefaultVariables DefaultVariables}.
+ *
+ * @author agent
+ */
+public class ValueCache
+{
+
+    /**
+     * The parsed configuration files.
+     */
+    private final ConcurrentMap<ConfigKey, Config> configs = new ConcurrentHashMap<ConfigKey, Config>();
+
+    /**
+     * The command results for the current refresh, or <tt>null</tt> if no refresh is in progress.
+     */
+    private ConcurrentMap<List<String>, FutureTask<CommandResult>> commands;
+
+    /**
+     * The no. of refreshes in progress.
+     */
+    private int refreshes;
+
+    /**
+     * Identifies the current refresh, or <tt>0</tt> if no refresh is in progress.
+     */
+    private int refresh;
+
+    /**
+     * The identifier of the last refresh.
+     */
+    private int lastRefresh;
+
+
+    /**
+     * Returns a parsed configuration file, parsing it if it isn't cached or its content has changed.
+     *
+     * @param file  the file
+     * @param entry the zip entry to read from the file. If <tt>null</tt>, the file itself is read
+     * @param type  the configuration file type, as one of the <em>ConfigFileValue.CONFIGFILE_TYPE_*</em> constants
+     * @return the parsed configuration
+     * @throws Exception if the file cannot be read or parsed
+     */
+    public Object getConfig(File file, String entry, int type) throws Exception
+    {
+        ConfigKey key = new ConfigKey(file.getAbsoluteFile(), entry, type);
+        Config config = configs.get(key);
+        if (config == null)
+        {
+            config = new Config();
+            Config existing = configs.putIfAbsent(key, config);
+            if (existing != null)
+            {
+                config = existing;
+            }
+        }
+        return config.get(key, getRefresh());
+    }
+
+    /**
+     * Executes a command, and waits for completion.
+     * <p/>
+     * During a refresh, the command is only executed once, and its result shared with subsequent invocations.
+     *
+     * @param command the command and its arguments
+     * @param output  receives the output of the command. Index 0 = standard output, index 1 = standard error
+     * @param dir     the working directory. May be <tt>null</tt>
+     * @return the exit status of the command
+     * @see FileExecutor#executeCommand(String[], String[], String)
+     */
+    public int execute(final String[] command, String[] output, final String dir)
+    {
+        ConcurrentMap<List<String>, FutureTask<CommandResult>> results = getCommands();
+        CommandResult result;
+        if (results == null)
+        {
+            result = new CommandResult(command, dir);
+        }
+        else
+        {
+            List<String> key = new ArrayList<String>();
+            key.add(dir);
+            for (String arg : command)
+            {
+                key.add(arg);
+            }
+            FutureTask<CommandResult> task = new FutureTask<CommandResult>(new Callable<CommandResult>()
+            {
+                @Override
+                public CommandResult call()
+                {
+                    return new CommandResult(command, dir);
+                }
+            });
+            FutureTask<CommandResult> existing = results.putIfAbsent(key, task);
+            if (existing != null)
+            {
+                task = existing;
+            }
+            else
+            {
+                task.run();
+            }
+            try
+            {
+                result = task.get();
+            }
+            catch (InterruptedException exception)
+            {
+                Thread.currentThread().interrupt();
+                output[0] = "";
+                output[1] = exception.getMessage() + "\n";
+                return -1;
+            }
+            catch (ExecutionException exception)
+            {
+                throw new IllegalStateException(exception.getCause());
+            }
+        }
+        output[0] = result.output[0];
+        output[1] = result.output[1];
+        return result.exitStatus;
+    }
+
+    /**
+     * Invoked when variables start refreshing. Until the matching {@link #endRefresh()}, command results are shared,
+     * and configuration files are only checked for changes once.
+     */
+    public synchronized void startRefresh()
+    {
+        if (refreshes++ == 0)
+        {
+            commands = new ConcurrentHashMap<List<String>, FutureTask<CommandResult>>();
+            if (++lastRefresh == 0)
+            {
+                ++lastRefresh;
+            }
+            refresh = lastRefresh;
+        }
+    }
+
+    /**
+     * Invoked when variables finish refreshing.
+     */
+    public synchronized void endRefresh()
+    {
+        if (--refreshes == 0)
+        {
+            commands = null;
+            refresh = 0;
+        }
+    }
+
+    /**
+     * Returns the command results for the current refresh.
+     *
+     * @return the command results, or <tt>null</tt> if no refresh is in progress
+     */
+    private synchronized ConcurrentMap<List<String>, FutureTask<CommandResult>> getCommands()
+    {
+        return commands;
+    }
+
+    /**
+     * Returns the identifier of the current refresh.
+     *
+     * @return the refresh identifier, or <tt>0</tt> if no refresh is in progress
+     */
+    private synchronized int getRefresh()
+    {
+        return refresh;
+    }
+
+    /**
+     * Identifies a configuration file.
+     */
+    private static class ConfigKey
+    {
+
+        /**
+         * The file.
+         */
+        private final File file;
+
+        /**
+         * The zip entry. May be <tt>null</tt>.
+         */
+        private final String entry;
+
+        /**
+         * The configuration file type.
+         */
+        private final int type;
+
+        /**
+         * Constructs a <tt>ConfigKey</tt>.
+         *
+         * @param file  the file
+         * @param entry the zip entry. May be <tt>null</tt>
+         * @param type  the configuration file type
+         */
+        public ConfigKey(File file, String entry, int type)
+        {
+            this.file = file;
+            this.entry = entry;
+            this.type = type;
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (!(obj instanceof ConfigKey))
+            {
+                return false;
+            }
+            ConfigKey other = (ConfigKey) obj;
+            return file.equals(other.file) && type == other.type
+                    && (entry == null ? other.entry == null : entry.equals(other.entry));
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return file.hashCode() ^ type ^ (entry != null ? entry.hashCode() : 0);
+        }
+    }
+
+    /**
+     * A parsed configuration file.
+     */
+    private static class Config
+    {
+
+        /**
+         * The parsed configuration, or <tt>null</tt> if it hasn't been loaded.
+         */
+        private Object data;
+
+        /**
+         * The CRC-32 of the content when it was loaded.
+         */
+        private long crc;
+
+        /**
+         * The content size when it was loaded.
+         */
+        private long size;
+
+        /**
+         * The refresh that last checked the content, or <tt>0</tt> if it hasn't been checked during a refresh.
+         */
+        private int checked;
+
+        /**
+         * Returns the parsed configuration, reloading it if the content has changed since it was last loaded.
+         *
+         * @param key     the configuration file key
+         * @param refresh the current refresh, or <tt>0</tt> if no refresh is in progress
+         * @return the parsed configuration
+         * @throws Exception if the file cannot be read or parsed
+         */
+        public synchronized Object get(ConfigKey key, int refresh) throws Exception
+        {
+            if (data == null || refresh == 0 || checked != refresh)
+            {
+                if (key.entry == null)
+                {
+                    loadFile(key);
+                }
+                else
+                {
+                    loadEntry(key);
+                }
+                checked = refresh;
+            }
+            return data;
+        }
+
+        /**
+         * Loads a configuration file, if its content has changed.
+         *
+         * @param key the configuration file key
+         * @throws Exception if the file cannot be read or parsed
+         */
+        private void loadFile(ConfigKey key) throws Exception
+        {
+            InputStream in = new FileInputStream(key.file);
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try
+            {
+                IoHelper.copyStream(in, bytes);
+            }
+            finally
+            {
+                FileUtils.close(in);
+            }
+            byte[] content = bytes.toByteArray();
+            CRC32 checksum = new CRC32();
+            checksum.update(content);
+            if (isChanged(checksum.getValue(), content.length))
+            {
+                data = parse(new ByteArrayInputStream(content), key.type);
+                crc = checksum.getValue();
+                size = content.length;
+            }
+        }
+
+        /**
+         * Loads a configuration file from a zip entry, if the entry has changed.
+         *
+         * @param key the configuration file key
+         * @throws Exception if the entry cannot be read or parsed
+         */
+        private void loadEntry(ConfigKey key) throws Exception
+        {
+            ZipFile zip;
+            try
+            {
+                zip = new ZipFile(key.file);
+            }
+            catch (ZipException exception)
+            {
+                throw new Exception("Error opening zip file " + key.file, exception);
+            }
+            try
+            {
+                ZipEntry entry = zip.getEntry(key.entry);
+                if (entry == null)
+                {
+                    throw new Exception("Zip file entry " + key.entry + " not found in " + zip.getName());
+                }
+                if (entry.getCrc() == -1 || isChanged(entry.getCrc(), entry.getSize()))
+                {
+                    data = parse(zip.getInputStream(entry), key.type);
+                    crc = entry.getCrc();
+                    size = entry.getSize();
+                }
+            }
+            finally
+            {
+                zip.close();
+            }
+        }
+
+        /**
+         * Determines if the content has changed since it was last loaded.
+         *
+         * @param crc  the CRC-32 of the content
+         * @param size the content size
+         * @return <tt>true</tt> if the content hasn't been loaded, or has changed
+         */
+        private boolean isChanged(long crc, long size)
+        {
+            return data == null || this.crc != crc || this.size != size;
+        }
+
+        /**
+         * Parses a configuration file, closing the stream.
+         *
+         * @param in   the stream to parse
+         * @param type the configuration file type
+         * @return the parsed configuration
+         * @throws Exception if the stream cannot be read or parsed
+         */
+        private Object parse(InputStream in, int type) throws Exception
+        {
+            try
+            {
+                return ConfigFileValue.parse(in, type);
+            }
+            finally
+            {
+                FileUtils.close(in);
+            }
+        }
+    }
+
+    /**
+     * The result of executing a command.
+     */
+    private static class CommandResult
+    {
+
+        /**
+         * The exit status.
+         */
+        private final int exitStatus;
+
+        /**
+         * The standard output and standard error.
+         */
+        private final String[] output = new String[2];
+
+        /**
+         * Executes a command.
+         *
+         * @param command the command and its arguments
+         * @param dir     the working directory. May be <tt>null</tt>
+         */
+        public CommandResult(String[] command, String dir)
+        {
+            // FileExecutor may canonicalise the command, so pass it a copy
+            exitStatus = new FileExecutor().executeCommand(command.clone(), output, dir);
+        }
+    }
+}
@@ -38,6 +38,47 @@ public abstract class ValueImpl implements Value
 
     public abstract String resolve(VariableSubstitutor... substitutors) throws Exception;
 
+    /**
+     * The cache of value sources. May be <tt>null</tt>.
+     */
+    private transient ValueCache cache;
+
+    /**
+     * Sets the cache used to share value sources between values.
+     *
+     * @param cache the cache. May be <tt>null</tt>
+     */
+    public void setValueCache(ValueCache cache)
+    {
+        this.cache = cache;
+    }
+
+    /**
+     * Returns the cache used to share value sources between values.
+     *
+     * @return the cache, or an unshared cache if none has been set
+     */
+    protected ValueCache getValueCache()
+    {
+        return (cache != null) ? cache : new ValueCache();
+    }
+
+    /**
+     * Loads the source of the value into the {@link ValueCache} ahead of its resolution.
+     * <p/>
+     * The source is determined using the variables as they are before any dynamic variable is evaluated, so it may
+     * not be the source the value is resolved from. Sources must therefore be safe to load out of order, and
+     * needlessly.
+     * <p/>
+     * This may be invoked concurrently with the prefetching of other values. This implementation is a no-op.
+     *
+     * @param substitutors the substitutors to apply to the source
+     * @throws Exception if the source cannot be loaded
+     */
+    public void prefetch(VariableSubstitutor... substitutors) throws Exception
+    {
+    }
+
     public String resolve(RegularExpressionFilter regexp, VariableSubstitutor... substitutors)
             throws Exception
     {
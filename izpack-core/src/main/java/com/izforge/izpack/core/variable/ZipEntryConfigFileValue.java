@@ -2,10 +2,7 @@ package com.izforge.izpack.core.variable;
 
 import com.izforge.izpack.api.substitutor.VariableSubstitutor;
 
-import java.io.InputStream;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipException;
-import java.util.zip.ZipFile;
+import java.io.File;
 
 
 public class ZipEntryConfigFileValue extends ConfigFileValue
@@ -55,44 +52,42 @@ public class ZipEntryConfigFileValue extends ConfigFileValue
         }
     }
 
+    @Override
+    public void prefetch(VariableSubstitutor... substitutors) throws Exception
+    {
+        getValueCache().getConfig(getFile(substitutors), getEntry(substitutors), type);
+    }
+
     @Override
     public String resolve() throws Exception
     {
-        return super.resolve(getZipEntryInputStream(getFilename(), getEntryname()));
+        return resolve(new File(getFilename()), getEntryname());
     }
 
     @Override
     public String resolve(VariableSubstitutor... substitutors)
             throws Exception
     {
-        String _filename_ = this.filename, _entryname_ = this.entryname;
+        return resolve(getFile(substitutors), getEntry(substitutors), substitutors);
+    }
+
+    private File getFile(VariableSubstitutor... substitutors)
+    {
+        String _filename_ = this.filename;
         for (VariableSubstitutor substitutor : substitutors)
         {
             _filename_ = substitutor.substitute(_filename_);
         }
-        for (VariableSubstitutor substitutor : substitutors)
-        {
-            _entryname_ = substitutor.substitute(_entryname_);
-        }
-        return super.resolve(getZipEntryInputStream(_filename_, _entryname_), substitutors);
+        return new File(_filename_);
     }
 
-    private InputStream getZipEntryInputStream(String filename, String entryname) throws Exception
+    private String getEntry(VariableSubstitutor... substitutors)
     {
-        ZipFile zipfile;
-        try
-        {
-            zipfile = new ZipFile(filename);
-            ZipEntry entry = zipfile.getEntry(entryname);
-            if (entry == null)
-            {
-                throw new Exception("Zip file entry " + entryname + " not found in " + zipfile.getName());
-            }
-            return zipfile.getInputStream(entry);
-        }
-        catch (ZipException ze)
+        String _entryname_ = this.entryname;
+        for (VariableSubstitutor substitutor : substitutors)
         {
-            throw new Exception("Error opening zip file " + filename, ze);
+            _entryname_ = substitutor.substitute(_entryname_);
         }
+        return _entryname_;
     }
 }
@@ -4,7 +4,9 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Properties;
 
 import org.junit.Test;
 
@@ -16,7 +18,10 @@ import com.izforge.izpack.core.container.DefaultContainer;
 import com.izforge.izpack.core.rules.ConditionContainer;
 import com.izforge.izpack.core.rules.RulesEngineImpl;
 import com.izforge.izpack.core.rules.process.VariableCondition;
+import com.izforge.izpack.core.trace.TraceEvent;
+import com.izforge.izpack.core.trace.TraceRecorder;
 import com.izforge.izpack.core.variable.PlainValue;
+import com.izforge.izpack.core.variable.ValueCache;
 import com.izforge.izpack.util.Platforms;
 
 
@@ -215,6 +220,27 @@ public class DefaultVariablesTest
         assertEquals("/usr/local/bin", variables.get("INSTALL_PATH"));
     }
 
+    /**
+     * Verifies that the container injects the {@link TraceRecorder}, and that variable writes are recorded.
+     */
+    @Test
+    public void testTraceRecorder()
+    {
+        DefaultContainer container = new DefaultContainer();
+        container.addComponent(Properties.class, new Properties());
+        container.addComponent(ValueCache.class);
+        container.addComponent(TraceRecorder.class);
+        container.addComponent(DefaultVariables.class);
+        TraceRecorder recorder = container.getComponent(TraceRecorder.class);
+        recorder.setEnabled(true);
+
+        container.getComponent(DefaultVariables.class).set("var1", "value1");
+        List<TraceEvent> events = recorder.getEvents();
+        assertEquals(1, events.size());
+        assertEquals("var1", events.get(0).getName());
+        assertEquals("value1", events.get(0).getValue());
+    }
+
     /**
      * Creates a dynamic variable.
      *
@@ -0,0 +1,184 @@
+package com.izforge.izpack.core.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+
+/**
+ * Tests the {@link Metrics} class.
+ *
+ * @author agent
+ */
+public class MetricsTest
+{
+
+    /**
+     * Temporary folder.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+
+    /**
+     * Verifies that metrics are created on first access, and shared thereafter.
+     */
+    @Test
+    public void testRegistry()
+    {
+        Metrics metrics = new Metrics();
+        Counter counter = metrics.getCounter("files");
+        assertSame(counter, metrics.getCounter("files"));
+        assertSame(metrics.getTimer("unpack"), metrics.getTimer("unpack"));
+        assertSame(metrics.getHistogram("size"), metrics.getHistogram("size"));
+
+        counter.increment();
+        counter.add(10);
+        assertEquals(11, counter.getCount());
+
+        metrics.reset();
+        assertEquals(0, metrics.getCounter("files").getCount());
+    }
+
+    /**
+     * Tests the {@link Histogram} statistics.
+     */
+    @Test
+    public void testHistogram()
+    {
+        Histogram histogram = new Histogram();
+        assertEquals(0, histogram.getPercentile(50));
+        assertEquals(0, histogram.getMin());
+        assertEquals(0, histogram.getMax());
+
+        for (int i = 1; i <= 100; ++i)
+        {
+            histogram.update(i);
+        }
+        assertEquals(100, histogram.getCount());
+        assertEquals(5050, histogram.getSum());
+        assertEquals(1, histogram.getMin());
+        assertEquals(100, histogram.getMax());
+        assertEquals(50.5, histogram.getMean(), 0);
+
+        // percentiles are reported as the upper bound of power-of-two buckets
+        assertEquals(63, histogram.getPercentile(50));
+        assertEquals(100, histogram.getPercentile(99));
+        assertEquals(1, histogram.getPercentile(1));
+    }
+
+    /**
+     * Tests the {@link Timer}.
+     */
+    @Test
+    public void testTimer()
+    {
+        Timer timer = new Timer();
+        long elapsed = timer.stop(timer.start());
+        timer.update(1000);
+        assertEquals(2, timer.getCount());
+        assertEquals(elapsed + 1000, timer.getTotal());
+    }
+
+    /**
+     * Verifies that metrics are reported as a line of JSON, appended to the file named by the {@link Metrics#FILE}
+     * system property.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testReport() throws Exception
+    {
+        Metrics metrics = new Metrics();
+        metrics.getCounter("unpack.files").add(3);
+        metrics.getTimer("listener.\"quoted\"").update(2500000);
+        metrics.getHistogram("size").update(10);
+
+        String json = metrics.toJSON();
+        assertTrue(json.contains("\"counters\":{\"unpack.files\":{\"count\":3,"));
+        assertTrue(json.contains("\"timers\":{\"listener.\\\"quoted\\\"\":{\"count\":1,\"totalMs\":2.5,"));
+        assertTrue(json.contains("\"histograms\":{\"size\":{\"count\":1,\"sum\":10,\"min\":10,\"max\":10,"
+                                         + "\"mean\":10,\"p50\":10,\"p90\":10,\"p99\":10}"));
+
+        File file = new File(temporaryFolder.getRoot(), "metrics.json");
+        System.setProperty(Metrics.FILE, file.getPath());
+        try
+        {
+            metrics.report();
+            metrics.report();
+        }
+        finally
+        {
+            System.clearProperty(Metrics.FILE);
+        }
+        List<String> lines = FileUtils.readLines(file, "UTF-8");
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(0).startsWith("{\"timestamp\":"));
+    }
+
+    /**
+     * Verifies that reports are appended to a file while streaming, and that streaming stops when the metrics are
+     * reported.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testStream() throws Exception
+    {
+        Metrics metrics = new Metrics();
+        metrics.getCounter("unpack.files").add(3);
+        File file = new File(temporaryFolder.getRoot(), "stream.json");
+        metrics.stream(file.getPath(), 10, TimeUnit.MILLISECONDS);
+        long end = System.currentTimeMillis() + 5000;
+        while (!file.exists() && System.currentTimeMillis() < end)
+        {
+            Thread.sleep(10);
+        }
+        metrics.report();
+
+        List<String> lines = FileUtils.readLines(file, "UTF-8");
+        assertTrue(lines.size() >= 1);
+        assertTrue(lines.get(0).contains("\"unpack.files\":{\"count\":3,"));
+
+        // no more reports are streamed after the metrics are reported
+        Thread.sleep(100);
+        assertEquals(lines.size(), FileUtils.readLines(file, "UTF-8").size());
+    }
+
+    /**
+     * Tests the {@link Timeline} class.
+     */
+    @Test
+    public void testTimeline()
+    {
+        Metrics metrics = new Metrics();
+        Timeline timeline = metrics.getTimeline("startup");
+        assertSame(timeline, metrics.getTimeline("startup"));
+
+        long first = timeline.mark("first");
+        long second = timeline.mark("second");
+        long again = timeline.mark("first");
+
+        Map<String, Long> phases = timeline.getPhases();
+        assertEquals(Arrays.asList("first", "second"), new ArrayList<String>(phases.keySet()));
+        assertEquals(first + again, phases.get("first").longValue());
+        assertEquals(second, phases.get("second").longValue());
+        assertEquals(first + second + again, timeline.getTotal());
+        assertEquals(2, metrics.getTimer("startup.first").getCount());
+        assertEquals(1, metrics.getTimer("startup.second").getCount());
+        assertTrue(timeline.toString().startsWith("startup timeline: first="));
+    }
+
+}
@@ -0,0 +1,168 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.core.trace;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringWriter;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.izforge.izpack.core.trace.TraceEvent.Type;
+
+
+/**
+ * Tests the {@link TraceRecorder} class.
+ *
+ * @author agent
+ */
+public class TraceRecorderTest
+{
+
+    /**
+     * Verifies that events are only recorded when the recorder is enabled.
+     */
+    @Test
+    public void testEnabled()
+    {
+        TraceRecorder recorder = new TraceRecorder(10);
+        recorder.variable("foo", "bar");
+        assertEquals(0, recorder.getCount());
+
+        recorder.setEnabled(true);
+        recorder.variable("foo", "bar");
+        recorder.condition("cond", true);
+        recorder.mark("panel switch");
+        assertEquals(3, recorder.getCount());
+
+        List<TraceEvent> events = recorder.getEvents();
+        check(events.get(0), 0, Type.VARIABLE, "foo", "bar");
+        check(events.get(1), 1, Type.CONDITION, "cond", "true");
+        check(events.get(2), 2, Type.MARK, "panel switch", null);
+
+        recorder.clear();
+        assertEquals(0, recorder.getCount());
+        assertEquals(0, recorder.getEvents().size());
+    }
+
+    /**
+     * Verifies that the oldest events are discarded when the buffer is full.
+     */
+    @Test
+    public void testWrap()
+    {
+        TraceRecorder recorder = new TraceRecorder(3);
+        recorder.setEnabled(true);
+        for (int i = 0; i < 5; ++i)
+        {
+            recorder.variable("var" + i, Integer.toString(i));
+        }
+        assertEquals(5, recorder.getCount());
+        assertEquals(2, recorder.getFirst());
+        assertNull(recorder.get(1));
+        assertNull(recorder.get(5));
+        check(recorder.get(2), 2, Type.VARIABLE, "var2", "2");
+        check(recorder.get(4), 4, Type.VARIABLE, "var4", "4");
+
+        List<TraceEvent> events = recorder.getEvents();
+        assertEquals(3, events.size());
+        for (int i = 0; i < 3; ++i)
+        {
+            assertEquals(i + 2, events.get(i).getSequence());
+        }
+    }
+
+    /**
+     * Verifies that exported names and values are escaped.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testExport() throws Exception
+    {
+        TraceRecorder recorder = new TraceRecorder(10);
+        recorder.setEnabled(true);
+        recorder.variable("foo", "a\tb\nc\\d");
+        recorder.variable("bar", null);
+
+        StringWriter writer = new StringWriter();
+        recorder.export(writer);
+        String[] lines = writer.toString().split("\n");
+        assertEquals(2, lines.length);
+        String[] fields = lines[0].split("\t", -1);
+        assertEquals(5, fields.length);
+        assertEquals("0", fields[0]);
+        assertEquals("VARIABLE", fields[2]);
+        assertEquals("foo", fields[3]);
+        assertEquals("a\\tb\\nc\\\\d", fields[4]);
+        assertEquals("", lines[1].split("\t", -1)[4]);
+    }
+
+    /**
+     * Verifies that the values of masked variables are not exported.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testMask() throws Exception
+    {
+        TraceRecorder recorder = new TraceRecorder(10);
+        recorder.setEnabled(true);
+        recorder.mask("password");
+        recorder.variable("password", "secret");
+        recorder.variable("user", "admin");
+        recorder.mark("password");
+        assertTrue(recorder.isMasked("password"));
+        assertFalse(recorder.isMasked("user"));
+
+        List<TraceEvent> events = recorder.getEvents();
+        assertEquals(TraceRecorder.MASK, recorder.getValue(events.get(0)));
+        assertEquals("admin", recorder.getValue(events.get(1)));
+        assertNull(recorder.getValue(events.get(2)));
+
+        StringWriter writer = new StringWriter();
+        recorder.export(writer);
+        String result = writer.toString();
+        assertFalse(result.contains("secret"));
+        assertTrue(result.contains(TraceRecorder.MASK));
+        assertTrue(result.contains("admin"));
+    }
+
+    /**
+     * Verifies an event matches that expected.
+     *
+     * @param event    the event to check
+     * @param sequence the expected sequence number
+     * @param type     the expected type
+     * @param name     the expected name
+     * @param value    the expected value
+     */
+    private void check(TraceEvent event, long sequence, Type type, String name, String value)
+    {
+        assertEquals(sequence, event.getSequence());
+        assertEquals(type, event.getType());
+        assertEquals(name, event.getName());
+        assertEquals(value, event.getValue());
+    }
+}
@@ -0,0 +1,324 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.core.variable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Properties;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.izforge.izpack.api.data.Value;
+import com.izforge.izpack.api.data.Variables;
+import com.izforge.izpack.api.substitutor.VariableSubstitutor;
+import com.izforge.izpack.core.data.DefaultVariables;
+import com.izforge.izpack.core.data.DynamicVariableImpl;
+import com.izforge.izpack.core.substitutor.VariableSubstitutorImpl;
+import com.izforge.izpack.util.OsVersion;
+
+
+/**
+ * Tests the {@link ValueCache} class.
+ *
+ * @author agent
+ */
+public class ValueCacheTest
+{
+
+    /**
+     * Temporary folder.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * The cache.
+     */
+    private final ValueCache cache = new ValueCache();
+
+
+    /**
+     * Verifies that a configuration file is parsed once and shared, until it is modified.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testConfigFile() throws Exception
+    {
+        File file = temporaryFolder.newFile("app.properties");
+        write(file, "foo=1", "bar=2");
+        PlainConfigFileValue foo = createValue(file, "foo");
+        PlainConfigFileValue bar = createValue(file, "bar");
+        assertEquals("1", foo.resolve());
+        assertEquals("2", bar.resolve());
+
+        Object config = cache.getConfig(file, null, ConfigFileValue.CONFIGFILE_TYPE_OPTIONS);
+        assertSame(config, cache.getConfig(file, null, ConfigFileValue.CONFIGFILE_TYPE_OPTIONS));
+
+        write(file, "foo=10", "bar=20");
+        assertEquals("10", foo.resolve());
+        assertEquals("20", bar.resolve());
+        assertNotSame(config, cache.getConfig(file, null, ConfigFileValue.CONFIGFILE_TYPE_OPTIONS));
+    }
+
+    /**
+     * Verifies that a configuration file is parsed again when it is modified without changing its length or
+     * modification time, and that within a refresh, it is only checked once.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testSameSizeModification() throws Exception
+    {
+        File file = temporaryFolder.newFile("app.properties");
+        write(file, "foo=1");
+        long modified = file.lastModified();
+        PlainConfigFileValue foo = createValue(file, "foo");
+        assertEquals("1", foo.resolve());
+
+        write(file, "foo=2");
+        assertTrue(file.setLastModified(modified));
+        assertEquals("2", foo.resolve());
+
+        cache.startRefresh();
+        try
+        {
+            Object config = cache.getConfig(file, null, ConfigFileValue.CONFIGFILE_TYPE_OPTIONS);
+            write(file, "foo=3");
+            assertSame(config, cache.getConfig(file, null, ConfigFileValue.CONFIGFILE_TYPE_OPTIONS));
+        }
+        finally
+        {
+            cache.endRefresh();
+        }
+        assertEquals("3", foo.resolve());
+    }
+
+    /**
+     * Verifies that configuration files can be read from zip entries.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testZipEntry() throws Exception
+    {
+        File file = temporaryFolder.newFile("app.zip");
+        ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file));
+        try
+        {
+            out.putNextEntry(new ZipEntry("conf/app.properties"));
+            out.write("foo=zip".getBytes("ISO-8859-1"));
+            out.closeEntry();
+        }
+        finally
+        {
+            out.close();
+        }
+        ZipEntryConfigFileValue value = new ZipEntryConfigFileValue(
+                file.getPath(), "conf/app.properties", ConfigFileValue.CONFIGFILE_TYPE_OPTIONS, null, "foo");
+        assertEquals("zip", value.resolve());
+        JarEntryConfigValue jar = new JarEntryConfigValue(
+                file.getPath(), "conf/app.properties", ConfigFileValue.CONFIGFILE_TYPE_OPTIONS, null, "foo");
+        assertEquals("zip", jar.resolve());
+    }
+
+    /**
+     * Verifies that a command is only executed once during a refresh.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testCommand() throws Exception
+    {
+        assumeTrue(OsVersion.IS_UNIX);
+        File count = new File(temporaryFolder.getRoot(), "count");
+        String[] command = {"sh", "-c", "echo x >> " + count.getPath() + "; echo foo"};
+        String[] output = new String[2];
+
+        cache.startRefresh();
+        try
+        {
+            assertEquals(0, cache.execute(command, output, null));
+            assertEquals("foo", output[0].trim());
+            assertEquals(0, cache.execute(command, output, null));
+            assertEquals("foo", output[0].trim());
+            assertEquals(2, count.length());
+        }
+        finally
+        {
+            cache.endRefresh();
+        }
+
+        // outside of a refresh, the command is always executed
+        assertEquals(0, cache.execute(command, output, null));
+        assertEquals(4, count.length());
+    }
+
+    /**
+     * Verifies that only commands marked side effect free are run when prefetching.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testPrefetchCommand() throws Exception
+    {
+        assumeTrue(OsVersion.IS_UNIX);
+        File count = new File(temporaryFolder.getRoot(), "count");
+        ExecValue value = new ExecValue(new String[]{"sh", "-c", "echo x >> " + count.getPath() + "; echo foo"},
+                                        null, false, false);
+        value.setValueCache(cache);
+        VariableSubstitutor substitutor = new VariableSubstitutorImpl(new Properties());
+
+        cache.startRefresh();
+        try
+        {
+            value.prefetch(substitutor);
+            assertFalse(count.exists());
+
+            value.setSideEffectFree(true);
+            value.prefetch(substitutor);
+            assertEquals(2, count.length());
+            assertEquals("foo", value.resolve(substitutor).trim());
+            assertEquals(2, count.length());
+        }
+        finally
+        {
+            cache.endRefresh();
+        }
+    }
+
+    /**
+     * Verifies that a source that references a variable set by a preceding dynamic variable is resolved from the
+     * source named by the variable's new value, not the source prefetched.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testPrefetchDependentSource() throws Exception
+    {
+        File file1 = temporaryFolder.newFile("app1.properties");
+        File file2 = temporaryFolder.newFile("app2.properties");
+        write(file1, "name=app2", "foo=1");
+        write(file2, "foo=2");
+        Properties properties = new Properties();
+        properties.setProperty("name", "app1");
+        Variables variables = new DefaultVariables(properties, cache);
+        variables.add(createVariable("name", createValue(file1, "name")));
+        String location = new File(temporaryFolder.getRoot(), "${name}.properties").getPath();
+        variables.add(createVariable("foo", new PlainConfigFileValue(
+                location, ConfigFileValue.CONFIGFILE_TYPE_OPTIONS, null, "foo")));
+        variables.refresh();
+        assertEquals("app2", variables.get("name"));
+        assertEquals("2", variables.get("foo"));
+    }
+
+    /**
+     * Verifies that dynamic variables are evaluated from prefetched sources when variables are refreshed.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testRefresh() throws Exception
+    {
+        File file = temporaryFolder.newFile("app.properties");
+        write(file, "foo=1", "bar=2", "baz=3");
+        Variables variables = new DefaultVariables(new Properties(), cache);
+        variables.add(createVariable("foo", createValue(file, "foo")));
+        variables.add(createVariable("bar", createValue(file, "bar")));
+        variables.add(createVariable("baz", createValue(file, "baz")));
+        variables.refresh();
+        assertEquals("1", variables.get("foo"));
+        assertEquals("2", variables.get("bar"));
+        assertEquals("3", variables.get("baz"));
+
+        write(file, "foo=one", "bar=two", "baz=three");
+        variables.refresh();
+        assertEquals("one", variables.get("foo"));
+        assertEquals("two", variables.get("bar"));
+        assertEquals("three", variables.get("baz"));
+    }
+
+    /**
+     * Creates a value that reads a key from a properties file.
+     *
+     * @param file the file
+     * @param key  the key
+     * @return a new value
+     */
+    private PlainConfigFileValue createValue(File file, String key)
+    {
+        PlainConfigFileValue value = new PlainConfigFileValue(
+                file.getPath(), ConfigFileValue.CONFIGFILE_TYPE_OPTIONS, null, key);
+        value.setValueCache(cache);
+        return value;
+    }
+
+    /**
+     * Creates a dynamic variable.
+     *
+     * @param name  the variable name
+     * @param value the variable value
+     * @return a new dynamic variable
+     */
+    private DynamicVariableImpl createVariable(String name, Value value)
+    {
+        DynamicVariableImpl variable = new DynamicVariableImpl();
+        variable.setName(name);
+        variable.setValue(value);
+        return variable;
+    }
+
+    /**
+     * Writes lines to a file.
+     *
+     * @param file  the file
+     * @param lines the lines to write
+     * @throws IOException for any I/O error
+     */
+    private void write(File file, String... lines) throws IOException
+    {
+        PrintWriter writer = new PrintWriter(new FileWriter(file));
+        try
+        {
+            for (String line : lines)
+            {
+                writer.println(line);
+            }
+        }
+        finally
+        {
+            writer.close();
+        }
+    }
+}
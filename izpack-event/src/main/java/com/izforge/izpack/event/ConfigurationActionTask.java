@@ -24,10 +24,11 @@ package com.izforge.izpack.event;
 import java.util.logging.Logger;
 
 import com.izforge.izpack.api.rules.RulesEngine;
+import com.izforge.izpack.util.config.ConditionalTask;
 import com.izforge.izpack.util.config.ConfigurableTask;
 
 
-public class ConfigurationActionTask
+public class ConfigurationActionTask implements ConditionalTask
 {
     private static final Logger logger = Logger.getLogger(ConfigurationActionTask.class.getName());
 
@@ -43,6 +44,7 @@ public class ConfigurationActionTask
         this.rules = rules;
     }
 
+    @Override
     public ConfigurableTask getConfigurableTask()
     {
         return task;
@@ -63,6 +65,34 @@ public class ConfigurationActionTask
         this.condition = condition;
     }
 
+    /**
+     * Determines if the task has a condition.
+     *
+     * @return <tt>true</tt> if the task has a condition
+     */
+    @Override
+    public boolean hasCondition()
+    {
+        return condition != null && condition.trim().length() != 0;
+    }
+
+    /**
+     * Determines if the task should be executed.
+     *
+     * @return <tt>true</tt> if the task has no condition, or its condition is true
+     */
+    @Override
+    public boolean isEnabled()
+    {
+        boolean result = !hasCondition() || rules.isConditionTrue(condition);
+        if (!result)
+        {
+            logger.fine("Condition " + condition + " not met - skipping configuration task class "
+                                + task.getClass().getName());
+        }
+        return result;
+    }
+
     public void execute() throws Exception
     {
         if (condition == null || condition.trim().length() == 0 || rules.isConditionTrue(condition))
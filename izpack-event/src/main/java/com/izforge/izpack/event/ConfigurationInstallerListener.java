@@ -59,6 +59,7 @@ import com.izforge.izpack.util.FileUtil;
 import com.izforge.izpack.util.config.ConfigFileTask;
 import com.izforge.izpack.util.config.ConfigurableFileCopyTask;
 import com.izforge.izpack.util.config.ConfigurableTask;
+import com.izforge.izpack.util.config.ConfigurableTaskExecutor;
 import com.izforge.izpack.util.config.IniFileCopyTask;
 import com.izforge.izpack.util.config.OptionFileCopyTask;
 import com.izforge.izpack.util.config.RegistryTask;
@@ -270,6 +271,7 @@ public class ConfigurationInstallerListener extends SimpleInstallerListener
         }
 
         logger.fine("Executing all " + order + " configuration actions for " + packName + " ...");
+        List<ConfigurationActionTask> tasks = new ArrayList<ConfigurationActionTask>();
         for (ConfigurationAction act : actList)
         {
             // Inform progress bar if needed. Works only on AFTER_PACKS
@@ -281,16 +283,20 @@ public class ConfigurationInstallerListener extends SimpleInstallerListener
             }
             else
             {
-                try
-                {
-                    act.performInstallAction();
-                }
-                catch (Exception e)
-                {
-                    throw new InstallerException(e);
-                }
+                tasks.addAll(act.getActionTasks());
             }
         }
+
+        // tasks are grouped by the files they patch, so that each file is read and written once per group.
+        // Conditions are evaluated by the executor as each task is reached
+        try
+        {
+            ConfigurableTaskExecutor.create().executeConditional(tasks);
+        }
+        catch (Exception e)
+        {
+            throw new InstallerException(e);
+        }
     }
 
     /**
@@ -592,6 +598,11 @@ public class ConfigurationInstallerListener extends SimpleInstallerListener
                     {
                         ((SingleXmlFileMergeTask) task).setCleanup(Boolean.parseBoolean(boolattr));
                     }
+                    boolattr = getAttribute(el, "streaming");
+                    if (boolattr != null)
+                    {
+                        ((SingleXmlFileMergeTask) task).setStreaming(Boolean.parseBoolean(boolattr));
+                    }
                     List<FileSet> fslist = readFileSets(idata, el);
                     for (FileSet fs : fslist)
                     {
@@ -1006,6 +1017,12 @@ public class ConfigurationInstallerListener extends SimpleInstallerListener
                     {
                         parseError("Bad execution type " + exectype + " given for dynamic variable " + name);
                     }
+                    if (dynamicVariable.getValue() instanceof ExecValue)
+                    {
+                        // side effect free commands may be run ahead of their evaluation, when prefetching
+                        ((ExecValue) dynamicVariable.getValue()).setSideEffectFree(
+                                Boolean.parseBoolean(var.getAttribute("sideeffectfree")));
+                    }
                     try
                     {
                         dynamicVariable.validate();
@@ -932,50 +932,56 @@ public class TwoColumnLayout implements LayoutManager2
 
     /**
      * This functionality removes the TwoColumnConstraints from Vectors so that alignment of
-     * components on UserInputPanel doesn't get dirty
+     * components on UserInputPanel doesn't get dirty.
+     * <p/>
+     * The component's place is cleared, and if no other component shares its row, the row is removed from both
+     * columns, so that the rows below keep their alignment.
      *
      * @param comp the component to be removed
      */
     public void removeLayoutComponent(Component comp)
     {
-        java.util.List<TwoColumnConstraints> left = components[LEFT];
-        java.util.List<TwoColumnConstraints> right = components[RIGHT];
-
-        for (int i = 0; i < left.size(); i++)
+        if (title != null && comp.equals(title.component))
         {
-            TwoColumnConstraints constraints = left.get(i);
-            if (constraints == null)
-            {
-                continue;
-            }
-            Component ctemp = constraints.component;
-            if (ctemp != null && ctemp.equals(comp))
+            title = null;
+            titleHeight = 0;
+            return;
+        }
+        for (java.util.List<TwoColumnConstraints> column : components)
+        {
+            for (int i = 0; i < column.size(); i++)
             {
-                if (constraints.position == TwoColumnConstraints.BOTH
-                        || constraints.position == TwoColumnConstraints.WESTONLY)
+                TwoColumnConstraints constraints = column.get(i);
+                if (constraints != null && comp.equals(constraints.component))
                 {
-                    right.remove(i);
+                    column.set(i, null);
+                    removeEmptyRow(i);
+                    return;
                 }
-                break;
             }
         }
+    }
 
-        for (int j = 0; j < right.size(); j++)
+    /**
+     * Removes a row from both columns, if neither contains a component in that row.
+     *
+     * @param row the row
+     */
+    private void removeEmptyRow(int row)
+    {
+        java.util.List<TwoColumnConstraints> left = components[LEFT];
+        java.util.List<TwoColumnConstraints> right = components[RIGHT];
+        boolean leftEmpty = row >= left.size() || left.get(row) == null;
+        boolean rightEmpty = row >= right.size() || right.get(row) == null;
+        if (leftEmpty && rightEmpty)
         {
-            TwoColumnConstraints constraints = right.get(j);
-            if (constraints == null)
+            if (row < left.size())
             {
-                continue;
+                left.remove(row);
             }
-            Component ctemp = constraints.component;
-            if (ctemp != null && ctemp.equals(comp))
+            if (row < right.size())
             {
-                if (constraints.position == TwoColumnConstraints.BOTH
-                        || constraints.position == TwoColumnConstraints.EASTONLY)
-                {
-                    left.remove(j);
-                }
-                break;
+                right.remove(row);
             }
         }
     }
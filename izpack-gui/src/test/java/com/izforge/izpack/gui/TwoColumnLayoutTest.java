@@ -0,0 +1,157 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.gui;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Component;
+import java.awt.Container;
+import java.awt.Dimension;
+
+import javax.swing.JPanel;
+
+import org.junit.Before;
+import org.junit.Test;
+
+
+/**
+ * Tests the {@link TwoColumnLayout} class.
+ *
+ * @author agent
+ */
+public class TwoColumnLayoutTest
+{
+
+    /**
+     * The container being laid out.
+     */
+    private Container container;
+
+
+    /**
+     * Sets up the test case.
+     */
+    @Before
+    public void setUp()
+    {
+        container = new JPanel(new TwoColumnLayout(0, 5, 30, 0, TwoColumnLayout.LEFT));
+        container.setSize(400, 400);
+    }
+
+    /**
+     * Verifies that removing one of two components in a row keeps the row, so the rows below don't move.
+     */
+    @Test
+    public void testRemoveFromSharedRow()
+    {
+        Component label1 = add(TwoColumnConstraints.WEST);
+        Component field1 = add(TwoColumnConstraints.EAST);
+        Component label2 = add(TwoColumnConstraints.WEST);
+        Component field2 = add(TwoColumnConstraints.EAST);
+        container.doLayout();
+        int row1 = label1.getY();
+        int row2 = label2.getY();
+        assertTrue(row2 > row1);
+
+        container.remove(field1);
+        container.doLayout();
+        assertEquals(row1, label1.getY());
+        assertEquals(row2, label2.getY());
+        assertEquals(row2, field2.getY());
+    }
+
+    /**
+     * Verifies that removing the last component of a row removes the row, so the rows below move up, and stay
+     * aligned.
+     */
+    @Test
+    public void testRemoveRow()
+    {
+        Component label1 = add(TwoColumnConstraints.WEST);
+        Component field1 = add(TwoColumnConstraints.EAST);
+        Component label2 = add(TwoColumnConstraints.WEST);
+        Component field2 = add(TwoColumnConstraints.EAST);
+        Component text = add(TwoColumnConstraints.BOTH);
+        container.doLayout();
+        int row1 = label1.getY();
+        int row2 = label2.getY();
+
+        container.remove(label1);
+        container.remove(field1);
+        container.doLayout();
+        assertEquals(row1, label2.getY());
+        assertEquals(row1, field2.getY());
+        assertEquals(row2, text.getY());
+    }
+
+    /**
+     * Verifies that removing a component that spans both columns removes its row.
+     */
+    @Test
+    public void testRemoveSpanningComponent()
+    {
+        Component text = add(TwoColumnConstraints.BOTH);
+        Component label = add(TwoColumnConstraints.WEST);
+        Component field = add(TwoColumnConstraints.EAST);
+        container.doLayout();
+        int row1 = text.getY();
+
+        container.remove(text);
+        container.doLayout();
+        assertEquals(row1, label.getY());
+        assertEquals(row1, field.getY());
+    }
+
+    /**
+     * Verifies that removing the title leaves the other components laid out as if there were no title.
+     */
+    @Test
+    public void testRemoveTitle()
+    {
+        Component label = add(TwoColumnConstraints.WEST);
+        container.doLayout();
+        int row1 = label.getY();
+
+        Component title = add(TwoColumnConstraints.NORTH);
+        container.doLayout();
+        assertTrue(label.getY() > row1);
+
+        container.remove(title);
+        container.doLayout();
+        assertEquals(row1, label.getY());
+    }
+
+    /**
+     * Adds a component to the container.
+     *
+     * @param position the component position
+     * @return the component
+     */
+    private Component add(int position)
+    {
+        JPanel component = new JPanel();
+        component.setPreferredSize(new Dimension(50, 20));
+        TwoColumnConstraints constraints = new TwoColumnConstraints();
+        constraints.position = position;
+        container.add(component, constraints);
+        return component;
+    }
+}
@@ -33,6 +33,7 @@ import com.izforge.izpack.api.adaptator.impl.XMLParser;
 import com.izforge.izpack.api.data.AutomatedInstallData;
 import com.izforge.izpack.api.data.Info;
 import com.izforge.izpack.api.resource.Locales;
+import com.izforge.izpack.core.metrics.Metrics;
 import com.izforge.izpack.installer.base.InstallerBase;
 import com.izforge.izpack.installer.data.UninstallDataWriter;
 import com.izforge.izpack.installer.requirement.RequirementsChecker;
@@ -78,6 +79,11 @@ public class AutomatedInstaller extends InstallerBase
      */
     private final Housekeeper housekeeper;
 
+    /**
+     * The installation metrics.
+     */
+    private final Metrics metrics;
+
     /**
      * The logger.
      */
@@ -93,10 +99,11 @@ public class AutomatedInstaller extends InstallerBase
      * @param requirements        the installation requirements checker
      * @param uninstallDataWriter the uninstallation data writer
      * @param housekeeper         the house-keeper
+     * @param metrics             the installation metrics
      */
     public AutomatedInstaller(AutomatedPanels panels, AutomatedInstallData installData, Locales locales,
                               RequirementsChecker requirements, UninstallDataWriter uninstallDataWriter,
-                              Housekeeper housekeeper)
+                              Housekeeper housekeeper, Metrics metrics)
     {
         this.panels = panels;
         this.installData = installData;
@@ -104,6 +111,7 @@ public class AutomatedInstaller extends InstallerBase
         this.requirements = requirements;
         this.uninstallDataWriter = uninstallDataWriter;
         this.housekeeper = housekeeper;
+        this.metrics = metrics;
     }
 
     /**
@@ -201,6 +209,7 @@ public class AutomatedInstaller extends InstallerBase
                     System.out.println("[ Rebooting now automatically ]");
                 }
             }
+            metrics.report();
             housekeeper.shutDown(success ? 0 : 1, reboot);
         }
     }
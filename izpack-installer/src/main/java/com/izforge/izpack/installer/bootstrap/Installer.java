@@ -31,6 +31,8 @@ import java.util.logging.Level;
 import java.util.logging.LogManager;
 import java.util.logging.Logger;
 
+import com.izforge.izpack.core.metrics.Metrics;
+import com.izforge.izpack.core.metrics.Timeline;
 import com.izforge.izpack.installer.automation.AutomatedInstaller;
 import com.izforge.izpack.installer.console.ConsoleInstaller;
 import com.izforge.izpack.installer.container.impl.ConsoleInstallerContainer;
@@ -52,6 +54,11 @@ public class Installer
     public static final int CONSOLE_INSTALL = 0, CONSOLE_GEN_TEMPLATE = 1, CONSOLE_FROM_TEMPLATE = 2,
             CONSOLE_FROM_SYSTEMPROPERTIES = 3, CONSOLE_FROM_SYSTEMPROPERTIESMERGE = 4;
 
+    /**
+     * The installation metrics.
+     */
+    private final Metrics metrics;
+
     public static final String LOGGING_CONFIGURATION = "/com/izforge/izpack/installer/logging/logging.properties";
 
     /*
@@ -63,8 +70,13 @@ public class Installer
     {
         try
         {
+            // start the start-up timeline
+            Metrics metrics = new Metrics();
+            Timeline timeline = metrics.getTimeline(InstallerContainer.STARTUP);
             initializeLogging();
-            Installer installer = new Installer();
+            timeline.mark("logging");
+            metrics.stream();
+            Installer installer = new Installer(metrics);
             installer.start(args);
         }
         catch (Exception e)
@@ -74,6 +86,16 @@ public class Installer
 
     }
 
+    /**
+     * Constructs an <tt>Installer</tt>.
+     *
+     * @param metrics the installation metrics
+     */
+    private Installer(Metrics metrics)
+    {
+        this.metrics = metrics;
+    }
+
     private static void initializeLogging()
     {
         LogManager manager = LogManager.getLogManager();
@@ -208,7 +230,7 @@ public class Installer
         switch (type)
         {
             case INSTALLER_GUI:
-                InstallerGui.run(mediaDir);
+                InstallerGui.run(mediaDir, metrics);
                 break;
 
             case INSTALLER_AUTO:
@@ -230,9 +252,10 @@ public class Installer
      */
     private void launchAutomatedInstaller(String path, String mediaDir) throws Exception
     {
-        InstallerContainer container = new ConsoleInstallerContainer();
+        InstallerContainer container = new ConsoleInstallerContainer(metrics);
         AutomatedInstaller automatedInstaller = container.getComponent(AutomatedInstaller.class);
         automatedInstaller.init(path, mediaDir);
+        logStartup();
         automatedInstaller.doInstall();
     }
 
@@ -246,14 +269,25 @@ public class Installer
      */
     private void launchConsoleInstaller(int consoleAction, String path, String langCode, String mediaDir)
     {
-        InstallerContainer container = new ConsoleInstallerContainer();
+        InstallerContainer container = new ConsoleInstallerContainer(metrics);
         if (langCode != null)
         {
             container.setLocale(langCode);
         }
         ConsoleInstaller consoleInstaller = container.getComponent(ConsoleInstaller.class);
         consoleInstaller.setMediaPath(mediaDir);
+        logStartup();
         consoleInstaller.run(consoleAction, path);
     }
 
+    /**
+     * Ends and logs the start-up timeline, once the installer is ready to run.
+     */
+    private void logStartup()
+    {
+        Timeline timeline = metrics.getTimeline(InstallerContainer.STARTUP);
+        timeline.mark("installer");
+        timeline.log();
+    }
+
 }
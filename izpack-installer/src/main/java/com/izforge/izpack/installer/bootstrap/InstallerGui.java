@@ -26,6 +26,8 @@ import javax.swing.SwingUtilities;
 import com.izforge.izpack.api.container.Container;
 import com.izforge.izpack.api.data.InstallData;
 import com.izforge.izpack.api.exception.IzPackException;
+import com.izforge.izpack.core.metrics.Metrics;
+import com.izforge.izpack.core.metrics.Timeline;
 import com.izforge.izpack.installer.container.impl.GUIInstallerContainer;
 import com.izforge.izpack.installer.container.impl.InstallerContainer;
 import com.izforge.izpack.installer.gui.InstallerController;
@@ -37,7 +39,14 @@ import com.izforge.izpack.installer.language.LanguageDialog;
 public class InstallerGui
 {
 
-    public static void run(final String mediaPath) throws Exception
+    /**
+     * Runs the GUI installer.
+     *
+     * @param mediaPath the multi-volume media directory. May be <tt>null</tt>
+     * @param metrics   the installation metrics, with the start-up timeline already started
+     * @throws Exception for any error
+     */
+    public static void run(final String mediaPath, final Metrics metrics) throws Exception
     {
         SwingUtilities.invokeLater(new Runnable()
         {
@@ -45,7 +54,7 @@ public class InstallerGui
             {
                 try
                 {
-                    InstallerContainer applicationComponent = new GUIInstallerContainer();
+                    InstallerContainer applicationComponent = new GUIInstallerContainer(metrics);
                     if (mediaPath != null)
                     {
                         InstallData installData = applicationComponent.getComponent(InstallData.class);
@@ -56,8 +65,16 @@ public class InstallerGui
 
                     InstallerController controller = installerContainer.getComponent(InstallerController.class);
 
-                    installerContainer.getComponent(LanguageDialog.class).initLangPack();
-                    controller.buildInstallation().launchInstallation();
+                    Timeline timeline = metrics.getTimeline(InstallerContainer.STARTUP);
+                    LanguageDialog languageDialog = installerContainer.getComponent(LanguageDialog.class);
+                    timeline.mark("language.dialog");
+                    languageDialog.initLangPack();
+                    timeline.mark("language.selection");
+                    controller.buildInstallation();
+                    timeline.mark("frame.build");
+                    controller.launchInstallation();
+                    timeline.mark("frame.launch");
+                    timeline.log();
                 }
                 catch (Exception e)
                 {
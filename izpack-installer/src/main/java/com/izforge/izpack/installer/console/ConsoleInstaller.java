@@ -33,6 +33,7 @@ import com.izforge.izpack.api.data.AutomatedInstallData;
 import com.izforge.izpack.api.data.Info;
 import com.izforge.izpack.api.data.InstallData;
 import com.izforge.izpack.api.exception.IzPackException;
+import com.izforge.izpack.core.metrics.Metrics;
 import com.izforge.izpack.installer.base.InstallerBase;
 import com.izforge.izpack.installer.bootstrap.Installer;
 import com.izforge.izpack.installer.data.UninstallDataWriter;
@@ -80,6 +81,11 @@ public class ConsoleInstaller extends InstallerBase
      */
     private final Housekeeper housekeeper;
 
+    /**
+     * The installation metrics.
+     */
+    private final Metrics metrics;
+
     /**
      * The logger.
      */
@@ -95,10 +101,12 @@ public class ConsoleInstaller extends InstallerBase
      * @param uninstallDataWriter the uninstallation data writer
      * @param console             the console
      * @param housekeeper         the house-keeper
+     * @param metrics             the installation metrics
      * @throws IzPackException for any IzPack error
      */
     public ConsoleInstaller(ConsolePanels panels, AutomatedInstallData installData, RequirementsChecker requirements,
-                            UninstallDataWriter uninstallDataWriter, Console console, Housekeeper housekeeper)
+                            UninstallDataWriter uninstallDataWriter, Console console, Housekeeper housekeeper,
+                            Metrics metrics)
     {
         this.panels = panels;
         this.installData = installData;
@@ -106,6 +114,7 @@ public class ConsoleInstaller extends InstallerBase
         this.uninstallDataWriter = uninstallDataWriter;
         this.console = console;
         this.housekeeper = housekeeper;
+        this.metrics = metrics;
     }
 
     /**
@@ -250,6 +259,7 @@ public class ConsoleInstaller extends InstallerBase
             console.println("[ Console installation FAILED! ]");
         }
 
+        metrics.report();
         terminate(exitSuccess, reboot);
     }
 
@@ -5,13 +5,17 @@ import org.picocontainer.MutablePicoContainer;
 import org.picocontainer.injectors.ProviderAdapter;
 
 import com.izforge.izpack.api.exception.ContainerException;
+import com.izforge.izpack.api.resource.Locales;
+import com.izforge.izpack.api.resource.Resources;
 import com.izforge.izpack.core.handler.ConsolePrompt;
+import com.izforge.izpack.core.metrics.Metrics;
 import com.izforge.izpack.installer.automation.AutomatedInstaller;
 import com.izforge.izpack.installer.console.ConsoleInstaller;
 import com.izforge.izpack.installer.console.ConsolePanelAutomationHelper;
 import com.izforge.izpack.installer.container.provider.AutomatedInstallDataProvider;
 import com.izforge.izpack.installer.container.provider.AutomatedPanelsProvider;
 import com.izforge.izpack.installer.container.provider.ConsolePanelsProvider;
+import com.izforge.izpack.installer.container.provider.Preloader;
 import com.izforge.izpack.installer.multiunpacker.MultiVolumeUnpackerAutomationHelper;
 import com.izforge.izpack.installer.unpacker.ConsolePackResources;
 import com.izforge.izpack.util.Console;
@@ -34,6 +38,18 @@ public class ConsoleInstallerContainer extends InstallerContainer
         initialise();
     }
 
+    /**
+     * Constructs a <tt>ConsoleInstallerContainer</tt>.
+     *
+     * @param metrics the installation metrics
+     * @throws ContainerException if initialisation fails
+     */
+    public ConsoleInstallerContainer(Metrics metrics)
+    {
+        super(metrics);
+        initialise();
+    }
+
     /**
      * Constructs a <tt>ConsoleInstallerContainer</tt>.
      * <p/>
@@ -56,7 +72,7 @@ public class ConsoleInstallerContainer extends InstallerContainer
     protected void registerComponents(MutablePicoContainer container)
     {
         super.registerComponents(container);
-        container.addAdapter(new ProviderAdapter(new AutomatedInstallDataProvider()));
+        container.addAdapter(new ProviderAdapter(new AutomatedInstallDataProvider(getPreloader())));
         container.addAdapter(new ProviderAdapter(new ConsolePanelsProvider()));
         container.addAdapter(new ProviderAdapter(new AutomatedPanelsProvider()));
         container.addComponent(Console.class);
@@ -67,4 +83,20 @@ public class ConsoleInstallerContainer extends InstallerContainer
         container.addComponent(ConsolePackResources.class);
         container.addComponent(MultiVolumeUnpackerAutomationHelper.class);
     }
+
+    /**
+     * Submits tasks to load resources in parallel, prior to resolving the container.
+     * <p/>
+     * This preloads the conditions, installation data and langpacks.
+     *
+     * @param preloader the preloader
+     * @param resources the resources
+     * @param locales   the supported locales
+     */
+    @Override
+    protected void preload(Preloader preloader, Resources resources, Locales locales)
+    {
+        super.preload(preloader, resources, locales);
+        AutomatedInstallDataProvider.preload(preloader, resources, locales);
+    }
 }
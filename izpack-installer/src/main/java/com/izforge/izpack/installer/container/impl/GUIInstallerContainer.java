@@ -12,13 +12,17 @@ import org.picocontainer.injectors.ProviderAdapter;
 
 import com.izforge.izpack.api.data.InstallData;
 import com.izforge.izpack.api.exception.ContainerException;
+import com.izforge.izpack.api.resource.Locales;
 import com.izforge.izpack.api.resource.Messages;
+import com.izforge.izpack.api.resource.Resources;
+import com.izforge.izpack.core.metrics.Metrics;
 import com.izforge.izpack.core.resource.ResourceManager;
 import com.izforge.izpack.gui.GUIPrompt;
 import com.izforge.izpack.gui.log.Log;
 import com.izforge.izpack.installer.container.provider.GUIInstallDataProvider;
 import com.izforge.izpack.installer.container.provider.IconsProvider;
 import com.izforge.izpack.installer.container.provider.IzPanelsProvider;
+import com.izforge.izpack.installer.container.provider.Preloader;
 import com.izforge.izpack.installer.gui.InstallerController;
 import com.izforge.izpack.installer.gui.InstallerFrame;
 import com.izforge.izpack.installer.language.LanguageDialog;
@@ -42,6 +46,18 @@ public class GUIInstallerContainer extends InstallerContainer
         initialise();
     }
 
+    /**
+     * Constructs a <tt>GUIInstallerContainer</tt>.
+     *
+     * @param metrics the installation metrics
+     * @throws ContainerException if initialisation fails
+     */
+    public GUIInstallerContainer(Metrics metrics)
+    {
+        super(metrics);
+        initialise();
+    }
+
     /**
      * Constructs a <tt>GUIInstallerContainer</tt>.
      * <p/>
@@ -65,9 +81,9 @@ public class GUIInstallerContainer extends InstallerContainer
     {
         super.registerComponents(pico);
         pico
-                .addAdapter(new ProviderAdapter(new GUIInstallDataProvider()))
+                .addAdapter(new ProviderAdapter(new GUIInstallDataProvider(getPreloader())))
                 .addAdapter(new ProviderAdapter(new IzPanelsProvider()))
-                .addAdapter(new ProviderAdapter(new IconsProvider()));
+                .addAdapter(new ProviderAdapter(new IconsProvider(getPreloader())));
 
         pico
                 .addComponent(GUIPrompt.class)
@@ -79,6 +95,23 @@ public class GUIInstallerContainer extends InstallerContainer
                 .as(Characteristics.USE_NAMES).addComponent(LanguageDialog.class);
     }
 
+    /**
+     * Submits tasks to load resources in parallel, prior to resolving the container.
+     * <p/>
+     * This preloads the conditions, installation data, langpacks and icons.
+     *
+     * @param preloader the preloader
+     * @param resources the resources
+     * @param locales   the supported locales
+     */
+    @Override
+    protected void preload(Preloader preloader, Resources resources, Locales locales)
+    {
+        super.preload(preloader, resources, locales);
+        GUIInstallDataProvider.preload(preloader, resources, locales);
+        IconsProvider.preload(preloader, resources);
+    }
+
     /**
      * Resolve components.
      *
@@ -14,17 +14,23 @@ import com.izforge.izpack.api.exception.ContainerException;
 import com.izforge.izpack.api.exception.InstallerException;
 import com.izforge.izpack.api.exception.IzPackException;
 import com.izforge.izpack.api.resource.Locales;
+import com.izforge.izpack.api.resource.Resources;
 import com.izforge.izpack.api.substitutor.VariableSubstitutor;
 import com.izforge.izpack.core.container.AbstractContainer;
 import com.izforge.izpack.core.container.PlatformProvider;
 import com.izforge.izpack.core.data.DefaultVariables;
 import com.izforge.izpack.core.factory.DefaultObjectFactory;
+import com.izforge.izpack.core.metrics.Metrics;
+import com.izforge.izpack.core.metrics.Timeline;
 import com.izforge.izpack.core.os.RegistryDefaultHandler;
 import com.izforge.izpack.core.resource.ResourceManager;
 import com.izforge.izpack.core.rules.ConditionContainer;
 import com.izforge.izpack.core.substitutor.VariableSubstitutorImpl;
+import com.izforge.izpack.core.trace.TraceRecorder;
+import com.izforge.izpack.core.variable.ValueCache;
 import com.izforge.izpack.installer.base.InstallDataConfiguratorWithRules;
 import com.izforge.izpack.installer.container.provider.LocalesProvider;
+import com.izforge.izpack.installer.container.provider.Preloader;
 import com.izforge.izpack.installer.container.provider.RulesProvider;
 import com.izforge.izpack.installer.data.UninstallData;
 import com.izforge.izpack.installer.data.UninstallDataWriter;
@@ -53,6 +59,45 @@ import com.izforge.izpack.util.TargetFactory;
 public abstract class InstallerContainer extends AbstractContainer
 {
 
+    /**
+     * The name of the start-up {@link Timeline timeline}.
+     */
+    public static final String STARTUP = "startup";
+
+    /**
+     * The installation metrics.
+     */
+    private final Metrics metrics;
+
+    /**
+     * Loads independent resources in parallel while the container is resolved.
+     */
+    private final Preloader preloader;
+
+
+    /**
+     * Constructs an <tt>InstallerContainer</tt>.
+     * <p/>
+     * The container must be initialised via {@link #initialise()} before use.
+     */
+    public InstallerContainer()
+    {
+        this(new Metrics());
+    }
+
+    /**
+     * Constructs an <tt>InstallerContainer</tt>.
+     * <p/>
+     * The container must be initialised via {@link #initialise()} before use.
+     *
+     * @param metrics the installation metrics, registered with the container
+     */
+    public InstallerContainer(Metrics metrics)
+    {
+        this.metrics = metrics;
+        preloader = new Preloader(metrics);
+    }
+
     /**
      * Sets the locale.
      *
@@ -83,8 +128,48 @@ public abstract class InstallerContainer extends AbstractContainer
     @Override
     protected void fillContainer(MutablePicoContainer container)
     {
+        Timeline timeline = metrics.getTimeline(STARTUP);
         registerComponents(container);
-        resolveComponents(container);
+        timeline.mark("container.register");
+        try
+        {
+            if (preloader.isEnabled())
+            {
+                preload(preloader, container.getComponent(Resources.class), container.getComponent(Locales.class));
+            }
+            resolveComponents(container);
+        }
+        finally
+        {
+            preloader.shutdown();
+        }
+        timeline.mark("container.resolve");
+    }
+
+    /**
+     * Returns the preloader.
+     * <p/>
+     * Providers registered by {@link #registerComponents} should collect preloaded resources from this.
+     *
+     * @return the preloader
+     */
+    protected Preloader getPreloader()
+    {
+        return preloader;
+    }
+
+    /**
+     * Submits tasks to load resources in parallel, prior to {@link #resolveComponents resolving} the container.
+     * <p/>
+     * This implementation preloads the conditions.
+     *
+     * @param preloader the preloader
+     * @param resources the resources
+     * @param locales   the supported locales
+     */
+    protected void preload(Preloader preloader, Resources resources, Locales locales)
+    {
+        RulesProvider.preload(preloader, resources);
     }
 
     /**
@@ -96,7 +181,7 @@ public abstract class InstallerContainer extends AbstractContainer
      */
     protected void registerComponents(MutablePicoContainer pico)
     {
-        pico.addAdapter(new ProviderAdapter(new RulesProvider()));
+        pico.addAdapter(new ProviderAdapter(new RulesProvider(preloader)));
         pico.addAdapter(new ProviderAdapter(new PlatformProvider()));
         pico.addAdapter(new ProviderAdapter(new LocalesProvider()));
 
@@ -113,6 +198,9 @@ public abstract class InstallerContainer extends AbstractContainer
         addComponent(ConditionContainer.class);
         addComponent(Properties.class);
         addComponent(DefaultVariables.class);
+        addComponent(ValueCache.class);
+        addComponent(TraceRecorder.class);
+        addComponent(Metrics.class, metrics);
         addComponent(ResourceManager.class);
         addComponent(UninstallDataWriter.class);
         addComponent(ProgressNotifiersImpl.class);
@@ -131,7 +219,7 @@ public abstract class InstallerContainer extends AbstractContainer
         addComponent(Platforms.class);
 
         pico.addComponent(VariableSubstitutor.class, VariableSubstitutorImpl.class,
-                          new ComponentParameter(DefaultVariables.class));
+                          new ComponentParameter(DefaultVariables.class), new ComponentParameter(Metrics.class));
     }
 
     /**
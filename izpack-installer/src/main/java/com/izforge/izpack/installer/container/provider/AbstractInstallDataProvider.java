@@ -11,6 +11,7 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -31,6 +32,7 @@ import com.izforge.izpack.api.data.Variables;
 import com.izforge.izpack.api.exception.ResourceException;
 import com.izforge.izpack.api.exception.ResourceNotFoundException;
 import com.izforge.izpack.api.resource.Locales;
+import com.izforge.izpack.api.resource.Messages;
 import com.izforge.izpack.api.resource.Resources;
 import com.izforge.izpack.util.Housekeeper;
 import com.izforge.izpack.util.IoHelper;
@@ -54,6 +56,95 @@ public abstract class AbstractInstallDataProvider implements Provider
      */
     private static final Logger logger = Logger.getLogger(AbstractInstallDataProvider.class.getName());
 
+    /**
+     * The serialized resources read by {@link #loadInstallData}, {@link #loadDynamicVariables},
+     * {@link #loadDynamicConditions} and {@link #loadInstallerRequirements}.
+     */
+    private static final String[] OBJECTS = {"info", "panelsOrder", "vars", "dynvariables", "dynconditions",
+            "installerrequirements"};
+
+    /**
+     * The name that the packs are preloaded with.
+     */
+    private static final String PACKS = "packs.info";
+
+    /**
+     * The prefix of the name that the default langpack is preloaded with. The locale's ISO3 code is appended.
+     */
+    private static final String MESSAGES = "messages.";
+
+    /**
+     * The prefix of the name that the custom langpack is preloaded with. The locale's ISO3 code is appended.
+     */
+    private static final String CUSTOM_MESSAGES = "messages.custom.";
+
+    /**
+     * The preloader. May be <tt>null</tt>
+     */
+    private final Preloader preloader;
+
+
+    /**
+     * Constructs an <tt>AbstractInstallDataProvider</tt>.
+     */
+    public AbstractInstallDataProvider()
+    {
+        this(null);
+    }
+
+    /**
+     * Constructs an <tt>AbstractInstallDataProvider</tt>.
+     *
+     * @param preloader the preloader to collect preloaded resources from. May be <tt>null</tt>
+     */
+    public AbstractInstallDataProvider(Preloader preloader)
+    {
+        this.preloader = preloader;
+    }
+
+    /**
+     * Submits tasks to load the installation data resources and langpacks in the background.
+     *
+     * @param preloader the preloader
+     * @param resources the resources
+     * @param locales   the supported locales
+     */
+    public static void preload(Preloader preloader, final Resources resources, final Locales locales)
+    {
+        for (String name : OBJECTS)
+        {
+            preloader.submitObject(resources, name);
+        }
+        preloader.submit(PACKS, new Callable<List<Pack>>()
+        {
+            @Override
+            public List<Pack> call() throws Exception
+            {
+                return readPacks(resources);
+            }
+        });
+        Locale locale = locales.getLocale();
+        if (locale != null)
+        {
+            preloader.submit(MESSAGES + locale.getISO3Language(), new Callable<Messages>()
+            {
+                @Override
+                public Messages call() throws Exception
+                {
+                    return locales.getMessages();
+                }
+            });
+            preloader.submit(CUSTOM_MESSAGES + locale.getISO3Language(), new Callable<Messages>()
+            {
+                @Override
+                public Messages call() throws Exception
+                {
+                    return locales.getMessages(LANG_FILE_NAME);
+                }
+            });
+        }
+    }
+
 
     /**
      * Loads the installation data. Also sets environment variables to <code>installdata</code>.
@@ -73,7 +164,7 @@ public abstract class AbstractInstallDataProvider implements Provider
             throws IOException, ClassNotFoundException
     {
         // We load the Info data
-        Info info = (Info) resources.getObject("info");
+        Info info = (Info) getObject(resources, "info");
 
         // We put the Info data as variables
         installData.setVariable(ScriptParserConstant.APP_NAME, info.getAppName());
@@ -106,25 +197,22 @@ public abstract class AbstractInstallDataProvider implements Provider
         }
 
         // We read the panels order data
-        List<Panel> panelsOrder = (List<Panel>) resources.getObject("panelsOrder");
+        List<Panel> panelsOrder = (List<Panel>) getObject(resources, "panelsOrder");
 
         // We read the packs data
-        InputStream in = resources.getInputStream("packs.info");
-        ObjectInputStream objIn = new ObjectInputStream(in);
-        int size = objIn.readInt();
+        List<Pack> allPacks = (preloader != null) ? preloader.get(PACKS, List.class) : null;
+        if (allPacks == null)
+        {
+            allPacks = readPacks(resources);
+        }
         List<Pack> availablePacks = new ArrayList<Pack>();
-        List<Pack> allPacks = new ArrayList<Pack>();
-
-        for (int i = 0; i < size; i++)
+        for (Pack pack : allPacks)
         {
-            Pack pack = (Pack) objIn.readObject();
-            allPacks.add(pack);
             if (OsConstraintHelper.oneMatchesCurrentSystem(pack.getOsConstraints()))
             {
                 availablePacks.add(pack);
             }
         }
-        objIn.close();
 
         // Determine the hostname and IP address
         String hostname;
@@ -165,7 +253,7 @@ public abstract class AbstractInstallDataProvider implements Provider
         }
 
         // We load the variables
-        Properties properties = (Properties) resources.getObject("vars");
+        Properties properties = (Properties) getObject(resources, "vars");
         if (properties != null)
         {
             Set<String> vars = properties.stringPropertyNames();
@@ -211,7 +299,12 @@ public abstract class AbstractInstallDataProvider implements Provider
         // We try to load and add a custom langpack.
         try
         {
-            installData.getMessages().add(locales.getMessages(LANG_FILE_NAME));
+            Messages messages = getMessages(CUSTOM_MESSAGES, locales);
+            if (messages == null)
+            {
+                messages = locales.getMessages(LANG_FILE_NAME);
+            }
+            installData.getMessages().add(messages);
             logger.fine("Found custom langpack for " + installData.getLocaleISO3());
         }
         catch (Throwable exception)
@@ -348,7 +441,7 @@ public abstract class AbstractInstallDataProvider implements Provider
         try
         {
             Map<String, List<DynamicVariable>> map
-                    = (Map<String, List<DynamicVariable>>) resources.getObject("dynvariables");
+                    = (Map<String, List<DynamicVariable>>) getObject(resources, "dynvariables");
             // Initialize to prepare variable substitution on several attributes
             for (List<DynamicVariable> dynamicVariables : map.values())
             {
@@ -378,7 +471,7 @@ public abstract class AbstractInstallDataProvider implements Provider
         try
         {
             List<DynamicInstallerRequirementValidator> conditions
-                    = (List<DynamicInstallerRequirementValidator>) resources.getObject("dynconditions");
+                    = (List<DynamicInstallerRequirementValidator>) getObject(resources, "dynconditions");
             installData.setDynamicinstallerrequirements(conditions);
         }
         catch (Exception e)
@@ -400,7 +493,7 @@ public abstract class AbstractInstallDataProvider implements Provider
             throws IOException, ClassNotFoundException
     {
         List<InstallerRequirement> requirements =
-                (List<InstallerRequirement>) resources.getObject("installerrequirements");
+                (List<InstallerRequirement>) getObject(resources, "installerrequirements");
         installData.setInstallerrequirements(requirements);
     }
 
@@ -418,8 +511,73 @@ public abstract class AbstractInstallDataProvider implements Provider
         if (locale != null)
         {
             installData.setLocale(locale);
-            installData.setMessages(locales.getMessages());
+            Messages messages = getMessages(MESSAGES, locales);
+            if (messages == null)
+            {
+                messages = locales.getMessages();
+            }
+            installData.setMessages(messages);
+        }
+    }
+
+    /**
+     * Returns a serialized resource, collecting it from the preloader if it was preloaded.
+     *
+     * @param resources the resources
+     * @param name      the resource name
+     * @return the resource
+     * @throws ResourceNotFoundException if the resource doesn't exist
+     * @throws ResourceException         if the resource cannot be retrieved
+     */
+    protected Object getObject(Resources resources, String name)
+    {
+        Object result = (preloader != null) ? preloader.get(name, Object.class) : null;
+        if (result == null)
+        {
+            result = resources.getObject(name);
+        }
+        return result;
+    }
+
+    /**
+     * Returns preloaded messages for the current locale.
+     *
+     * @param prefix  the prefix of the name the messages were preloaded with
+     * @param locales the supported locales
+     * @return the messages, or <tt>null</tt> if they weren't preloaded for the current locale
+     */
+    private Messages getMessages(String prefix, Locales locales)
+    {
+        Locale locale = locales.getLocale();
+        if (preloader != null && locale != null)
+        {
+            return preloader.get(prefix + locale.getISO3Language(), Messages.class);
+        }
+        return null;
+    }
+
+    /**
+     * Reads the packs.
+     *
+     * @param resources the resources
+     * @return all packs
+     * @throws IOException            for any I/O error
+     * @throws ClassNotFoundException if a serialized object's class cannot be found
+     */
+    private static List<Pack> readPacks(Resources resources) throws IOException, ClassNotFoundException
+    {
+        InputStream in = resources.getInputStream(PACKS);
+        ObjectInputStream objIn = new ObjectInputStream(in);
+        int size = objIn.readInt();
+        List<Pack> result = new ArrayList<Pack>();
+
+        for (int i = 0; i < size; i++)
+        {
+            Pack pack = (Pack) objIn.readObject();
+            result.add(pack);
         }
+        objIn.close();
+        return result;
     }
 
 }
@@ -16,6 +16,24 @@ import com.izforge.izpack.util.Housekeeper;
 public class AutomatedInstallDataProvider extends AbstractInstallDataProvider
 {
 
+    /**
+     * Constructs an <tt>AutomatedInstallDataProvider</tt>.
+     */
+    public AutomatedInstallDataProvider()
+    {
+        this(null);
+    }
+
+    /**
+     * Constructs an <tt>AutomatedInstallDataProvider</tt>.
+     *
+     * @param preloader the preloader to collect preloaded resources from. May be <tt>null</tt>
+     */
+    public AutomatedInstallDataProvider(Preloader preloader)
+    {
+        super(preloader);
+    }
+
     public AutomatedInstallData provide(Resources resources, Locales locales, DefaultVariables variables,
                                         Housekeeper housekeeper)
             throws IOException, ClassNotFoundException, InstallerException
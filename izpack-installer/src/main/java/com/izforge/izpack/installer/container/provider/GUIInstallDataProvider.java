@@ -72,6 +72,36 @@ public class GUIInstallDataProvider extends AbstractInstallDataProvider
         looksVariants.put("plasticXP", "com.jgoodies.looks.plastic.Plastic3DLookAndFeel");
     }
 
+    /**
+     * Constructs a <tt>GUIInstallDataProvider</tt>.
+     */
+    public GUIInstallDataProvider()
+    {
+        this(null);
+    }
+
+    /**
+     * Constructs a <tt>GUIInstallDataProvider</tt>.
+     *
+     * @param preloader the preloader to collect preloaded resources from. May be <tt>null</tt>
+     */
+    public GUIInstallDataProvider(Preloader preloader)
+    {
+        super(preloader);
+    }
+
+    /**
+     * Submits tasks to load the installation data resources, GUI preferences and langpacks in the background.
+     *
+     * @param preloader the preloader
+     * @param resources the resources
+     * @param locales   the supported locales
+     */
+    public static void preload(Preloader preloader, Resources resources, Locales locales)
+    {
+        AbstractInstallDataProvider.preload(preloader, resources, locales);
+        preloader.submitObject(resources, "GUIPrefs");
+    }
 
     public GUIInstallData provide(Resources resources, Locales locales, DefaultVariables variables,
                                   Housekeeper housekeeper)
@@ -333,7 +363,7 @@ public class GUIInstallDataProvider extends AbstractInstallDataProvider
      */
     private void loadGUIInstallData(GUIInstallData installData, Resources resources) throws Exception
     {
-        installData.guiPrefs = (GUIPrefs) resources.getObject("GUIPrefs");
+        installData.guiPrefs = (GUIPrefs) getObject(resources, "GUIPrefs");
     }
 
 
@@ -2,6 +2,9 @@ package com.izforge.izpack.installer.container.provider;
 
 import java.io.InputStream;
 import java.net.URL;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
 import java.util.logging.Logger;
 
 import javax.swing.ImageIcon;
@@ -28,9 +31,78 @@ public class IconsProvider implements Provider
      */
     private static final String CUSTOM_ICONS_RESOURCEFILE = "customicons.xml";
 
+    /**
+     * The name that icons are preloaded with.
+     */
+    private static final String ICONS = "icons";
+
+    /**
+     * The preloader. May be <tt>null</tt>
+     */
+    private final Preloader preloader;
+
+
+    /**
+     * Constructs an <tt>IconsProvider</tt>.
+     */
+    public IconsProvider()
+    {
+        this(null);
+    }
+
+    /**
+     * Constructs an <tt>IconsProvider</tt>.
+     *
+     * @param preloader the preloader to collect preloaded icons from. May be <tt>null</tt>
+     */
+    public IconsProvider(Preloader preloader)
+    {
+        this.preloader = preloader;
+    }
+
     public IconsDatabase provide(Resources resources) throws Exception
     {
-        IconsDatabase icons = new IconsDatabase();
+        Icons icons = (preloader != null) ? preloader.get(ICONS, Icons.class) : null;
+        if (icons == null)
+        {
+            icons = load(resources);
+        }
+        // Swing-specific icons are registered on the calling thread, as UIManager isn't thread safe
+        for (Map.Entry<String, ImageIcon> entry : icons.system.entrySet())
+        {
+            UIManager.put(entry.getKey(), entry.getValue());
+        }
+        return icons.icons;
+    }
+
+    /**
+     * Submits a task to load the icons in the background.
+     *
+     * @param preloader the preloader
+     * @param resources the resources
+     */
+    public static void preload(Preloader preloader, final Resources resources)
+    {
+        preloader.submit(ICONS, new Callable<Icons>()
+        {
+            @Override
+            public Icons call() throws Exception
+            {
+                return load(resources);
+            }
+        });
+    }
+
+    /**
+     * Loads the icons and any custom icons.
+     *
+     * @param resources used to load the custom icons
+     * @return the icons
+     * @throws Exception for any error
+     */
+    private static Icons load(Resources resources) throws Exception
+    {
+        Icons icons = new Icons();
         loadIcons(icons);
         loadCustomIcons(icons, resources);
         return icons;
@@ -39,26 +111,25 @@ public class IconsProvider implements Provider
     /**
      * Loads the icons.
      *
-     * @param iconsDatabase
+     * @param icons the icons
      * @throws Exception Description of the Exception
      */
-    private void loadIcons(IconsDatabase iconsDatabase) throws Exception
+    private static void loadIcons(Icons icons) throws Exception
     {
         // Initialisations
-        InputStream inXML = getClass().
-                getResourceAsStream("icons.xml");
+        InputStream inXML = IconsProvider.class.getResourceAsStream("icons.xml");
 
-        parseXML(inXML, iconsDatabase);
+        parseXML(inXML, icons);
     }
 
     /**
      * Loads custom icons into the installer.
      *
-     * @param icons     the icons database
+     * @param icons     the icons
      * @param resources used to load the icons
      * @throws Exception
      */
-    private void loadCustomIcons(IconsDatabase icons, Resources resources) throws Exception
+    private static void loadCustomIcons(Icons icons, Resources resources) throws Exception
     {
         // We try to load and add a custom langpack.
         InputStream inXML = null;
@@ -83,7 +154,7 @@ public class IconsProvider implements Provider
      * @param inXML
      * @param icons
      */
-    private void parseXML(InputStream inXML, IconsDatabase icons)
+    private static void parseXML(InputStream inXML, Icons icons)
     {
         URL url;
         ImageIcon img;// Initialises the parser
@@ -98,7 +169,7 @@ public class IconsProvider implements Provider
             url = InstallerFrame.class.getResource(icon.getAttribute("res"));
             img = new ImageIcon(url);
             logger.fine("Icon with id found: " + icon.getAttribute("id"));
-            icons.put(icon.getAttribute("id"), img);
+            icons.icons.put(icon.getAttribute("id"), img);
         }
 
         // We load the Swing-specific icons
@@ -106,8 +177,25 @@ public class IconsProvider implements Provider
         {
             url = InstallerFrame.class.getResource(icon.getAttribute("res"));
             img = new ImageIcon(url);
-            UIManager.put(icon.getAttribute("id"), img);
+            icons.system.put(icon.getAttribute("id"), img);
         }
     }
 
+    /**
+     * The loaded icons.
+     */
+    private static class Icons
+    {
+
+        /**
+         * The icons database.
+         */
+        private final IconsDatabase icons = new IconsDatabase();
+
+        /**
+         * The Swing-specific icons, to register with the {@link UIManager}.
+         */
+        private final Map<String, ImageIcon> system = new TreeMap<String, ImageIcon>();
+    }
+
 }
@@ -0,0 +1,266 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.installer.container.provider;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.izforge.izpack.api.resource.Resources;
+import com.izforge.izpack.core.metrics.Metrics;
+import com.izforge.izpack.core.metrics.Timer;
+
+
+/**
+ * Loads independent installer resources in parallel, ahead of the providers that need them.
+ * <p/>
+ * The installer container {@link #submit submits} tasks before it resolves its components. Providers
+ * {@link #get collect} the results when they are invoked, falling back to loading the resource themselves if it
+ * wasn't preloaded, or preloading failed. As such, preloading changes when a resource is loaded, but not what is
+ * loaded or how errors are reported.
+ * <p/>
+ * Each result can only be collected once. Preloading may be disabled by setting the {@link #ENABLED} system
+ * property to <tt>false</tt>.
+ *
+ * @author agent
+ */
+public class Preloader
+{
+
+    /**
+     * System property to enable or disable preloading. Defaults to <tt>true</tt>.
+     */
+    public static final String ENABLED = "izpack.startup.preload";
+
+    /**
+     * The maximum no. of preloading threads.
+     */
+    private static final int MAX_THREADS = 4;
+
+    /**
+     * Determines if preloading is enabled.
+     */
+    private final boolean enabled;
+
+    /**
+     * The metrics to record preloading times in. May be <tt>null</tt>.
+     */
+    private final Metrics metrics;
+
+    /**
+     * The pending results, keyed on name.
+     */
+    private final Map<String, Future<?>> results = new ConcurrentHashMap<String, Future<?>>();
+
+    /**
+     * The executor, created on first submission.
+     */
+    private ExecutorService executor;
+
+    /**
+     * The logger.
+     */
+    private static final Logger logger = Logger.getLogger(Preloader.class.getName());
+
+
+    /**
+     * Constructs a <tt>Preloader</tt>, enabled unless the {@link #ENABLED} system property is <tt>false</tt>.
+     *
+     * @param metrics the metrics to record preloading times in
+     */
+    public Preloader(Metrics metrics)
+    {
+        this(!"false".equalsIgnoreCase(System.getProperty(ENABLED)), metrics);
+    }
+
+    /**
+     * Constructs a <tt>Preloader</tt>.
+     *
+     * @param enabled if <tt>true</tt>, preloading is enabled, otherwise {@link #submit} does nothing
+     */
+    public Preloader(boolean enabled)
+    {
+        this(enabled, null);
+    }
+
+    /**
+     * Constructs a <tt>Preloader</tt>.
+     *
+     * @param enabled if <tt>true</tt>, preloading is enabled, otherwise {@link #submit} does nothing
+     * @param metrics the metrics to record preloading times in. May be <tt>null</tt>
+     */
+    public Preloader(boolean enabled, Metrics metrics)
+    {
+        this.enabled = enabled;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Determines if preloading is enabled.
+     *
+     * @return <tt>true</tt> if preloading is enabled
+     */
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    /**
+     * Submits a task to preload a resource.
+     * <p/>
+     * The time taken by the task is recorded in the timer <em>startup.preload.&lt;name&gt;</em>, if there are
+     * metrics.
+     *
+     * @param name the name to collect the result by
+     * @param task the task
+     */
+    public synchronized void submit(final String name, final Callable<?> task)
+    {
+        if (enabled)
+        {
+            if (executor == null)
+            {
+                int threads = Math.min(MAX_THREADS, Runtime.getRuntime().availableProcessors());
+                executor = Executors.newFixedThreadPool(Math.max(threads, 1), new PreloadThreadFactory());
+            }
+            final Timer timer = (metrics != null) ? metrics.getTimer("startup.preload." + name) : null;
+            results.put(name, executor.submit(new Callable<Object>()
+            {
+                @Override
+                public Object call() throws Exception
+                {
+                    long start = System.nanoTime();
+                    try
+                    {
+                        return task.call();
+                    }
+                    finally
+                    {
+                        if (timer != null)
+                        {
+                            timer.update(System.nanoTime() - start);
+                        }
+                    }
+                }
+            }));
+        }
+    }
+
+    /**
+     * Submits a task to preload a serialized resource via {@link Resources#getObject(String)}.
+     *
+     * @param resources the resources
+     * @param name      the resource name. The result is collected using the same name
+     */
+    public void submitObject(final Resources resources, final String name)
+    {
+        submit(name, new Callable<Object>()
+        {
+            @Override
+            public Object call() throws Exception
+            {
+                return resources.getObject(name);
+            }
+        });
+    }
+
+    /**
+     * Collects a preloaded result, waiting for it to complete if necessary.
+     *
+     * @param name the name the task was submitted with
+     * @param type the expected result type
+     * @return the result, or <tt>null</tt> if no task was submitted with the name, the result has already been
+     *         collected, or the task failed
+     */
+    public <T> T get(String name, Class<T> type)
+    {
+        T result = null;
+        Future<?> future = results.remove(name);
+        if (future != null)
+        {
+            try
+            {
+                Object value = future.get();
+                if (type.isInstance(value))
+                {
+                    result = type.cast(value);
+                }
+            }
+            catch (InterruptedException exception)
+            {
+                Thread.currentThread().interrupt();
+            }
+            catch (Exception exception)
+            {
+                // the caller will load the resource itself, and report the error
+                logger.log(Level.FINE, "Failed to preload " + name, exception);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Shuts down the preloader.
+     * <p/>
+     * Results that haven't been collected are discarded.
+     */
+    public synchronized void shutdown()
+    {
+        if (executor != null)
+        {
+            executor.shutdown();
+            executor = null;
+        }
+        results.clear();
+    }
+
+    /**
+     * Creates daemon threads, so that preloading never prevents the installer from exiting.
+     */
+    private static class PreloadThreadFactory implements ThreadFactory
+    {
+
+        /**
+         * The thread counter.
+         */
+        private final AtomicInteger count = new AtomicInteger();
+
+        /**
+         * Constructs a new thread.
+         *
+         * @param runnable the runnable to run
+         * @return a new thread
+         */
+        @Override
+        public Thread newThread(Runnable runnable)
+        {
+            Thread thread = new Thread(runnable, "IzPack-preload-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
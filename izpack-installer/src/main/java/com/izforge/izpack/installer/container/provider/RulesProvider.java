@@ -13,8 +13,10 @@ import com.izforge.izpack.api.resource.Resources;
 import com.izforge.izpack.api.rules.Condition;
 import com.izforge.izpack.api.rules.RulesEngine;
 import com.izforge.izpack.core.data.DefaultVariables;
+import com.izforge.izpack.core.metrics.Metrics;
 import com.izforge.izpack.core.rules.ConditionContainer;
 import com.izforge.izpack.core.rules.RulesEngineImpl;
+import com.izforge.izpack.core.trace.TraceRecorder;
 import com.izforge.izpack.util.Platform;
 
 /**
@@ -32,6 +34,46 @@ public class RulesProvider implements Provider
      */
     private static final String CONDITIONS_SPECRESOURCENAME = "conditions.xml";
 
+    /**
+     * Resource name of the serialized conditions.
+     */
+    private static final String RULES = "rules";
+
+    /**
+     * The preloader. May be <tt>null</tt>
+     */
+    private final Preloader preloader;
+
+
+    /**
+     * Constructs a <tt>RulesProvider</tt>.
+     */
+    public RulesProvider()
+    {
+        this(null);
+    }
+
+    /**
+     * Constructs a <tt>RulesProvider</tt>.
+     *
+     * @param preloader the preloader to collect preloaded conditions from. May be <tt>null</tt>
+     */
+    public RulesProvider(Preloader preloader)
+    {
+        this.preloader = preloader;
+    }
+
+    /**
+     * Submits a task to deserialize the conditions in the background.
+     *
+     * @param preloader the preloader
+     * @param resources the resources
+     */
+    public static void preload(Preloader preloader, Resources resources)
+    {
+        preloader.submitObject(resources, RULES);
+    }
+
     /**
      * Reads the conditions specification file and initializes the rules engine.
      *
@@ -40,12 +82,15 @@ public class RulesProvider implements Provider
      * @param conditionContainer the condition container
      * @param resources          the resources
      * @param platform           the current platform
+     * @param recorder           the recorder of variable writes and condition evaluations
+     * @param metrics            the metrics to record condition evaluation times in
      * @return a new rules engine
      */
     public RulesEngine provide(AutomatedInstallData installData, DefaultVariables variables,
-                               ConditionContainer conditionContainer, Resources resources, Platform platform)
+                               ConditionContainer conditionContainer, Resources resources, Platform platform,
+                               TraceRecorder recorder, Metrics metrics)
     {
-        RulesEngine result = new RulesEngineImpl(installData, conditionContainer, platform);
+        RulesEngineImpl result = new RulesEngineImpl(installData, conditionContainer, platform, recorder, metrics);
         Map<String, Condition> conditions = readConditions(resources);
         if (conditions != null && !conditions.isEmpty())
         {
@@ -75,10 +120,13 @@ public class RulesProvider implements Provider
     @SuppressWarnings("unchecked")
     private Map<String, Condition> readConditions(Resources resources)
     {
-        Map<String, Condition> rules = null;
+        Map<String, Condition> rules = (preloader != null) ? preloader.get(RULES, Map.class) : null;
         try
         {
-            rules = (Map<String, Condition>) resources.getObject("rules");
+            if (rules == null)
+            {
+                rules = (Map<String, Condition>) resources.getObject(RULES);
+            }
         }
         catch (Exception exception)
         {
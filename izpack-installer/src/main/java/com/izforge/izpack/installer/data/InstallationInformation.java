@@ -0,0 +1,482 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.installer.data;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamConstants;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+import com.izforge.izpack.api.data.Pack;
+import com.izforge.izpack.api.exception.InstallerException;
+import com.izforge.izpack.util.file.FileUtils;
+
+
+/**
+ * Reads and writes the installation information file, {@link com.izforge.izpack.api.data.InstallData#INSTALLATION_INFORMATION}.
+ * <p/>
+ * The file is a versioned sequence of records:
+ * <pre>
+ *   header   := MAGIC VERSION
+ *   record   := PACK name langPackId version size installed
+ *             | VARIABLE name value
+ *             | REMOVED name
+ * </pre>
+ * Records are only ever appended; when the file is read, later records replace earlier ones with the same key.
+ * Only variables whose values differ from those already recorded are appended, so repeated modification
+ * installations don't grow the file unless something actually changed.
+ * <p/>
+ * A truncated trailing record is discarded, and the file rewritten on the next update.
+ * <p/>
+ * Files written by earlier versions using java serialization are still read, and are converted to the new format
+ * the next time they are written.
+ *
+ * @author agent
+ */
+public class InstallationInformation
+{
+
+    /**
+     * The file magic number, "IZII".
+     */
+    public static final int MAGIC = 0x495A4949;
+
+    /**
+     * The current file format version.
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * Pack record type.
+     */
+    private static final int PACK = 1;
+
+    /**
+     * Variable record type.
+     */
+    private static final int VARIABLE = 2;
+
+    /**
+     * Removed variable record type.
+     */
+    private static final int REMOVED = 3;
+
+    /**
+     * The installed packs, keyed on {@link InstalledPack#getKey()}.
+     */
+    private final Map<String, InstalledPack> packs = new LinkedHashMap<String, InstalledPack>();
+
+    /**
+     * The recorded variables.
+     */
+    private final Properties variables = new Properties();
+
+    /**
+     * Determines if the information was read from a file in the legacy serialized format.
+     */
+    private boolean legacy;
+
+    /**
+     * Determines if the last record read was truncated.
+     */
+    private boolean truncated;
+
+    /**
+     * The logger.
+     */
+    private static final Logger logger = Logger.getLogger(InstallationInformation.class.getName());
+
+
+    /**
+     * Returns the installed packs.
+     *
+     * @return the installed packs, in installation order
+     */
+    public List<InstalledPack> getInstalledPacks()
+    {
+        return new ArrayList<InstalledPack>(packs.values());
+    }
+
+    /**
+     * Returns an installed pack given its key.
+     *
+     * @param key the pack key. This is the pack's language pack identifier if it has one, else its name
+     * @return the corresponding pack, or {@code null} if it is not installed
+     */
+    public InstalledPack getInstalledPack(String key)
+    {
+        return packs.get(key);
+    }
+
+    /**
+     * Determines if a pack is installed.
+     *
+     * @param pack the pack
+     * @return {@code true} if the pack is installed
+     */
+    public boolean isInstalled(Pack pack)
+    {
+        return packs.containsKey(InstalledPack.getKey(pack));
+    }
+
+    /**
+     * Returns the variables recorded at installation time.
+     *
+     * @return the variables
+     */
+    public Properties getVariables()
+    {
+        return variables;
+    }
+
+    /**
+     * Reads the installation information from a file.
+     *
+     * @param file the file to read
+     * @return the installation information. If the file doesn't exist, this will be empty
+     * @throws IOException        for any I/O error
+     * @throws InstallerException if the file format is not recognised
+     */
+    public static InstallationInformation read(File file) throws IOException
+    {
+        InstallationInformation result = new InstallationInformation();
+        if (file.exists() && file.length() != 0)
+        {
+            InputStream in = new BufferedInputStream(new FileInputStream(file));
+            try
+            {
+                result.read(in);
+            }
+            finally
+            {
+                FileUtils.close(in);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Records newly installed packs and the current variables in a file.
+     * <p/>
+     * Packs and variables already present in the file with the same details are not re-written.
+     * If the file is in the legacy format, it will be rewritten in the current format.
+     *
+     * @param file      the file to update
+     * @param installed the newly installed packs
+     * @param version   the application version. May be {@code null}
+     * @param current   the current variables
+     * @throws IOException for any I/O error
+     */
+    public static void append(File file, Collection<Pack> installed, String version, Properties current)
+            throws IOException
+    {
+        InstallationInformation info = read(file);
+        boolean rewrite = info.legacy || info.truncated || file.length() == 0;
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, !rewrite)));
+        try
+        {
+            if (rewrite)
+            {
+                info.writeAll(out);
+            }
+            long now = System.currentTimeMillis();
+            for (Pack pack : installed)
+            {
+                InstalledPack record = new InstalledPack(pack.getName(), pack.getLangPackId(), version,
+                                                         pack.getSize(), now);
+                InstalledPack existing = info.packs.get(record.getKey());
+                if (existing == null || !equals(existing.getVersion(), version)
+                        || existing.getSize() != record.getSize())
+                {
+                    info.packs.put(record.getKey(), record);
+                    writePack(out, record);
+                }
+            }
+            for (String name : current.stringPropertyNames())
+            {
+                String value = current.getProperty(name);
+                if (!value.equals(info.variables.getProperty(name)))
+                {
+                    info.variables.setProperty(name, value);
+                    writeVariable(out, name, value);
+                }
+            }
+            for (String name : info.variables.stringPropertyNames())
+            {
+                if (current.getProperty(name) == null)
+                {
+                    info.variables.remove(name);
+                    out.writeByte(REMOVED);
+                    writeString(out, name);
+                }
+            }
+        }
+        finally
+        {
+            FileUtils.close(out);
+        }
+    }
+
+    /**
+     * Reads the installation information from a stream.
+     *
+     * @param in the stream to read
+     * @throws IOException        for any I/O error
+     * @throws InstallerException if the format is not recognised
+     */
+    private void read(InputStream in) throws IOException
+    {
+        in.mark(4);
+        DataInputStream data = new DataInputStream(in);
+        int magic;
+        int version = 0;
+        try
+        {
+            magic = data.readInt();
+            if (magic == MAGIC)
+            {
+                version = data.readUnsignedByte();
+            }
+        }
+        catch (EOFException exception)
+        {
+            // an interrupted write of the header. Treat as no previous information
+            logger.warning("Ignoring truncated installation information header");
+            truncated = true;
+            return;
+        }
+        if ((magic >>> 16) == (ObjectStreamConstants.STREAM_MAGIC & 0xFFFF))
+        {
+            in.reset();
+            readLegacy(in);
+        }
+        else if (magic == MAGIC)
+        {
+            if (version > VERSION)
+            {
+                throw new InstallerException("Unsupported installation information version: " + version);
+            }
+            readRecords(data);
+        }
+        else
+        {
+            throw new InstallerException("Unrecognised installation information format");
+        }
+    }
+
+    /**
+     * Reads records until the end of the stream.
+     * <p/>
+     * A truncated trailing record, e.g. as a result of an interrupted installation, is ignored.
+     *
+     * @param in the stream to read
+     * @throws IOException        for any I/O error
+     * @throws InstallerException if an unrecognised record is encountered
+     */
+    private void readRecords(DataInputStream in) throws IOException
+    {
+        int type;
+        while ((type = in.read()) != -1)
+        {
+            try
+            {
+                switch (type)
+                {
+                    case PACK:
+                        String name = readString(in);
+                        String langPackId = readString(in);
+                        String version = readString(in);
+                        long size = in.readLong();
+                        long installed = in.readLong();
+                        InstalledPack pack = new InstalledPack(name, langPackId, version, size, installed);
+                        packs.put(pack.getKey(), pack);
+                        break;
+                    case VARIABLE:
+                        String key = readString(in);
+                        variables.setProperty(key, readString(in));
+                        break;
+                    case REMOVED:
+                        variables.remove(readString(in));
+                        break;
+                    default:
+                        throw new InstallerException("Unrecognised installation information record: " + type);
+                }
+            }
+            catch (EOFException exception)
+            {
+                logger.warning("Ignoring truncated installation information record");
+                truncated = true;
+                break;
+            }
+        }
+    }
+
+    /**
+     * Reads installation information written using java serialization.
+     *
+     * @param in the stream to read
+     * @throws IOException        for any I/O error
+     * @throws InstallerException if the information cannot be deserialized
+     */
+    @SuppressWarnings("unchecked")
+    private void readLegacy(InputStream in) throws IOException
+    {
+        legacy = true;
+        ObjectInputStream stream = new ObjectInputStream(in);
+        try
+        {
+            List<Pack> list = (List<Pack>) stream.readObject();
+            for (Pack pack : list)
+            {
+                InstalledPack record = new InstalledPack(pack.getName(), pack.getLangPackId(), null, pack.getSize(), 0);
+                packs.put(record.getKey(), record);
+            }
+            Properties properties = (Properties) stream.readObject();
+            for (String name : properties.stringPropertyNames())
+            {
+                variables.setProperty(name, properties.getProperty(name));
+            }
+        }
+        catch (ClassNotFoundException exception)
+        {
+            throw new InstallerException("Failed to read previous installation information", exception);
+        }
+    }
+
+    /**
+     * Writes the header and all packs and variables.
+     *
+     * @param out the stream to write to
+     * @throws IOException for any I/O error
+     */
+    private void writeAll(DataOutputStream out) throws IOException
+    {
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        for (InstalledPack pack : packs.values())
+        {
+            writePack(out, pack);
+        }
+        for (String name : variables.stringPropertyNames())
+        {
+            writeVariable(out, name, variables.getProperty(name));
+        }
+    }
+
+    /**
+     * Writes a pack record.
+     *
+     * @param out  the stream to write to
+     * @param pack the pack to write
+     * @throws IOException for any I/O error
+     */
+    private static void writePack(DataOutputStream out, InstalledPack pack) throws IOException
+    {
+        out.writeByte(PACK);
+        writeString(out, pack.getName());
+        writeString(out, pack.getLangPackId());
+        writeString(out, pack.getVersion());
+        out.writeLong(pack.getSize());
+        out.writeLong(pack.getInstalled());
+    }
+
+    /**
+     * Writes a variable record.
+     *
+     * @param out   the stream to write to
+     * @param name  the variable name
+     * @param value the variable value
+     * @throws IOException for any I/O error
+     */
+    private static void writeVariable(DataOutputStream out, String name, String value) throws IOException
+    {
+        out.writeByte(VARIABLE);
+        writeString(out, name);
+        writeString(out, value);
+    }
+
+    /**
+     * Writes a string as a length-prefixed UTF-8 sequence. A {@code null} string is written with a length of
+     * {@code -1}.
+     *
+     * @param out   the stream to write to
+     * @param value the value to write. May be {@code null}
+     * @throws IOException for any I/O error
+     */
+    private static void writeString(DataOutputStream out, String value) throws IOException
+    {
+        if (value == null)
+        {
+            out.writeInt(-1);
+        }
+        else
+        {
+            byte[] bytes = value.getBytes("UTF-8");
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Reads a string written by {@link #writeString}.
+     *
+     * @param in the stream to read from
+     * @return the string. May be {@code null}
+     * @throws IOException for any I/O error
+     */
+    private static String readString(DataInputStream in) throws IOException
+    {
+        int length = in.readInt();
+        if (length < 0)
+        {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, "UTF-8");
+    }
+
+    /**
+     * Helper to compare two possibly {@code null} strings.
+     *
+     * @param a the first string. May be {@code null}
+     * @param b the second string. May be {@code null}
+     * @return {@code true} if they are equal
+     */
+    private static boolean equals(String a, String b)
+    {
+        return (a == null) ? b == null : a.equals(b);
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.installer.data;
+
+import com.izforge.izpack.api.data.Pack;
+
+
+/**
+ * A record of a pack that has been installed, as stored in the installation information file.
+ *
+ * @author agent
+ * @see InstallationInformation
+ */
+public class InstalledPack
+{
+
+    /**
+     * The pack name.
+     */
+    private final String name;
+
+    /**
+     * The pack language pack identifier. May be {@code null}
+     */
+    private final String langPackId;
+
+    /**
+     * The application version that installed the pack. May be {@code null}
+     */
+    private final String version;
+
+    /**
+     * The pack size, in bytes.
+     */
+    private final long size;
+
+    /**
+     * The time the pack was installed.
+     */
+    private final long installed;
+
+    /**
+     * Constructs an <tt>InstalledPack</tt>.
+     *
+     * @param name       the pack name
+     * @param langPackId the language pack identifier. May be {@code null}
+     * @param version    the application version that installed the pack. May be {@code null}
+     * @param size       the pack size, in bytes
+     * @param installed  the time the pack was installed
+     */
+    public InstalledPack(String name, String langPackId, String version, long size, long installed)
+    {
+        this.name = name;
+        this.langPackId = langPackId;
+        this.version = version;
+        this.size = size;
+        this.installed = installed;
+    }
+
+    /**
+     * Returns the pack name.
+     *
+     * @return the pack name
+     */
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * Returns the language pack identifier.
+     *
+     * @return the language pack identifier. May be {@code null}
+     */
+    public String getLangPackId()
+    {
+        return langPackId;
+    }
+
+    /**
+     * Returns the key used to identify the pack when detecting installed packs.
+     * <p/>
+     * This is the language pack identifier if one is present, otherwise the pack name.
+     *
+     * @return the pack key
+     */
+    public String getKey()
+    {
+        return getKey(name, langPackId);
+    }
+
+    /**
+     * Returns the application version that installed the pack.
+     *
+     * @return the application version. May be {@code null}
+     */
+    public String getVersion()
+    {
+        return version;
+    }
+
+    /**
+     * Returns the pack size.
+     *
+     * @return the pack size, in bytes
+     */
+    public long getSize()
+    {
+        return size;
+    }
+
+    /**
+     * Returns the time that the pack was installed.
+     *
+     * @return the installation time, in milliseconds since the epoch, or {@code 0} if it is not known
+     */
+    public long getInstalled()
+    {
+        return installed;
+    }
+
+    /**
+     * Creates a {@link Pack} from this record.
+     * <p/>
+     * Only the name, language pack identifier and size are populated.
+     *
+     * @return a new pack
+     */
+    public Pack toPack()
+    {
+        Pack pack = new Pack(name, langPackId, null, null, null, false, false, false, null, false);
+        pack.setSize(size);
+        return pack;
+    }
+
+    /**
+     * Returns the key used to identify a pack when detecting installed packs.
+     *
+     * @param pack the pack
+     * @return the pack key
+     */
+    public static String getKey(Pack pack)
+    {
+        return getKey(pack.getName(), pack.getLangPackId());
+    }
+
+    /**
+     * Returns a string representation of the record.
+     *
+     * @return a string representation of the record
+     */
+    @Override
+    public String toString()
+    {
+        return "InstalledPack[name=" + name + ", langPackId=" + langPackId + ", version=" + version + ", size="
+                + size + "]";
+    }
+
+    /**
+     * Returns the key used to identify a pack.
+     *
+     * @param name       the pack name
+     * @param langPackId the language pack identifier. May be {@code null}
+     * @return the pack key
+     */
+    private static String getKey(String name, String langPackId)
+    {
+        return (langPackId != null && langPackId.length() > 0) ? langPackId : name;
+    }
+}
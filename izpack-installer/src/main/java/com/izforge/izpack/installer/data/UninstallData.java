@@ -21,11 +21,15 @@ package com.izforge.izpack.installer.data;
 
 import com.izforge.izpack.data.CustomData;
 import com.izforge.izpack.data.ExecutableFile;
+import com.izforge.izpack.util.file.PathList;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 
 /**
  * Holds uninstallation data.
@@ -37,11 +41,23 @@ public class UninstallData
 
     /**
      * The installed files list.
+     * <p/>
+     * Installations can contain millions of files, so these are held front-coded rather than as strings.
      */
-    private List<String> installedFilesList;
+    private PathList installedFilesList;
 
     /**
-     * The uninstallable files list.
+     * The indexes of the installed files that must be uninstalled, in ascending order.
+     */
+    private int[] uninstallable = new int[16];
+
+    /**
+     * The no. of entries used in {@link #uninstallable}.
+     */
+    private int uninstallableCount;
+
+    /**
+     * The uninstallable files list. This is a view of the installed files indexed by {@link #uninstallable}.
      */
     private List<String> uninstallableFilesList;
 
@@ -90,8 +106,8 @@ public class UninstallData
      */
     public UninstallData()
     {
-        installedFilesList = new ArrayList<String>();
-        uninstallableFilesList = new ArrayList<String>();
+        installedFilesList = new PathList();
+        uninstallableFilesList = new UninstallableList();
         executablesList = new ArrayList<ExecutableFile>();
         additionalData = new HashMap<String, Object>();
         unInstallScripts = new ArrayList<String>();
@@ -112,11 +128,17 @@ public class UninstallData
     {
         if (path != null)
         {
-            installedFilesList.add(path);
             if (uninstall)
             {
-                uninstallableFilesList.add(path);
+                if (uninstallableCount == uninstallable.length)
+                {
+                    int[] grown = new int[uninstallable.length * 2];
+                    System.arraycopy(uninstallable, 0, grown, 0, uninstallableCount);
+                    uninstallable = grown;
+                }
+                uninstallable[uninstallableCount++] = installedFilesList.size();
             }
+            installedFilesList.add(path);
         }
     }
 
@@ -132,6 +154,9 @@ public class UninstallData
 
     /**
      * Returns the uninstallable files list.
+     * <p/>
+     * The list is read-only. Iteration streams through the installed files; access by index decodes the
+     * enclosing block of installed files.
      *
      * @return The uninstallable files list.
      */
@@ -301,4 +326,97 @@ public class UninstallData
         return unInstallScripts;
     }
 
+    /**
+     * A read-only view of the installed files flagged as uninstallable.
+     */
+    private class UninstallableList extends AbstractList<String>
+    {
+
+        /**
+         * Returns the uninstallable file at the specified position.
+         *
+         * @param index the index of the file
+         * @return the file path
+         * @throws IndexOutOfBoundsException if the index is out of range
+         */
+        @Override
+        public String get(int index)
+        {
+            if (index < 0 || index >= size())
+            {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+            }
+            return installedFilesList.get(uninstallable[index]);
+        }
+
+        /**
+         * Returns the no. of uninstallable files.
+         *
+         * @return the no. of uninstallable files
+         */
+        @Override
+        public int size()
+        {
+            synchronized (UninstallData.this)
+            {
+                return uninstallableCount;
+            }
+        }
+
+        /**
+         * Returns an iterator that streams the uninstallable files from the installed files.
+         *
+         * @return an iterator over the uninstallable files
+         */
+        @Override
+        public Iterator<String> iterator()
+        {
+            return new Iterator<String>()
+            {
+                private final Iterator<String> installed = installedFilesList.iterator();
+
+                private int index = -1;
+
+                private int position;
+
+                private int next = getNext();
+
+                @Override
+                public boolean hasNext()
+                {
+                    return next >= 0;
+                }
+
+                @Override
+                public String next()
+                {
+                    if (next < 0)
+                    {
+                        throw new NoSuchElementException();
+                    }
+                    String result = null;
+                    while (index < next)
+                    {
+                        result = installed.next();
+                        ++index;
+                    }
+                    ++position;
+                    next = getNext();
+                    return result;
+                }
+
+                private int getNext()
+                {
+                    return (position < size()) ? uninstallable[position] : -1;
+                }
+
+                @Override
+                public void remove()
+                {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+    }
+
 }
@@ -22,202 +22,170 @@
 package com.izforge.izpack.installer.debugger;
 
 import java.awt.BorderLayout;
-import java.awt.Container;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
-import java.awt.event.MouseListener;
-import java.util.Enumeration;
-import java.util.HashMap;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Map;
-import java.util.Properties;
-import java.util.Set;
+import java.util.TreeMap;
 
 import javax.swing.BorderFactory;
 import javax.swing.BoxLayout;
 import javax.swing.JButton;
-import javax.swing.JFrame;
+import javax.swing.JFileChooser;
 import javax.swing.JLabel;
+import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
-import javax.swing.JTabbedPane;
 import javax.swing.JTable;
 import javax.swing.JTextField;
-import javax.swing.JTextPane;
 import javax.swing.ListSelectionModel;
+import javax.swing.Timer;
 
+import com.izforge.izpack.api.adaptator.IXMLElement;
+import com.izforge.izpack.api.adaptator.impl.XMLParser;
 import com.izforge.izpack.api.data.Panel;
-import com.izforge.izpack.api.rules.Condition;
-import com.izforge.izpack.api.rules.RulesEngine;
+import com.izforge.izpack.api.exception.ResourceNotFoundException;
+import com.izforge.izpack.api.resource.Messages;
+import com.izforge.izpack.api.resource.Resources;
+import com.izforge.izpack.core.trace.TraceEvent;
+import com.izforge.izpack.core.trace.TraceRecorder;
 import com.izforge.izpack.gui.ButtonFactory;
 import com.izforge.izpack.gui.IconsDatabase;
 import com.izforge.izpack.installer.data.GUIInstallData;
+import com.izforge.izpack.util.Debug;
+import com.izforge.izpack.util.file.FileUtils;
 
 /**
  * Class for debugging variables and conditions.
+ * <p/>
+ * Variable writes and condition evaluations are recorded by the installer's {@link TraceRecorder}, when tracing is
+ * enabled. The values of password fields declared in the user input specification are masked. Panel switches and pack selection changes are recorded as marks, so nothing is re-evaluated when they
+ * occur. The debug panel displays the recorded events, polling the recorder for new events.
  *
  * @author Dennis Reil, <Dennis.Reil@reddot.de>
  * @version $Id: $
  */
 public class Debugger
 {
-    private RulesEngine rules;
-    private GUIInstallData idata;
+    /**
+     * The interval between polls of the recorder, in milliseconds.
+     */
+    private static final int REFRESH_INTERVAL = 500;
 
-    private Properties lasttimevariables;
+    /**
+     * The user input specification resource, used to determine the password variables.
+     */
+    private static final String USER_INPUT_SPEC = "userInputSpec.xml";
 
-    private JTextPane debugtxt;
+    private GUIInstallData idata;
     private IconsDatabase icons;
-    private Map<String, VariableHistory> variableshistory;
-    private Map<String, ConditionHistory> conditionhistory;
+    private TraceRecorder recorder;
 
-    private JTable variablestable;
-    private VariableHistoryTableModel variablesmodel;
-    private VariableHistoryTableCellRenderer variablesrenderer;
-    private ConditionHistoryTableModel conditionhistorymodel;
-    private ConditionHistoryTableCellRenderer conditionhistoryrenderer;
+    private JTable tracetable;
+    private TraceTableModel tracemodel;
 
-    public Debugger(GUIInstallData installdata, IconsDatabase icons, RulesEngine rules)
+    public Debugger(GUIInstallData installdata, IconsDatabase icons, TraceRecorder recorder, Resources resources)
     {
         idata = installdata;
-        this.rules = rules;
-        lasttimevariables = (Properties) idata.getVariables().getProperties().clone();
         this.icons = icons;
-        this.variableshistory = new HashMap<String, VariableHistory>();
-        this.conditionhistory = new HashMap<String, ConditionHistory>();
-        this.init();
+        this.recorder = recorder;
+        if (Debug.isTRACE() && !recorder.isEnabled())
+        {
+            maskPasswords(resources);
+            recorder.setEnabled(true);
+            this.init();
+        }
     }
 
-
-    private void init()
+    /**
+     * Masks the values of the variables of password fields in the user input specification, if any.
+     *
+     * @param resources the resources
+     */
+    private void maskPasswords(Resources resources)
     {
-        String[] variablekeys = lasttimevariables.keySet().toArray(new String[lasttimevariables.size()]);
-        for (String variablename : variablekeys)
+        InputStream input = null;
+        try
         {
-            VariableHistory variableHistory = new VariableHistory(variablename);
-            variableHistory.addValue(lasttimevariables.getProperty(variablename), "initial value");
-            variableshistory.put(variablename, variableHistory);
+            input = resources.getInputStream(USER_INPUT_SPEC);
+            IXMLElement spec = new XMLParser().parse(input);
+            for (IXMLElement panel : spec.getChildrenNamed("panel"))
+            {
+                for (IXMLElement field : panel.getChildrenNamed("field"))
+                {
+                    String variable = field.getAttribute("variable");
+                    if ("password".equals(field.getAttribute("type")) && variable != null)
+                    {
+                        recorder.mask(variable);
+                    }
+                }
+            }
         }
-        Set<String> conditionids = this.rules.getKnownConditionIds();
-        for (String conditionid : conditionids)
+        catch (ResourceNotFoundException ignore)
         {
-            Condition currentcondition = rules.getCondition(conditionid);
-            boolean result = this.rules.isConditionTrue(currentcondition);
-
-            ConditionHistory ch = null;
-            ch = new ConditionHistory(currentcondition);
-
-            ch.addValue(result, "initial value");
-            conditionhistory.put(conditionid, ch);
-
+            // no user input panels
+        }
+        finally
+        {
+            FileUtils.close(input);
         }
     }
 
-    private void debugVariables(Panel nextpanelmetadata, Panel lastpanelmetadata)
-    {
-        getChangedVariables(nextpanelmetadata, lastpanelmetadata);
-        lasttimevariables = (Properties) idata.getVariables().getProperties().clone();
-    }
-
-    private void debugConditions(Panel nextpanelmetadata, Panel lastpanelmetadata)
-    {
-        conditionhistoryrenderer.clearState();
-        updateChangedConditions(
-                "changed after panel switch" +
-                (lastpanelmetadata == null ? "" : " from " + lastpanelmetadata.getPanelid()) +
-                " to " + nextpanelmetadata.getPanelid());
-    }
-
-    private void updateChangedConditions(String comment)
+    /**
+     * Records the initial variable values.
+     */
+    private void init()
     {
-        Set<String> conditionids = this.rules.getKnownConditionIds();
-        for (String conditionid : conditionids)
+        recorder.mark("initial values");
+        Map<Object, Object> variables = new TreeMap<Object, Object>(idata.getVariables().getProperties());
+        for (Map.Entry<Object, Object> entry : variables.entrySet())
         {
-            Condition currentcondition = rules.getCondition(conditionid);
-            ConditionHistory aConditionHistory = null;
-            if (!conditionhistory.containsKey(conditionid))
-            {
-                // new condition
-                aConditionHistory = new ConditionHistory(currentcondition);
-                conditionhistory.put(conditionid, aConditionHistory);
-            }
-            else
-            {
-                aConditionHistory = conditionhistory.get(conditionid);
-            }
-            aConditionHistory.addValue(this.rules.isConditionTrue(currentcondition), comment);
+            recorder.variable((String) entry.getKey(), (String) entry.getValue());
         }
-        conditionhistorymodel.fireTableDataChanged();
     }
 
-    private Properties getChangedVariables(Panel nextpanelmetadata, Panel lastpanelmetadata)
+    private void modifyVariableManually(String varnametxt, String varvaluetxt)
     {
-        Properties currentvariables = (Properties) idata.getVariables().getProperties().clone();
-        Properties changedvariables = new Properties();
+        recorder.mark("manual modification of variable " + varnametxt);
+        idata.setVariable(varnametxt, varvaluetxt);
+    }
 
-        variablesrenderer.clearState();
-        // check for changed and new variables
-        Enumeration currentvariableskeys = currentvariables.keys();
-        boolean changes = false;
-        while (currentvariableskeys.hasMoreElements())
+    private void export(JPanel parent)
+    {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setSelectedFile(new File("izpack-trace.txt"));
+        if (chooser.showSaveDialog(parent) == JFileChooser.APPROVE_OPTION)
         {
-            String key = (String) currentvariableskeys.nextElement();
-            String currentvalue = currentvariables.getProperty(key);
-            String oldvalue = lasttimevariables.getProperty(key);
-
-            if ((oldvalue == null))
+            File file = chooser.getSelectedFile();
+            try
             {
-                VariableHistory variableHistory = new VariableHistory(key);
-                variableHistory.addValue(currentvalue, "new after panel " + lastpanelmetadata.getPanelid());
-                variableshistory.put(key, variableHistory);
-                changes = true;
-                changedvariables.put(key, currentvalue);
+                recorder.export(file);
             }
-            else
+            catch (IOException exception)
             {
-                if (!currentvalue.equals(oldvalue))
-                {
-                    VariableHistory variableHistory = variableshistory.get(key);
-                    variableHistory.addValue(currentvalue,
-                                             "changed value after panel " + lastpanelmetadata.getPanelid());
-                    changes = true;
-                    changedvariables.put(key, currentvalue);
-                }
+                Messages messages = idata.getMessages();
+                JOptionPane.showMessageDialog(parent, messages.get("debug.exportfailed", file, exception.getMessage()),
+                                              messages.get("installer.error"), JOptionPane.ERROR_MESSAGE);
             }
         }
-        if (changes)
-        {
-            variablesmodel.fireTableDataChanged();
-        }
-        return changedvariables;
-    }
-
-    private void modifyVariableManually(String varnametxt, String varvaluetxt)
-    {
-        lasttimevariables = (Properties) idata.getVariables().getProperties().clone();
-        VariableHistory variableHistory = variableshistory.get(varnametxt);
-        if (variableHistory != null)
-        {
-            variableHistory.addValue(varvaluetxt, "modified manually");
-        }
-        variablesmodel.fireTableDataChanged();
-        updateChangedConditions("after manual modification of variable " + varnametxt);
     }
 
     public JPanel getDebugPanel()
     {
-        JPanel debugpanel = new JPanel();
+        final JPanel debugpanel = new JPanel();
         debugpanel.setBorder(BorderFactory.createEmptyBorder(10, 10, 0, 10));
         debugpanel.setLayout(new BorderLayout());
 
-        variablesmodel = new VariableHistoryTableModel(variableshistory);
-        variablesrenderer = new VariableHistoryTableCellRenderer(variableshistory);
-        variablestable = new JTable(variablesmodel);
-        variablestable.setDefaultRenderer(VariableHistory.class, variablesrenderer);
-        variablestable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
-        variablestable.setRowSelectionAllowed(true);
+        tracemodel = new TraceTableModel(recorder);
+        tracetable = new JTable(tracemodel);
+        tracetable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        tracetable.setRowSelectionAllowed(true);
 
-        JScrollPane scrollpane = new JScrollPane(variablestable);
+        JScrollPane scrollpane = new JScrollPane(tracetable);
 
         debugpanel.add(scrollpane, BorderLayout.CENTER);
 
@@ -243,150 +211,56 @@ public class Debugger
                 {
                     if ((varvaluetxt != null) && (varvaluetxt.length() > 0))
                     {
-                        idata.setVariable(varnametxt, varvaluetxt);
                         modifyVariableManually(varnametxt, varvaluetxt);
                     }
                 }
             }
         });
-        variablestable.addMouseListener(new MouseListener()
+        tracetable.addMouseListener(new MouseAdapter()
         {
 
             public void mouseClicked(MouseEvent e)
             {
-                int selectedrow = variablestable.getSelectedRow();
-                String selectedvariable = (String) variablesmodel.getValueAt(selectedrow, 0);
-
-                if (e.getClickCount() == 1)
-                {
-                    varname.setText(selectedvariable);
-                }
-                else
+                int selectedrow = tracetable.getSelectedRow();
+                TraceEvent event = (selectedrow != -1) ? tracemodel.getEvent(selectedrow) : null;
+                if (event != null && event.getType() == TraceEvent.Type.VARIABLE)
                 {
-                    VariableHistory variableHistory = variableshistory.get(selectedvariable);
-
-                    JFrame variabledetails = new JFrame("Details");
-
-                    JTextPane detailspane = new JTextPane();
-                    detailspane.setContentType("text/html");
-                    detailspane.setText(variableHistory.getValueHistoryDetails());
-                    detailspane.setEditable(false);
-                    JScrollPane scroller = new JScrollPane(detailspane);
-
-                    Container container = variabledetails.getContentPane();
-                    container.setLayout(new BorderLayout());
-                    container.add(scroller, BorderLayout.CENTER);
-
-                    variabledetails.pack();
-                    variabledetails.setVisible(true);
+                    varname.setText(event.getName());
+                    if (e.getClickCount() > 1)
+                    {
+                        String value = idata.getVariable(event.getName());
+                        varvalue.setText(recorder.isMasked(event.getName()) ? "" : value);
+                    }
                 }
             }
+        });
+        varchangepanel.add(changevarbtn);
 
-            public void mouseEntered(MouseEvent e)
-            {
-                // TODO Auto-generated method stub
-
-            }
-
-            public void mouseExited(MouseEvent e)
-            {
-                // TODO Auto-generated method stub
-
-            }
-
-            public void mousePressed(MouseEvent e)
-            {
-                // TODO Auto-generated method stub
-
-            }
+        JButton exportbtn = ButtonFactory.createButton(idata.getMessages().get("debug.export"), idata.buttonsHColor);
+        exportbtn.addActionListener(new ActionListener()
+        {
 
-            public void mouseReleased(MouseEvent e)
+            public void actionPerformed(ActionEvent e)
             {
-                // TODO Auto-generated method stub
-
+                export(debugpanel);
             }
-
         });
-        varchangepanel.add(changevarbtn);
+        varchangepanel.add(exportbtn);
         debugpanel.add(varchangepanel, BorderLayout.SOUTH);
 
-        JPanel conditionpanel = new JPanel();
-        conditionpanel.setLayout(new BorderLayout());
-
-        conditionhistorymodel = new ConditionHistoryTableModel(conditionhistory);
-        final JTable conditiontable = new JTable(conditionhistorymodel);
-        conditionhistoryrenderer = new ConditionHistoryTableCellRenderer(conditionhistory);
-        conditiontable.setDefaultRenderer(ConditionHistory.class, conditionhistoryrenderer);
-        conditiontable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
-        conditiontable.setRowSelectionAllowed(true);
-        conditiontable.addMouseListener(new MouseListener()
+        if (recorder.isEnabled())
         {
-
-            public void mouseClicked(MouseEvent e)
+            Timer timer = new Timer(REFRESH_INTERVAL, new ActionListener()
             {
-                int selectedrow = conditiontable.getSelectedRow();
-
-                String selectedcondition = (String) conditiontable.getModel().getValueAt(selectedrow, 0);
 
-                if (e.getClickCount() == 2)
+                public void actionPerformed(ActionEvent e)
                 {
-
-                    ConditionHistory aConditionHistory = conditionhistory.get(selectedcondition);
-
-                    JFrame variabledetails = new JFrame("Details");
-
-                    JTextPane detailspane = new JTextPane();
-                    detailspane.setContentType("text/html");
-                    detailspane.setText(aConditionHistory.getConditionHistoryDetails());
-                    detailspane.setEditable(false);
-                    JScrollPane scroller = new JScrollPane(detailspane);
-
-                    Container container = variabledetails.getContentPane();
-                    container.setLayout(new BorderLayout());
-                    container.add(scroller, BorderLayout.CENTER);
-
-                    variabledetails.pack();
-                    variabledetails.setVisible(true);
+                    tracemodel.refresh();
                 }
-
-            }
-
-            public void mouseEntered(MouseEvent e)
-            {
-                // TODO Auto-generated method stub
-
-            }
-
-            public void mouseExited(MouseEvent e)
-            {
-                // TODO Auto-generated method stub
-
-            }
-
-            public void mousePressed(MouseEvent e)
-            {
-                // TODO Auto-generated method stub
-
-            }
-
-            public void mouseReleased(MouseEvent e)
-            {
-                // TODO Auto-generated method stub
-
-            }
-
-        });
-
-        JScrollPane conditionscroller = new JScrollPane(conditiontable);
-        conditionpanel.add(conditionscroller, BorderLayout.CENTER);
-
-        JTabbedPane tabpane = new JTabbedPane(JTabbedPane.TOP);
-        tabpane.insertTab("Variable settings", null, debugpanel, "", 0);
-        tabpane.insertTab("Condition settings", null, conditionpanel, "", 1);
-        JPanel mainpanel = new JPanel();
-        mainpanel.setLayout(new BorderLayout());
-        mainpanel.add(tabpane, BorderLayout.CENTER);
-        return mainpanel;
+            });
+            timer.start();
+        }
+        return debugpanel;
     }
 
     /**
@@ -397,13 +271,16 @@ public class Debugger
      */
     public void switchPanel(Panel nextpanelmetadata, Panel lastpanelmetadata)
     {
-        this.debugVariables(nextpanelmetadata, lastpanelmetadata);
-        this.debugConditions(nextpanelmetadata, lastpanelmetadata);
+        if (recorder.isEnabled())
+        {
+            recorder.mark("panel switch" +
+                                  (lastpanelmetadata == null ? "" : " from " + lastpanelmetadata.getPanelid()) +
+                                  " to " + nextpanelmetadata.getPanelid());
+        }
     }
 
     public void packSelectionChanged(String comment)
     {
-        this.updateChangedConditions(comment);
+        recorder.mark(comment);
     }
 }
-
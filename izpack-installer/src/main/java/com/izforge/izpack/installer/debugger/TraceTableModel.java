@@ -0,0 +1,184 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.installer.debugger;
+
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+import javax.swing.table.AbstractTableModel;
+
+import com.izforge.izpack.core.trace.TraceEvent;
+import com.izforge.izpack.core.trace.TraceRecorder;
+
+
+/**
+ * A table model over the events of a {@link TraceRecorder}.
+ * <p/>
+ * Rows are fetched from the recorder as they are displayed, so the cost of the model doesn't depend on the no. of
+ * events recorded. The model only changes when it is {@link #refresh() refreshed}.
+ *
+ * @author agent
+ */
+public class TraceTableModel extends AbstractTableModel
+{
+
+    private static final long serialVersionUID = 2401858356829283473L;
+
+    /**
+     * The column names.
+     */
+    private static final String[] COLUMNS = {"#", "Time", "Type", "Name", "Value"};
+
+    /**
+     * The recorder.
+     */
+    private final TraceRecorder recorder;
+
+    /**
+     * The sequence number of the event displayed in the first row.
+     */
+    private long first;
+
+    /**
+     * The sequence number following that of the event displayed in the last row.
+     */
+    private long count;
+
+    /**
+     * The time format.
+     */
+    private final DateFormat format = new SimpleDateFormat("HH:mm:ss.SSS");
+
+
+    /**
+     * Constructs a <tt>TraceTableModel</tt>.
+     *
+     * @param recorder the recorder
+     */
+    public TraceTableModel(TraceRecorder recorder)
+    {
+        this.recorder = recorder;
+        refresh();
+    }
+
+    /**
+     * Updates the model with the events recorded since it was last refreshed.
+     *
+     * @return {@code true} if the model changed
+     */
+    public boolean refresh()
+    {
+        long newFirst = recorder.getFirst();
+        long newCount = recorder.getCount();
+        boolean changed = newFirst != first || newCount != count;
+        if (changed)
+        {
+            int rows = getRowCount();
+            boolean appended = newFirst == first && newCount > count;
+            first = newFirst;
+            count = newCount;
+            if (appended)
+            {
+                fireTableRowsInserted(rows, getRowCount() - 1);
+            }
+            else
+            {
+                fireTableDataChanged();
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Returns the event displayed in a row.
+     *
+     * @param rowIndex the row index
+     * @return the event, or {@code null} if it has been discarded by the recorder since the model was refreshed
+     */
+    public TraceEvent getEvent(int rowIndex)
+    {
+        return recorder.get(first + rowIndex);
+    }
+
+    /**
+     * Returns the number of columns in the model.
+     *
+     * @return the number of columns in the model
+     */
+    @Override
+    public int getColumnCount()
+    {
+        return COLUMNS.length;
+    }
+
+    /**
+     * Returns the name of a column.
+     *
+     * @param column the column index
+     * @return the column name
+     */
+    @Override
+    public String getColumnName(int column)
+    {
+        return COLUMNS[column];
+    }
+
+    /**
+     * Returns the number of rows in the model.
+     *
+     * @return the number of rows in the model
+     */
+    @Override
+    public int getRowCount()
+    {
+        return (int) (count - first);
+    }
+
+    /**
+     * Returns the value of a cell.
+     *
+     * @param rowIndex    the row index
+     * @param columnIndex the column index
+     * @return the value of the cell
+     */
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex)
+    {
+        TraceEvent event = getEvent(rowIndex);
+        if (event == null)
+        {
+            return null;
+        }
+        switch (columnIndex)
+        {
+            case 0:
+                return event.getSequence();
+            case 1:
+                return format.format(new Date(event.getTime()));
+            case 2:
+                return event.getType();
+            case 3:
+                return event.getName();
+            default:
+                return recorder.getValue(event);
+        }
+    }
+}
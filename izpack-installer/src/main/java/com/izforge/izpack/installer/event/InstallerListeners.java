@@ -14,10 +14,14 @@ import com.izforge.izpack.api.event.ProgressListener;
 import com.izforge.izpack.api.exception.IzPackException;
 import com.izforge.izpack.api.handler.Prompt;
 import com.izforge.izpack.core.handler.ProgressHandler;
+import com.izforge.izpack.core.metrics.Metrics;
+import com.izforge.izpack.core.metrics.Timer;
 
 
 /**
  * A container for {@link InstallerListener}s that supports notifying each registered listener.
+ * <p/>
+ * The time spent in each listener is recorded by a <em>listener.&lt;class name&gt;</em> {@link Metrics} timer.
  *
  * @author Tim Anderson
  */
@@ -44,6 +48,11 @@ public class InstallerListeners
      */
     private final Prompt prompt;
 
+    /**
+     * The metrics to record listener times in.
+     */
+    private final Metrics metrics;
+
     /**
      * Determines if any of the listeners should be notified of file and directory events.
      */
@@ -54,11 +63,13 @@ public class InstallerListeners
      *
      * @param installData the installation data
      * @param prompt      the prompt
+     * @param metrics     the metrics to record listener times in
      */
-    public InstallerListeners(AutomatedInstallData installData, Prompt prompt)
+    public InstallerListeners(AutomatedInstallData installData, Prompt prompt, Metrics metrics)
     {
         this.installData = installData;
         this.prompt = prompt;
+        this.metrics = metrics;
     }
 
     /**
@@ -141,7 +152,10 @@ public class InstallerListeners
     {
         for (PackListener packListener : packListeners)
         {
+            Timer timer = getTimer(packListener);
+            long start = timer.start();
             packListener.beforePacks(packs, listener);
+            timer.stop(start);
         }
     }
 
@@ -157,7 +171,10 @@ public class InstallerListeners
     {
         for (PackListener packListener : packListeners)
         {
+            Timer timer = getTimer(packListener);
+            long start = timer.start();
             packListener.beforePack(pack, i, listener);
+            timer.stop(start);
         }
     }
 
@@ -291,7 +308,10 @@ public class InstallerListeners
     {
         for (PackListener packListener : packListeners)
         {
+            Timer timer = getTimer(packListener);
+            long start = timer.start();
             packListener.afterPack(pack, i, listener);
+            timer.stop(start);
         }
     }
 
@@ -306,7 +326,10 @@ public class InstallerListeners
     {
         for (PackListener packListener : packListeners)
         {
+            Timer timer = getTimer(packListener);
+            long start = timer.start();
             packListener.afterPacks(packs, listener);
+            timer.stop(start);
         }
     }
 
@@ -320,9 +343,12 @@ public class InstallerListeners
     {
         for (InstallerListener listener : listeners)
         {
+            Timer timer = getTimer(listener);
+            long start = timer.start();
             try
             {
                 runner.run(listener);
+                timer.stop(start);
             }
             catch (IzPackException exception)
             {
@@ -335,6 +361,21 @@ public class InstallerListeners
         }
     }
 
+    /**
+     * Returns the {@link Metrics metrics} timer for a listener.
+     *
+     * @param listener the listener
+     * @return the timer
+     */
+    private Timer getTimer(Object listener)
+    {
+        if (listener instanceof PackInstallerListener)
+        {
+            listener = ((PackInstallerListener) listener).installerListener;
+        }
+        return metrics.getTimer("listener." + listener.getClass().getName());
+    }
+
     private static interface Runner
     {
         void run(InstallerListener listener) throws Exception;
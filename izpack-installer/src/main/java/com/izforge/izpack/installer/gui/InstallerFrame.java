@@ -79,7 +79,9 @@ import com.izforge.izpack.api.exception.ResourceException;
 import com.izforge.izpack.api.exception.ResourceNotFoundException;
 import com.izforge.izpack.api.resource.Messages;
 import com.izforge.izpack.api.rules.RulesEngine;
+import com.izforge.izpack.core.metrics.Metrics;
 import com.izforge.izpack.core.resource.ResourceManager;
+import com.izforge.izpack.core.trace.TraceRecorder;
 import com.izforge.izpack.gui.ButtonFactory;
 import com.izforge.izpack.gui.EtchedLineBorder;
 import com.izforge.izpack.gui.IconsDatabase;
@@ -89,6 +91,7 @@ import com.izforge.izpack.installer.data.UninstallData;
 import com.izforge.izpack.installer.data.UninstallDataWriter;
 import com.izforge.izpack.installer.debugger.Debugger;
 import com.izforge.izpack.installer.panel.PanelView;
+import com.izforge.izpack.installer.unpacker.BufferedProgressListener;
 import com.izforge.izpack.installer.unpacker.IUnpacker;
 import com.izforge.izpack.util.Debug;
 import com.izforge.izpack.util.Housekeeper;
@@ -246,6 +249,16 @@ public class InstallerFrame extends JFrame implements InstallerView
      */
     private final Log log;
 
+    /**
+     * The recorder of variable writes and condition evaluations.
+     */
+    private final TraceRecorder recorder;
+
+    /**
+     * The installation metrics.
+     */
+    private final Metrics metrics;
+
     /**
      * Constructs an <tt>InstallerFrame</tt>.
      *
@@ -259,12 +272,14 @@ public class InstallerFrame extends JFrame implements InstallerView
      * @param uninstallData       the uninstallation data
      * @param housekeeper         the house-keeper
      * @param log                 the log
+     * @param recorder            the recorder of variable writes and condition evaluations
+     * @param metrics             the installation metrics
      * @throws Exception for any error
      */
     public InstallerFrame(String title, GUIInstallData installData, RulesEngine rules, IconsDatabase icons,
                           IzPanels panels, UninstallDataWriter uninstallDataWriter,
                           ResourceManager resourceManager, UninstallData uninstallData, Housekeeper housekeeper,
-                          Log log)
+                          Log log, TraceRecorder recorder, Metrics metrics)
             throws Exception
     {
         super(title);
@@ -278,6 +293,8 @@ public class InstallerFrame extends JFrame implements InstallerView
         this.variables = installData.getVariables();
         this.housekeeper = housekeeper;
         this.log = log;
+        this.recorder = recorder;
+        this.metrics = metrics;
 
         this.messages = installData.getMessages();
         this.setIcons(icons);
@@ -390,7 +407,7 @@ public class InstallerFrame extends JFrame implements InstallerView
         contentPane.add(navPanel, BorderLayout.SOUTH);
 
         // always initialize debugger
-        debugger = new Debugger(installdata, getIcons(), rules);
+        debugger = new Debugger(installdata, getIcons(), recorder, resourceManager);
         // this needed to fully initialize the debugger.
         JPanel debugpanel = debugger.getDebugPanel();
 
@@ -772,6 +789,7 @@ public class InstallerFrame extends JFrame implements InstallerView
                 // . revert installation - which is what wipeAborted attempts to do, but fails to handle shortcuts and
                 //                         registry changes
             }
+            metrics.report();
             shutdown();
         }
         else
@@ -803,12 +821,14 @@ public class InstallerFrame extends JFrame implements InstallerView
 
     /**
      * Launches the installation.
+     * <p/>
+     * Progress is delivered to the listener at a fixed rate, rather than for each file installed.
      *
      * @param listener The installation listener.
      */
     public void install(ProgressListener listener)
     {
-        unpacker.setProgressListener(listener);
+        unpacker.setProgressListener(BufferedProgressListener.create(listener));
         Thread unpackerthread = new Thread(unpacker, "IzPack - Unpacker thread");
         unpackerthread.start();
     }
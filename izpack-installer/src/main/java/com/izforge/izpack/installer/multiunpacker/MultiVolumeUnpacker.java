@@ -39,6 +39,7 @@ import com.izforge.izpack.api.rules.RulesEngine;
 import com.izforge.izpack.api.substitutor.VariableSubstitutor;
 import com.izforge.izpack.core.io.FileSpanningInputStream;
 import com.izforge.izpack.core.io.VolumeLocator;
+import com.izforge.izpack.core.metrics.Metrics;
 import com.izforge.izpack.installer.data.UninstallData;
 import com.izforge.izpack.installer.event.InstallerListeners;
 import com.izforge.izpack.installer.unpacker.Cancellable;
@@ -94,13 +95,15 @@ public class MultiVolumeUnpacker extends UnpackerBase
      * @param listeners           the listeners
      * @param prompt              the prompt
      * @param locator             the multi-volume locator
+     * @param metrics             the metrics to record unpacking times in
      */
     public MultiVolumeUnpacker(InstallData installData, PackResources resources, RulesEngine rules,
                                VariableSubstitutor variableSubstitutor, UninstallData uninstallData,
                                FileQueueFactory queue, Housekeeper housekeeper, InstallerListeners listeners,
-                               Prompt prompt, VolumeLocator locator)
+                               Prompt prompt, VolumeLocator locator, Metrics metrics)
     {
-        super(installData, resources, rules, variableSubstitutor, uninstallData, queue, housekeeper, listeners, prompt);
+        super(installData, resources, rules, variableSubstitutor, uninstallData, queue, housekeeper, listeners, prompt,
+              metrics);
         this.locator = locator;
     }
 
@@ -153,6 +156,21 @@ public class MultiVolumeUnpacker extends UnpackerBase
         }
     }
 
+    /**
+     * Determines if packs may be installed concurrently.
+     * <p/>
+     * Pack files are read from a single stream spanning the volumes, so packs are always installed in sequence.
+     *
+     * @param packs the packs to unpack
+     * @param queue the file queue, or {@code null} if queuing is not supported
+     * @return <tt>false</tt>
+     */
+    @Override
+    protected boolean isParallelSupported(List<Pack> packs, FileQueue queue)
+    {
+        return false;
+    }
+
     /**
      * Creates an unpacker to unpack a pack file.
      *
@@ -0,0 +1,442 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.installer.unpacker;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.izforge.izpack.api.event.ProgressListener;
+import com.izforge.izpack.api.event.RestartableProgressListener;
+import com.izforge.izpack.api.event.ThroughputProgressListener;
+
+
+/**
+ * A {@link ProgressListener} that coalesces {@link #progress(int, String) progress} notifications, delivering them to
+ * another listener at a fixed rate.
+ * <p/>
+ * Progress notifications only record the latest sub-step, without locking, so they are cheap to make for every
+ * file unpacked. While an action is running, the latest sub-step is delivered at most once per frame, by a daemon
+ * thread. Other notifications are delivered immediately, after any pending progress.
+ * <p/>
+ * The no. of bytes processed may be {@link #addBytes(long) added} as files are unpacked. If the listener is a
+ * {@link ThroughputProgressListener}, it is notified of the bytes processed, the average throughput and, if the
+ * {@link #setTotalBytes(long) total} is known, the estimated time remaining.
+ *
+ * @author agent
+ */
+public class BufferedProgressListener implements ProgressListener
+{
+
+    /**
+     * System property specifying the no. of times per second to deliver progress.
+     */
+    public static final String RATE = "izpack.progress.rate";
+
+    /**
+     * The default no. of times per second to deliver progress.
+     */
+    public static final int DEFAULT_RATE = 30;
+
+    /**
+     * The listener to delegate to.
+     */
+    private final ProgressListener listener;
+
+    /**
+     * The interval between deliveries, in milliseconds.
+     */
+    private final long interval;
+
+    /**
+     * The latest undelivered progress notification.
+     */
+    private final AtomicReference<Progress> pending = new AtomicReference<Progress>();
+
+    /**
+     * The no. of bytes processed since the action started.
+     */
+    private final AtomicLong bytes = new AtomicLong();
+
+    /**
+     * The total no. of bytes the action is expected to process, or {@code 0} if it is unknown.
+     */
+    private volatile long totalBytes;
+
+    /**
+     * The time the action started, in nanoseconds.
+     */
+    private volatile long start = System.nanoTime();
+
+    /**
+     * Determines if progress notifications are being buffered.
+     */
+    private volatile boolean buffering;
+
+    /**
+     * The no. of bytes last delivered.
+     */
+    private long deliveredBytes = -1;
+
+    /**
+     * Delivers pending progress, while an action is running.
+     */
+    private ScheduledExecutorService executor;
+
+    /**
+     * The logger.
+     */
+    private static final Logger logger = Logger.getLogger(BufferedProgressListener.class.getName());
+
+
+    /**
+     * Constructs a <tt>BufferedProgressListener</tt>.
+     *
+     * @param listener the listener to delegate to
+     * @param rate     the no. of times per second to deliver progress
+     */
+    public BufferedProgressListener(ProgressListener listener, int rate)
+    {
+        if (rate <= 0)
+        {
+            throw new IllegalArgumentException("Argument 'rate' must be greater than zero");
+        }
+        this.listener = listener;
+        interval = Math.max(1, 1000 / rate);
+    }
+
+    /**
+     * Creates a <tt>BufferedProgressListener</tt> that delivers progress at the rate specified by the {@link #RATE}
+     * system property, or the {@link #DEFAULT_RATE default rate}.
+     * <p/>
+     * If the listener is a {@link RestartableProgressListener}, the returned listener is one too.
+     *
+     * @param listener the listener to delegate to
+     * @return a new listener
+     */
+    public static BufferedProgressListener create(ProgressListener listener)
+    {
+        int rate = Integer.getInteger(RATE, DEFAULT_RATE);
+        if (rate <= 0)
+        {
+            rate = DEFAULT_RATE;
+        }
+        if (listener instanceof RestartableProgressListener)
+        {
+            return new Restartable((RestartableProgressListener) listener, rate);
+        }
+        return new BufferedProgressListener(listener, rate);
+    }
+
+    /**
+     * Invoked when an action starts.
+     * <p/>
+     * This resets the no. of bytes processed.
+     *
+     * @param name  the name of the action
+     * @param steps the number of steps the action consists of
+     */
+    @Override
+    public synchronized void startAction(String name, int steps)
+    {
+        flush();
+        bytes.set(0);
+        totalBytes = 0;
+        deliveredBytes = -1;
+        start = System.nanoTime();
+        listener.startAction(name, steps);
+        startBuffering();
+    }
+
+    /**
+     * Invoked when an action finishes.
+     */
+    @Override
+    public synchronized void stopAction()
+    {
+        flush();
+        stopBuffering();
+        listener.stopAction();
+    }
+
+    /**
+     * Invoked when an action step starts.
+     *
+     * @param stepName the name of the step
+     * @param step     the step number
+     * @param subSteps the number of sub-steps the step consists of
+     */
+    @Override
+    public synchronized void nextStep(String stepName, int step, int subSteps)
+    {
+        flush();
+        listener.nextStep(stepName, step, subSteps);
+    }
+
+    /**
+     * Sets the number of sub-steps.
+     *
+     * @param subSteps the number of sub-steps
+     */
+    @Override
+    public synchronized void setSubStepNo(int subSteps)
+    {
+        flush();
+        listener.setSubStepNo(subSteps);
+    }
+
+    /**
+     * Invoked to notify progress.
+     * <p/>
+     * While an action is running, this replaces any undelivered progress.
+     *
+     * @param subStep the sub-step which will be performed next
+     * @param message an additional message describing the sub-step
+     */
+    @Override
+    public void progress(int subStep, String message)
+    {
+        if (buffering)
+        {
+            pending.set(new Progress(subStep, message));
+        }
+        else
+        {
+            synchronized (this)
+            {
+                flush();
+                listener.progress(subStep, message);
+            }
+        }
+    }
+
+    /**
+     * Adds to the no. of bytes processed.
+     *
+     * @param count the no. of bytes to add
+     */
+    public void addBytes(long count)
+    {
+        bytes.addAndGet(count);
+    }
+
+    /**
+     * Returns the no. of bytes processed since the action started.
+     *
+     * @return the no. of bytes processed
+     */
+    public long getBytes()
+    {
+        return bytes.get();
+    }
+
+    /**
+     * Sets the total no. of bytes the current action is expected to process.
+     *
+     * @param totalBytes the total no. of bytes, or {@code 0} if it is unknown
+     */
+    public void setTotalBytes(long totalBytes)
+    {
+        this.totalBytes = totalBytes;
+    }
+
+    /**
+     * Delivers any pending progress and throughput.
+     */
+    protected synchronized void flush()
+    {
+        Progress progress = pending.getAndSet(null);
+        if (progress != null)
+        {
+            listener.progress(progress.subStep, progress.message);
+        }
+        if (listener instanceof ThroughputProgressListener)
+        {
+            long processed = bytes.get();
+            if (processed != deliveredBytes)
+            {
+                deliveredBytes = processed;
+                long total = totalBytes;
+                long elapsed = System.nanoTime() - start;
+                long bytesPerSecond = (elapsed > 0) ? (long) (processed * 1e9 / elapsed) : 0;
+                long remaining = -1;
+                if (total > 0 && bytesPerSecond > 0)
+                {
+                    remaining = Math.max(0, total - processed) * 1000 / bytesPerSecond;
+                }
+                ((ThroughputProgressListener) listener).throughput(processed, total, bytesPerSecond, remaining);
+            }
+        }
+    }
+
+    /**
+     * Starts delivering progress at the configured rate, if it isn't already.
+     */
+    protected synchronized void startBuffering()
+    {
+        if (executor == null)
+        {
+            executor = Executors.newSingleThreadScheduledExecutor(new ProgressThreadFactory());
+            executor.scheduleAtFixedRate(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        flush();
+                    }
+                    catch (RuntimeException exception)
+                    {
+                        logger.log(Level.WARNING, "Failed to deliver progress: " + exception.getMessage(),
+                                   exception);
+                    }
+                }
+            }, interval, interval, TimeUnit.MILLISECONDS);
+            buffering = true;
+        }
+    }
+
+    /**
+     * Stops delivering progress at the configured rate. Subsequent progress is delivered immediately.
+     */
+    protected synchronized void stopBuffering()
+    {
+        buffering = false;
+        if (executor != null)
+        {
+            executor.shutdown();
+            executor = null;
+        }
+    }
+
+    /**
+     * A progress notification.
+     */
+    private static class Progress
+    {
+
+        /**
+         * The sub-step.
+         */
+        private final int subStep;
+
+        /**
+         * The message.
+         */
+        private final String message;
+
+        /**
+         * Constructs a <tt>Progress</tt>.
+         *
+         * @param subStep the sub-step
+         * @param message the message
+         */
+        public Progress(int subStep, String message)
+        {
+            this.subStep = subStep;
+            this.message = message;
+        }
+    }
+
+    /**
+     * A <tt>BufferedProgressListener</tt> for {@link RestartableProgressListener}s.
+     */
+    private static class Restartable extends BufferedProgressListener implements RestartableProgressListener
+    {
+
+        /**
+         * The listener to delegate to.
+         */
+        private final RestartableProgressListener listener;
+
+        /**
+         * Constructs a <tt>Restartable</tt>.
+         *
+         * @param listener the listener to delegate to
+         * @param rate     the no. of times per second to deliver progress
+         */
+        public Restartable(RestartableProgressListener listener, int rate)
+        {
+            super(listener, rate);
+            this.listener = listener;
+        }
+
+        /**
+         * Invoked when an action restarts.
+         *
+         * @param name       the name of the action
+         * @param overallMsg message to be used in the overall label
+         * @param tip        message to be used in the tip label
+         * @param steps      the number of steps the action consists of
+         */
+        @Override
+        public synchronized void restartAction(String name, String overallMsg, String tip, int steps)
+        {
+            flush();
+            listener.restartAction(name, overallMsg, tip, steps);
+            startBuffering();
+        }
+
+        /**
+         * Invoked to notify progress.
+         *
+         * @param message a message describing the step
+         */
+        @Override
+        public synchronized void progress(String message)
+        {
+            flush();
+            listener.progress(message);
+        }
+    }
+
+    /**
+     * Creates the daemon thread that delivers progress.
+     */
+    private static class ProgressThreadFactory implements ThreadFactory
+    {
+
+        /**
+         * The thread counter.
+         */
+        private final AtomicInteger count = new AtomicInteger();
+
+        /**
+         * Constructs a new thread.
+         *
+         * @param runnable the runnable to run
+         * @return a new thread
+         */
+        @Override
+        public Thread newThread(Runnable runnable)
+        {
+            Thread thread = new Thread(runnable, "IzPack-progress-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.izforge.izpack.installer.unpacker;
 
 
+import com.izforge.izpack.core.metrics.Metrics;
 import com.izforge.izpack.util.Librarian;
 import com.izforge.izpack.util.Platform;
 import com.izforge.izpack.util.os.FileQueue;
@@ -24,6 +25,11 @@ public class FileQueueFactory
      */
     private final Librarian librarian;
 
+    /**
+     * The metrics to record queue execution times in. May be {@code null}.
+     */
+    private final Metrics metrics;
+
 
     /**
      * Constructs a {@code FileQueueFactory}.
@@ -32,9 +38,22 @@ public class FileQueueFactory
      * @param librarian the librarian
      */
     public FileQueueFactory(Platform platform, Librarian librarian)
+    {
+        this(platform, librarian, null);
+    }
+
+    /**
+     * Constructs a {@code FileQueueFactory}.
+     *
+     * @param platform  the current platform
+     * @param librarian the librarian
+     * @param metrics   the metrics to record queue execution times in. May be {@code null}
+     */
+    public FileQueueFactory(Platform platform, Librarian librarian, Metrics metrics)
     {
         supportsQueue = platform.isA(Platform.Name.WINDOWS);
         this.librarian = librarian;
+        this.metrics = metrics;
     }
 
     /**
@@ -54,7 +73,7 @@ public class FileQueueFactory
      */
     public FileQueue create()
     {
-        return supportsQueue ? new FileQueue(librarian) : null;
+        return supportsQueue ? new FileQueue(librarian, metrics) : null;
     }
 
 }
@@ -112,11 +112,7 @@ public abstract class FileUnpacker
             long bytesCopied = 0;
             while (bytesCopied < file.length())
             {
-                if (cancellable.isCancelled())
-                {
-                    // operation cancelled
-                    throw new InterruptedIOException("Copy operation cancelled");
-                }
+                checkCancelled();
                 bytesCopied = copy(file, buffer, in, out, bytesCopied);
             }
         }
@@ -127,6 +123,20 @@ public abstract class FileUnpacker
         postCopy(file);
     }
 
+    /**
+     * Determines if the copy operation has been cancelled.
+     *
+     * @throws InterruptedIOException if the copy operation is cancelled
+     */
+    protected void checkCancelled() throws InterruptedIOException
+    {
+        if (cancellable.isCancelled())
+        {
+            // operation cancelled
+            throw new InterruptedIOException("Copy operation cancelled");
+        }
+    }
+
     /**
      * Invoked after copying is complete to set the last modified timestamp, and queue blockable files.
      *
@@ -193,10 +203,10 @@ public abstract class FileUnpacker
      * @return a stream to the actual target
      * @throws IOException
      */
-    protected OutputStream getTarget(PackFile file, File target) throws IOException
+    protected FileOutputStream getTarget(PackFile file, File target) throws IOException
     {
         this.target = target;
-        OutputStream result;
+        FileOutputStream result;
         if (isBlockable(file))
         {
             // If target file might be blocked the output file must first refer to a temporary file, because
@@ -221,7 +231,7 @@ public abstract class FileUnpacker
         // Set file modification time if specified
         if (file.lastModified() >= 0)
         {
-            File f = (tmpTarget != null) ? tmpTarget : target;
+            File f = getActualTarget();
             if (!f.setLastModified(file.lastModified()))
             {
                 logger.warning("Failed to set last modified timestamp for: " + target);
@@ -229,6 +239,18 @@ public abstract class FileUnpacker
         }
     }
 
+    /**
+     * Returns the file actually being written to.
+     * <p/>
+     * This is the temporary file if the target is blockable, otherwise the target itself.
+     *
+     * @return the actual target
+     */
+    protected File getActualTarget()
+    {
+        return (tmpTarget != null) ? tmpTarget : target;
+    }
+
     /**
      * Determines if a pack file is blockable.
      * <p/>
@@ -0,0 +1,452 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.installer.unpacker;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.izforge.izpack.api.data.Pack;
+import com.izforge.izpack.api.data.PackFile;
+import com.izforge.izpack.api.exception.IzPackException;
+
+
+/**
+ * Plans the disk usage of an installation prior to unpacking.
+ * <p/>
+ * The plan collects the target of each {@link PackFile} to be installed, and determines:
+ * <ul>
+ * <li>the no. of bytes and files to be written to each volume</li>
+ * <li>the directories that need to be created by each pack</li>
+ * </ul>
+ * The volume of a target directory is determined from its nearest existing ancestor. When running on Java 7 or
+ * later, this is the file store that the ancestor resides on. Earlier versions of Java provide no way of
+ * determining this, so the volume is identified by the topmost ancestor reporting the same total space. This can
+ * treat distinct mounts of the same size as one volume, overestimating the space required on it.
+ *
+ * @author agent
+ */
+public class InstallPlan
+{
+
+    /**
+     * The block size used to estimate the space occupied by a file.
+     */
+    private static final long BLOCK_SIZE = 4096;
+
+    /**
+     * The <em>File.toPath()</em> method, or {@code null} if it is not available.
+     */
+    private static final Method TO_PATH;
+
+    /**
+     * The <em>java.nio.file.Files.getFileStore(Path)</em> method, or {@code null} if it is not available.
+     */
+    private static final Method GET_FILE_STORE;
+
+    static
+    {
+        Method toPath;
+        Method getFileStore;
+        try
+        {
+            toPath = File.class.getMethod("toPath");
+            getFileStore = Class.forName("java.nio.file.Files").getMethod("getFileStore", toPath.getReturnType());
+        }
+        catch (Exception exception)
+        {
+            // pre Java 7
+            toPath = null;
+            getFileStore = null;
+        }
+        TO_PATH = toPath;
+        GET_FILE_STORE = getFileStore;
+    }
+
+    /**
+     * The bytes and no. of files to be written, keyed on target directory.
+     */
+    private final Map<File, long[]> directories = new LinkedHashMap<File, long[]>();
+
+    /**
+     * The target directories, keyed on pack name.
+     */
+    private final Map<String, Set<File>> packDirectories = new HashMap<String, Set<File>>();
+
+    /**
+     * The total length of the files to be installed.
+     */
+    private long length;
+
+
+    /**
+     * Adds a pack file to the plan.
+     *
+     * @param pack   the pack that the file belongs to
+     * @param file   the pack file
+     * @param target the target file or directory
+     */
+    public void add(Pack pack, PackFile file, File target)
+    {
+        if (file.isDirectory())
+        {
+            getDirectory(pack, target);
+        }
+        else
+        {
+            long[] totals = getDirectory(pack, target.getParentFile());
+            length += file.length();
+            long bytes = getBlocks(file.length());
+            if (target.exists())
+            {
+                // the existing file will either be replaced or retained
+                bytes -= getBlocks(target.length());
+            }
+            totals[0] += bytes;
+            totals[1]++;
+        }
+    }
+
+    /**
+     * Returns the total length of the files to be installed.
+     *
+     * @return the total length of the files, in bytes
+     */
+    public long getLength()
+    {
+        return length;
+    }
+
+    /**
+     * Returns the usage of each volume.
+     *
+     * @return the volume usage
+     */
+    public List<Usage> getUsage()
+    {
+        Map<File, File> existing = new HashMap<File, File>();
+        Map<File, Object> stores = new HashMap<File, Object>();
+        Map<Object, Usage> volumes = new LinkedHashMap<Object, Usage>();
+        for (Map.Entry<File, long[]> entry : directories.entrySet())
+        {
+            File dir = getExisting(entry.getKey(), existing);
+            if (dir != null)
+            {
+                Object volume = getVolume(dir, stores);
+                Usage usage = volumes.get(volume);
+                if (usage == null)
+                {
+                    // the space is only queried once per volume, so changes while the plan is made have no effect
+                    usage = new Usage(dir, dir.getTotalSpace(), dir.getUsableSpace());
+                    volumes.put(volume, usage);
+                }
+                long[] totals = entry.getValue();
+                usage.bytes += totals[0];
+                usage.files += totals[1];
+            }
+        }
+        return new ArrayList<Usage>(volumes.values());
+    }
+
+    /**
+     * Returns the volumes that don't have sufficient space for the installation.
+     *
+     * @return the volumes with insufficient space
+     */
+    public List<Usage> getInsufficient()
+    {
+        List<Usage> result = new ArrayList<Usage>();
+        for (Usage usage : getUsage())
+        {
+            if (!usage.isSufficient())
+            {
+                result.add(usage);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Creates the target directories of a pack.
+     *
+     * @param pack the pack
+     * @throws IzPackException if a directory cannot be created
+     */
+    public void createDirectories(Pack pack)
+    {
+        Set<File> dirs = packDirectories.get(pack.getName());
+        if (dirs != null)
+        {
+            for (File dir : dirs)
+            {
+                // packs may be unpacked concurrently, so another pack may create the directory first
+                if (!dir.mkdirs() && !dir.isDirectory())
+                {
+                    throw new IzPackException("Could not create directory: " + dir.getPath());
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the totals for a directory, creating them if required.
+     *
+     * @param pack the pack that the directory belongs to
+     * @param dir  the directory
+     * @return the directory totals
+     */
+    private long[] getDirectory(Pack pack, File dir)
+    {
+        dir = dir.getAbsoluteFile();
+        long[] result = directories.get(dir);
+        if (result == null)
+        {
+            result = new long[2];
+            directories.put(dir, result);
+        }
+        Set<File> dirs = packDirectories.get(pack.getName());
+        if (dirs == null)
+        {
+            dirs = new LinkedHashSet<File>();
+            packDirectories.put(pack.getName(), dirs);
+        }
+        dirs.add(dir);
+        return result;
+    }
+
+    /**
+     * Returns an object identifying the volume that an existing directory resides on.
+     * <p/>
+     * This is the file store of the directory if it can be determined, else the topmost ancestor of the directory
+     * that reports the same total space.
+     *
+     * @param dir    the existing directory
+     * @param stores the cache of directories to their volumes
+     * @return the volume
+     */
+    private Object getVolume(File dir, Map<File, Object> stores)
+    {
+        Object result = stores.get(dir);
+        if (result == null)
+        {
+            if (GET_FILE_STORE != null)
+            {
+                try
+                {
+                    result = GET_FILE_STORE.invoke(null, TO_PATH.invoke(dir));
+                }
+                catch (Exception exception)
+                {
+                    // fall back to the root
+                    result = null;
+                }
+            }
+            if (result == null)
+            {
+                result = getRoot(dir);
+            }
+            stores.put(dir, result);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the root of the volume that an existing directory resides on.
+     * <p/>
+     * This is the topmost ancestor of the directory that reports the same total space.
+     *
+     * @param dir the existing directory
+     * @return the volume root
+     */
+    private File getRoot(File dir)
+    {
+        File canonical;
+        try
+        {
+            canonical = dir.getCanonicalFile();
+        }
+        catch (IOException exception)
+        {
+            canonical = dir.getAbsoluteFile();
+        }
+        long total = canonical.getTotalSpace();
+        File result = canonical;
+        File parent = result.getParentFile();
+        while (parent != null && parent.getTotalSpace() == total)
+        {
+            result = parent;
+            parent = parent.getParentFile();
+        }
+        return result;
+    }
+
+    /**
+     * Returns the nearest existing ancestor of a directory, including the directory itself.
+     *
+     * @param dir      the directory
+     * @param existing the cache of directories to their nearest existing ancestors
+     * @return the nearest existing directory, or {@code null} if none exists
+     */
+    private File getExisting(File dir, Map<File, File> existing)
+    {
+        if (dir == null)
+        {
+            return null;
+        }
+        File result = existing.get(dir);
+        if (result == null)
+        {
+            result = dir.exists() ? dir : getExisting(dir.getParentFile(), existing);
+            if (result != null)
+            {
+                existing.put(dir, result);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the no. of bytes a file is expected to occupy, rounded up to the nearest block.
+     *
+     * @param length the file length
+     * @return the no. of bytes occupied
+     */
+    private static long getBlocks(long length)
+    {
+        return ((length + BLOCK_SIZE - 1) / BLOCK_SIZE) * BLOCK_SIZE;
+    }
+
+    /**
+     * The planned usage of a volume.
+     */
+    public static class Usage
+    {
+
+        /**
+         * A directory on the volume.
+         */
+        private final File directory;
+
+        /**
+         * The total space of the volume.
+         */
+        private final long total;
+
+        /**
+         * The space available to the installer.
+         */
+        private final long available;
+
+        /**
+         * The no. of bytes to be written.
+         */
+        private long bytes;
+
+        /**
+         * The no. of files to be written.
+         */
+        private long files;
+
+        /**
+         * Constructs a <tt>Usage</tt>.
+         *
+         * @param directory a directory on the volume
+         * @param total     the total space of the volume
+         * @param available the space available to the installer
+         */
+        public Usage(File directory, long total, long available)
+        {
+            this.directory = directory;
+            this.total = total;
+            this.available = available;
+        }
+
+        /**
+         * Returns the directory used to determine the available space.
+         *
+         * @return the directory
+         */
+        public File getDirectory()
+        {
+            return directory;
+        }
+
+        /**
+         * Returns the no. of bytes that will be written.
+         *
+         * @return the no. of bytes
+         */
+        public long getBytes()
+        {
+            return bytes;
+        }
+
+        /**
+         * Returns the no. of files that will be written.
+         *
+         * @return the no. of files
+         */
+        public long getFiles()
+        {
+            return files;
+        }
+
+        /**
+         * Returns the space available to the installer.
+         *
+         * @return the available space, in bytes
+         */
+        public long getAvailable()
+        {
+            return available;
+        }
+
+        /**
+         * Determines if the volume has sufficient space for the installation.
+         * <p/>
+         * Volumes that don't report their size are assumed to have sufficient space.
+         *
+         * @return {@code true} if the volume has sufficient space
+         */
+        public boolean isSufficient()
+        {
+            return total == 0 || bytes <= available;
+        }
+
+        /**
+         * Returns a string representation of the usage.
+         *
+         * @return a string representation of the usage
+         */
+        @Override
+        public String toString()
+        {
+            return directory + ": " + Pack.toByteUnitsString(bytes) + " required in " + files + " files, "
+                    + Pack.toByteUnitsString(available) + " available";
+        }
+    }
+}
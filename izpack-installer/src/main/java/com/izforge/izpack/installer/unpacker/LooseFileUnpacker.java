@@ -2,26 +2,50 @@ package com.izforge.izpack.installer.unpacker;
 
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.ObjectInputStream;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Logger;
 
 import com.izforge.izpack.api.data.Pack;
 import com.izforge.izpack.api.data.PackFile;
 import com.izforge.izpack.api.exception.InstallerException;
 import com.izforge.izpack.api.handler.Prompt;
+import com.izforge.izpack.util.file.FileUtils;
 import com.izforge.izpack.util.os.FileQueue;
 
 
 /**
  * An unpacker for {@link Pack#loose loose} pack files.
+ * <p/>
+ * Loose files are copied using {@link FileChannel#transferFrom}, which lets the JVM use memory mapped or
+ * kernel-level copies rather than copying through heap buffers. Files of {@link #PARALLEL_THRESHOLD} bytes or
+ * more are split into ranges that are copied concurrently.
  *
  * @author Tim Anderson
  */
 public class LooseFileUnpacker extends FileUnpacker
 {
 
+    /**
+     * The default size of the files, in bytes, above which files are copied in parallel ranges.
+     */
+    static final long PARALLEL_THRESHOLD = 64 * 1024 * 1024;
+
+    /**
+     * The maximum no. of bytes to transfer before checking for cancellation.
+     */
+    private static final long CHUNK_SIZE = 8 * 1024 * 1024;
+
     /**
      * The absolute source directory.
      */
@@ -32,6 +56,11 @@ public class LooseFileUnpacker extends FileUnpacker
      */
     private final Prompt prompt;
 
+    /**
+     * The size of the files, in bytes, above which files are copied in parallel ranges.
+     */
+    private final long threshold;
+
     /**
      * The logger.
      */
@@ -46,10 +75,25 @@ public class LooseFileUnpacker extends FileUnpacker
      * @param prompt      the prompt to warn of missing files
      */
     public LooseFileUnpacker(File sourceDir, Cancellable cancellable, FileQueue queue, Prompt prompt)
+    {
+        this(sourceDir, cancellable, queue, prompt, PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * Constructs a <tt>LooseFileUnpacker</tt>.
+     *
+     * @param sourceDir   the absolute source directory
+     * @param cancellable determines if unpacking should be cancelled
+     * @param queue       the file queue. May be {@code null}
+     * @param prompt      the prompt to warn of missing files
+     * @param threshold   the size of the files, in bytes, above which files are copied in parallel ranges
+     */
+    LooseFileUnpacker(File sourceDir, Cancellable cancellable, FileQueue queue, Prompt prompt, long threshold)
     {
         super(cancellable, queue);
         this.sourceDir = sourceDir;
         this.prompt = prompt;
+        this.threshold = threshold;
     }
 
     /**
@@ -81,14 +125,13 @@ public class LooseFileUnpacker extends FileUnpacker
         }
         if (resolvedFile.exists())
         {
-            InputStream stream = new FileInputStream(resolvedFile);
             // may have a different length & last modified than we had at compile time, therefore we have to
             // build a new PackFile for the copy process...
             file = new PackFile(resolvedFile.getParentFile(), resolvedFile, file.getTargetPath(),
                                 file.osConstraints(), file.override(), file.overrideRenameTo(),
                                 file.blockable(), file.getAdditionals());
 
-            copy(file, stream, target);
+            copy(file, resolvedFile, target);
         }
         else
         {
@@ -101,4 +144,150 @@ public class LooseFileUnpacker extends FileUnpacker
             }
         }
     }
+
+    /**
+     * Copies a file to a target, setting its timestamp to that of the pack file.
+     * <p/>
+     * If the source is executable, the target will be made executable.
+     *
+     * @param file   the pack file
+     * @param source the file to copy
+     * @param target the file to write to
+     * @throws InterruptedIOException if the copy operation is cancelled
+     * @throws IOException            for any I/O error
+     */
+    protected void copy(PackFile file, File source, File target) throws IOException
+    {
+        FileOutputStream out = getTarget(file, target);
+        try
+        {
+            long length = file.length();
+            int threads = getThreads(length);
+            if (threads > 1)
+            {
+                copy(source, out.getChannel(), length, threads);
+            }
+            else
+            {
+                copy(source, out.getChannel(), 0, length);
+            }
+        }
+        finally
+        {
+            FileUtils.close(out);
+        }
+        if (source.canExecute() && !getActualTarget().setExecutable(true))
+        {
+            logger.warning("Failed to set executable permission for: " + target);
+        }
+        postCopy(file);
+    }
+
+    /**
+     * Returns the no. of threads to use to copy a file.
+     *
+     * @param length the file length
+     * @return the no. of threads
+     */
+    private int getThreads(long length)
+    {
+        if (length < threshold)
+        {
+            return 1;
+        }
+        long ranges = length / (threshold / 2);
+        return (int) Math.min(ranges, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Copies a file in ranges, using a thread per range.
+     *
+     * @param source  the file to copy
+     * @param out     the channel to write to
+     * @param length  the no. of bytes to copy
+     * @param threads the no. of threads
+     * @throws IOException for any I/O error
+     */
+    private void copy(final File source, final FileChannel out, long length, int threads) throws IOException
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try
+        {
+            List<Future<Void>> futures = new ArrayList<Future<Void>>();
+            long range = (length + threads - 1) / threads;
+            for (long position = 0; position < length; position += range)
+            {
+                final long start = position;
+                final long count = Math.min(range, length - position);
+                futures.add(executor.submit(new Callable<Void>()
+                {
+                    @Override
+                    public Void call() throws IOException
+                    {
+                        copy(source, out, start, count);
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> future : futures)
+            {
+                try
+                {
+                    future.get();
+                }
+                catch (InterruptedException exception)
+                {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Copy operation interrupted");
+                }
+                catch (ExecutionException exception)
+                {
+                    Throwable cause = exception.getCause();
+                    if (cause instanceof IOException)
+                    {
+                        throw (IOException) cause;
+                    }
+                    throw new IOException("Failed to copy " + source + ": " + cause.getMessage(), cause);
+                }
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Copies a range of a file to the same position in a channel.
+     *
+     * @param source   the file to copy
+     * @param out      the channel to write to
+     * @param position the position to start copying from
+     * @param count    the no. of bytes to copy
+     * @throws IOException for any I/O error
+     */
+    private void copy(File source, FileChannel out, long position, long count) throws IOException
+    {
+        FileInputStream in = new FileInputStream(source);
+        try
+        {
+            FileChannel channel = in.getChannel();
+            channel.position(position);
+            long end = position + count;
+            while (position < end)
+            {
+                checkCancelled();
+                long transferred = out.transferFrom(channel, position, Math.min(CHUNK_SIZE, end - position));
+                if (transferred <= 0)
+                {
+                    throw new IOException("Unexpected end of file: " + source);
+                }
+                position += transferred;
+            }
+        }
+        finally
+        {
+            FileUtils.close(in);
+        }
+    }
 }
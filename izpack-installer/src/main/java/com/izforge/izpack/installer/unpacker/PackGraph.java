@@ -0,0 +1,227 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.installer.unpacker;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import com.izforge.izpack.api.data.Pack;
+
+
+/**
+ * Determines which packs may be installed concurrently.
+ * <p/>
+ * Packs are added in installation order. A pack must be installed after an earlier pack if:
+ * <ul>
+ * <li>either pack depends on the other, via {@link Pack#getDependencies()}; or</li>
+ * <li>both packs install the same file; or</li>
+ * <li>one pack installs a file where the other installs a directory</li>
+ * </ul>
+ * Otherwise, the packs are independent. Packs that only share directories are independent.
+ *
+ * @author agent
+ */
+public class PackGraph
+{
+
+    /**
+     * The packs, in installation order.
+     */
+    private final List<Node> nodes = new ArrayList<Node>();
+
+
+    /**
+     * Adds a pack.
+     *
+     * @param pack        the pack
+     * @param number      the pack number, i.e. its position in the selected packs
+     * @param files       the files that the pack installs
+     * @param directories the directories that the pack installs
+     */
+    public void add(Pack pack, int number, Set<File> files, Set<File> directories)
+    {
+        Node node = new Node(pack, number, files, directories);
+        for (int i = 0; i < nodes.size(); ++i)
+        {
+            Node other = nodes.get(i);
+            if (node.dependsOn(other) || other.dependsOn(node) || node.conflicts(other))
+            {
+                node.predecessors.add(i);
+            }
+        }
+        nodes.add(node);
+    }
+
+    /**
+     * Returns the no. of packs.
+     *
+     * @return the no. of packs
+     */
+    public int size()
+    {
+        return nodes.size();
+    }
+
+    /**
+     * Returns a pack.
+     *
+     * @param index the pack index
+     * @return the pack
+     */
+    public Pack getPack(int index)
+    {
+        return nodes.get(index).pack;
+    }
+
+    /**
+     * Returns the number of a pack, i.e. its position in the selected packs.
+     *
+     * @param index the pack index
+     * @return the pack number
+     */
+    public int getNumber(int index)
+    {
+        return nodes.get(index).number;
+    }
+
+    /**
+     * Returns the packs that must be installed before a pack.
+     *
+     * @param index the pack index
+     * @return the indexes of the packs that must be installed first
+     */
+    public List<Integer> getPredecessors(int index)
+    {
+        return Collections.unmodifiableList(nodes.get(index).predecessors);
+    }
+
+    /**
+     * Determines if any packs may be installed concurrently.
+     *
+     * @return <tt>true</tt> if any pack is independent of an earlier pack
+     */
+    public boolean isParallel()
+    {
+        for (int i = 1; i < nodes.size(); ++i)
+        {
+            if (nodes.get(i).predecessors.size() < i)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A pack in the graph.
+     */
+    private static class Node
+    {
+
+        /**
+         * The pack.
+         */
+        private final Pack pack;
+
+        /**
+         * The pack number.
+         */
+        private final int number;
+
+        /**
+         * The files the pack installs.
+         */
+        private final Set<File> files;
+
+        /**
+         * The directories the pack installs.
+         */
+        private final Set<File> directories;
+
+        /**
+         * The indexes of the packs that must be installed first.
+         */
+        private final List<Integer> predecessors = new ArrayList<Integer>();
+
+        /**
+         * Constructs a <tt>Node</tt>.
+         *
+         * @param pack        the pack
+         * @param number      the pack number
+         * @param files       the files the pack installs
+         * @param directories the directories the pack installs
+         */
+        public Node(Pack pack, int number, Set<File> files, Set<File> directories)
+        {
+            this.pack = pack;
+            this.number = number;
+            this.files = files;
+            this.directories = directories;
+        }
+
+        /**
+         * Determines if this pack depends on another.
+         *
+         * @param other the other pack
+         * @return <tt>true</tt> if this pack depends on the other
+         */
+        public boolean dependsOn(Node other)
+        {
+            List<String> dependencies = pack.getDependencies();
+            return dependencies != null && dependencies.contains(other.pack.getName());
+        }
+
+        /**
+         * Determines if this pack installs files over those of another.
+         *
+         * @param other the other pack
+         * @return <tt>true</tt> if the packs conflict
+         */
+        public boolean conflicts(Node other)
+        {
+            return intersects(files, other.files) || intersects(files, other.directories)
+                    || intersects(directories, other.files);
+        }
+
+        /**
+         * Determines if two sets intersect.
+         *
+         * @param set1 the first set
+         * @param set2 the second set
+         * @return <tt>true</tt> if the sets have an element in common
+         */
+        private static boolean intersects(Set<File> set1, Set<File> set2)
+        {
+            Set<File> smaller = (set1.size() <= set2.size()) ? set1 : set2;
+            Set<File> larger = (smaller == set1) ? set2 : set1;
+            for (File file : smaller)
+            {
+                if (larger.contains(file))
+                {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.installer.unpacker;
+
+import java.io.File;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.izforge.izpack.api.data.Variables;
+import com.izforge.izpack.util.IoHelper;
+
+
+/**
+ * Caches the translation of pack file target paths, and the directories known to exist.
+ * <p/>
+ * Target paths are translated by {@link IoHelper#translatePath(String, Variables)}. As most pack files share their
+ * parent directory with other pack files, translated parent directories are cached, keyed on their untranslated
+ * path. Only the file name is appended for each file. Paths whose file name contains characters that may take part
+ * in variable substitution or slash masking are translated in full.
+ * <p/>
+ * Translations depend on variables, so they should be {@link #clearPaths() cleared} whenever variables may have
+ * changed.
+ * <p/>
+ * This class is thread safe.
+ *
+ * @author agent
+ */
+public class PathCache
+{
+
+    /**
+     * The variables.
+     */
+    private final Variables variables;
+
+    /**
+     * The translated parent directories, keyed on untranslated path.
+     */
+    private final ConcurrentMap<String, String> parents = new ConcurrentHashMap<String, String>();
+
+    /**
+     * The directories known to exist.
+     */
+    private final ConcurrentMap<File, Boolean> directories = new ConcurrentHashMap<File, Boolean>();
+
+
+    /**
+     * Constructs a <tt>PathCache</tt>.
+     *
+     * @param variables the variables used to translate paths
+     */
+    public PathCache(Variables variables)
+    {
+        this.variables = variables;
+    }
+
+    /**
+     * Translates a target path to a local system path.
+     *
+     * @param path the path to translate
+     * @return the translated path
+     */
+    public String translate(String path)
+    {
+        int index = path.lastIndexOf('/');
+        if (index <= 0 || path.charAt(index - 1) == '\\' || !isPlain(path, index + 1))
+        {
+            return IoHelper.translatePath(path, variables);
+        }
+        String parent = path.substring(0, index);
+        String result = parents.get(parent);
+        if (result == null)
+        {
+            result = IoHelper.translatePath(parent, variables);
+            parents.put(parent, result);
+        }
+        return result + File.separatorChar + path.substring(index + 1);
+    }
+
+    /**
+     * Determines if a directory is known to exist.
+     *
+     * @param dir the directory
+     * @return {@code true} if the directory is known to exist, {@code false} if it may not exist
+     */
+    public boolean isDirectory(File dir)
+    {
+        return directories.containsKey(dir);
+    }
+
+    /**
+     * Registers a directory as existing.
+     *
+     * @param dir the directory
+     */
+    public void addDirectory(File dir)
+    {
+        directories.put(dir, Boolean.TRUE);
+    }
+
+    /**
+     * Clears the translated paths.
+     */
+    public void clearPaths()
+    {
+        parents.clear();
+    }
+
+    /**
+     * Clears the translated paths and the directories known to exist.
+     */
+    public void clear()
+    {
+        parents.clear();
+        directories.clear();
+    }
+
+    /**
+     * Determines if the file name part of a path is unaffected by variable substitution and slash masking.
+     *
+     * @param path  the path
+     * @param start the start of the file name
+     * @return {@code true} if the file name is translated as is
+     */
+    private boolean isPlain(String path, int start)
+    {
+        for (int i = start; i < path.length(); ++i)
+        {
+            char ch = path.charAt(i);
+            if (ch == '$' || ch == '}' || ch == '\\' || ch == '~')
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+}
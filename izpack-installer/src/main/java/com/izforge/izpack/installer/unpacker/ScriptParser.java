@@ -27,10 +27,20 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.logging.Logger;
 
+import com.izforge.izpack.api.substitutor.SubstitutionType;
 import com.izforge.izpack.api.substitutor.VariableSubstitutor;
+import com.izforge.izpack.core.metrics.Metrics;
 import com.izforge.izpack.data.ParsableFile;
 import com.izforge.izpack.util.OsConstraintHelper;
+import com.izforge.izpack.util.file.FileUtils;
 
 /**
  * A {@link ParsableFile} parser.
@@ -45,6 +55,21 @@ public class ScriptParser
      */
     private VariableSubstitutor replacer;
 
+    /**
+     * The metrics to record parse times in. May be <tt>null</tt>.
+     */
+    private final Metrics metrics;
+
+    /**
+     * The I/O buffer size.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The logger.
+     */
+    private static final Logger logger = Logger.getLogger(ScriptParser.class.getName());
+
     /**
      * Constructs a new parser. The parsable files specified must have pretranslated paths
      * (variables expanded and file separator characters converted if necessary).
@@ -52,17 +77,58 @@ public class ScriptParser
      * @param replacer the variable replacer to use
      */
     public ScriptParser(VariableSubstitutor replacer)
+    {
+        this(replacer, null);
+    }
+
+    /**
+     * Constructs a new parser that records parse times in metrics.
+     *
+     * @param replacer the variable replacer to use
+     * @param metrics  the metrics to record parse times in. May be <tt>null</tt>
+     */
+    public ScriptParser(VariableSubstitutor replacer, Metrics metrics)
     {
         this.replacer = replacer;
+        this.metrics = metrics;
     }
 
     /**
      * Parses a file.
+     * <p/>
+     * Files that don't contain the variable start character for their substitution type are left untouched.
+     * Otherwise, the substituted content is written to a temporary file in the same directory, which then replaces
+     * the original.
+     * <p/>
+     * This may be invoked concurrently for different files. The time taken is recorded by the <em>parse.file</em>
+     * {@link Metrics metrics} timer, if there are metrics.
      *
      * @param parsable the file to parse
      * @throws Exception if parsing fails
      */
     public void parse(ParsableFile parsable) throws Exception
+    {
+        long start = System.nanoTime();
+        try
+        {
+            parseFile(parsable);
+        }
+        finally
+        {
+            if (metrics != null)
+            {
+                metrics.getTimer("parse.file").update(System.nanoTime() - start);
+            }
+        }
+    }
+
+    /**
+     * Parses a file.
+     *
+     * @param parsable the file to parse
+     * @throws Exception if parsing fails
+     */
+    private void parseFile(ParsableFile parsable) throws Exception
     {
         // check whether the OS matches
         if (!OsConstraintHelper.oneMatchesCurrentSystem(parsable.osConstraints))
@@ -70,29 +136,132 @@ public class ScriptParser
             return;
         }
 
+        File file = new File(parsable.path);
+        if (!containsVariables(file, parsable.type, parsable.encoding))
+        {
+            logger.fine("No variables to substitute in " + file);
+            return;
+        }
+
         // Create a temporary file for the parsed data
         // (Use the same directory so that renaming works later)
-        File file = new File(parsable.path);
         File parsedFile = File.createTempFile("izpp", null, file.getParentFile());
 
         // Parses the file
-        // (Use buffering because substitutor processes byte at a time)
-        FileInputStream inFile = new FileInputStream(file);
-        BufferedInputStream in = new BufferedInputStream(inFile, 5120);
-        FileOutputStream outFile = new FileOutputStream(parsedFile);
-        BufferedOutputStream out = new BufferedOutputStream(outFile, 5120);
-        replacer.substitute(in, out, parsable.type, parsable.encoding);
-        in.close();
-        out.close();
-
-        // Replace the original file with the parsed one
-        if (!file.delete())
+        InputStream in = null;
+        OutputStream out = null;
+        boolean parsed = false;
+        try
+        {
+            in = new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE);
+            out = new BufferedOutputStream(new FileOutputStream(parsedFile), BUFFER_SIZE);
+            replacer.substitute(in, out, parsable.type, parsable.encoding);
+            out.close();
+            parsed = true;
+        }
+        finally
         {
-            throw new IOException("Failed to delete file: " + file);
+            FileUtils.close(in);
+            FileUtils.close(out);
+            if (!parsed)
+            {
+                FileUtils.delete(parsedFile);
+            }
         }
+
+        // Replace the original file with the parsed one. Where supported, this is done in a single rename
         if (!parsedFile.renameTo(file))
         {
-            throw new IOException("Could not rename file " + parsedFile + " to " + file);
+            if (!file.delete())
+            {
+                FileUtils.delete(parsedFile);
+                throw new IOException("Failed to delete file: " + file);
+            }
+            if (!parsedFile.renameTo(file))
+            {
+                throw new IOException("Could not rename file " + parsedFile + " to " + file);
+            }
+        }
+    }
+
+    /**
+     * Determines if a file may contain variables to substitute.
+     * <p/>
+     * This scans the raw bytes of the file for the last byte of the encoded variable start character; if it isn't
+     * present, the file cannot contain any variable references.
+     *
+     * @param file     the file
+     * @param type     the substitution type. May be {@code null}
+     * @param encoding the file encoding. May be {@code null}
+     * @return {@code true} if the file may contain variables, {@code false} if it definitely doesn't
+     * @throws IOException for any I/O error
+     */
+    protected boolean containsVariables(File file, SubstitutionType type, String encoding) throws IOException
+    {
+        if (type == null)
+        {
+            type = SubstitutionType.getDefault();
+        }
+        byte[] encoded;
+        try
+        {
+            encoded = String.valueOf(type.getVariableStart()).getBytes(getEncoding(type, encoding));
+        }
+        catch (UnsupportedEncodingException exception)
+        {
+            // let the substitutor report it
+            return true;
+        }
+        byte marker = encoded[encoded.length - 1];
+
+        FileInputStream stream = new FileInputStream(file);
+        try
+        {
+            FileChannel channel = stream.getChannel();
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            while (channel.read(buffer) != -1)
+            {
+                buffer.flip();
+                while (buffer.hasRemaining())
+                {
+                    if (buffer.get() == marker)
+                    {
+                        return true;
+                    }
+                }
+                buffer.clear();
+            }
+        }
+        finally
+        {
+            FileUtils.close(stream);
+        }
+        return false;
+    }
+
+    /**
+     * Returns the encoding that the substitutor will use to read a file.
+     *
+     * @param type     the substitution type
+     * @param encoding the file encoding. May be {@code null}
+     * @return the encoding
+     */
+    private String getEncoding(SubstitutionType type, String encoding)
+    {
+        if (encoding == null)
+        {
+            switch (type)
+            {
+                case TYPE_JAVA_PROPERTIES:
+                    encoding = "ISO-8859-1";
+                    break;
+                case TYPE_XML:
+                    encoding = "UTF-8";
+                    break;
+                default:
+                    encoding = Charset.defaultCharset().name();
+            }
         }
+        return encoding;
     }
 }
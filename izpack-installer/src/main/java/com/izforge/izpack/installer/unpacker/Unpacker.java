@@ -26,6 +26,7 @@ import com.izforge.izpack.api.data.InstallData;
 import com.izforge.izpack.api.handler.Prompt;
 import com.izforge.izpack.api.rules.RulesEngine;
 import com.izforge.izpack.api.substitutor.VariableSubstitutor;
+import com.izforge.izpack.core.metrics.Metrics;
 import com.izforge.izpack.installer.data.UninstallData;
 import com.izforge.izpack.installer.event.InstallerListeners;
 import com.izforge.izpack.util.Housekeeper;
@@ -51,13 +52,15 @@ public class Unpacker extends UnpackerBase
      * @param factory             the file queue factory
      * @param housekeeper         the housekeeper
      * @param listeners           the listeners
+     * @param prompt              the prompt
+     * @param metrics             the metrics to record unpacking times in
      */
     public Unpacker(InstallData installData, PackResources resources, RulesEngine rules,
                     VariableSubstitutor variableSubstitutor, UninstallData uninstallData, FileQueueFactory factory,
-                    Housekeeper housekeeper, InstallerListeners listeners, Prompt prompt)
+                    Housekeeper housekeeper, InstallerListeners listeners, Prompt prompt, Metrics metrics)
     {
         super(installData, resources, rules, variableSubstitutor, uninstallData, factory, housekeeper, listeners,
-              prompt);
+              prompt, metrics);
     }
 
 }
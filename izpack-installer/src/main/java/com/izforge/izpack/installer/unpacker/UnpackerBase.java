@@ -26,18 +26,26 @@ import static com.izforge.izpack.api.handler.Prompt.Options;
 import static com.izforge.izpack.api.handler.Prompt.Type;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.jar.Pack200;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -46,21 +54,26 @@ import com.izforge.izpack.api.data.InstallData;
 import com.izforge.izpack.api.data.OverrideType;
 import com.izforge.izpack.api.data.Pack;
 import com.izforge.izpack.api.data.PackFile;
+import com.izforge.izpack.api.data.PackFileCodec;
 import com.izforge.izpack.api.data.Variables;
 import com.izforge.izpack.api.event.InstallerListener;
 import com.izforge.izpack.api.event.ProgressListener;
 import com.izforge.izpack.api.exception.InstallerException;
 import com.izforge.izpack.api.exception.IzPackException;
 import com.izforge.izpack.api.exception.ResourceInterruptedException;
+import com.izforge.izpack.api.exception.ResourceNotFoundException;
 import com.izforge.izpack.api.handler.Prompt;
 import com.izforge.izpack.api.resource.Messages;
 import com.izforge.izpack.api.rules.RulesEngine;
 import com.izforge.izpack.api.substitutor.VariableSubstitutor;
 import com.izforge.izpack.core.handler.ProgressHandler;
 import com.izforge.izpack.core.handler.PromptUIHandler;
+import com.izforge.izpack.core.metrics.Metrics;
+import com.izforge.izpack.core.metrics.Timer;
 import com.izforge.izpack.data.ExecutableFile;
 import com.izforge.izpack.data.ParsableFile;
 import com.izforge.izpack.data.UpdateCheck;
+import com.izforge.izpack.installer.data.InstallationInformation;
 import com.izforge.izpack.installer.data.UninstallData;
 import com.izforge.izpack.installer.event.InstallerListeners;
 import com.izforge.izpack.util.FileExecutor;
@@ -83,6 +96,18 @@ import com.izforge.izpack.util.os.FileQueue;
 public abstract class UnpackerBase implements IUnpacker
 {
 
+    /**
+     * System property to install independent packs concurrently. Defaults to <tt>false</tt>.
+     * <p/>
+     * Packs are only installed concurrently if there are no registered {@link InstallerListener}s.
+     */
+    public static final String PARALLEL = "izpack.unpack.parallel";
+
+    /**
+     * The maximum no. of packs to install concurrently.
+     */
+    private static final int MAX_PARALLEL_PACKS = 4;
+
     /**
      * The installation data.
      */
@@ -128,21 +153,42 @@ public abstract class UnpackerBase implements IUnpacker
      */
     private ProgressListener listener;
 
+    /**
+     * The installer listener, if it is a {@link BufferedProgressListener}. This is notified of the bytes unpacked.
+     */
+    private BufferedProgressListener bufferedListener;
+
     /**
      * The absolute path of the source installation jar.
      */
     private File absoluteInstallSource;
 
     /**
-     * The Pack200 unpacker.
+     * The cache of translated target paths and existing directories.
      */
-    private Pack200.Unpacker unpacker;
+    private final PathCache paths;
+
+    /**
+     * The installation plan, used to create the target directories of each pack before it is unpacked.
+     * May be {@code null}.
+     */
+    private InstallPlan plan;
+
+    /**
+     * The Pack200 unpacker. Pack200 unpackers aren't thread safe, so there is one per thread.
+     */
+    private final ThreadLocal<Pack200.Unpacker> unpacker = new ThreadLocal<Pack200.Unpacker>();
 
     /**
      * The prompt.
      */
     private final Prompt prompt;
 
+    /**
+     * The metrics to record unpacking times in.
+     */
+    private final Metrics metrics;
+
     /**
      * The result of the operation.
      */
@@ -188,10 +234,11 @@ public abstract class UnpackerBase implements IUnpacker
      * @param housekeeper         the housekeeper
      * @param listeners           the listeners
      * @param prompt              the prompt
+     * @param metrics             the metrics to record unpacking times in
      */
     public UnpackerBase(InstallData installData, PackResources resources, RulesEngine rules,
                         VariableSubstitutor variableSubstitutor, UninstallData uninstallData, FileQueueFactory factory,
-                        Housekeeper housekeeper, InstallerListeners listeners, Prompt prompt)
+                        Housekeeper housekeeper, InstallerListeners listeners, Prompt prompt, Metrics metrics)
     {
         this.installData = installData;
         this.resources = resources;
@@ -202,6 +249,8 @@ public abstract class UnpackerBase implements IUnpacker
         this.housekeeper = housekeeper;
         this.listeners = listeners;
         this.prompt = prompt;
+        this.metrics = metrics;
+        paths = new PathCache(installData.getVariables());
         cancellable = new Cancellable()
         {
             @Override
@@ -221,6 +270,7 @@ public abstract class UnpackerBase implements IUnpacker
     public void setProgressListener(ProgressListener listener)
     {
         this.listener = listener;
+        bufferedListener = (listener instanceof BufferedProgressListener) ? (BufferedProgressListener) listener : null;
     }
 
     /**
@@ -245,9 +295,12 @@ public abstract class UnpackerBase implements IUnpacker
             FileQueue queue = queueFactory.isSupported() ? queueFactory.create() : null;
 
             List<Pack> packs = installData.getSelectedPacks();
+            Timer timer = metrics.getTimer("unpack");
+            long start = timer.start();
             preUnpack(packs);
             unpack(packs, queue, parsables, executables, updateChecks);
             postUnpack(packs, queue, parsables, executables, updateChecks);
+            timer.stop(start);
         }
         catch (Exception exception)
         {
@@ -355,16 +408,97 @@ public abstract class UnpackerBase implements IUnpacker
     /**
      * Invoked prior to unpacking.
      * <p/>
-     * This notifies the {@link #getProgressListener listener}, and any registered {@link InstallerListener listeners}.
+     * This notifies the {@link #getProgressListener listener}, and any registered
+     * {@link InstallerListener listeners}.
+     * <p/>
+     * It then {@link #plan plans} the installation, verifying that there is sufficient disk space. The plan is made
+     * after the listeners are notified, as they may change the variables that file conditions and target paths
+     * depend on.
+     * <p/>
+     * Listeners may also change variables before each pack is unpacked. Those changes aren't reflected in the
+     * disk space check or the progress totals, which are estimates. The planned directories are only created if
+     * there are no listeners; otherwise, each file's target is resolved as the pack is unpacked.
      *
      * @param packs the packs to unpack
-     * @throws IzPackException for any error
+     * @throws InstallerException if there is insufficient disk space, and the user elects not to continue
+     * @throws IzPackException    for any error
      */
     protected void preUnpack(List<Pack> packs)
     {
         logger.fine("Unpacker starting");
         listener.startAction("Unpacking", packs.size());
         listeners.beforePacks(packs, listener);
+
+        Timer timer = metrics.getTimer("unpack.plan");
+        long start = timer.start();
+        InstallPlan plan = plan(packs);
+        timer.stop(start);
+        if (plan != null)
+        {
+            for (InstallPlan.Usage usage : plan.getUsage())
+            {
+                logger.fine("Planned disk usage: " + usage);
+            }
+            for (InstallPlan.Usage usage : plan.getInsufficient())
+            {
+                String message = "There is insufficient disk space to complete the installation.\n"
+                        + usage + ".\nContinue anyway?";
+                if (prompt.confirm(Type.WARNING, "Insufficient disk space", message, Options.YES_NO, Option.NO)
+                        != Option.YES)
+                {
+                    throw new InstallerException("Insufficient disk space: " + usage);
+                }
+            }
+            if (bufferedListener != null)
+            {
+                bufferedListener.setTotalBytes(plan.getLength());
+            }
+            if (listeners.isEmpty())
+            {
+                // listeners need to be notified of each directory as it is created, and may change the variables
+                // that target paths depend on before each pack, so only create the directories of each pack in one
+                // pass if there are none
+                this.plan = plan;
+            }
+        }
+    }
+
+    /**
+     * Plans the installation of the selected packs, from the pack file meta-data written by the compiler.
+     *
+     * @param packs the packs to unpack
+     * @return the installation plan, or {@code null} if the pack file meta-data isn't available
+     * @throws IzPackException for any error
+     */
+    protected InstallPlan plan(List<Pack> packs)
+    {
+        InstallPlan plan = new InstallPlan();
+        for (Pack pack : packs)
+        {
+            if (shouldUnpack(pack))
+            {
+                List<PackFile> files;
+                try
+                {
+                    files = readPackIndex(pack);
+                }
+                catch (ResourceNotFoundException exception)
+                {
+                    logger.fine("No pack file meta-data available for pack: " + pack.getName()
+                                        + ". Skipping installation planning");
+                    return null;
+                }
+                for (PackFile file : files)
+                {
+                    if ((!file.hasCondition() || isConditionTrue(file.getCondition()))
+                            && OsConstraintHelper.oneMatchesCurrentSystem(file.osConstraints()))
+                    {
+                        plan.add(pack, file, new File(paths.translate(file.getTargetPath())));
+                    }
+                }
+            }
+        }
+        return plan;
     }
 
     /**
@@ -381,6 +515,12 @@ public abstract class UnpackerBase implements IUnpacker
     protected void unpack(List<Pack> packs, FileQueue queue, List<ParsableFile> parsables,
                           List<ExecutableFile> executables, List<UpdateCheck> updateChecks)
     {
+        PackGraph graph = isParallelSupported(packs, queue) ? createGraph(packs) : null;
+        if (graph != null && graph.isParallel())
+        {
+            unpack(graph, queue, parsables, executables, updateChecks);
+            return;
+        }
         int count = packs.size();
         for (int i = 0; i < count; i++)
         {
@@ -395,6 +535,147 @@ public abstract class UnpackerBase implements IUnpacker
         }
     }
 
+    /**
+     * Determines if packs may be installed concurrently.
+     * <p/>
+     * This requires the {@link #PARALLEL} system property to be <tt>true</tt>, that there is no file queue, and that
+     * there are no registered {@link InstallerListener}s.
+     * <p/>
+     * {@link InstallerListener}s are entitled to assume that each {@link InstallerListener#beforePack beforePack}
+     * is followed by the {@link InstallerListener#afterPack afterPack} of the same pack, before the next pack
+     * starts, and that file and directory notifications are for the current pack. This can't be honoured when packs
+     * are installed concurrently, so any registered listener forces packs to be installed in sequence.
+     *
+     * @param packs the packs to unpack
+     * @param queue the file queue, or {@code null} if queuing is not supported
+     * @return <tt>true</tt> if packs may be installed concurrently
+     */
+    protected boolean isParallelSupported(List<Pack> packs, FileQueue queue)
+    {
+        return Boolean.getBoolean(PARALLEL) && queue == null && listeners.isEmpty() && packs.size() > 1;
+    }
+
+    /**
+     * Unpacks packs concurrently.
+     * <p/>
+     * Each pack starts once the packs it must follow have completed, using up to one thread per available processor.
+     * Packs are unpacked on their own pack streams, and the parsable files, executable files and update checks
+     * are collected in pack order, as if the packs were unpacked in sequence.
+     * <p/>
+     * This is only invoked if there are no registered {@link InstallerListener}s, so no
+     * {@link InstallerListener#beforePack} and {@link InstallerListener#afterPack} notifications are delivered.
+     * If a pack fails, no further packs are started, and once the running packs complete, the failure of the first
+     * failed pack in installation order is thrown.
+     * <p/>
+     * Progress notifications are delivered one at a time, but those of packs unpacked concurrently interleave:
+     * the {@link ProgressListener#nextStep} of one pack may be followed by the {@link ProgressListener#progress}
+     * of another, so a listener displays the step of the most recently started pack, with the progress of each.
+     *
+     * @param graph        the packs to unpack
+     * @param queue        the file queue, or {@code null} if queuing is not supported
+     * @param parsables    used to collect parsable files in the packs
+     * @param executables  used to collect executable files files in the packs
+     * @param updateChecks used to collect update checks in the packs
+     * @throws ResourceInterruptedException if unpacking is cancelled
+     * @throws IzPackException              for any error
+     */
+    protected void unpack(final PackGraph graph, final FileQueue queue, List<ParsableFile> parsables,
+                          List<ExecutableFile> executables, List<UpdateCheck> updateChecks)
+    {
+        final int count = graph.size();
+        final List<List<ParsableFile>> packParsables = new ArrayList<List<ParsableFile>>();
+        final List<List<ExecutableFile>> packExecutables = new ArrayList<List<ExecutableFile>>();
+        final List<List<UpdateCheck>> packUpdateChecks = new ArrayList<List<UpdateCheck>>();
+        int[] waiting = new int[count];
+        for (int i = 0; i < count; ++i)
+        {
+            packParsables.add(new ArrayList<ParsableFile>());
+            packExecutables.add(new ArrayList<ExecutableFile>());
+            packUpdateChecks.add(new ArrayList<UpdateCheck>());
+            waiting[i] = graph.getPredecessors(i).size();
+        }
+
+        ProgressListener progress = listener;
+        listener = new SynchronizedProgressListener(progress);
+        int threads = Math.min(Math.min(count, MAX_PARALLEL_PACKS), Runtime.getRuntime().availableProcessors());
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(threads, 1));
+        CompletionService<Integer> service = new ExecutorCompletionService<Integer>(executor);
+        Map<Integer, Throwable> failures = new TreeMap<Integer, Throwable>();
+        try
+        {
+            int running = 0;
+            for (int i = 0; i < count; ++i)
+            {
+                if (waiting[i] == 0)
+                {
+                    submit(service, graph, i, queue, packParsables, packExecutables, packUpdateChecks);
+                    ++running;
+                }
+            }
+            while (running > 0)
+            {
+                Future<Integer> future;
+                try
+                {
+                    future = service.take();
+                }
+                catch (InterruptedException exception)
+                {
+                    throw new InstallerException("Interrupted unpacking packs", exception);
+                }
+                --running;
+                try
+                {
+                    int completed = future.get();
+                    if (failures.isEmpty())
+                    {
+                        // start the packs that were waiting on the completed pack
+                        for (int i = completed + 1; i < count; ++i)
+                        {
+                            if (graph.getPredecessors(i).contains(completed) && --waiting[i] == 0)
+                            {
+                                submit(service, graph, i, queue, packParsables, packExecutables,
+                                       packUpdateChecks);
+                                ++running;
+                            }
+                        }
+                    }
+                }
+                catch (ExecutionException exception)
+                {
+                    PackException failure = (PackException) exception.getCause();
+                    failures.put(failure.index, failure.getCause());
+                }
+                catch (InterruptedException exception)
+                {
+                    throw new InstallerException("Interrupted unpacking packs", exception);
+                }
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+            listener = progress;
+        }
+
+        if (!failures.isEmpty())
+        {
+            Map.Entry<Integer, Throwable> first = failures.entrySet().iterator().next();
+            Throwable cause = first.getValue();
+            if (cause instanceof IzPackException)
+            {
+                throw (IzPackException) cause;
+            }
+            throw new InstallerException("Failed to unpack pack: " + graph.getPack(first.getKey()).getName(), cause);
+        }
+        for (int i = 0; i < count; ++i)
+        {
+            parsables.addAll(packParsables.get(i));
+            executables.addAll(packExecutables.get(i));
+            updateChecks.addAll(packUpdateChecks.get(i));
+        }
+    }
+
     /**
      * Unpacks a pack.
      *
@@ -409,12 +690,24 @@ public abstract class UnpackerBase implements IUnpacker
     protected void unpack(Pack pack, int packNo, FileQueue queue, List<ParsableFile> parsables,
                           List<ExecutableFile> executables, List<UpdateCheck> updateChecks)
     {
+        // listeners may have changed the variables that target paths depend on
+        paths.clearPaths();
+        if (plan != null)
+        {
+            plan.createDirectories(pack);
+        }
         InputStream in = null;
         ObjectInputStream packInputStream = null;
+        Timer timer = metrics.getTimer("unpack.pack." + pack.getName());
+        long start = timer.start();
+        long files = 0;
+        long bytes = 0;
         try
         {
             in = resources.getPackStream(pack.getName());
             packInputStream = new ObjectInputStream(in);
+            PackFileCodec codec = new PackFileCodec();
+            codec.readHeader(packInputStream);
 
             int fileCount = packInputStream.readInt();
 
@@ -424,7 +717,7 @@ public abstract class UnpackerBase implements IUnpacker
             for (int i = 0; i < fileCount; ++i)
             {
                 // read the header
-                PackFile file = (PackFile) packInputStream.readObject();
+                PackFile file = codec.read(packInputStream);
                 if ((file.hasCondition() && !isConditionTrue(file.getCondition()))
                         || !OsConstraintHelper.oneMatchesCurrentSystem(file.osConstraints()))
                 {
@@ -435,16 +728,31 @@ public abstract class UnpackerBase implements IUnpacker
                 {
                     // unpack the file
                     unpack(file, packInputStream, i, pack, queue);
+                    if (!file.isDirectory())
+                    {
+                        ++files;
+                        bytes += file.length();
+                        if (bufferedListener != null)
+                        {
+                            bufferedListener.addBytes(file.length());
+                        }
+                    }
                 }
             }
             readParsableFiles(packInputStream, parsables);
             readExecutableFiles(packInputStream, executables);
             readUpdateChecks(packInputStream, updateChecks);
+            record(timer.stop(start), files, bytes);
         }
         catch (IzPackException exception)
         {
             throw exception;
         }
+        catch (InterruptedIOException exception)
+        {
+            // a file copy was cancelled
+            throw new ResourceInterruptedException("Installation cancelled", exception);
+        }
         catch (Exception exception)
         {
             throw new InstallerException("Failed to unpack pack: " + pack.getName(), exception);
@@ -471,8 +779,7 @@ public abstract class UnpackerBase implements IUnpacker
             throws IOException
     {
         // translate & build the path
-        Variables variables = getInstallData().getVariables();
-        String path = IoHelper.translatePath(file.getTargetPath(), variables);
+        String path = paths.translate(file.getTargetPath());
         File target = new File(path);
         File dir = target;
         if (!file.isDirectory())
@@ -612,6 +919,110 @@ public abstract class UnpackerBase implements IUnpacker
         return unpacker;
     }
 
+    /**
+     * Builds the graph of the packs to unpack, from the pack file meta-data written by the compiler.
+     *
+     * @param packs the packs to unpack
+     * @return the graph, or {@code null} if the pack file meta-data isn't available
+     * @throws IzPackException for any error
+     */
+    private PackGraph createGraph(List<Pack> packs)
+    {
+        PackGraph graph = new PackGraph();
+        for (int i = 0; i < packs.size(); ++i)
+        {
+            Pack pack = packs.get(i);
+            if (shouldUnpack(pack))
+            {
+                List<PackFile> files;
+                try
+                {
+                    files = readPackIndex(pack);
+                }
+                catch (ResourceNotFoundException exception)
+                {
+                    logger.fine("No pack file meta-data available for pack: " + pack.getName()
+                                        + ". Unpacking packs in sequence");
+                    return null;
+                }
+                Set<File> targets = new HashSet<File>();
+                Set<File> directories = new HashSet<File>();
+                for (PackFile file : files)
+                {
+                    // include files regardless of conditions, as these may change as packs are unpacked
+                    File target = new File(paths.translate(file.getTargetPath()));
+                    if (file.isDirectory())
+                    {
+                        directories.add(target);
+                    }
+                    else
+                    {
+                        targets.add(target);
+                    }
+                }
+                graph.add(pack, i, targets, directories);
+            }
+        }
+        return graph;
+    }
+
+    /**
+     * Submits a pack to be unpacked.
+     *
+     * @param service          the completion service
+     * @param graph            the pack graph
+     * @param index            the index of the pack in the graph
+     * @param queue            the file queue, or {@code null} if queuing is not supported
+     * @param packParsables    the parsable files, per pack
+     * @param packExecutables  the executable files, per pack
+     * @param packUpdateChecks the update checks, per pack
+     */
+    private void submit(CompletionService<Integer> service, PackGraph graph, final int index, final FileQueue queue,
+                        final List<List<ParsableFile>> packParsables,
+                        final List<List<ExecutableFile>> packExecutables,
+                        final List<List<UpdateCheck>> packUpdateChecks)
+    {
+        final Pack pack = graph.getPack(index);
+        final int packNo = graph.getNumber(index);
+        service.submit(new Callable<Integer>()
+        {
+            @Override
+            public Integer call() throws Exception
+            {
+                try
+                {
+                    unpack(pack, packNo, queue, packParsables.get(index), packExecutables.get(index),
+                           packUpdateChecks.get(index));
+                    checkInterrupt();
+                }
+                catch (Throwable exception)
+                {
+                    throw new PackException(index, exception);
+                }
+                return index;
+            }
+        });
+    }
+
+    /**
+     * Records the {@link Metrics metrics} of an unpacked pack.
+     *
+     * @param nanos the time taken to unpack the pack, in nanoseconds
+     * @param files the no. of files unpacked
+     * @param bytes the no. of bytes unpacked
+     */
+    protected void record(long nanos, long files, long bytes)
+    {
+        metrics.getCounter("unpack.files").add(files);
+        metrics.getCounter("unpack.bytes").add(bytes);
+        if (nanos > 0)
+        {
+            double seconds = nanos / 1e9;
+            metrics.getHistogram("unpack.pack.filesPerSecond").update(Math.round(files / seconds));
+            metrics.getHistogram("unpack.pack.bytesPerSecond").update(Math.round(bytes / seconds));
+        }
+    }
+
     /**
      * Invoked after each pack has been unpacked.
      *
@@ -661,6 +1072,8 @@ public abstract class UnpackerBase implements IUnpacker
      */
     protected void cleanup()
     {
+        plan = null;
+        paths.clear();
         state = State.READY;
     }
 
@@ -785,6 +1198,8 @@ public abstract class UnpackerBase implements IUnpacker
      * Creates a directory including any necessary but nonexistent parent directories, associated with a pack file.
      * <p/>
      * If {@link InstallerListener}s are registered, these will be notified for each directory created.
+     * <p/>
+     * Directories that exist or have been created are remembered, so that they aren't checked again.
      *
      * @param dir  the directory to create
      * @param file the pack file
@@ -792,12 +1207,16 @@ public abstract class UnpackerBase implements IUnpacker
      */
     protected void createDirectory(File dir, PackFile file)
     {
+        if (paths.isDirectory(dir))
+        {
+            return;
+        }
         if (!dir.exists())
         {
             if (!listeners.isFileListener())
             {
-                // Create it in one step.
-                if (!dir.mkdirs())
+                // Create it in one step. Packs unpacked concurrently may race to create the same directory
+                if (!dir.mkdirs() && !dir.isDirectory())
                 {
                     throw new IzPackException("Could not create directory: " + dir.getPath());
                 }
@@ -817,6 +1236,7 @@ public abstract class UnpackerBase implements IUnpacker
                 listeners.afterDir(dir, file);
             }
         }
+        paths.addDirectory(dir);
     }
 
     /**
@@ -830,7 +1250,29 @@ public abstract class UnpackerBase implements IUnpacker
     {
         if (!files.isEmpty())
         {
-            ScriptParser parser = new ScriptParser(getVariableSubstitutor());
+            Timer timer = metrics.getTimer("unpack.parse");
+            long start = timer.start();
+            parseFiles(files, new ScriptParser(getVariableSubstitutor(), metrics));
+            timer.stop(start);
+        }
+    }
+
+    /**
+     * Parses {@link ParsableFile} instances.
+     * <p/>
+     * Files are parsed concurrently, using up to one thread per available processor. The substitutor only reads
+     * variables, so a single parser is shared by all threads.
+     *
+     * @param files  the files to parse
+     * @param parser the parser
+     * @throws InstallerException           if parsing fails
+     * @throws ResourceInterruptedException if installation is interrupted
+     */
+    private void parseFiles(final List<ParsableFile> files, final ScriptParser parser)
+    {
+        int threads = Math.min(files.size(), Runtime.getRuntime().availableProcessors());
+        if (threads <= 1)
+        {
             for (ParsableFile file : files)
             {
                 try
@@ -844,6 +1286,48 @@ public abstract class UnpackerBase implements IUnpacker
                 checkInterrupt();
             }
         }
+        else
+        {
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try
+            {
+                List<Future<?>> results = new ArrayList<Future<?>>();
+                for (final ParsableFile file : files)
+                {
+                    results.add(executor.submit(new Callable<Object>()
+                    {
+                        @Override
+                        public Object call() throws Exception
+                        {
+                            parser.parse(file);
+                            return null;
+                        }
+                    }));
+                }
+                // wait for the files in order, so that the first failure is reported
+                for (int i = 0; i < results.size(); ++i)
+                {
+                    try
+                    {
+                        results.get(i).get();
+                    }
+                    catch (ExecutionException exception)
+                    {
+                        throw new InstallerException("Failed to parse: " + files.get(i).path,
+                                                     exception.getCause());
+                    }
+                    catch (InterruptedException exception)
+                    {
+                        throw new InstallerException("Interrupted parsing: " + files.get(i).path, exception);
+                    }
+                    checkInterrupt();
+                }
+            }
+            finally
+            {
+                executor.shutdownNow();
+            }
+        }
     }
 
     /**
@@ -858,7 +1342,12 @@ public abstract class UnpackerBase implements IUnpacker
         {
             FileExecutor executor = new FileExecutor(executables);
             PromptUIHandler handler = new ProgressHandler(listener, prompt);
-            if (executor.executeFiles(ExecutableFile.POSTINSTALL, handler) != 0)
+            Timer timer = metrics.getTimer("unpack.execute");
+            long start = timer.start();
+            int result = executor.executeFiles(ExecutableFile.POSTINSTALL, handler);
+            timer.stop(start);
+            metrics.getCounter("unpack.executables").add(executables.size());
+            if (result != 0)
             {
                 throw new InstallerException("File execution failed");
             }
@@ -1008,6 +1497,8 @@ public abstract class UnpackerBase implements IUnpacker
 
     /**
      * Writes information about the installed packs and the variables at installation time.
+     * <p/>
+     * Only packs and variables not already recorded by a previous installation are appended.
      *
      * @throws InstallerException for any installer error
      * @throws IOException        for any I/O error
@@ -1020,67 +1511,20 @@ public abstract class UnpackerBase implements IUnpacker
             return;
         }
         logger.fine("Writing installation information");
-        String installDir = installData.getInstallPath();
-
-        List<Pack> installedPacks = new ArrayList<Pack>(installData.getSelectedPacks());
-
-        File installationInfo = new File(installDir + File.separator + InstallData.INSTALLATION_INFORMATION);
-        if (!installationInfo.exists())
-        {
-            logger.fine("Creating info file" + installationInfo.getAbsolutePath());
-            File dir = new File(installData.getInstallPath());
-            if (!dir.exists())
-            {
-                // if no packs have been installed, then the installation directory won't exist
-                if (!dir.mkdirs())
-                {
-                    throw new InstallerException("Failed to create directory: " + dir);
-                }
-            }
-            if (!installationInfo.createNewFile())
-            {
-                throw new InstallerException("Failed to create file: " + installationInfo);
-            }
-        }
-        else
+        File dir = new File(installData.getInstallPath());
+        if (!dir.exists())
         {
-            logger.fine("Previous installation information found");
-            // read in old information and update
-            FileInputStream fin = new FileInputStream(installationInfo);
-            ObjectInputStream oin = new ObjectInputStream(fin);
-
-            List<Pack> packs;
-            try
-            {
-                packs = (List<Pack>) oin.readObject();
-            }
-            catch (Exception exception)
+            // if no packs have been installed, then the installation directory won't exist
+            if (!dir.mkdirs())
             {
-                throw new InstallerException("Failed to read previous installation information", exception);
+                throw new InstallerException("Failed to create directory: " + dir);
             }
-            for (Pack pack : packs)
-            {
-                installedPacks.add(pack);
-            }
-            FileUtils.close(oin);
-            FileUtils.close(fin);
-        }
-
-        FileOutputStream fout = new FileOutputStream(installationInfo);
-        ObjectOutputStream oout = new ObjectOutputStream(fout);
-        oout.writeObject(installedPacks);
-        /*
-        int selectedpackscount = installData.selectedPacks.size();
-        for (int i = 0; i < selectedpackscount; i++)
-        {
-            Pack pack = (Pack) installData.selectedPacks.get(i);
-            oout.writeObject(pack);
         }
-        */
-        oout.writeObject(installData.getVariables().getProperties());
+        File installationInfo = new File(dir, InstallData.INSTALLATION_INFORMATION);
+        InstallationInformation.append(installationInfo, installData.getSelectedPacks(),
+                                       installData.getInfo().getAppVersion(),
+                                       installData.getVariables().getProperties());
         logger.fine("Writing installation information finished");
-        FileUtils.close(oout);
-        FileUtils.close(fout);
     }
 
     protected File getAbsoluteInstallSource() throws IOException, InstallerException
@@ -1301,6 +1745,43 @@ public abstract class UnpackerBase implements IUnpacker
         }
     }
 
+    /**
+     * Reads the pack file meta-data for a pack.
+     *
+     * @param pack the pack
+     * @return the pack file meta-data
+     * @throws ResourceNotFoundException if the meta-data cannot be found
+     * @throws InstallerException        if the meta-data cannot be read
+     */
+    private List<PackFile> readPackIndex(Pack pack)
+    {
+        InputStream in = resources.getInputStream("packs/index-" + pack.getName());
+        ObjectInputStream stream = null;
+        try
+        {
+            stream = new ObjectInputStream(in);
+            PackFileCodec codec = new PackFileCodec();
+            codec.readHeader(stream);
+            int count = stream.readInt();
+            List<PackFile> result = new ArrayList<PackFile>(count);
+            for (int i = 0; i < count; ++i)
+            {
+                result.add(codec.read(stream));
+            }
+            return result;
+        }
+        catch (Exception exception)
+        {
+            throw new InstallerException("Failed to read pack file meta-data for pack: " + pack.getName(),
+                                         exception);
+        }
+        finally
+        {
+            FileUtils.close(stream);
+            FileUtils.close(in);
+        }
+    }
+
     /**
      * Returns the pack200 unpacker, creating it if required.
      *
@@ -1308,13 +1789,90 @@ public abstract class UnpackerBase implements IUnpacker
      */
     private Pack200.Unpacker getPack200Unpacker()
     {
-        if (unpacker == null)
+        Pack200.Unpacker result = unpacker.get();
+        if (result == null)
         {
-            unpacker = Pack200.newUnpacker();
+            result = Pack200.newUnpacker();
+            unpacker.set(result);
         }
-        return unpacker;
+        return result;
     }
 
+    /**
+     * Wraps the failure of a pack unpacked concurrently with others.
+     */
+    private static class PackException extends Exception
+    {
 
-}
+        /**
+         * The index of the pack in the pack graph.
+         */
+        private final int index;
+
+        /**
+         * Constructs a <tt>PackException</tt>.
+         *
+         * @param index the index of the pack in the pack graph
+         * @param cause the failure
+         */
+        public PackException(int index, Throwable cause)
+        {
+            super(cause);
+            this.index = index;
+        }
+    }
+
+    /**
+     * A {@link ProgressListener} that delivers notifications one at a time, for packs unpacked concurrently.
+     * <p/>
+     * Only individual notifications are serialised; the steps of concurrently unpacked packs still interleave.
+     */
+    private static class SynchronizedProgressListener implements ProgressListener
+    {
+
+        /**
+         * The listener to delegate to.
+         */
+        private final ProgressListener listener;
+
+        /**
+         * Constructs a <tt>SynchronizedProgressListener</tt>.
+         *
+         * @param listener the listener to delegate to
+         */
+        public SynchronizedProgressListener(ProgressListener listener)
+        {
+            this.listener = listener;
+        }
+
+        @Override
+        public synchronized void startAction(String name, int steps)
+        {
+            listener.startAction(name, steps);
+        }
+
+        @Override
+        public synchronized void stopAction()
+        {
+            listener.stopAction();
+        }
+
+        @Override
+        public synchronized void nextStep(String stepName, int step, int subSteps)
+        {
+            listener.nextStep(stepName, step, subSteps);
+        }
+
+        @Override
+        public synchronized void setSubStepNo(int subSteps)
+        {
+            listener.setSubStepNo(subSteps);
+        }
 
+        @Override
+        public synchronized void progress(int subStep, String message)
+        {
+            listener.progress(subStep, message);
+        }
+    }
+}
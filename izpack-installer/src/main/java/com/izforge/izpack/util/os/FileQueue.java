@@ -4,6 +4,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
+import com.izforge.izpack.core.metrics.Metrics;
 import com.izforge.izpack.util.Librarian;
 
 
@@ -19,6 +20,11 @@ public class FileQueue
      */
     private final Librarian librarian;
 
+    /**
+     * The metrics to record execution times in. May be <tt>null</tt>.
+     */
+    private final Metrics metrics;
+
 
     /**
      * Constructs a <tt>FileQueue</tt>.
@@ -26,8 +32,20 @@ public class FileQueue
      * @param librarian the librarian
      */
     public FileQueue(Librarian librarian)
+    {
+        this(librarian, null);
+    }
+
+    /**
+     * Constructs a <tt>FileQueue</tt>.
+     *
+     * @param librarian the librarian
+     * @param metrics   the metrics to record execution times in. May be <tt>null</tt>
+     */
+    public FileQueue(Librarian librarian, Metrics metrics)
     {
         this.librarian = librarian;
+        this.metrics = metrics;
     }
 
     /**
@@ -52,6 +70,7 @@ public class FileQueue
 
     public void execute() throws IOException
     {
+        long start = System.nanoTime();
         WinSetupDefaultCallbackHandler handler = new WinSetupDefaultCallbackHandler();
         try
         {
@@ -91,6 +110,11 @@ public class FileQueue
         finally
         {
             filequeue.close();
+            if (metrics != null)
+            {
+                metrics.getTimer("filequeue.execute").update(System.nanoTime() - start);
+                metrics.getCounter("filequeue.operations").add(operations.size());
+            }
         }
     }
 
@@ -140,6 +140,18 @@ public class Unix_Shortcut extends Shortcut implements Unix_ShortcutConstants
 
     private List<UnixUser> users;
 
+    /**
+     * Desktop files to install on the desktops of all users with the xdg desktop icon script. These are installed
+     * in one batch per user, by {@link #execPostAction()}.
+     */
+    private final List<File> xdgDesktopFiles = new ArrayList<File>();
+
+    /**
+     * Desktop files to copy to the desktops of all users. These are copied in one batch per user, by
+     * {@link #execPostAction()}.
+     */
+    private final List<File> copiedDesktopFiles = new ArrayList<File>();
+
     // private static ArrayList tempfiles = new ArrayList();
 
     // ~ Instance fields
@@ -549,12 +561,12 @@ public class Unix_Shortcut extends Shortcut implements Unix_ShortcutConstants
             {
                 if (cmd != null)
                 {
-                    installDesktopFileToAllUsersDesktop(writtenDesktopFile);
+                    xdgDesktopFiles.add(writtenDesktopFile);
                 }
                 else
                 // OLD ( Backward-Compatible/hardwired-"Desktop"-Foldername Styled Mechanic )
                 {
-                    copyDesktopFileToAllUsersDesktop(writtenDesktopFile);
+                    copiedDesktopFiles.add(writtenDesktopFile);
                 }
             }
         }
@@ -672,6 +684,12 @@ public class Unix_Shortcut extends Shortcut implements Unix_ShortcutConstants
     public void createExtXdgDesktopIconCmd(File shortCutLocation) throws IOException,
             ResourceNotFoundException
     {
+        String scriptName = shortCutLocation + FS + "IzPackLocaleEnabledXdgDesktopIconScript.sh";
+        if (scriptName.equals(myXdgDesktopIconCmd) && new File(scriptName).exists())
+        {
+            // already created for a previous shortcut
+            return;
+        }
         ShellScript myXdgDesktopIconScript = new ShellScript(null);
         String lines = "";
 
@@ -679,8 +697,7 @@ public class Unix_Shortcut extends Shortcut implements Unix_ShortcutConstants
 
         myXdgDesktopIconScript.append(lines);
 
-        myXdgDesktopIconCmd = new String(shortCutLocation + FS
-                                                 + "IzPackLocaleEnabledXdgDesktopIconScript.sh");
+        myXdgDesktopIconCmd = scriptName;
         myXdgDesktopIconScript.write(myXdgDesktopIconCmd);
         FileExecutor.getExecOutput(new String[]{UnixHelper.getCustomCommand("chmod"), "+x", myXdgDesktopIconCmd}, true);
     }
@@ -688,12 +705,18 @@ public class Unix_Shortcut extends Shortcut implements Unix_ShortcutConstants
 
     /**
      * Calls and creates the Install/Unistall Script which installs Desktop Icons using
-     * xdgDesktopIconCmd un-/install
-     *
-     * @param writtenDesktopFile An applications desktop file, which should be installed.
+     * xdgDesktopIconCmd un-/install.
+     * <p/>
+     * All desktop files are installed with a single su per user, rather than one per user and file.
      */
-    private void installDesktopFileToAllUsersDesktop(File writtenDesktopFile)
+    private void installDesktopFilesToAllUsersDesktops()
     {
+        if (xdgDesktopFiles.isEmpty())
+        {
+            return;
+        }
+        String install = getXdgDesktopIconCommands("install");
+        String uninstall = getXdgDesktopIconCommands("uninstall");
         for (UnixUser user : getUsers())
         {
             if (user.getHome().equals(myHome))
@@ -704,25 +727,44 @@ public class Unix_Shortcut extends Shortcut implements Unix_ShortcutConstants
             try
             {
                 // / THE Following does such as #> su username -c "xdg-desktopicon install
-                // --novendor /Path/to/Filename\ with\ or\ without\ Space.desktop"
+                // --novendor /Path/to/Filename\ with\ or\ without\ Space.desktop ; xdg-desktopicon install ..."
                 rootScript.append(new String[]{getSuCommand(), user.getName(), "-c"});
-                rootScript.appendln(new String[]{"\"" + myXdgDesktopIconCmd, "install", "--novendor",
-                        StringTool.escapeSpaces(writtenDesktopFile.toString()) + "\""});
+                rootScript.appendln("\"" + install + "\"");
 
                 uninstallScript.append(new String[]{getSuCommand(), user.getName(), "-c"});
-                uninstallScript
-                        .appendln(new String[]{"\"" + myXdgDesktopIconCmd, "uninstall", "--novendor",
-                                StringTool.escapeSpaces(writtenDesktopFile.toString()) + "\""});
+                uninstallScript.appendln("\"" + uninstall + "\"");
             }
             catch (Exception e)
             {
                 logger.log(Level.WARNING, e.getMessage(), e);
             }
         }
+        xdgDesktopFiles.clear();
         logger.fine("==============================");
         logger.fine(rootScript.getContentAsString());
     }
 
+    /**
+     * Returns the xdg desktop icon commands to apply an action to each desktop file, separated by semi-colons.
+     *
+     * @param action the action. One of "install" or "uninstall"
+     * @return the commands
+     */
+    private String getXdgDesktopIconCommands(String action)
+    {
+        StringBuilder result = new StringBuilder();
+        for (File file : xdgDesktopFiles)
+        {
+            if (result.length() != 0)
+            {
+                result.append(" ; ");
+            }
+            result.append(myXdgDesktopIconCmd).append(S).append(action).append(S).append("--novendor").append(S);
+            result.append(StringTool.escapeSpaces(file.toString()));
+        }
+        return result.toString();
+    }
+
     private String getSuCommand()
     {
         if (su == null)
@@ -751,31 +793,39 @@ public class Unix_Shortcut extends Shortcut implements Unix_ShortcutConstants
     }
 
     /**
-     * @param writtenDesktopFile
-     * @throws IOException
+     * Copies the desktop files to the Desktop folder of all users.
+     * <p/>
+     * All files are copied with a single su per user, rather than one per user and file.
+     *
+     * @throws IOException if a temporary copy of a desktop file cannot be created
      */
-    private void copyDesktopFileToAllUsersDesktop(File writtenDesktopFile) throws IOException
+    private void copyDesktopFilesToAllUsersDesktops() throws IOException
     {
+        if (copiedDesktopFiles.isEmpty())
+        {
+            return;
+        }
         String chmod = UnixHelper.getCustomCommand("chmod");
         String chown = UnixHelper.getCustomCommand("chown");
         String rm = UnixHelper.getRmCommand();
         String copy = UnixHelper.getCpCommand();
 
-        File dest = null;
-
-        // Create a tempFileName of this ShortCut
-        File tempFile = File.createTempFile(this.getClass().getName(), Long.toString(System
-                                                                                             .currentTimeMillis())
-                + ".tmp");
-
-        copyTo(writtenDesktopFile, tempFile);
-
-        // Debug.log("Wrote Tempfile: " + tempFile.toString());
-
-        FileExecutor.getExecOutput(new String[]{chmod, "uga+rwx", tempFile.toString()});
+        // Create a tempFile of each ShortCut, readable by all users
+        List<String> chmodCommand = new ArrayList<String>();
+        chmodCommand.add(chmod);
+        chmodCommand.add("uga+rwx");
+        List<File> tempFiles = new ArrayList<File>();
+        for (File writtenDesktopFile : copiedDesktopFiles)
+        {
+            File tempFile = File.createTempFile(this.getClass().getName(), Long.toString(System
+                                                                                                 .currentTimeMillis())
+                    + ".tmp");
+            copyTo(writtenDesktopFile, tempFile);
+            tempFiles.add(tempFile);
+            chmodCommand.add(tempFile.toString());
+        }
 
-        // su marc.eppelmann -c "/bin/cp /home/marc.eppelmann/backup.job.out.txt
-        // /home/marc.eppelmann/backup.job.out2.txt"
+        FileExecutor.getExecOutput(chmodCommand.toArray(new String[chmodCommand.size()]));
 
         for (UnixUser user : getUsers())
         {
@@ -786,19 +836,25 @@ public class Unix_Shortcut extends Shortcut implements Unix_ShortcutConstants
             }
             try
             {
-                // aHomePath = userHomesList[idx];
-                dest = new File(user.getHome() + FS + "Desktop" + FS + writtenDesktopFile.getName());
                 //
                 // I'm root and cannot write into Users Home as root;
                 // But I'm Root and I can slip in every users skin :-)
                 //
-                // by# su username
-                //
-                // This works as well
-                // su $username -c "cp /tmp/desktopfile $HOME/Desktop/link.desktop"
-                // chown $username $HOME/Desktop/link.desktop
-
-                // Debug.log("Will Copy: " + tempFile.toString() + " to " + dest.toString());
+                // su $username -c "cp /tmp/desktopfile1 $HOME/Desktop/link1.desktop ; cp ..."
+                // chown $username $HOME/Desktop/link1.desktop $HOME/Desktop/link2.desktop
+                StringBuilder copies = new StringBuilder();
+                StringBuilder dests = new StringBuilder();
+                for (int i = 0; i < copiedDesktopFiles.size(); ++i)
+                {
+                    File dest = new File(user.getHome() + FS + "Desktop" + FS + copiedDesktopFiles.get(i).getName());
+                    String escaped = StringTool.replace(dest.toString(), " ", "\\ ");
+                    if (i > 0)
+                    {
+                        copies.append(" ; ");
+                    }
+                    copies.append(copy).append(S).append(tempFiles.get(i).toString()).append(S).append(escaped);
+                    dests.append(S).append(escaped);
+                }
 
                 rootScript.append(getSuCommand());
                 rootScript.append(S);
@@ -807,27 +863,18 @@ public class Unix_Shortcut extends Shortcut implements Unix_ShortcutConstants
                 rootScript.append("-c");
                 rootScript.append(S);
                 rootScript.append('"');
-                rootScript.append(copy);
-                rootScript.append(S);
-                rootScript.append(tempFile.toString());
-                rootScript.append(S);
-                rootScript.append(StringTool.replace(dest.toString(), " ", "\\ "));
+                rootScript.append(copies);
                 rootScript.appendln('"');
 
                 rootScript.append('\n');
 
-                // Debug.log("Will exec: " + script.toString());
-
                 rootScript.append(chown);
                 rootScript.append(S);
                 rootScript.append(user.getName());
-                rootScript.append(S);
-                rootScript.appendln(StringTool.replace(dest.toString(), " ", "\\ "));
+                rootScript.appendln(dests);
                 rootScript.append('\n');
                 rootScript.append('\n');
 
-                // Debug.log("Will exec: " + script.toString());
-
                 uninstallScript.append(getSuCommand());
                 uninstallScript.append(S);
                 uninstallScript.append(user.getName());
@@ -836,11 +883,9 @@ public class Unix_Shortcut extends Shortcut implements Unix_ShortcutConstants
                 uninstallScript.append(S);
                 uninstallScript.append('"');
                 uninstallScript.append(rm);
-                uninstallScript.append(S);
-                uninstallScript.append(StringTool.replace(dest.toString(), " ", "\\ "));
+                uninstallScript.append(dests);
                 uninstallScript.appendln('"');
                 uninstallScript.appendln();
-                // Debug.log("Uninstall will exec: " + uninstallScript.toString());
             }
             catch (Exception e)
             {
@@ -856,9 +901,14 @@ public class Unix_Shortcut extends Shortcut implements Unix_ShortcutConstants
         }
 
         rootScript.append(rm);
-        rootScript.append(S);
-        rootScript.appendln(tempFile.toString());
+        for (File tempFile : tempFiles)
+        {
+            rootScript.append(S);
+            rootScript.append(tempFile.toString());
+        }
+        rootScript.appendln();
         rootScript.appendln();
+        copiedDesktopFiles.clear();
     }
 
     /**
@@ -870,6 +920,16 @@ public class Unix_Shortcut extends Shortcut implements Unix_ShortcutConstants
     {
         logger.fine("Launching post execution action");
 
+        installDesktopFilesToAllUsersDesktops();
+        try
+        {
+            copyDesktopFilesToAllUsersDesktops();
+        }
+        catch (IOException e)
+        {
+            logger.log(Level.WARNING, "Could not copy desktop files to all users: " + e.getMessage(), e);
+        }
+
         String pseudoUnique = this.getClass().getName() + Long.toString(System.currentTimeMillis());
 
         String scriptFilename = null;
@@ -0,0 +1,118 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.installer.container.provider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.Callable;
+
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.izforge.izpack.api.exception.ResourceNotFoundException;
+import com.izforge.izpack.api.resource.Resources;
+
+
+/**
+ * Tests the {@link Preloader}.
+ *
+ * @author agent
+ */
+public class PreloaderTest
+{
+
+    /**
+     * Verifies that preloaded results can be collected once only.
+     */
+    @Test
+    public void testGet()
+    {
+        Preloader preloader = new Preloader(true);
+        assertTrue(preloader.isEnabled());
+        preloader.submit("value", new Callable<String>()
+        {
+            @Override
+            public String call() throws Exception
+            {
+                return "foo";
+            }
+        });
+        assertNull(preloader.get("missing", String.class));
+        assertEquals("foo", preloader.get("value", String.class));
+        assertNull(preloader.get("value", String.class));
+
+        // results of the wrong type aren't returned
+        preloader.submit("value", new Callable<String>()
+        {
+            @Override
+            public String call() throws Exception
+            {
+                return "foo";
+            }
+        });
+        assertNull(preloader.get("value", Integer.class));
+        preloader.shutdown();
+    }
+
+    /**
+     * Verifies that failed tasks return <tt>null</tt>, so that the caller can load the resource itself.
+     */
+    @Test
+    public void testFailure()
+    {
+        Resources resources = Mockito.mock(Resources.class);
+        Mockito.when(resources.getObject("rules")).thenThrow(new ResourceNotFoundException("rules"));
+        Preloader preloader = new Preloader(true);
+        preloader.submitObject(resources, "rules");
+        assertNull(preloader.get("rules", Object.class));
+        preloader.shutdown();
+    }
+
+    /**
+     * Verifies that nothing is preloaded if preloading is disabled.
+     */
+    @Test
+    public void testDisabled()
+    {
+        Resources resources = Mockito.mock(Resources.class);
+        Preloader preloader = new Preloader(false);
+        assertFalse(preloader.isEnabled());
+        preloader.submitObject(resources, "info");
+        assertNull(preloader.get("info", Object.class));
+        Mockito.verifyZeroInteractions(resources);
+    }
+
+    /**
+     * Verifies that uncollected results are discarded on shutdown.
+     */
+    @Test
+    public void testShutdown()
+    {
+        Resources resources = Mockito.mock(Resources.class);
+        Mockito.when(resources.getObject("info")).thenReturn("info");
+        Preloader preloader = new Preloader(true);
+        preloader.submitObject(resources, "info");
+        preloader.shutdown();
+        assertNull(preloader.get("info", Object.class));
+    }
+}
@@ -0,0 +1,244 @@
+package com.izforge.izpack.installer.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.izforge.izpack.api.data.Pack;
+
+
+/**
+ * Tests the {@link InstallationInformation} class.
+ *
+ * @author agent
+ */
+public class InstallationInformationTest
+{
+    /**
+     * Temporary folder.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * Verifies that packs and variables can be written and read back.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testReadWrite() throws Exception
+    {
+        File file = new File(temporaryFolder.getRoot(), ".installationinformation");
+        Pack base = createPack("base", null, 100);
+        Pack docs = createPack("docs", "docs.id", 200);
+        InstallationInformation.append(file, Arrays.asList(base, docs), "1.0", createProperties("A", "1", "B", "2"));
+
+        InstallationInformation info = InstallationInformation.read(file);
+        List<InstalledPack> packs = info.getInstalledPacks();
+        assertEquals(2, packs.size());
+        checkPack(packs.get(0), "base", null, "1.0", 100);
+        checkPack(packs.get(1), "docs", "docs.id", "1.0", 200);
+        assertTrue(info.isInstalled(base));
+        assertTrue(info.isInstalled(docs));
+        assertEquals("docs", info.getInstalledPack("docs.id").getName());
+        assertEquals("1", info.getVariables().getProperty("A"));
+        assertEquals("2", info.getVariables().getProperty("B"));
+    }
+
+    /**
+     * Verifies that subsequent installations only append changed information.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testAppend() throws Exception
+    {
+        File file = new File(temporaryFolder.getRoot(), ".installationinformation");
+        Pack base = createPack("base", null, 100);
+        InstallationInformation.append(file, Arrays.asList(base), "1.0", createProperties("A", "1", "B", "2"));
+        long length = file.length();
+
+        // nothing has changed, so nothing should be written
+        InstallationInformation.append(file, Arrays.asList(base), "1.0", createProperties("A", "1", "B", "2"));
+        assertEquals(length, file.length());
+
+        // add a new pack, change a variable and remove another
+        Pack docs = createPack("docs", null, 200);
+        InstallationInformation.append(file, Arrays.asList(docs), "1.0", createProperties("A", "3"));
+        assertTrue(file.length() > length);
+
+        InstallationInformation info = InstallationInformation.read(file);
+        assertEquals(2, info.getInstalledPacks().size());
+        assertTrue(info.isInstalled(base));
+        assertTrue(info.isInstalled(docs));
+        assertEquals("3", info.getVariables().getProperty("A"));
+        assertNull(info.getVariables().getProperty("B"));
+
+        // upgrade the base pack
+        InstallationInformation.append(file, Arrays.asList(base), "2.0", createProperties("A", "3"));
+        info = InstallationInformation.read(file);
+        assertEquals(2, info.getInstalledPacks().size());
+        checkPack(info.getInstalledPack("base"), "base", null, "2.0", 100);
+    }
+
+    /**
+     * Verifies that information written using java serialization is read, and converted when it is next written.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testLegacyFormat() throws Exception
+    {
+        File file = new File(temporaryFolder.getRoot(), ".installationinformation");
+        List<Pack> packs = new ArrayList<Pack>();
+        packs.add(createPack("base", null, 100));
+        ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(file));
+        out.writeObject(packs);
+        out.writeObject(createProperties("A", "1"));
+        out.close();
+
+        InstallationInformation info = InstallationInformation.read(file);
+        assertEquals(1, info.getInstalledPacks().size());
+        checkPack(info.getInstalledPack("base"), "base", null, null, 100);
+        assertEquals("1", info.getVariables().getProperty("A"));
+
+        Pack docs = createPack("docs", null, 200);
+        InstallationInformation.append(file, Arrays.asList(docs), "1.0", createProperties("A", "1"));
+
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        assertEquals(InstallationInformation.MAGIC, raf.readInt());
+        raf.close();
+
+        info = InstallationInformation.read(file);
+        assertEquals(2, info.getInstalledPacks().size());
+        assertTrue(info.isInstalled(docs));
+        assertEquals("1", info.getVariables().getProperty("A"));
+    }
+
+    /**
+     * Verifies that a truncated trailing record is ignored.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testTruncatedRecord() throws Exception
+    {
+        File file = new File(temporaryFolder.getRoot(), ".installationinformation");
+        Pack base = createPack("base", null, 100);
+        InstallationInformation.append(file, Arrays.asList(base), "1.0", createProperties("A", "1"));
+        long length = file.length();
+        Pack docs = createPack("docs", null, 200);
+        InstallationInformation.append(file, Arrays.asList(docs), "1.0", createProperties("A", "1"));
+
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        raf.setLength(length + 5);
+        raf.close();
+
+        InstallationInformation info = InstallationInformation.read(file);
+        assertEquals(1, info.getInstalledPacks().size());
+        assertFalse(info.isInstalled(docs));
+
+        InstallationInformation.append(file, Collections.<Pack>emptyList(), "1.0", createProperties("A", "2"));
+        info = InstallationInformation.read(file);
+        assertEquals(1, info.getInstalledPacks().size());
+        assertEquals("2", info.getVariables().getProperty("A"));
+    }
+
+    /**
+     * Verifies that a file truncated within its header is treated as having no previous information, and is
+     * rewritten on the next append.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testTruncatedHeader() throws Exception
+    {
+        File file = new File(temporaryFolder.getRoot(), ".installationinformation");
+        InstallationInformation.append(file, Arrays.asList(createPack("base", null, 100)), "1.0",
+                                       createProperties("A", "1"));
+        byte[] header = new byte[4];
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        raf.readFully(header);
+        raf.close();
+        for (int length = 1; length <= header.length; ++length)
+        {
+            FileOutputStream out = new FileOutputStream(file);
+            out.write(header, 0, length);
+            out.close();
+
+            InstallationInformation info = InstallationInformation.read(file);
+            assertTrue(info.getInstalledPacks().isEmpty());
+            assertTrue(info.getVariables().isEmpty());
+        }
+
+        Pack docs = createPack("docs", null, 200);
+        InstallationInformation.append(file, Arrays.asList(docs), "1.0", createProperties("A", "2"));
+        InstallationInformation info = InstallationInformation.read(file);
+        assertEquals(1, info.getInstalledPacks().size());
+        assertTrue(info.isInstalled(docs));
+        assertEquals("2", info.getVariables().getProperty("A"));
+    }
+
+    /**
+     * Verifies an installed pack matches that expected.
+     *
+     * @param pack       the pack to check
+     * @param name       the expected name
+     * @param langPackId the expected language pack identifier
+     * @param version    the expected version
+     * @param size       the expected size
+     */
+    private void checkPack(InstalledPack pack, String name, String langPackId, String version, long size)
+    {
+        assertEquals(name, pack.getName());
+        assertEquals(langPackId, pack.getLangPackId());
+        assertEquals(version, pack.getVersion());
+        assertEquals(size, pack.getSize());
+    }
+
+    /**
+     * Creates a pack.
+     *
+     * @param name       the pack name
+     * @param langPackId the language pack identifier. May be {@code null}
+     * @param size       the pack size
+     * @return a new pack
+     */
+    private Pack createPack(String name, String langPackId, long size)
+    {
+        Pack pack = new Pack(name, langPackId, null, null, null, true, true, false, null, true);
+        pack.setSize(size);
+        return pack;
+    }
+
+    /**
+     * Creates properties from name/value pairs.
+     *
+     * @param namesAndValues the names and values
+     * @return new properties
+     */
+    private Properties createProperties(String... namesAndValues)
+    {
+        Properties result = new Properties();
+        for (int i = 0; i < namesAndValues.length; i += 2)
+        {
+            result.setProperty(namesAndValues[i], namesAndValues[i + 1]);
+        }
+        return result;
+    }
+}
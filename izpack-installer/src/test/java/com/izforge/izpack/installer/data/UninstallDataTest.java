@@ -0,0 +1,52 @@
+package com.izforge.izpack.installer.data;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+
+/**
+ * Tests the {@link UninstallData} class.
+ *
+ * @author agent
+ */
+public class UninstallDataTest
+{
+
+    /**
+     * Verifies that the uninstallable files are returned by index and by iteration, as files are added.
+     */
+    @Test
+    public void testUninstallableFiles()
+    {
+        UninstallData data = new UninstallData();
+        List<String> expected = new ArrayList<String>();
+        for (int i = 0; i < 100; ++i)
+        {
+            String path = "/opt/myapp/file" + i;
+            boolean uninstall = i % 3 != 0;
+            data.addFile(path, uninstall);
+            if (uninstall)
+            {
+                expected.add(path);
+            }
+            List<String> files = data.getUninstalableFilesList();
+            assertEquals(expected.size(), files.size());
+            if (!expected.isEmpty())
+            {
+                assertEquals(expected.get(expected.size() - 1), files.get(files.size() - 1));
+            }
+        }
+        assertEquals(100, data.getInstalledFilesList().size());
+
+        List<String> files = data.getUninstalableFilesList();
+        assertEquals(expected, new ArrayList<String>(files));
+        for (int i = 0; i < expected.size(); ++i)
+        {
+            assertEquals(expected.get(i), files.get(i));
+        }
+    }
+}
@@ -244,7 +244,7 @@ public abstract class AbstractFileUnpackerTest
      * @return the contents of the file
      * @throws IOException for any I/O error
      */
-    private byte[] getContent(File file) throws IOException
+    protected byte[] getContent(File file) throws IOException
     {
         ByteArrayOutputStream out = new ByteArrayOutputStream();
         FileInputStream in = new FileInputStream(file);
@@ -0,0 +1,149 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.installer.unpacker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.atMost;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+
+import com.izforge.izpack.api.event.ProgressListener;
+import com.izforge.izpack.api.event.RestartableProgressListener;
+import com.izforge.izpack.api.event.ThroughputProgressListener;
+
+
+/**
+ * Tests the {@link BufferedProgressListener} class.
+ *
+ * @author agent
+ */
+public class BufferedProgressListenerTest
+{
+
+    /**
+     * Verifies that progress notifications are coalesced, and that the latest is delivered before other
+     * notifications.
+     */
+    @Test
+    public void testCoalesce()
+    {
+        ProgressListener delegate = mock(ProgressListener.class);
+        BufferedProgressListener listener = new BufferedProgressListener(delegate, 1);
+        listener.startAction("Unpacking", 1);
+        listener.nextStep("pack", 1, 1000);
+        for (int i = 0; i < 1000; ++i)
+        {
+            listener.progress(i, "file" + i);
+        }
+        listener.stopAction();
+
+        InOrder order = inOrder(delegate);
+        order.verify(delegate).startAction("Unpacking", 1);
+        order.verify(delegate).nextStep("pack", 1, 1000);
+        order.verify(delegate).progress(999, "file999");
+        order.verify(delegate).stopAction();
+        verify(delegate, atMost(5)).progress(anyInt(), anyString());
+    }
+
+    /**
+     * Verifies that pending progress is delivered at the configured rate.
+     */
+    @Test
+    public void testDelivery()
+    {
+        ProgressListener delegate = mock(ProgressListener.class);
+        BufferedProgressListener listener = new BufferedProgressListener(delegate, 100);
+        listener.startAction("Unpacking", 1);
+        listener.progress(1, "file");
+        verify(delegate, timeout(5000)).progress(1, "file");
+        listener.stopAction();
+    }
+
+    /**
+     * Verifies that progress is delivered immediately when no action is running.
+     */
+    @Test
+    public void testUnbuffered()
+    {
+        ProgressListener delegate = mock(ProgressListener.class);
+        BufferedProgressListener listener = new BufferedProgressListener(delegate, 1);
+        listener.progress(1, "file");
+        verify(delegate).progress(1, "file");
+    }
+
+    /**
+     * Verifies that throughput is delivered to {@link ThroughputProgressListener}s.
+     */
+    @Test
+    public void testThroughput()
+    {
+        ThroughputProgressListener delegate = mock(ThroughputProgressListener.class);
+        BufferedProgressListener listener = new BufferedProgressListener(delegate, 1);
+        listener.startAction("Unpacking", 1);
+        listener.setTotalBytes(1000);
+        listener.addBytes(200);
+        listener.addBytes(300);
+        assertEquals(500, listener.getBytes());
+        listener.stopAction();
+
+        ArgumentCaptor<Long> remaining = ArgumentCaptor.forClass(Long.class);
+        verify(delegate).throughput(eq(500L), eq(1000L), anyLong(), remaining.capture());
+        assertTrue(remaining.getValue() >= 0);
+
+        // starting a new action resets the bytes
+        listener.startAction("Unpacking", 1);
+        assertEquals(0, listener.getBytes());
+        listener.stopAction();
+    }
+
+    /**
+     * Verifies that restartable listeners are wrapped by restartable listeners.
+     */
+    @Test
+    public void testCreate()
+    {
+        RestartableProgressListener delegate = mock(RestartableProgressListener.class);
+        ProgressListener listener = BufferedProgressListener.create(delegate);
+        assertTrue(listener instanceof RestartableProgressListener);
+
+        ((RestartableProgressListener) listener).restartAction("Configure", "overall", "tip", 2);
+        ((RestartableProgressListener) listener).progress("task");
+        listener.stopAction();
+        InOrder order = inOrder(delegate);
+        order.verify(delegate).restartAction("Configure", "overall", "tip", 2);
+        order.verify(delegate).progress("task");
+        order.verify(delegate).stopAction();
+
+        assertFalse(BufferedProgressListener.create(mock(ProgressListener.class))
+                            instanceof RestartableProgressListener);
+    }
+}
@@ -0,0 +1,157 @@
+package com.izforge.izpack.installer.unpacker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.izforge.izpack.api.data.Blockable;
+import com.izforge.izpack.api.data.OverrideType;
+import com.izforge.izpack.api.data.Pack;
+import com.izforge.izpack.api.data.PackFile;
+
+
+/**
+ * Tests the {@link InstallPlan} class.
+ *
+ * @author agent
+ */
+public class InstallPlanTest
+{
+    /**
+     * Temporary folder.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * Verifies that the bytes and files are totalled per volume, and that the directory skeleton of each pack is
+     * created.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testPlan() throws Exception
+    {
+        File sourceDir = temporaryFolder.newFolder("source");
+        File installDir = new File(temporaryFolder.getRoot(), "install");
+        Pack core = createPack("core");
+        Pack docs = createPack("docs");
+
+        InstallPlan plan = new InstallPlan();
+        plan.add(core, createPackFile(sourceDir, "a.bin", 10), new File(installDir, "lib/a.bin"));
+        plan.add(docs, createPackFile(sourceDir, "b.bin", 5000), new File(installDir, "doc/html/b.bin"));
+
+        List<InstallPlan.Usage> usage = plan.getUsage();
+        assertEquals(1, usage.size());
+        assertEquals(2, usage.get(0).getFiles());
+        assertEquals(4096 + 8192, usage.get(0).getBytes());
+        assertTrue(usage.get(0).isSufficient());
+        assertTrue(plan.getInsufficient().isEmpty());
+        assertEquals(5010, plan.getLength());
+
+        assertFalse(installDir.exists());
+        plan.createDirectories(core);
+        assertTrue(new File(installDir, "lib").isDirectory());
+        assertFalse(new File(installDir, "doc").exists());
+
+        plan.createDirectories(docs);
+        assertTrue(new File(installDir, "doc/html").isDirectory());
+    }
+
+    /**
+     * Verifies that directories on the same volume are totalled together, regardless of changes in the free space.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testVolume() throws Exception
+    {
+        File sourceDir = temporaryFolder.newFolder("source");
+        File dir1 = temporaryFolder.newFolder("dir1");
+        File dir2 = temporaryFolder.newFolder("dir2");
+        Pack pack = createPack("pack");
+
+        InstallPlan plan = new InstallPlan();
+        plan.add(pack, createPackFile(sourceDir, "a.bin", 10), new File(dir1, "a.bin"));
+        // change the free space between directories
+        createFile(temporaryFolder.getRoot(), "filler.bin", 100000);
+        plan.add(pack, createPackFile(sourceDir, "b.bin", 10), new File(dir2, "sub/b.bin"));
+
+        List<InstallPlan.Usage> usage = plan.getUsage();
+        assertEquals(1, usage.size());
+        assertEquals(2, usage.get(0).getFiles());
+    }
+
+    /**
+     * Verifies that existing files are deducted from the required space.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testExistingFile() throws Exception
+    {
+        File sourceDir = temporaryFolder.newFolder("source");
+        File installDir = temporaryFolder.newFolder("install");
+        File existing = createFile(installDir, "a.bin", 10);
+
+        InstallPlan plan = new InstallPlan();
+        plan.add(createPack("pack"), createPackFile(sourceDir, "a.bin", 5000), existing);
+
+        List<InstallPlan.Usage> usage = plan.getUsage();
+        assertEquals(1, usage.size());
+        assertEquals(4096, usage.get(0).getBytes());
+    }
+
+    /**
+     * Creates a pack.
+     *
+     * @param name the pack name
+     * @return a new pack
+     */
+    private Pack createPack(String name)
+    {
+        return new Pack(name, null, null, null, null, true, true, false, null, true);
+    }
+
+    /**
+     * Creates a pack file.
+     *
+     * @param dir    the source directory
+     * @param name   the file name
+     * @param length the file length
+     * @return a new pack file
+     * @throws IOException for any I/O error
+     */
+    private PackFile createPackFile(File dir, String name, int length) throws IOException
+    {
+        File source = createFile(dir, name, length);
+        return new PackFile(dir, source, name, null, OverrideType.OVERRIDE_TRUE, null, Blockable.BLOCKABLE_NONE);
+    }
+
+    /**
+     * Creates a file.
+     *
+     * @param dir    the parent directory
+     * @param name   the file name
+     * @param length the file length
+     * @return the file
+     * @throws IOException for any I/O error
+     */
+    private File createFile(File dir, String name, int length) throws IOException
+    {
+        File file = new File(dir, name);
+        FileOutputStream out = new FileOutputStream(file);
+        out.write(new byte[length]);
+        out.close();
+        return file;
+    }
+}
@@ -1,11 +1,23 @@
 package com.izforge.izpack.installer.unpacker;
 
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
 
+import org.junit.Test;
 import org.mockito.Mockito;
 
+import com.izforge.izpack.api.data.Blockable;
+import com.izforge.izpack.api.data.PackFile;
 import com.izforge.izpack.api.handler.Prompt;
+import com.izforge.izpack.util.OsVersion;
 import com.izforge.izpack.util.os.FileQueue;
 
 /**
@@ -16,6 +28,70 @@ import com.izforge.izpack.util.os.FileQueue;
 public class LooseFileUnpackerTest extends AbstractFileUnpackerTest
 {
 
+    /**
+     * The threshold above which files are copied in parallel ranges, for {@link #testUnpackLargeFile()}.
+     */
+    private static final long THRESHOLD = 64 * 1024;
+
+    /**
+     * Verifies that files above the parallel threshold are copied correctly in parallel ranges.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testUnpackLargeFile() throws Exception
+    {
+        File baseDir = temporaryFolder.getRoot();
+        File source = new File(baseDir, "large.bin");
+        byte[] data = new byte[(int) (THRESHOLD * 4 + 12345)];
+        for (int i = 0; i < data.length; ++i)
+        {
+            data[i] = (byte) (i % 251);
+        }
+        OutputStream out = new FileOutputStream(source);
+        try
+        {
+            out.write(data);
+        }
+        finally
+        {
+            out.close();
+        }
+
+        File target = getTargetFile(baseDir);
+        Prompt prompt = Mockito.mock(Prompt.class);
+        FileUnpacker unpacker = new LooseFileUnpacker(baseDir.getAbsoluteFile(), getCancellable(), null, prompt,
+                                                      THRESHOLD);
+        PackFile file = createPackFile(baseDir, source, target, Blockable.BLOCKABLE_NONE);
+        unpacker.unpack(file, createPackStream(source), target);
+
+        assertEquals(source.lastModified(), target.lastModified());
+        assertArrayEquals(data, getContent(target));
+    }
+
+    /**
+     * Verifies that the executable permission of the source file is preserved.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testExecutable() throws Exception
+    {
+        assumeTrue(OsVersion.IS_UNIX);
+        File baseDir = temporaryFolder.getRoot();
+        File source = createSourceFile(baseDir);
+        assertTrue(source.setExecutable(true));
+        File target = getTargetFile(baseDir);
+        assertFalse(target.exists());
+
+        FileUnpacker unpacker = createUnpacker(baseDir.getAbsoluteFile(), null);
+        PackFile file = createPackFile(baseDir, source, target, Blockable.BLOCKABLE_NONE);
+        unpacker.unpack(file, createPackStream(source), target);
+
+        checkTarget(source, target);
+        assertTrue(target.canExecute());
+    }
+
     /**
      * Helper to create an unpacker.
      *
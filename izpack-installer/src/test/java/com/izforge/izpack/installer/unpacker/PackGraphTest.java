@@ -0,0 +1,148 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.installer.unpacker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.izforge.izpack.api.data.Pack;
+
+
+/**
+ * Tests the {@link PackGraph} class.
+ *
+ * @author agent
+ */
+public class PackGraphTest
+{
+
+    /**
+     * Verifies that packs installing different files are independent, even if they share directories.
+     */
+    @Test
+    public void testIndependent()
+    {
+        PackGraph graph = new PackGraph();
+        graph.add(createPack("base"), 0, files("/opt/app/lib/a.jar"), files("/opt/app", "/opt/app/lib"));
+        graph.add(createPack("docs"), 1, files("/opt/app/doc/index.html"), files("/opt/app", "/opt/app/doc"));
+        graph.add(createPack("samples"), 2, files("/opt/app/samples/a.txt"), files("/opt/app"));
+
+        assertEquals(3, graph.size());
+        assertTrue(graph.isParallel());
+        for (int i = 0; i < graph.size(); ++i)
+        {
+            assertTrue(graph.getPredecessors(i).isEmpty());
+            assertEquals(i, graph.getNumber(i));
+        }
+    }
+
+    /**
+     * Verifies that packs installing the same file, or a file where another installs a directory, are ordered.
+     */
+    @Test
+    public void testConflicts()
+    {
+        PackGraph graph = new PackGraph();
+        graph.add(createPack("base"), 0, files("/opt/app/lib/a.jar"), files("/opt/app/conf"));
+        graph.add(createPack("patch"), 2, files("/opt/app/lib/a.jar"), files());
+        graph.add(createPack("conf"), 3, files("/opt/app/conf"), files());
+
+        // patch and conf only conflict with base, so may be installed concurrently
+        assertTrue(graph.isParallel());
+        assertEquals(Collections.<Integer>emptyList(), graph.getPredecessors(0));
+        assertEquals(Arrays.asList(0), graph.getPredecessors(1));
+        assertEquals(Arrays.asList(0), graph.getPredecessors(2));
+        assertEquals(2, graph.getNumber(1));
+    }
+
+    /**
+     * Verifies that packs are ordered by their dependencies, in either direction.
+     */
+    @Test
+    public void testDependencies()
+    {
+        Pack base = createPack("base");
+        Pack plugin = createPack("plugin");
+        plugin.addDependency("base");
+        Pack tools = createPack("tools");
+        Pack core = createPack("core");
+        tools.addDependency("core");
+
+        PackGraph graph = new PackGraph();
+        graph.add(base, 0, files("/a"), files());
+        graph.add(plugin, 1, files("/b"), files());
+        graph.add(tools, 2, files("/c"), files());
+        graph.add(core, 3, files("/d"), files());
+
+        assertTrue(graph.isParallel());
+        assertEquals(Arrays.asList(0), graph.getPredecessors(1));
+        assertTrue(graph.getPredecessors(2).isEmpty());
+        assertEquals(Arrays.asList(2), graph.getPredecessors(3));
+    }
+
+    /**
+     * Verifies that a graph where each pack must follow the previous one is not parallel.
+     */
+    @Test
+    public void testSequential()
+    {
+        PackGraph graph = new PackGraph();
+        graph.add(createPack("base"), 0, files("/opt/app/a"), files());
+        graph.add(createPack("patch1"), 1, files("/opt/app/a"), files());
+        graph.add(createPack("patch2"), 2, files("/opt/app/a"), files());
+        assertFalse(graph.isParallel());
+    }
+
+    /**
+     * Creates a pack.
+     *
+     * @param name the pack name
+     * @return a new pack
+     */
+    private Pack createPack(String name)
+    {
+        return new Pack(name, null, null, null, null, true, true, false, null, true);
+    }
+
+    /**
+     * Helper to create a set of files.
+     *
+     * @param paths the file paths
+     * @return the files
+     */
+    private Set<File> files(String... paths)
+    {
+        Set<File> result = new HashSet<File>();
+        for (String path : paths)
+        {
+            result.add(new File(path));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.installer.unpacker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.junit.Test;
+
+import com.izforge.izpack.api.data.Variables;
+import com.izforge.izpack.core.data.DefaultVariables;
+import com.izforge.izpack.util.IoHelper;
+
+
+/**
+ * Tests the {@link PathCache} class.
+ *
+ * @author agent
+ */
+public class PathCacheTest
+{
+
+    /**
+     * Verifies that paths are translated the same as {@link IoHelper#translatePath(String, Variables)}.
+     */
+    @Test
+    public void testTranslate()
+    {
+        Variables variables = new DefaultVariables();
+        variables.set("INSTALL_PATH", "/opt/app");
+        variables.set("a/b", "braced");
+        variables.set("NAME", "name");
+        PathCache cache = new PathCache(variables);
+
+        String[] paths = {"$INSTALL_PATH/lib/foo.jar", "${INSTALL_PATH}/lib/bar.jar", "$INSTALL_PATH/lib/",
+                          "$INSTALL_PATH/lib/$NAME.txt", "$INSTALL_PATH/${a/b}", "$INSTALL_PATH/a\\/b",
+                          "$INSTALL_PATH/x\\/y/z", "$INSTALL_PATH//foo", "$/foo", "foo.txt", "/foo.txt",
+                          "$INSTALL_PATH/backup~"};
+        for (String path : paths)
+        {
+            // translate twice, to check cached translations
+            String expected = IoHelper.translatePath(path, variables);
+            assertEquals(path, expected, cache.translate(path));
+            assertEquals(path, expected, cache.translate(path));
+        }
+    }
+
+    /**
+     * Verifies that translations are only refreshed after they are cleared.
+     */
+    @Test
+    public void testClearPaths()
+    {
+        Variables variables = new DefaultVariables();
+        variables.set("INSTALL_PATH", "/opt/app");
+        PathCache cache = new PathCache(variables);
+        String expected = IoHelper.translatePath("/opt/app/foo.txt", variables);
+        assertEquals(expected, cache.translate("$INSTALL_PATH/foo.txt"));
+
+        variables.set("INSTALL_PATH", "/opt/other");
+        assertEquals(expected, cache.translate("$INSTALL_PATH/foo.txt"));
+
+        cache.clearPaths();
+        assertEquals(IoHelper.translatePath("/opt/other/foo.txt", variables), cache.translate("$INSTALL_PATH/foo.txt"));
+    }
+
+    /**
+     * Tests the directory registry.
+     */
+    @Test
+    public void testDirectories()
+    {
+        PathCache cache = new PathCache(new DefaultVariables());
+        File dir = new File("foo");
+        assertFalse(cache.isDirectory(dir));
+        cache.addDirectory(dir);
+        assertTrue(cache.isDirectory(new File("foo")));
+
+        cache.clearPaths();
+        assertTrue(cache.isDirectory(dir));
+
+        cache.clear();
+        assertFalse(cache.isDirectory(dir));
+    }
+}
@@ -0,0 +1,150 @@
+package com.izforge.izpack.installer.unpacker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Properties;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.izforge.izpack.api.substitutor.SubstitutionType;
+import com.izforge.izpack.core.substitutor.VariableSubstitutorImpl;
+import com.izforge.izpack.data.ParsableFile;
+import com.izforge.izpack.util.file.FileUtils;
+
+
+/**
+ * Tests the {@link ScriptParser}.
+ *
+ * @author agent
+ */
+public class ScriptParserTest
+{
+    /**
+     * Temporary folder.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * The parser.
+     */
+    private ScriptParser parser;
+
+    /**
+     * Sets up the test case.
+     */
+    @Before
+    public void setUp()
+    {
+        Properties properties = new Properties();
+        properties.setProperty("INSTALL_PATH", "/opt/app");
+        parser = new ScriptParser(new VariableSubstitutorImpl(properties));
+    }
+
+    /**
+     * Verifies that variables are substituted.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testSubstitute() throws Exception
+    {
+        File file = createFile("home=${INSTALL_PATH}", null);
+        parser.parse(new ParsableFile(file.getPath(), SubstitutionType.TYPE_PLAIN, null, null));
+        assertEquals("home=/opt/app", read(file, null));
+
+        File shell = createFile("cd %INSTALL_PATH", null);
+        parser.parse(new ParsableFile(shell.getPath(), SubstitutionType.TYPE_SHELL, null, null));
+        assertEquals("cd /opt/app", read(shell, null));
+    }
+
+    /**
+     * Verifies that files without variable markers are left untouched.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testNoVariables() throws Exception
+    {
+        ScriptParser parser = new ScriptParser(new VariableSubstitutorImpl(new Properties()));
+        File file = createFile("no variables here", null);
+        assertFalse(parser.containsVariables(file, SubstitutionType.TYPE_PLAIN, null));
+        assertTrue(file.setLastModified(0));
+
+        parser.parse(new ParsableFile(file.getPath(), SubstitutionType.TYPE_PLAIN, null, null));
+        assertEquals(0, file.lastModified());
+        assertEquals("no variables here", read(file, null));
+
+        // a '$' is not a marker for the shell type
+        File shell = createFile("echo $HOME", null);
+        assertFalse(parser.containsVariables(shell, SubstitutionType.TYPE_SHELL, null));
+        assertTrue(parser.containsVariables(shell, SubstitutionType.TYPE_PLAIN, null));
+    }
+
+    /**
+     * Verifies that the pre-scan handles multi-byte encodings.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testEncoding() throws Exception
+    {
+        File file = createFile("home=${INSTALL_PATH}", "UTF-16");
+        assertTrue(parser.containsVariables(file, SubstitutionType.TYPE_PLAIN, "UTF-16"));
+        parser.parse(new ParsableFile(file.getPath(), SubstitutionType.TYPE_PLAIN, "UTF-16", null));
+        assertEquals("home=/opt/app", read(file, "UTF-16"));
+    }
+
+    /**
+     * Creates a file.
+     *
+     * @param content  the file content
+     * @param encoding the encoding. May be {@code null}
+     * @return the file
+     * @throws IOException for any I/O error
+     */
+    private File createFile(String content, String encoding) throws IOException
+    {
+        File file = File.createTempFile("parse", ".txt", temporaryFolder.getRoot());
+        FileOutputStream stream = new FileOutputStream(file);
+        Writer writer = (encoding != null) ? new OutputStreamWriter(stream, encoding) : new OutputStreamWriter(stream);
+        writer.write(content);
+        writer.close();
+        return file;
+    }
+
+    /**
+     * Reads a file.
+     *
+     * @param file     the file to read
+     * @param encoding the encoding. May be {@code null}
+     * @return the file content
+     * @throws IOException for any I/O error
+     */
+    private String read(File file, String encoding) throws IOException
+    {
+        FileInputStream stream = new FileInputStream(file);
+        Reader reader = (encoding != null) ? new InputStreamReader(stream, encoding) : new InputStreamReader(stream);
+        try
+        {
+            return FileUtils.readFully(reader);
+        }
+        finally
+        {
+            reader.close();
+        }
+    }
+}
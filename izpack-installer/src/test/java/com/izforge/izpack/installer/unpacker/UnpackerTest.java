@@ -0,0 +1,529 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.installer.unpacker;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.izforge.izpack.api.data.Blockable;
+import com.izforge.izpack.api.data.Info;
+import com.izforge.izpack.api.data.OverrideType;
+import com.izforge.izpack.api.data.Pack;
+import com.izforge.izpack.api.data.PackFile;
+import com.izforge.izpack.api.data.PackFileCodec;
+import com.izforge.izpack.api.event.ProgressListener;
+import com.izforge.izpack.api.exception.ResourceNotFoundException;
+import com.izforge.izpack.api.handler.Prompt;
+import com.izforge.izpack.core.data.DefaultVariables;
+import com.izforge.izpack.core.metrics.Metrics;
+import com.izforge.izpack.core.rules.RulesEngineImpl;
+import com.izforge.izpack.core.substitutor.VariableSubstitutorImpl;
+import com.izforge.izpack.data.ExecutableFile;
+import com.izforge.izpack.data.ParsableFile;
+import com.izforge.izpack.data.UpdateCheck;
+import com.izforge.izpack.installer.data.InstallData;
+import com.izforge.izpack.installer.data.UninstallData;
+import com.izforge.izpack.installer.event.InstallerListeners;
+import com.izforge.izpack.util.Housekeeper;
+import com.izforge.izpack.util.Platforms;
+import com.izforge.izpack.util.os.FileQueue;
+
+
+/**
+ * Tests the {@link Unpacker} when packs are unpacked concurrently.
+ *
+ * @author agent
+ */
+public class UnpackerTest
+{
+
+    /**
+     * Temporary folder.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * The directory containing the pack sources.
+     */
+    private File sourceDir;
+
+    /**
+     * The installation directory.
+     */
+    private File installDir;
+
+    /**
+     * The pack resources, keyed on name.
+     */
+    private Map<String, byte[]> resources;
+
+    /**
+     * The content of each file that is packed, keyed on target path, relative to the installation directory.
+     */
+    private Map<String, byte[]> contents;
+
+    /**
+     * The prompt.
+     */
+    private Prompt prompt;
+
+
+    /**
+     * Sets up the test case.
+     *
+     * @throws Exception for any error
+     */
+    @Before
+    public void setUp() throws Exception
+    {
+        sourceDir = temporaryFolder.newFolder("source");
+        installDir = temporaryFolder.newFolder("install");
+        resources = new HashMap<String, byte[]>();
+        contents = new LinkedHashMap<String, byte[]>();
+        prompt = mock(Prompt.class);
+    }
+
+    /**
+     * Verifies that packs are unpacked concurrently, that packs only start once the packs they depend on or share
+     * files with have completed, and that progress notifications are delivered one at a time.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testDependencies() throws Exception
+    {
+        Pack base = createPack("base", "base/a.txt", "base/b.txt");
+        Pack docs = createPack("docs", "docs/readme.txt");
+        docs.addDependency("base");
+        Pack extras = createPack("extras", "extras/c.txt");
+        Pack patch = createPack("patch", "base/b.txt");   // replaces a file installed by base
+
+        final TestUnpacker unpacker = createUnpacker(base, docs, extras, patch);
+        RecordingListener listener = new RecordingListener()
+        {
+            @Override
+            protected void started(String pack)
+            {
+                if ("docs".equals(pack) || "patch".equals(pack))
+                {
+                    // base must have completed
+                    assertTrue(new File(installDir, "base/a.txt").exists());
+                    assertTrue(new File(installDir, "base/b.txt").exists());
+                }
+            }
+        };
+        unpacker.setProgressListener(listener);
+        unpacker.unpack();
+
+        assertTrue(unpacker.getResult());
+        assertTrue(unpacker.parallel);
+        assertEquals(4, listener.packs.size());
+        assertTrue(listener.packs.containsAll(Arrays.asList("base", "docs", "extras", "patch")));
+        assertTrue(listener.packs.indexOf("docs") > listener.packs.indexOf("base"));
+        assertTrue(listener.packs.indexOf("patch") > listener.packs.indexOf("base"));
+        assertFalse(listener.overlapped);
+
+        checkInstalled("base/a.txt", "docs/readme.txt", "extras/c.txt");
+        assertArrayEquals(contents.get("base/b.txt"), read(new File(installDir, "base/b.txt")));
+    }
+
+    /**
+     * Verifies that when a pack fails, the packs that depend on it aren't started, and the failure is reported.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testFailure() throws Exception
+    {
+        Pack base = createPack("base", "base/a.txt");
+        Pack docs = createPack("docs", "docs/readme.txt");
+        docs.addDependency("base");
+        Pack extras = createPack("extras", "extras/c.txt");
+        resources.remove("packs/pack-base");
+
+        TestUnpacker unpacker = createUnpacker(base, docs, extras);
+        RecordingListener listener = new RecordingListener();
+        unpacker.setProgressListener(listener);
+        unpacker.unpack();
+
+        assertFalse(unpacker.getResult());
+        assertTrue(unpacker.parallel);
+        assertFalse(listener.packs.contains("docs"));
+        assertFalse(new File(installDir, "docs/readme.txt").exists());
+        verify(prompt).message(Prompt.Type.ERROR, "Missing pack: base");
+    }
+
+    /**
+     * Verifies that cancelling installation while packs are unpacked concurrently stops further packs from
+     * starting.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testCancel() throws Exception
+    {
+        Pack base = createPack("base", "base/a.txt");
+        Pack docs = createPack("docs", "docs/readme.txt");
+        docs.addDependency("base");
+        Pack extras = createPack("extras", "extras/c.txt");
+
+        final TestUnpacker unpacker = createUnpacker(base, docs, extras);
+        RecordingListener listener = new RecordingListener()
+        {
+            @Override
+            protected void started(String pack)
+            {
+                if ("base".equals(pack))
+                {
+                    unpacker.interrupt(1);
+                }
+            }
+        };
+        unpacker.setProgressListener(listener);
+        unpacker.unpack();
+
+        assertFalse(unpacker.getResult());
+        assertTrue(unpacker.parallel);
+        assertFalse(listener.packs.contains("docs"));
+        assertFalse(new File(installDir, "docs/readme.txt").exists());
+        verify(prompt).message(Prompt.Type.INFORMATION, "Installation cancelled");
+    }
+
+    /**
+     * Creates a pack, and writes its pack stream and pack file meta-data to the resources.
+     *
+     * @param name  the pack name
+     * @param paths the paths of the files in the pack, relative to the installation directory
+     * @return a new pack
+     * @throws IOException for any I/O error
+     */
+    private Pack createPack(String name, String... paths) throws IOException
+    {
+        Pack pack = new Pack(name, null, null, null, new ArrayList<String>(), true, true, false, null, true);
+        List<PackFile> files = new ArrayList<PackFile>();
+        List<File> sources = new ArrayList<File>();
+        for (String path : paths)
+        {
+            File source = new File(sourceDir, name + "-" + path.replace('/', '-'));
+            byte[] content = (name + ":" + path).getBytes("UTF-8");
+            OutputStream out = new FileOutputStream(source);
+            try
+            {
+                out.write(content);
+            }
+            finally
+            {
+                out.close();
+            }
+            contents.put(path, content);
+            files.add(new PackFile(sourceDir, source, "$INSTALL_PATH/" + path, null, OverrideType.OVERRIDE_TRUE,
+                                   null, Blockable.BLOCKABLE_NONE));
+            sources.add(source);
+        }
+
+        PackFileCodec codec = new PackFileCodec();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream stream = new ObjectOutputStream(bytes);
+        codec.writeHeader(stream);
+        stream.writeInt(files.size());
+        for (PackFile file : files)
+        {
+            codec.write(file, stream);
+        }
+        stream.close();
+        resources.put("packs/index-" + name, bytes.toByteArray());
+
+        // the codec shares strings between the files of a stream, so each stream needs its own
+        codec = new PackFileCodec();
+        bytes = new ByteArrayOutputStream();
+        stream = new ObjectOutputStream(bytes);
+        codec.writeHeader(stream);
+        stream.writeInt(files.size());
+        for (int i = 0; i < files.size(); ++i)
+        {
+            codec.write(files.get(i), stream);
+            stream.write(read(sources.get(i)));
+        }
+        stream.writeInt(0); // parsables
+        stream.writeInt(0); // executables
+        stream.writeInt(0); // update checks
+        stream.close();
+        resources.put("packs/pack-" + name, bytes.toByteArray());
+        return pack;
+    }
+
+    /**
+     * Creates an unpacker for the specified packs.
+     *
+     * @param packs the packs to unpack
+     * @return a new unpacker
+     */
+    private TestUnpacker createUnpacker(Pack... packs)
+    {
+        InstallData installData = new InstallData(new DefaultVariables());
+        installData.setInstallPath(installDir.getPath());
+        installData.setInfo(new Info());
+        installData.setAvailablePacks(Arrays.asList(packs));
+        installData.getSelectedPacks().addAll(Arrays.asList(packs));
+        Metrics metrics = new Metrics();
+        return new TestUnpacker(installData, new TestPackResources(), new RulesEngineImpl(installData, null,
+                                                                                              Platforms.LINUX),
+                                new VariableSubstitutorImpl(installData.getVariables()), new UninstallData(),
+                                new FileQueueFactory(Platforms.LINUX, null), mock(Housekeeper.class),
+                                new InstallerListeners(installData, prompt, metrics), prompt, metrics);
+    }
+
+    /**
+     * Verifies that files have been installed with the expected content.
+     *
+     * @param paths the file paths, relative to the installation directory
+     * @throws IOException for any I/O error
+     */
+    private void checkInstalled(String... paths) throws IOException
+    {
+        for (String path : paths)
+        {
+            assertArrayEquals(path, contents.get(path), read(new File(installDir, path)));
+        }
+    }
+
+    /**
+     * Reads a file.
+     *
+     * @param file the file
+     * @return the file content
+     * @throws IOException for any I/O error
+     */
+    private byte[] read(File file) throws IOException
+    {
+        byte[] result = new byte[(int) file.length()];
+        InputStream in = new FileInputStream(file);
+        try
+        {
+            int offset = 0;
+            int n;
+            while (offset < result.length && (n = in.read(result, offset, result.length - offset)) != -1)
+            {
+                offset += n;
+            }
+        }
+        finally
+        {
+            in.close();
+        }
+        return result;
+    }
+
+    /**
+     * An unpacker that always unpacks packs concurrently when it can, regardless of the
+     * {@link UnpackerBase#PARALLEL} system property.
+     */
+    private static class TestUnpacker extends Unpacker
+    {
+
+        /**
+         * Determines if packs were unpacked concurrently.
+         */
+        private volatile boolean parallel;
+
+        /**
+         * Constructs a <tt>TestUnpacker</tt>.
+         *
+         * @param installData         the installation data
+         * @param resources           the pack resources
+         * @param rules               the rules engine
+         * @param variableSubstitutor the variable substituter
+         * @param uninstallData       the uninstallation data
+         * @param factory             the file queue factory
+         * @param housekeeper         the housekeeper
+         * @param listeners           the listeners
+         * @param prompt              the prompt
+         * @param metrics             the installation metrics
+         */
+        public TestUnpacker(InstallData installData, PackResources resources, RulesEngineImpl rules,
+                            VariableSubstitutorImpl variableSubstitutor, UninstallData uninstallData,
+                            FileQueueFactory factory, Housekeeper housekeeper, InstallerListeners listeners,
+                            Prompt prompt, Metrics metrics)
+        {
+            super(installData, resources, rules, variableSubstitutor, uninstallData, factory, housekeeper,
+                  listeners, prompt, metrics);
+        }
+
+        @Override
+        protected boolean isParallelSupported(List<Pack> packs, FileQueue queue)
+        {
+            return queue == null && packs.size() > 1;
+        }
+
+        @Override
+        protected void unpack(PackGraph graph, FileQueue queue,
+                              List<ParsableFile> parsables, List<ExecutableFile> executables,
+                              List<UpdateCheck> updateChecks)
+        {
+            parallel = true;
+            super.unpack(graph, queue, parsables, executables, updateChecks);
+        }
+    }
+
+    /**
+     * Pack resources held in memory.
+     */
+    private class TestPackResources implements PackResources
+    {
+
+        @Override
+        public InputStream getPackStream(String name)
+        {
+            byte[] content = resources.get("packs/pack-" + name);
+            if (content == null)
+            {
+                throw new ResourceNotFoundException("Missing pack: " + name);
+            }
+            return new ByteArrayInputStream(content);
+        }
+
+        @Override
+        public InputStream getInputStream(String name)
+        {
+            byte[] content = resources.get(name);
+            if (content == null)
+            {
+                throw new ResourceNotFoundException("Missing resource: " + name);
+            }
+            return new ByteArrayInputStream(content);
+        }
+    }
+
+    /**
+     * A listener that records the packs as they start, and whether notifications were ever delivered concurrently.
+     */
+    private static class RecordingListener implements ProgressListener
+    {
+
+        /**
+         * The names of the packs, in the order they started.
+         */
+        private final List<String> packs = Collections.synchronizedList(new ArrayList<String>());
+
+        /**
+         * The no. of notifications in progress.
+         */
+        private final AtomicInteger active = new AtomicInteger();
+
+        /**
+         * Determines if notifications were delivered concurrently.
+         */
+        private volatile boolean overlapped;
+
+        @Override
+        public void startAction(String name, int steps)
+        {
+        }
+
+        @Override
+        public void stopAction()
+        {
+        }
+
+        @Override
+        public void nextStep(String stepName, int step, int subSteps)
+        {
+            enter();
+            try
+            {
+                packs.add(stepName);
+                started(stepName);
+            }
+            finally
+            {
+                active.decrementAndGet();
+            }
+        }
+
+        @Override
+        public void setSubStepNo(int subSteps)
+        {
+            enter();
+            active.decrementAndGet();
+        }
+
+        @Override
+        public void progress(int subStep, String message)
+        {
+            enter();
+            try
+            {
+                Thread.yield();
+            }
+            finally
+            {
+                active.decrementAndGet();
+            }
+        }
+
+        /**
+         * Invoked when a pack starts.
+         *
+         * @param pack the pack name
+         */
+        protected void started(String pack)
+        {
+        }
+
+        /**
+         * Records entry to a notification.
+         */
+        private void enter()
+        {
+            if (active.incrementAndGet() > 1)
+            {
+                overlapped = true;
+            }
+        }
+    }
+}
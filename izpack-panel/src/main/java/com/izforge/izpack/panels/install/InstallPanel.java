@@ -26,7 +26,7 @@ import javax.swing.JProgressBar;
 import javax.swing.SwingUtilities;
 
 import com.izforge.izpack.api.data.Panel;
-import com.izforge.izpack.api.event.ProgressListener;
+import com.izforge.izpack.api.event.ThroughputProgressListener;
 import com.izforge.izpack.api.resource.Resources;
 import com.izforge.izpack.gui.IzPanelLayout;
 import com.izforge.izpack.gui.LabelFactory;
@@ -40,7 +40,7 @@ import com.izforge.izpack.installer.gui.IzPanel;
  *
  * @author Julien Ponge
  */
-public class InstallPanel extends IzPanel implements ProgressListener
+public class InstallPanel extends IzPanel implements ThroughputProgressListener
 {
 
     private static final long serialVersionUID = 3257282547959410992L;
@@ -85,6 +85,12 @@ public class InstallPanel extends IzPanel implements ProgressListener
      */
     private int noOfPacks = 0;
 
+    /**
+     * The overall progress text, to which throughput is appended while unpacking. Only accessed on the event
+     * dispatch thread.
+     */
+    private String overallText;
+
     /**
      * Constructs an <tt>InstallPanel</tt>.
      *
@@ -152,7 +158,8 @@ public class InstallPanel extends IzPanel implements ProgressListener
                 // figure out how many packs there are to install
                 overallProgressBar.setMinimum(0);
                 overallProgressBar.setMaximum(noOfPacks);
-                overallProgressBar.setString("0 / " + Integer.toString(noOfPacks));
+                overallText = "0 / " + Integer.toString(noOfPacks);
+                overallProgressBar.setString(overallText);
             }
         });
     }
@@ -195,6 +202,7 @@ public class InstallPanel extends IzPanel implements ProgressListener
                 {
                     overallProgressBar.setIndeterminate(false);
                 }
+                overallText = null;
                 overallProgressBar.setString(no_of_packs + " / " + no_of_packs);
                 overallProgressBar.setEnabled(false);
                 packOpLabel.setText(" ");
@@ -246,8 +254,8 @@ public class InstallPanel extends IzPanel implements ProgressListener
                 packProgressBar.setMaximum(max);
                 packProgressBar.setString(packName);
                 overallProgressBar.setValue(stepno - 1);
-                overallProgressBar.setString(Integer.toString(stepno) + " / "
-                                                     + Integer.toString(noOfPacks));
+                overallText = Integer.toString(stepno) + " / " + Integer.toString(noOfPacks);
+                overallProgressBar.setString(overallText);
             }
         });
     }
@@ -266,6 +274,33 @@ public class InstallPanel extends IzPanel implements ProgressListener
         });
     }
 
+    /**
+     * Throughput indicator. Appends the throughput and estimated time remaining to the overall progress.
+     *
+     * @param bytes          the no. of bytes processed since the action started
+     * @param totalBytes     the total no. of bytes the action is expected to process, or {@code 0} if it is unknown
+     * @param bytesPerSecond the average no. of bytes processed per second
+     * @param remaining      the estimated time remaining in milliseconds, or {@code -1} if it is unknown
+     */
+    public void throughput(long bytes, long totalBytes, final long bytesPerSecond, final long remaining)
+    {
+        SwingUtilities.invokeLater(new Runnable()
+        {
+            public void run()
+            {
+                if (overallText != null)
+                {
+                    String text = overallText + " (" + formatRate(bytesPerSecond);
+                    if (remaining >= 0)
+                    {
+                        text += ", " + formatTime(remaining);
+                    }
+                    overallProgressBar.setString(text + ")");
+                }
+            }
+        });
+    }
+
     /**
      * Called when the panel becomes active.
      */
@@ -284,4 +319,36 @@ public class InstallPanel extends IzPanel implements ProgressListener
         parent.install(this);
     }
 
+    /**
+     * Formats a throughput.
+     *
+     * @param bytesPerSecond the no. of bytes per second
+     * @return the formatted throughput
+     */
+    private static String formatRate(long bytesPerSecond)
+    {
+        if (bytesPerSecond >= 1024 * 1024)
+        {
+            return String.format("%.1f MB/s", bytesPerSecond / (1024.0 * 1024.0));
+        }
+        return String.format("%.1f KB/s", bytesPerSecond / 1024.0);
+    }
+
+    /**
+     * Formats a duration as <em>[h:]mm:ss</em>.
+     *
+     * @param millis the duration in milliseconds
+     * @return the formatted duration
+     */
+    private static String formatTime(long millis)
+    {
+        long seconds = (millis + 999) / 1000;
+        long hours = seconds / 3600;
+        if (hours > 0)
+        {
+            return String.format("%d:%02d:%02d", hours, (seconds / 60) % 60, seconds % 60);
+        }
+        return String.format("%d:%02d", seconds / 60, seconds % 60);
+    }
+
 }
@@ -25,15 +25,13 @@
 package com.izforge.izpack.panels.packs;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.ObjectInputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import javax.swing.table.AbstractTableModel;
@@ -42,9 +40,12 @@ import com.izforge.izpack.api.data.InstallData;
 import com.izforge.izpack.api.data.Pack;
 import com.izforge.izpack.api.data.PackColor;
 import com.izforge.izpack.api.data.Variables;
+import com.izforge.izpack.api.exception.InstallerException;
 import com.izforge.izpack.api.resource.Messages;
 import com.izforge.izpack.api.rules.RulesEngine;
 import com.izforge.izpack.installer.data.GUIInstallData;
+import com.izforge.izpack.installer.data.InstallationInformation;
+import com.izforge.izpack.installer.data.InstalledPack;
 
 /**
  * User: Gaganis Giorgos Date: Sep 17, 2004 Time: 8:33:21 AM
@@ -100,46 +101,29 @@ public class PacksModel extends AbstractTableModel
 
             try
             {
-                FileInputStream fin = new FileInputStream(new File(
-                        idata.getInstallPath() + File.separator + InstallData.INSTALLATION_INFORMATION));
-                ObjectInputStream oin = new ObjectInputStream(fin);
-                List<Pack> packsinstalled = (List<Pack>) oin.readObject();
-                for (Pack installedpack : packsinstalled)
+                File file = new File(idata.getInstallPath(), InstallData.INSTALLATION_INFORMATION);
+                InstallationInformation information = InstallationInformation.read(file);
+                List<InstalledPack> packsinstalled = information.getInstalledPacks();
+                for (InstalledPack installedpack : packsinstalled)
                 {
-                    if ((installedpack.getLangPackId() != null) && (installedpack.getLangPackId().length() > 0))
-                    {
-                        this.installedpacks.put(installedpack.getLangPackId(), installedpack);
-                    }
-                    else
-                    {
-                        this.installedpacks.put(installedpack.getName(), installedpack);
-                    }
+                    this.installedpacks.put(installedpack.getKey(), getPack(idata, installedpack));
                 }
                 this.removeAlreadyInstalledPacks(idata.getSelectedPacks());
                 logger.fine("Found " + packsinstalled.size() + " installed packs");
 
-                Properties variables = (Properties) oin.readObject();
-
-                for (Object key : variables.keySet())
+                Properties variables = information.getVariables();
+                for (String key : variables.stringPropertyNames())
                 {
-                    idata.setVariable((String) key, (String) variables.get(key));
+                    idata.setVariable(key, variables.getProperty(key));
                 }
-                fin.close();
-            }
-            catch (FileNotFoundException e)
-            {
-                // TODO Auto-generated catch block
-                e.printStackTrace();
             }
             catch (IOException e)
             {
-                // TODO Auto-generated catch block
-                e.printStackTrace();
+                logger.log(Level.WARNING, "Failed to read installation information: " + e.getMessage(), e);
             }
-            catch (ClassNotFoundException e)
+            catch (InstallerException e)
             {
-                // TODO Auto-generated catch block
-                e.printStackTrace();
+                logger.log(Level.WARNING, "Failed to read installation information: " + e.getMessage(), e);
             }
         }
         this.rules = rules;
@@ -172,6 +156,27 @@ public class PacksModel extends AbstractTableModel
         variables.set(INITAL_PACKSELECTION, Boolean.toString(false));
     }
 
+    /**
+     * Returns the pack corresponding to an installed pack record.
+     * <p/>
+     * If the pack is still available, this is returned, otherwise a pack is created from the record.
+     *
+     * @param idata         the installation data
+     * @param installedpack the installed pack record
+     * @return the corresponding pack
+     */
+    private static Pack getPack(GUIInstallData idata, InstalledPack installedpack)
+    {
+        for (Pack pack : idata.getAvailablePacks())
+        {
+            if (pack.getName().equals(installedpack.getName()))
+            {
+                return pack;
+            }
+        }
+        return installedpack.toPack();
+    }
+
     public Pack getPackAtRow(int row)
     {
         return this.packs.get(row);
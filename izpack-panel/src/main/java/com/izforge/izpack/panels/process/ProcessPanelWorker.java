@@ -15,6 +15,11 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -34,6 +39,7 @@ import com.izforge.izpack.api.rules.RulesEngine;
 import com.izforge.izpack.api.substitutor.VariableSubstitutor;
 import com.izforge.izpack.util.IoHelper;
 import com.izforge.izpack.util.OsConstraintHelper;
+import com.izforge.izpack.util.ProcessExecutor;
 
 /**
  * This class does alle the work for the process panel.
@@ -176,6 +182,7 @@ public class ProcessPanelWorker implements Runnable
                 List<ProcessPanelWorker.Processable> ef_list = new ArrayList<ProcessPanelWorker.Processable>();
 
                 String job_name = job_el.getAttribute("name", "");
+                String job_group = job_el.getAttribute("group");
 
                 for (IXMLElement executeFileElement : job_el.getChildrenNamed("executefile"))
                 {
@@ -234,7 +241,7 @@ public class ProcessPanelWorker implements Runnable
                 }
                 else
                 {
-                    this.jobs.add(new ProcessingJob(job_name, ef_list));
+                    this.jobs.add(new ProcessingJob(job_name, job_group, ef_list));
                 }
             }
         }
@@ -328,17 +335,45 @@ public class ProcessPanelWorker implements Runnable
 
         this.handler.startProcessing(this.jobs.size());
 
-        for (ProcessPanelWorker.ProcessingJob processingJob : this.jobs)
+        // consecutive jobs in the same group are independent, and may be run concurrently
+        List<List<ProcessPanelWorker.ProcessingJob>> groups = getGroups();
+        int threads = 0;
+        for (List<ProcessPanelWorker.ProcessingJob> group : groups)
         {
-            this.handler.startProcess(processingJob.name);
+            threads = Math.max(threads, group.size());
+        }
 
-            this.result = processingJob.run(this.handler, idata.getVariables());
+        // one pool is shared by all groups, sized for the largest
+        ExecutorService executor = (threads > 1) ? Executors.newFixedThreadPool(threads) : null;
+        try
+        {
+            for (List<ProcessPanelWorker.ProcessingJob> group : groups)
+            {
+                if (group.size() == 1)
+                {
+                    ProcessPanelWorker.ProcessingJob processingJob = group.get(0);
+                    this.handler.startProcess(processingJob.name);
+
+                    this.result = processingJob.run(this.handler, idata.getVariables());
 
-            this.handler.finishProcess();
+                    this.handler.finishProcess();
+                }
+                else
+                {
+                    this.result = runGroup(group, executor);
+                }
 
-            if (!this.result)
+                if (!this.result)
+                {
+                    break;
+                }
+            }
+        }
+        finally
+        {
+            if (executor != null)
             {
-                break;
+                executor.shutdown();
             }
         }
 
@@ -373,6 +408,97 @@ public class ProcessPanelWorker implements Runnable
         }
     }
 
+    /**
+     * Splits the jobs into groups of consecutive jobs that share the same group name.
+     * <p/>
+     * Jobs without a group are placed in a group of their own.
+     *
+     * @return the groups, in order
+     */
+    private List<List<ProcessPanelWorker.ProcessingJob>> getGroups()
+    {
+        List<List<ProcessPanelWorker.ProcessingJob>> result = new ArrayList<List<ProcessPanelWorker.ProcessingJob>>();
+        int index = 0;
+        while (index < this.jobs.size())
+        {
+            ProcessPanelWorker.ProcessingJob processingJob = this.jobs.get(index);
+            int end = index + 1;
+            if (processingJob.group != null)
+            {
+                while (end < this.jobs.size() && processingJob.group.equals(this.jobs.get(end).group))
+                {
+                    ++end;
+                }
+            }
+            result.add(this.jobs.subList(index, end));
+            index = end;
+        }
+        return result;
+    }
+
+    /**
+     * Runs a group of independent jobs concurrently.
+     * <p/>
+     * The output of each job is prefixed with the job name. Once a job fails, jobs that haven't started are
+     * skipped; jobs that are already running are allowed to complete.
+     *
+     * @param group    the jobs to run
+     * @param executor the executor to run the jobs. This must have a thread for each job in the group
+     * @return {@code true} if all jobs succeeded, otherwise {@code false}
+     */
+    private boolean runGroup(List<ProcessPanelWorker.ProcessingJob> group, ExecutorService executor)
+    {
+        final AtomicBoolean success = new AtomicBoolean(true);
+        final Variables variables = idata.getVariables();
+        List<Future<?>> futures = new ArrayList<Future<?>>();
+        try
+        {
+            for (final ProcessPanelWorker.ProcessingJob processingJob : group)
+            {
+                futures.add(executor.submit(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        if (success.get())
+                        {
+                            GroupProcessHandler jobHandler = new GroupProcessHandler(handler, processingJob.name);
+                            jobHandler.startProcess(processingJob.name);
+                            if (!processingJob.run(jobHandler, variables))
+                            {
+                                success.set(false);
+                            }
+                            jobHandler.finishProcess();
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures)
+            {
+                try
+                {
+                    future.get();
+                }
+                catch (ExecutionException exception)
+                {
+                    logger.log(Level.WARNING, exception.getCause().toString(), exception.getCause());
+                    success.set(false);
+                }
+            }
+        }
+        catch (InterruptedException exception)
+        {
+            logger.log(Level.FINE, exception.toString(), exception);
+            for (Future<?> future : futures)
+            {
+                future.cancel(true);
+            }
+            Thread.currentThread().interrupt();
+            success.set(false);
+        }
+        return success.get();
+    }
+
     /**
      * Start the compilation in a separate thread.
      */
@@ -409,11 +535,17 @@ public class ProcessPanelWorker implements Runnable
 
         public String name;
 
+        /**
+         * The job group. Consecutive jobs in the same group may be run concurrently. May be {@code null}
+         */
+        public String group;
+
         private List<ProcessPanelWorker.Processable> processables;
 
-        public ProcessingJob(String name, List<ProcessPanelWorker.Processable> processables)
+        public ProcessingJob(String name, String group, List<ProcessPanelWorker.Processable> processables)
         {
             this.name = name;
+            this.group = group;
             this.processables = processables;
         }
 
@@ -498,87 +630,58 @@ public class ProcessPanelWorker implements Runnable
                 }
             }
 
+            // output is streamed to the handler as it is produced, and not retained
+            ProcessExecutor executor = new ProcessExecutor();
+            executor.setMaxOutput(0);
             try
             {
-
-                Process process = processBuilder.start();
-
-                ProcessPanelWorker.ExecutableFile.OutputMonitor stdoutMon = new ProcessPanelWorker.ExecutableFile.OutputMonitor(
-                        this.handler, process.getInputStream(), false);
-                ProcessPanelWorker.ExecutableFile.OutputMonitor stderrMon = new ProcessPanelWorker.ExecutableFile.OutputMonitor(
-                        this.handler, process.getErrorStream(), true);
-                Thread stdoutThread = new Thread(stdoutMon);
-                Thread stderrThread = new Thread(stderrMon);
-                stdoutThread.setDaemon(true);
-                stderrThread.setDaemon(true);
-                stdoutThread.start();
-                stderrThread.start();
-
-                try
+                ProcessExecutor.Result result = executor.execute(processBuilder, new ProcessExecutor.OutputHandler()
                 {
-                    int exitStatus = process.waitFor();
-
-                    stopMonitor(stdoutMon, stdoutThread);
-                    stopMonitor(stderrMon, stderrThread);
-
-                    if (exitStatus != 0)
+                    @Override
+                    public void handleOutput(String line, boolean stderr)
                     {
-                        QuestionErrorDisplayer myErrorAlter = new QuestionErrorDisplayer(handler);
-                        SwingUtilities.invokeAndWait(myErrorAlter);
-                        return myErrorAlter.shouldContinue();
+                        ExecutableFile.this.handler.logOutput(line, stderr);
+
+                        // log output also to file given in ProcessPanelSpec
+                        if (logfile != null)
+                        {
+                            logfile.println(line);
+                        }
                     }
-                }
-                catch (InvocationTargetException ex)
-                {
-                    process.destroy();
-                    this.handler.emitError("process interrupted", ex.toString());
-                    return false;
-                }
-                catch (InterruptedException ie)
+                });
+
+                if (result.getExitStatus() != 0)
                 {
-                    process.destroy();
-                    this.handler.emitError("process interrupted", ie.toString());
-                    return false;
+                    QuestionErrorDisplayer myErrorAlter = new QuestionErrorDisplayer(handler);
+                    SwingUtilities.invokeAndWait(myErrorAlter);
+                    return myErrorAlter.shouldContinue();
                 }
             }
-            catch (IOException ioe)
+            catch (InvocationTargetException ex)
             {
-                this.handler.emitError("I/O error", ioe.toString());
+                this.handler.emitError("process interrupted", ex.toString());
                 return false;
             }
-
-            return true;
-        }
-
-        private void stopMonitor(ProcessPanelWorker.ExecutableFile.OutputMonitor monitor, Thread thread)
-        {
-            // taken from com.izforge.izpack.util.FileExecutor
-            monitor.doStop();
-            long softTimeout = 500;
-            try
-            {
-                thread.join(softTimeout);
-            }
-            catch (InterruptedException e)
+            catch (InterruptedException ie)
             {
+                this.handler.emitError("process interrupted", ie.toString());
+                return false;
             }
-
-            if (!thread.isAlive())
+            catch (IOException ioe)
             {
-                return;
+                this.handler.emitError("I/O error", ioe.toString());
+                return false;
             }
 
-            thread.interrupt();
-            long hardTimeout = 500;
-            try
-            {
-                thread.join(hardTimeout);
-            }
-            catch (InterruptedException e)
-            {
-            }
+            return true;
         }
 
+        /**
+         * Copies process output to the handler, and the log file.
+         *
+         * @deprecated process output is drained by {@link ProcessExecutor}
+         */
+        @Deprecated
         static public class OutputMonitor implements Runnable
         {
 
@@ -645,9 +748,7 @@ public class ProcessPanelWorker implements Runnable
                     this.stop = true;
                 }
             }
-
         }
-
     }
 
     /**
@@ -807,6 +908,178 @@ public class ProcessPanelWorker implements Runnable
         return (false);
     }
 
+    /**
+     * An {@link AbstractUIProcessHandler} for a job run as part of a group.
+     * <p/>
+     * This prefixes output with the job name, and serializes calls to the underlying handler.
+     */
+    private static class GroupProcessHandler implements AbstractUIProcessHandler
+    {
+        /**
+         * The handler to delegate to.
+         */
+        private final AbstractUIProcessHandler handler;
+
+        /**
+         * The output prefix.
+         */
+        private final String prefix;
+
+        /**
+         * Constructs a <tt>GroupProcessHandler</tt>.
+         *
+         * @param handler the handler to delegate to
+         * @param name    the job name
+         */
+        public GroupProcessHandler(AbstractUIProcessHandler handler, String name)
+        {
+            this.handler = handler;
+            this.prefix = "[" + name + "] ";
+        }
+
+        @Override
+        public void logOutput(String message, boolean stderr)
+        {
+            synchronized (handler)
+            {
+                handler.logOutput(prefix + message, stderr);
+            }
+        }
+
+        @Override
+        public void startProcessing(int no_of_processes)
+        {
+            synchronized (handler)
+            {
+                handler.startProcessing(no_of_processes);
+            }
+        }
+
+        @Override
+        public void startProcess(String name)
+        {
+            synchronized (handler)
+            {
+                handler.startProcess(name);
+            }
+        }
+
+        @Override
+        public void finishProcess()
+        {
+            synchronized (handler)
+            {
+                handler.finishProcess();
+            }
+        }
+
+        @Override
+        public void finishProcessing(boolean unlockPrev, boolean unlockNext)
+        {
+            synchronized (handler)
+            {
+                handler.finishProcessing(unlockPrev, unlockNext);
+            }
+        }
+
+        @Override
+        public void emitNotification(String message)
+        {
+            if (SwingUtilities.isEventDispatchThread())
+            {
+                handler.emitNotification(message);
+            }
+            else
+            {
+                synchronized (handler)
+                {
+                    handler.emitNotification(message);
+                }
+            }
+        }
+
+        @Override
+        public boolean emitWarning(String title, String message)
+        {
+            if (SwingUtilities.isEventDispatchThread())
+            {
+                return handler.emitWarning(title, prefix + message);
+            }
+            else
+            {
+                synchronized (handler)
+                {
+                    return handler.emitWarning(title, prefix + message);
+                }
+            }
+        }
+
+        @Override
+        public void emitError(String title, String message)
+        {
+            if (SwingUtilities.isEventDispatchThread())
+            {
+                handler.emitError(title, prefix + message);
+            }
+            else
+            {
+                synchronized (handler)
+                {
+                    handler.emitError(title, prefix + message);
+                }
+            }
+        }
+
+        @Override
+        @Deprecated
+        public void emitErrorAndBlockNext(String title, String message)
+        {
+            if (SwingUtilities.isEventDispatchThread())
+            {
+                handler.emitErrorAndBlockNext(title, prefix + message);
+            }
+            else
+            {
+                synchronized (handler)
+                {
+                    handler.emitErrorAndBlockNext(title, prefix + message);
+                }
+            }
+        }
+
+        @Override
+        public int askQuestion(String title, String question, int choices)
+        {
+            if (SwingUtilities.isEventDispatchThread())
+            {
+                return handler.askQuestion(title, prefix + question, choices);
+            }
+            else
+            {
+                synchronized (handler)
+                {
+                    return handler.askQuestion(title, prefix + question, choices);
+                }
+            }
+        }
+
+        @Override
+        public int askQuestion(String title, String question, int choices, int default_choice)
+        {
+            if (SwingUtilities.isEventDispatchThread())
+            {
+                return handler.askQuestion(title, prefix + question, choices, default_choice);
+            }
+            else
+            {
+                synchronized (handler)
+                {
+                    return handler.askQuestion(title, prefix + question, choices, default_choice);
+                }
+            }
+        }
+    }
+
     private static class QuestionErrorDisplayer implements Runnable
     {
         private AbstractUIProcessHandler uiHandler;
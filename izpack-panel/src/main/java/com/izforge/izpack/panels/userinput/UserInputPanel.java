@@ -16,9 +16,11 @@ import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.StringTokenizer;
+import java.util.WeakHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -46,8 +48,11 @@ import javax.swing.text.BadLocationException;
 import javax.swing.text.Document;
 import javax.swing.text.JTextComponent;
 
+import org.w3c.dom.Node;
+
 import com.izforge.izpack.api.adaptator.IXMLElement;
 import com.izforge.izpack.api.adaptator.IXMLParser;
+import com.izforge.izpack.api.adaptator.impl.XMLElementImpl;
 import com.izforge.izpack.api.adaptator.impl.XMLParser;
 import com.izforge.izpack.api.data.Panel;
 import com.izforge.izpack.api.exception.ResourceNotFoundException;
@@ -249,6 +254,16 @@ public class UserInputPanel extends IzPanel implements ActionListener, ItemListe
 
     private static final String MULTIPLE_FILE_FIELD = "multiFile";
 
+    /**
+     * The parsed specifications, keyed on the resources they were read from. The specification file is only parsed
+     * once, and each panel is given its own copy of its part of it, so that the cached specification is never
+     * modified.
+     * <p/>
+     * Only the specification is cached. Validators and processors are still created from their class names when the
+     * UI elements of a field are created, as their instances may hold state for the field.
+     */
+    private static final Map<Resources, IXMLElement> SPECIFICATIONS = new WeakHashMap<Resources, IXMLElement>();
+
     // ------------------------------------------------------------------------
     // Variable Declarations
     // ------------------------------------------------------------------------
@@ -311,6 +326,14 @@ public class UserInputPanel extends IzPanel implements ActionListener, ItemListe
 
     private List<UIElement> elements = new ArrayList<UIElement>();
 
+    /**
+     * The UI elements created for each displayed field, so that they can be reused when the panel is updated.
+     * <p/>
+     * These are keyed on the field's DOM node, as {@link IXMLElement#getChildrenNamed(String)} returns new
+     * wrappers on each call.
+     */
+    private Map<Node, FieldElements> fieldElements = new IdentityHashMap<Node, FieldElements>();
+
     private JPanel panel;
     private RulesEngine rules;
 
@@ -363,36 +386,43 @@ public class UserInputPanel extends IzPanel implements ActionListener, ItemListe
         TwoColumnLayout layout;
         super.removeAll();
         elements.clear();
+        fieldElements.clear();
 
         // ----------------------------------------------------
         // get a locale database
         // ----------------------------------------------------
-        messages = installData.getMessages();
-        try
-        {
-            String resource = LANG_FILE_NAME + "_" + this.installData.getLocaleISO3();
-            messages = messages.newMessages(resource);
-        }
-        catch (ResourceNotFoundException e)
-        {
-            logger.log(Level.WARNING, e.getMessage(), e);
-        }
-        catch (Exception e)
+        if (messages == null)
         {
-            logger.log(Level.WARNING, e.getMessage(), e);
+            messages = installData.getMessages();
+            try
+            {
+                String resource = LANG_FILE_NAME + "_" + this.installData.getLocaleISO3();
+                messages = messages.newMessages(resource);
+            }
+            catch (ResourceNotFoundException e)
+            {
+                logger.log(Level.WARNING, e.getMessage(), e);
+            }
+            catch (Exception e)
+            {
+                logger.log(Level.WARNING, e.getMessage(), e);
+            }
         }
 
 
         // ----------------------------------------------------
         // read the specifications
         // ----------------------------------------------------
-        try
-        {
-            readSpec();
-        }
-        catch (Throwable exception)
+        if (!haveSpec)
         {
-            logger.log(Level.WARNING, exception.getMessage(), exception);
+            try
+            {
+                readSpec();
+            }
+            catch (Throwable exception)
+            {
+                logger.log(Level.WARNING, exception.getMessage(), exception);
+            }
         }
 
         // ----------------------------------------------------
@@ -418,6 +448,14 @@ public class UserInputPanel extends IzPanel implements ActionListener, ItemListe
         panel = new JPanel();
         panel.setLayout(layout);
 
+        JScrollPane scroller = new JScrollPane(panel);
+        Border emptyBorder = BorderFactory.createEmptyBorder();
+        scroller.setBorder(emptyBorder);
+        scroller.setViewportBorder(emptyBorder);
+        scroller.getVerticalScrollBar().setBorder(emptyBorder);
+        scroller.getHorizontalScrollBar().setBorder(emptyBorder);
+        add(scroller, BorderLayout.CENTER);
+
         if (!haveSpec)
         {
             // return if we could not read the spec. further
@@ -429,6 +467,26 @@ public class UserInputPanel extends IzPanel implements ActionListener, ItemListe
         // refresh variables specified in spec
         updateVariables();
 
+        addFields(true);
+        eventsActivated = true;
+    }
+
+    /**
+     * Adds the UI elements for each field whose condition is fulfilled.
+     * <p/>
+     * When the panel is updated, the elements previously created for a field are reused, unless the text displayed
+     * by the field has changed. Elements are only created for fields that have become visible, so the cost of
+     * an update is proportional to what changed, rather than to the size of the panel.
+     *
+     * @param rebuild if {@code true}, the panel is being rebuilt, and all elements, including titles, are created.
+     *                If {@code false}, the panel is being updated, and titles are left as is
+     */
+    private void addFields(boolean rebuild)
+    {
+        Map<Node, FieldElements> previous = new IdentityHashMap<Node, FieldElements>(fieldElements);
+        elements.clear();
+        fieldElements.clear();
+
         // ----------------------------------------------------
         // process all field nodes. Each field node is analyzed
         // for its type, then an appropriate memeber function
@@ -440,7 +498,7 @@ public class UserInputPanel extends IzPanel implements ActionListener, ItemListe
         {
             String attribute = field.getAttribute(TYPE);
             String associatedVariable = field.getAttribute(VARIABLE);
-            if (associatedVariable != null)
+            if (rebuild && associatedVariable != null)
             {
                 // create automatic existence condition
                 createBuiltInVariableConditions(associatedVariable);
@@ -457,65 +515,107 @@ public class UserInputPanel extends IzPanel implements ActionListener, ItemListe
             }
             if (attribute != null)
             {
-                if (attribute.equals(RULE_FIELD))
-                {
-                    addRuleField(field);
-                }
-                else if (attribute.equals(TEXT_FIELD))
+                if (attribute.equals(TITLE_FIELD))
                 {
-                    addTextField(field);
-                }
-                else if (attribute.equals(COMBO_FIELD))
-                {
-                    addComboBox(field);
-                }
-                else if (attribute.equals(RADIO_FIELD))
-                {
-                    addRadioButton(field);
-                }
-                else if (attribute.equals(PWD_FIELD))
-                {
-                    addPasswordField(field);
-                }
-                else if (attribute.equals(SPACE_FIELD))
-                {
-                    addSpace(field);
-                }
-                else if (attribute.equals(DIVIDER_FIELD))
-                {
-                    addDivider(field);
-                }
-                else if (attribute.equals(CHECK_FIELD))
-                {
-                    addCheckBox(field);
-                }
-                else if (attribute.equals(STATIC_TEXT))
-                {
-                    addText(field);
-                }
-                else if (attribute.equals(TITLE_FIELD))
-                {
-                    addTitle(field);
-                }
-                else if (attribute.equals(SEARCH_FIELD))
-                {
-                    addSearch(field);
-                }
-                else if (attribute.equals(MULTIPLE_FILE_FIELD))
-                {
-                    addMultipleFileField(field);
+                    // titles are added directly to the panel
+                    if (rebuild)
+                    {
+                        addTitle(field);
+                    }
+                    continue;
                 }
-                else if (attribute.equals(FILE_FIELD))
+                String text = getFieldText(field);
+                FieldElements created = previous.get(field.getElement());
+                if (created != null && created.getText().equals(text))
                 {
-                    addFileField(field);
+                    elements.addAll(created.getElements());
                 }
-                else if (attribute.equals(DIR_FIELD))
+                else
                 {
-                    addDirectoryField(field);
+                    int start = elements.size();
+                    addField(attribute, field);
+                    created = new FieldElements(new ArrayList<UIElement>(elements.subList(start, elements.size())),
+                                                text);
                 }
+                fieldElements.put(field.getElement(), created);
             }
         }
-        eventsActivated = true;
+    }
+
+    /**
+     * Creates the UI elements for a field.
+     *
+     * @param attribute the field type
+     * @param field     the field specification
+     */
+    private void addField(String attribute, IXMLElement field)
+    {
+        if (attribute.equals(RULE_FIELD))
+        {
+            addRuleField(field);
+        }
+        else if (attribute.equals(TEXT_FIELD))
+        {
+            addTextField(field);
+        }
+        else if (attribute.equals(COMBO_FIELD))
+        {
+            addComboBox(field);
+        }
+        else if (attribute.equals(RADIO_FIELD))
+        {
+            addRadioButton(field);
+        }
+        else if (attribute.equals(PWD_FIELD))
+        {
+            addPasswordField(field);
+        }
+        else if (attribute.equals(SPACE_FIELD))
+        {
+            addSpace(field);
+        }
+        else if (attribute.equals(DIVIDER_FIELD))
+        {
+            addDivider(field);
+        }
+        else if (attribute.equals(CHECK_FIELD))
+        {
+            addCheckBox(field);
+        }
+        else if (attribute.equals(STATIC_TEXT))
+        {
+            addText(field);
+        }
+        else if (attribute.equals(SEARCH_FIELD))
+        {
+            addSearch(field);
+        }
+        else if (attribute.equals(MULTIPLE_FILE_FIELD))
+        {
+            addMultipleFileField(field);
+        }
+        else if (attribute.equals(FILE_FIELD))
+        {
+            addFileField(field);
+        }
+        else if (attribute.equals(DIR_FIELD))
+        {
+            addDirectoryField(field);
+        }
+    }
+
+    /**
+     * Returns the text displayed by a field, after variable substitution.
+     * <p/>
+     * This is used to determine if the UI elements of a field need to be recreated when the panel is updated.
+     *
+     * @param field the field specification
+     * @return the field text
+     */
+    private String getFieldText(IXMLElement field)
+    {
+        return getText(field) + "|" + getText(field.getFirstChildNamed(SPEC)) + "|"
+                + getText(field.getFirstChildNamed(DESCRIPTION));
     }
 
     private java.util.List<ValidatorContainer> analyzeValidator(IXMLElement specElement)
@@ -1135,14 +1235,6 @@ public class UserInputPanel extends IzPanel implements ActionListener, ItemListe
                 }
             }
         }
-
-        JScrollPane scroller = new JScrollPane(panel);
-        Border emptyBorder = BorderFactory.createEmptyBorder();
-        scroller.setBorder(emptyBorder);
-        scroller.setViewportBorder(emptyBorder);
-        scroller.getVerticalScrollBar().setBorder(emptyBorder);
-        scroller.getHorizontalScrollBar().setBorder(emptyBorder);
-        add(scroller, BorderLayout.CENTER);
     }
 
     /*--------------------------------------------------------------------------*/
@@ -1314,11 +1406,6 @@ public class UserInputPanel extends IzPanel implements ActionListener, ItemListe
     /*--------------------------------------------------------------------------*/
     private void readSpec() throws Exception
     {
-        InputStream input = null;
-        IXMLElement data;
-        List<IXMLElement> specElements;
-        String attribute;
-        String panelattribute;
         String instance = Integer.toString(instanceNumber);
 
         String panelid = null;
@@ -1327,57 +1414,113 @@ public class UserInputPanel extends IzPanel implements ActionListener, ItemListe
         {
             panelid = p.getPanelid();
         }
-        try
-        {
-            input = getResources().getInputStream(SPEC_FILE_NAME);
-        }
-        catch (Exception exception)
-        {
-            haveSpec = false;
-            return;
-        }
-        if (input == null)
-        {
-            haveSpec = false;
-            return;
-        }
 
-        // initialize the parser
-        IXMLParser parser = new XMLParser();
+        spec = getSpecification(instance, panelid);
+        haveSpec = (spec != null);
+    }
 
-        // get the installDataGUI
-        data = parser.parse(input);
+    /*--------------------------------------------------------------------------*/
 
-        // extract the spec to this specific panel instance
-        if (data.hasChildren())
+    /**
+     * Returns a copy of the specification of a panel, parsing the XML specification on first access.
+     *
+     * @param instance the panel instance number
+     * @param panelid  the panel identifier. May be <code>null</code>
+     * @return a copy of the panel specification, or <code>null</code> if it cannot be found
+     * @throws Exception for any problems in reading the specification
+     */
+    /*--------------------------------------------------------------------------*/
+    private IXMLElement getSpecification(String instance, String panelid) throws Exception
+    {
+        Resources resources = getResources();
+        synchronized (SPECIFICATIONS)
         {
-            specElements = data.getChildrenNamed(NODE_ID);
-            for (IXMLElement specElement : specElements)
+            IXMLElement data = SPECIFICATIONS.get(resources);
+            if (data == null)
             {
-                attribute = specElement.getAttribute(INSTANCE_IDENTIFIER);
-                panelattribute = specElement.getAttribute(PANEL_IDENTIFIER);
-
-                if (((attribute != null) && instance.equals(attribute))
-                        || ((panelattribute != null) && (panelid != null) && (panelid
-                        .equals(panelattribute))))
+                InputStream input;
+                try
+                {
+                    input = resources.getInputStream(SPEC_FILE_NAME);
+                }
+                catch (Exception exception)
+                {
+                    return null;
+                }
+                if (input == null)
+                {
+                    return null;
+                }
+                try
+                {
+                    // initialize the parser
+                    IXMLParser parser = new XMLParser();
+                    data = parser.parse(input);
+                }
+                finally
                 {
-                    // use the current element as spec
-                    spec = specElement;
-                    // close the stream
                     input.close();
-                    haveSpec = true;
-                    return;
                 }
+                SPECIFICATIONS.put(resources, data);
             }
 
-            haveSpec = false;
-            return;
+            // extract the spec to this specific panel instance
+            if (data.hasChildren())
+            {
+                for (IXMLElement specElement : data.getChildrenNamed(NODE_ID))
+                {
+                    String attribute = specElement.getAttribute(INSTANCE_IDENTIFIER);
+                    String panelattribute = specElement.getAttribute(PANEL_IDENTIFIER);
+
+                    if (((attribute != null) && instance.equals(attribute))
+                            || ((panelattribute != null) && (panelid != null) && (panelid
+                            .equals(panelattribute))))
+                    {
+                        // copy the element, as the DOM isn't thread safe, and panels may modify it
+                        return copy(specElement);
+                    }
+                }
+            }
+            return null;
         }
+    }
 
-        haveSpec = false;
+    /**
+     * Returns a deep copy of an element, including the line numbers used to report errors.
+     *
+     * @param element the element to copy
+     * @return a copy of the element
+     */
+    private static IXMLElement copy(IXMLElement element)
+    {
+        Node source = element.getElement();
+        Node target = source.cloneNode(true);
+        copyLineNumbers(source, target);
+        return new XMLElementImpl(target);
     }
 
-    /*--------------------------------------------------------------------------*/
+    /**
+     * Copies the line numbers of a node and its descendants to its copy.
+     *
+     * @param source the node to copy from
+     * @param target the copy of the node
+     */
+    private static void copyLineNumbers(Node source, Node target)
+    {
+        Object lineNumber = source.getUserData("ln");
+        if (lineNumber != null)
+        {
+            target.setUserData("ln", lineNumber, null);
+        }
+        Node sourceChild = source.getFirstChild();
+        Node targetChild = target.getFirstChild();
+        while (sourceChild != null && targetChild != null)
+        {
+            copyLineNumbers(sourceChild, targetChild);
+            sourceChild = sourceChild.getNextSibling();
+            targetChild = targetChild.getNextSibling();
+        }
+    }
 
     /**
      * Adds the title to the panel. There can only be one title, if mutiple titles are defined, they
@@ -3897,6 +4040,54 @@ public class UserInputPanel extends IzPanel implements ActionListener, ItemListe
 
     } // private class SearchFile
 
+    /**
+     * The UI elements created for a field.
+     */
+    private static class FieldElements
+    {
+        /**
+         * The elements.
+         */
+        private final List<UIElement> elements;
+
+        /**
+         * The field text, at the time the elements were created.
+         */
+        private final String text;
+
+        /**
+         * Constructs a <tt>FieldElements</tt>.
+         *
+         * @param elements the elements
+         * @param text     the field text
+         */
+        public FieldElements(List<UIElement> elements, String text)
+        {
+            this.elements = elements;
+            this.text = text;
+        }
+
+        /**
+         * Returns the elements.
+         *
+         * @return the elements
+         */
+        public List<UIElement> getElements()
+        {
+            return elements;
+        }
+
+        /**
+         * Returns the field text, at the time the elements were created.
+         *
+         * @return the field text
+         */
+        public String getText()
+        {
+            return text;
+        }
+    }
+
     protected void updateVariables()
     {
         /**
@@ -4015,11 +4206,11 @@ public class UserInputPanel extends IzPanel implements ActionListener, ItemListe
             this.eventsActivated = false;
             if (isValidated())
             {
-                // read input
-                // and update elements
-                // panelActivate();
-                init();
+                // read input, and update the elements whose conditions changed
+                List<UIElement> previous = new ArrayList<UIElement>(elements);
                 updateVariables();
+                addFields(false);
+                removeChangedElements(previous);
                 updateUIElements();
                 buildUI();
                 validate();
@@ -4029,6 +4220,30 @@ public class UserInputPanel extends IzPanel implements ActionListener, ItemListe
         }
     }
 
+    /**
+     * Removes elements from the panel, from the first element that differs from those now required.
+     * <p/>
+     * Elements before it are left in place, and {@link #buildUI()} appends the remainder, preserving their order.
+     *
+     * @param previous the elements prior to the update
+     */
+    private void removeChangedElements(List<UIElement> previous)
+    {
+        int index = 0;
+        while (index < previous.size() && index < elements.size() && previous.get(index) == elements.get(index))
+        {
+            ++index;
+        }
+        for (UIElement element : previous.subList(index, previous.size()))
+        {
+            if (element.isDisplayed())
+            {
+                element.setDisplayed(false);
+                panel.remove(element.getComponent());
+            }
+        }
+    }
+
     @Override
     public void focusGained(FocusEvent e)
     {
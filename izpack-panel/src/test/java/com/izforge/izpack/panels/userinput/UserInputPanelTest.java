@@ -0,0 +1,267 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.panels.userinput;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.awt.Component;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import javax.swing.JScrollPane;
+import javax.swing.text.JTextComponent;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.izforge.izpack.api.data.Info;
+import com.izforge.izpack.api.data.LocaleDatabase;
+import com.izforge.izpack.api.data.Panel;
+import com.izforge.izpack.api.resource.Locales;
+import com.izforge.izpack.api.resource.Messages;
+import com.izforge.izpack.api.resource.Resources;
+import com.izforge.izpack.api.rules.RulesEngine;
+import com.izforge.izpack.core.data.DefaultVariables;
+import com.izforge.izpack.installer.data.GUIInstallData;
+import com.izforge.izpack.installer.gui.InstallerFrame;
+
+
+/**
+ * Tests the {@link UserInputPanel} class.
+ * <p/>
+ * These verify that updating the panel when a field changes only recreates the UI elements of fields that changed,
+ * and that the elements are displayed in the order of the specification.
+ *
+ * @author agent
+ */
+public class UserInputPanelTest
+{
+
+    /**
+     * The installation data.
+     */
+    private GUIInstallData installData;
+
+    /**
+     * The rules engine.
+     */
+    private RulesEngine rules;
+
+
+    /**
+     * Sets up the test case.
+     *
+     * @throws Exception for any error
+     */
+    @Before
+    public void setUp() throws Exception
+    {
+        installData = new GUIInstallData(new DefaultVariables());
+        installData.setInfo(new Info());
+        Locales locales = mock(Locales.class);
+        InputStream langpack = getClass().getResourceAsStream("/com/izforge/izpack/bin/langpacks/installer/eng.xml");
+        installData.setMessages(new LocaleDatabase(langpack, locales));
+
+        // no panel specific messages
+        Messages empty = new LocaleDatabase(new ByteArrayInputStream("<langpack/>".getBytes()), locales);
+        when(locales.getMessages(anyString())).thenReturn(empty);
+        installData.setLocale(Locale.ENGLISH);
+        rules = mock(RulesEngine.class);
+    }
+
+    /**
+     * Verifies that when a condition toggles a field between two others, the field is added and removed in place,
+     * and the elements of the other fields are reused.
+     */
+    @Test
+    public void testConditionalField()
+    {
+        Resources resources = createResources("<panel id='panel'>"
+                                                      + "<field type='staticText' txt='first'/>"
+                                                      + "<field type='staticText' txt='middle' conditionid='show'/>"
+                                                      + "<field type='staticText' txt='last'/>"
+                                                      + "</panel>");
+        when(rules.isConditionTrue("show", installData)).thenReturn(false);
+        UserInputPanel panel = createPanel("panel", resources);
+        panel.panelActivate();
+        List<Component> components = getComponents(panel);
+        assertEquals(Arrays.asList("first", "last"), getText(components));
+        Component first = components.get(0);
+        Component last = components.get(1);
+
+        when(rules.isConditionTrue("show", installData)).thenReturn(true);
+        panel.focusLost(null);
+        components = getComponents(panel);
+        assertEquals(Arrays.asList("first", "middle", "last"), getText(components));
+        assertSame(first, components.get(0));
+        assertSame(last, components.get(2));
+
+        when(rules.isConditionTrue("show", installData)).thenReturn(false);
+        panel.focusLost(null);
+        components = getComponents(panel);
+        assertEquals(Arrays.asList("first", "last"), getText(components));
+        assertSame(first, components.get(0));
+        assertSame(last, components.get(1));
+    }
+
+    /**
+     * Verifies that a field is recreated when the variables it displays change, and that the elements of the
+     * other fields are reused.
+     */
+    @Test
+    public void testSubstitution()
+    {
+        Resources resources = createResources("<panel id='panel'>"
+                                                      + "<field type='staticText' txt='first'/>"
+                                                      + "<field type='staticText' txt='Install to ${path}'/>"
+                                                      + "<field type='staticText' txt='last'/>"
+                                                      + "</panel>");
+        installData.setVariable("path", "/opt/a");
+        UserInputPanel panel = createPanel("panel", resources);
+        panel.panelActivate();
+        List<Component> components = getComponents(panel);
+        assertEquals(Arrays.asList("first", "Install to /opt/a", "last"), getText(components));
+        Component first = components.get(0);
+        Component middle = components.get(1);
+        Component last = components.get(2);
+
+        // no change, so nothing is recreated
+        panel.focusLost(null);
+        components = getComponents(panel);
+        assertSame(first, components.get(0));
+        assertSame(middle, components.get(1));
+        assertSame(last, components.get(2));
+
+        installData.setVariable("path", "/opt/b");
+        panel.focusLost(null);
+        components = getComponents(panel);
+        assertEquals(Arrays.asList("first", "Install to /opt/b", "last"), getText(components));
+        assertSame(first, components.get(0));
+        assertNotSame(middle, components.get(1));
+        assertSame(last, components.get(2));
+    }
+
+    /**
+     * Verifies that panels share the parsed specification, but not the UI elements created from it.
+     */
+    @Test
+    public void testSharedSpecification()
+    {
+        Resources resources = createResources("<panel id='panel1'><field type='staticText' txt='one'/></panel>"
+                                                      + "<panel id='panel2'><field type='staticText' txt='two'/>"
+                                                      + "</panel>");
+        UserInputPanel panel1 = createPanel("panel1", resources);
+        UserInputPanel panel2 = createPanel("panel2", resources);
+        UserInputPanel panel3 = createPanel("panel1", resources);
+        panel1.panelActivate();
+        panel2.panelActivate();
+        panel3.panelActivate();
+
+        // the specification is only read once
+        verify(resources, times(1)).getInputStream("userInputSpec.xml");
+
+        assertEquals(Arrays.asList("one"), getText(getComponents(panel1)));
+        assertEquals(Arrays.asList("two"), getText(getComponents(panel2)));
+        assertEquals(Arrays.asList("one"), getText(getComponents(panel3)));
+
+        // panels displaying the same specification have their own components
+        Component component1 = getComponents(panel1).get(0);
+        Component component3 = getComponents(panel3).get(0);
+        assertNotSame(component1, component3);
+
+        panel3.focusLost(null);
+        assertSame(component1, getComponents(panel1).get(0));
+        assertSame(component3, getComponents(panel3).get(0));
+    }
+
+    /**
+     * Creates resources that supply a user input specification.
+     *
+     * @param panels the panel specifications
+     * @return the resources
+     */
+    private Resources createResources(String panels)
+    {
+        String spec = "<userInput>" + panels + "</userInput>";
+        Resources resources = mock(Resources.class);
+        when(resources.getInputStream("userInputSpec.xml")).thenReturn(new ByteArrayInputStream(spec.getBytes()));
+        return resources;
+    }
+
+    /**
+     * Creates a panel.
+     *
+     * @param id        the panel identifier
+     * @param resources the resources
+     * @return a new panel
+     */
+    private UserInputPanel createPanel(String id, Resources resources)
+    {
+        Panel panel = new Panel();
+        panel.setPanelid(id);
+        return new UserInputPanel(panel, mock(InstallerFrame.class), installData, resources, rules);
+    }
+
+    /**
+     * Returns the components displayed by a panel, in the order they were added.
+     *
+     * @param panel the panel
+     * @return the components
+     */
+    private List<Component> getComponents(UserInputPanel panel)
+    {
+        for (Component component : panel.getComponents())
+        {
+            if (component instanceof JScrollPane)
+            {
+                java.awt.Container view = (java.awt.Container) ((JScrollPane) component).getViewport().getView();
+                return Arrays.asList(view.getComponents());
+            }
+        }
+        throw new IllegalStateException("Panel has no fields");
+    }
+
+    /**
+     * Returns the text displayed by components.
+     *
+     * @param components the components
+     * @return the text of each component
+     */
+    private List<String> getText(List<Component> components)
+    {
+        List<String> result = new ArrayList<String>();
+        for (Component component : components)
+        {
+            result.add(((JTextComponent) component).getText());
+        }
+        return result;
+    }
+}
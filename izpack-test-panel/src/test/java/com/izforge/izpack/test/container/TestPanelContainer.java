@@ -17,8 +17,10 @@ import com.izforge.izpack.core.container.AbstractContainer;
 import com.izforge.izpack.core.container.PlatformProvider;
 import com.izforge.izpack.core.data.DefaultVariables;
 import com.izforge.izpack.core.factory.DefaultObjectFactory;
+import com.izforge.izpack.core.metrics.Metrics;
 import com.izforge.izpack.core.resource.ResourceManager;
 import com.izforge.izpack.core.rules.ConditionContainer;
+import com.izforge.izpack.core.trace.TraceRecorder;
 import com.izforge.izpack.gui.log.Log;
 import com.izforge.izpack.installer.automation.AutomatedInstaller;
 import com.izforge.izpack.installer.base.InstallDataConfiguratorWithRules;
@@ -63,6 +65,8 @@ public class TestPanelContainer extends AbstractContainer
         Properties properties = System.getProperties();
         addComponent(properties, properties);
         addComponent(Variables.class, DefaultVariables.class);
+        addComponent(TraceRecorder.class);
+        addComponent(Metrics.class);
         addComponent(ResourceManager.class);
         addComponent(InstallerController.class);
         addComponent(UninstallData.class);
@@ -1,6 +1,7 @@
 package com.izforge.izpack.installer.console;
 
 import com.izforge.izpack.api.data.AutomatedInstallData;
+import com.izforge.izpack.core.metrics.Metrics;
 import com.izforge.izpack.installer.data.UninstallDataWriter;
 import com.izforge.izpack.installer.requirement.RequirementsChecker;
 import com.izforge.izpack.test.util.TestConsole;
@@ -25,14 +26,15 @@ public class TestConsoleInstaller extends ConsoleInstaller
      * @param writer       the uninstallation data writer
      * @param console      the console
      * @param housekeeper  the house-keeper
+     * @param metrics      the installation metrics
      * @throws Exception for any error
      */
     public TestConsoleInstaller(ConsolePanels panels, AutomatedInstallData installData,
                                 RequirementsChecker requirements, UninstallDataWriter writer,
-                                TestConsole console, Housekeeper housekeeper)
+                                TestConsole console, Housekeeper housekeeper, Metrics metrics)
             throws Exception
     {
-        super(panels, installData, requirements, writer, console, housekeeper);
+        super(panels, installData, requirements, writer, console, housekeeper, metrics);
     }
 
     /**
@@ -39,6 +39,7 @@ import com.izforge.izpack.compiler.packager.impl.MultiVolumePackager;
 import com.izforge.izpack.compiler.stream.JarOutputStream;
 import com.izforge.izpack.core.data.DefaultVariables;
 import com.izforge.izpack.core.io.VolumeLocator;
+import com.izforge.izpack.core.metrics.Metrics;
 import com.izforge.izpack.core.resource.ResourceManager;
 import com.izforge.izpack.core.substitutor.VariableSubstitutorImpl;
 import com.izforge.izpack.data.PackInfo;
@@ -237,10 +238,11 @@ public class MultiVolumeUnpackerTest
         PackResources packResources = new ConsolePackResources(resources, installData);
         FileQueueFactory queue = new FileQueueFactory(Platforms.WINDOWS, librarian);
         Prompt prompt = Mockito.mock(Prompt.class);
-        InstallerListeners listeners = new InstallerListeners(installData, prompt);
+        Metrics metrics = new Metrics();
+        InstallerListeners listeners = new InstallerListeners(installData, prompt, metrics);
         MultiVolumeUnpacker unpacker = new MultiVolumeUnpacker(installData, packResources, rules, replacer,
                                                                uninstallData, queue, housekeeper,
-                                                               listeners, prompt, locator);
+                                                               listeners, prompt, locator, metrics);
         unpacker.setProgressListener(Mockito.mock(ProgressListener.class));
         return unpacker;
     }
@@ -1,12 +1,16 @@
 package com.izforge.izpack.integration.console;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Properties;
 
 import org.junit.Test;
@@ -23,6 +27,7 @@ import com.izforge.izpack.test.Container;
 import com.izforge.izpack.test.InstallFile;
 import com.izforge.izpack.test.junit.PicoRunner;
 import com.izforge.izpack.test.util.TestConsole;
+import com.izforge.izpack.util.IoHelper;
 
 
 /**
@@ -192,6 +197,35 @@ public class ConsoleInstallationTest extends AbstractConsoleInstallationTest
         assertTrue(new File(installPath, "Uninstaller/uninstaller.jar").exists());
     }
 
+    /**
+     * Verifies that files stored in one pack and referenced back from a later pack are installed with the same
+     * content by both.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    @InstallFile("samples/console/install_backref.xml")
+    public void testInstallBackReference() throws Exception
+    {
+        InstallData installData = getInstallData();
+
+        File file = new File(temporaryFolder.getRoot(), "IzPackInstall.properties");
+        File installPath = new File(temporaryFolder.getRoot(), "izpackTest");
+        Properties properties = new Properties();
+        properties.put(InstallData.INSTALL_PATH, installPath.getPath());
+        properties.store(new FileOutputStream(file), "IzPack installation properties");
+
+        installer.run(Installer.CONSOLE_FROM_TEMPLATE, file.getPath());
+        assertTrue(installData.isInstallSuccess());
+
+        for (String name : new String[]{"Readme.txt", "Licence.txt"})
+        {
+            byte[] expected = getContent(getClass().getResourceAsStream("/samples/console/" + name));
+            assertArrayEquals(expected, getContent(new FileInputStream(new File(installPath, name))));
+            assertArrayEquals(expected, getContent(new FileInputStream(new File(installPath, "copy/" + name))));
+        }
+    }
+
     /**
      * Verifies that an installer with panels that have no corresponding {@link PanelConsole} doesn't install.
      */
@@ -215,6 +249,27 @@ public class ConsoleInstallationTest extends AbstractConsoleInstallationTest
         assertFalse(installPath.exists());
     }
 
+    /**
+     * Returns the content of a stream, closing it.
+     *
+     * @param stream the stream
+     * @return the content of the stream
+     * @throws IOException for any I/O error
+     */
+    private byte[] getContent(InputStream stream) throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try
+        {
+            IoHelper.copyStream(stream, out);
+        }
+        finally
+        {
+            stream.close();
+        }
+        return out.toByteArray();
+    }
+
     /**
      * Verifies that console installation completes successfully.
      * \
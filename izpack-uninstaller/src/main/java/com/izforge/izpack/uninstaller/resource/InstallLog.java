@@ -5,14 +5,17 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
-import java.util.TreeSet;
 
 import com.izforge.izpack.api.exception.IzPackException;
 import com.izforge.izpack.api.resource.Resources;
+import com.izforge.izpack.util.OsVersion;
 import com.izforge.izpack.util.file.FileUtils;
+import com.izforge.izpack.util.file.PathList;
 
 
 /**
@@ -30,15 +33,44 @@ public class InstallLog
      */
     private static final String INSTALL_LOG = "install.log";
 
+    /**
+     * The no. of paths sorted in memory as strings, before being front-coded and merged.
+     */
+    static final int RUN_SIZE = 65536;
+
+    /**
+     * Orders paths in leaf first order, i.e. the reverse of {@link File#compareTo(File)}.
+     */
+    private static final Comparator<String> LEAF_ORDER = OsVersion.IS_WINDOWS
+            ? Collections.reverseOrder(String.CASE_INSENSITIVE_ORDER) : Collections.<String>reverseOrder();
+
     /**
      * The installation directory.
      */
     private final String installPath;
 
     /**
-     * The installed files.
+     * The installed file paths, in leaf first order.
+     */
+    private final PathList paths;
+
+    /**
+     * The installed files. This is a view of {@link #paths}.
      */
-    private final List<File> files;
+    private final List<File> files = new AbstractList<File>()
+    {
+        @Override
+        public File get(int index)
+        {
+            return new File(paths.get(index));
+        }
+
+        @Override
+        public int size()
+        {
+            return paths.size();
+        }
+    };
 
 
     /**
@@ -58,7 +90,7 @@ public class InstallLog
             BufferedReader reader = new BufferedReader(inReader);
 
             installPath = getInstallPath(reader);
-            files = getFiles(reader);
+            paths = getPaths(reader, RUN_SIZE);
         }
         catch (IOException exception)
         {
@@ -83,6 +115,8 @@ public class InstallLog
 
     /**
      * Returns the installed files, in leaf order.
+     * <p/>
+     * The files are created on demand from the underlying paths, so should be accessed sequentially.
      *
      * @return the installed files
      */
@@ -139,25 +173,59 @@ public class InstallLog
     }
 
     /**
-     * Returns the installed files, in leaf first order.
+     * Returns the installed file paths, in leaf first order.
+     * <p/>
+     * Paths are sorted in runs of strings which are then front-coded, and the runs merged, so that the install log
+     * is never held in memory as strings in its entirety. Duplicate paths are removed.
      *
-     * @param reader the <em>install.log</em> reader
-     * @return the installed files
+     * @param reader  the <em>install.log</em> reader
+     * @param runSize the maximum no. of paths to sort as strings
+     * @return the installed file paths
      * @throws IOException for any I/O error
      */
-    private List<File> getFiles(BufferedReader reader) throws IOException
+    static PathList getPaths(BufferedReader reader, int runSize) throws IOException
     {
-        TreeSet<File> files = new TreeSet<File>(Collections.reverseOrder());
+        List<PathList> runs = new ArrayList<PathList>();
+        List<String> run = new ArrayList<String>();
         String read = reader.readLine();
         while (read != null)
         {
-            files.add(new File(read));
+            // normalise the path as File does, so that paths compare the same as files
+            run.add(new File(read).getPath());
+            if (run.size() == runSize)
+            {
+                runs.add(sort(run));
+                run.clear();
+            }
             read = reader.readLine();
         }
-
-        // We return it
-        return new ArrayList<File>(files);
+        if (!run.isEmpty())
+        {
+            runs.add(sort(run));
+        }
+        return (runs.size() == 1) ? runs.get(0) : PathList.merge(runs, LEAF_ORDER);
     }
 
+    /**
+     * Sorts paths in leaf first order, removing duplicates.
+     *
+     * @param paths the paths to sort
+     * @return the sorted paths
+     */
+    private static PathList sort(List<String> paths)
+    {
+        Collections.sort(paths, LEAF_ORDER);
+        PathList result = new PathList();
+        String previous = null;
+        for (String path : paths)
+        {
+            if (previous == null || LEAF_ORDER.compare(previous, path) != 0)
+            {
+                result.add(path);
+                previous = path;
+            }
+        }
+        return result;
+    }
 
 }
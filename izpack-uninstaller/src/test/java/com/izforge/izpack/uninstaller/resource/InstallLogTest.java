@@ -4,9 +4,11 @@ package com.izforge.izpack.uninstaller.resource;
 import static org.junit.Assert.assertEquals;
 import static org.mockito.Mockito.when;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
 import java.io.StringReader;
+import java.util.Arrays;
 import java.util.List;
 
 import org.apache.commons.io.input.ReaderInputStream;
@@ -83,4 +85,25 @@ public class InstallLogTest
         assertEquals(new File("myapp/dir1"), installed.get(3));
     }
 
+    /**
+     * Verifies that paths sorted in several runs are merged in leaf first order, with duplicates removed.
+     *
+     * @throws IOException for any I/O error
+     */
+    @Test
+    public void testMergeRuns() throws IOException
+    {
+        String paths = "myapp/dir2/dir3\n"
+                + "myapp/dir2/dir3/file2\n"
+                + "myapp/dir2/file1\n"
+                + "myapp/dir1\n"
+                + "myapp/dir2/file1\n"
+                + "myapp/dir2/dir3\n"
+                + "myapp/dir2/\n";
+        List<String> installed = InstallLog.getPaths(new BufferedReader(new StringReader(paths)), 2);
+        assertEquals(Arrays.asList(new File("myapp/dir2/file1").getPath(), new File("myapp/dir2/dir3/file2").getPath(),
+                                   new File("myapp/dir2/dir3").getPath(), new File("myapp/dir2").getPath(),
+                                   new File("myapp/dir1").getPath()), installed);
+    }
+
 }
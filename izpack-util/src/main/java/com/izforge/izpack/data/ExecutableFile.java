@@ -108,6 +108,12 @@ public class ExecutableFile implements Serializable
      */
     public boolean keepFile;
 
+    /**
+     * The execution group. Consecutive executables in the same group don't depend on each other, and may be
+     * executed concurrently. If {@code null}, the executable runs on its own.
+     */
+    public String group = null;
+
     /**
      * condition for this executable
      */
@@ -195,6 +201,8 @@ public class ExecutableFile implements Serializable
         }
         retval.append("keepFile = ").append(keepFile);
         retval.append("\n");
+        retval.append("group = ").append(group);
+        retval.append("\n");
         return retval.toString();
     }
 
@@ -24,12 +24,15 @@ package com.izforge.izpack.util;
 import java.io.File;
 import java.io.FilenameFilter;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -50,36 +53,10 @@ public class FileExecutor
 
     private static final String JAR_FILE_SUFFIX = ".jar";
 
-    private boolean stopThread(Thread t, MonitorInputStream monitorInputStream)
-    {
-        monitorInputStream.doStop();
-        long softTimeout = 1000;
-        try
-        {
-            t.join(softTimeout);
-        }
-        catch (InterruptedException e)
-        {
-            // ignore
-        }
-
-        if (!t.isAlive())
-        {
-            return true;
-        }
-
-        t.interrupt();
-        long hardTimeout = 1000;
-        try
-        {
-            t.join(hardTimeout);
-        }
-        catch (InterruptedException e)
-        {
-            // ignore
-        }
-        return !t.isAlive();
-    }
+    /**
+     * Executes system commands.
+     */
+    private final ProcessExecutor processExecutor = new ProcessExecutor();
 
     /**
      * Constructs a new executor. The executable files specified must have pretranslated paths
@@ -207,11 +184,6 @@ public class FileExecutor
         {
             retval.append("working dir: ").append(dir).append("\n");
         }
-        Process process = null;
-        MonitorInputStream outMonitor = null;
-        MonitorInputStream errMonitor = null;
-        Thread outMonitorThread = null;
-        Thread errMonitorThread = null;
         int exitStatus = -1;
 
         logger.fine(retval.toString());
@@ -223,43 +195,26 @@ public class FileExecutor
             {
                 params[0] = new File(params[0]).getCanonicalPath();
             }
+            File workingDir = null;
             if (dir != null)
             {
                 if (dir.matches("^.*[\\\\/]+[\\.]+[\\\\/]+.*$"))
                 {
                     dir = new File(dir).getCanonicalPath();
                 }
-                process = Runtime.getRuntime().exec(params, null, new File(dir));
-            }
-            else
-            {
-                process = Runtime.getRuntime().exec(params);
+                workingDir = new File(dir);
             }
 
-            StringWriter outWriter = new StringWriter();
-            StringWriter errWriter = new StringWriter();
-
-            InputStreamReader outStreamReader = new InputStreamReader(process.getInputStream());
-            InputStreamReader errStreamReader = new InputStreamReader(process.getErrorStream());
-            outMonitor = new MonitorInputStream(outStreamReader, outWriter);
-            errMonitor = new MonitorInputStream(errStreamReader, errWriter);
-            outMonitorThread = new Thread(outMonitor);
-            errMonitorThread = new Thread(errMonitor);
-            outMonitorThread.setDaemon(true);
-            errMonitorThread.setDaemon(true);
-            outMonitorThread.start();
-            errMonitorThread.start();
-
-            // wait for command to complete
-            exitStatus = process.waitFor();
-            outMonitorThread.join();
-            errMonitorThread.join();
+            // output is drained by this thread and a pooled thread; the process is destroyed on completion,
+            // so that many calls (like chmods for every file) don't leak handles
+            ProcessExecutor.Result result = processExecutor.execute(params, workingDir);
+            exitStatus = result.getExitStatus();
 
             // save command output
-            output[0] = outWriter.toString();
+            output[0] = result.getStdout();
             logger.fine("stdout:");
             logger.fine(output[0]);
-            output[1] = errWriter.toString();
+            output[1] = result.getStderr();
             logger.fine("stderr:");
             logger.fine(output[1]);
             logger.fine("exit status: " + Integer.toString(exitStatus));
@@ -267,8 +222,6 @@ public class FileExecutor
         catch (InterruptedException e)
         {
             logger.log(Level.FINE, e.toString(), e);
-            stopThread(outMonitorThread, outMonitor);
-            stopThread(errMonitorThread, errMonitor);
             output[0] = "";
             output[1] = e.getMessage() + "\n";
         }
@@ -278,21 +231,16 @@ public class FileExecutor
             output[0] = "";
             output[1] = e.getMessage() + "\n";
         }
-        finally
-        {
-            // cleans up always resources like file handles etc.
-            // else many calls (like chmods for every file) can produce
-            // too much open handles.
-            if (process != null)
-            {
-                process.destroy();
-            }
-        }
         return exitStatus;
     }
 
     /**
      * Executes files specified at construction time.
+     * <p/>
+     * Consecutive files that share the same {@link ExecutableFile#group group} are independent of each other, and
+     * are executed concurrently. Files without a group are executed one at a time, in order.
+     * <br/>
+     * Execution stops at the first file or group that fails.
      *
      * @param currentStage the stage of the installation
      * @param handler      The AbstractUIHandler to notify on errors.
@@ -301,133 +249,266 @@ public class FileExecutor
     public int executeFiles(int currentStage, AbstractUIHandler handler)
     {
         int exitStatus = 0;
-        String[] output = new String[2];
-        // String permissions = (System.getProperty("user.name").equals("root"))
-        // ? "a+x" : "u+x";
-        String permissions = "a+x";
+        List<List<ExecutableFile>> groups = getGroups(new ArrayList<ExecutableFile>(files));
+        int threads = 0;
+        for (List<ExecutableFile> group : groups)
+        {
+            threads = Math.max(threads, group.size());
+        }
 
-        // loop through all executables
-        Iterator<ExecutableFile> efileIterator = this.files.iterator();
-        while (exitStatus == 0 && efileIterator.hasNext())
+        // one pool is shared by all groups, sized for the largest
+        ExecutorService executor = (threads > 1) ? Executors.newFixedThreadPool(threads) : null;
+        try
         {
-            ExecutableFile efile = efileIterator.next();
-            boolean deleteAfterwards = !efile.keepFile;
-            File file = new File(efile.path);
-            logger.fine("Handling executable file " + efile);
-
-            // skip file if not for current OS (it might not have been installed
-            // at all)
-            if (!OsConstraintHelper.oneMatchesCurrentSystem(efile.osList))
+            Iterator<List<ExecutableFile>> iterator = groups.iterator();
+            while (exitStatus == 0 && iterator.hasNext())
             {
-                continue;
+                List<ExecutableFile> group = iterator.next();
+                if (group.size() == 1)
+                {
+                    exitStatus = executeFile(group.get(0), currentStage, handler);
+                }
+                else
+                {
+                    exitStatus = executeGroup(group, currentStage, handler, executor);
+                }
             }
+        }
+        finally
+        {
+            if (executor != null)
+            {
+                executor.shutdown();
+            }
+        }
+        return exitStatus;
+    }
 
-            if (ExecutableFile.BIN == efile.type && currentStage != ExecutableFile.UNINSTALL && OsVersion.IS_UNIX)
+    /**
+     * Splits files into groups of consecutive files that share the same {@link ExecutableFile#group group}.
+     * <p/>
+     * Files without a group are placed in a group of their own.
+     *
+     * @param list the files
+     * @return the groups, in order
+     */
+    private List<List<ExecutableFile>> getGroups(List<ExecutableFile> list)
+    {
+        List<List<ExecutableFile>> result = new ArrayList<List<ExecutableFile>>();
+        int index = 0;
+        while (index < list.size())
+        {
+            ExecutableFile efile = list.get(index);
+            int end = index + 1;
+            if (efile.group != null)
             {
-                // fix executable permission for unix systems
-                logger.fine("Making file executable (setting executable flag)");
-                String[] params = {"/bin/chmod", permissions, file.toString()};
-                exitStatus = executeCommand(params, output);
-                if (exitStatus != 0)
+                while (end < list.size() && efile.group.equals(list.get(end).group))
                 {
-                    handler.emitWarning("file execution error", "Error executing \n" + params[0]
-                            + " " + params[1] + " " + params[2]);
-                    continue;
+                    ++end;
                 }
             }
+            result.add(list.subList(index, end));
+            index = end;
+        }
+        return result;
+    }
 
-            // execute command in POSTINSTALL stage
-            if ((exitStatus == 0)
-                    && ((currentStage == ExecutableFile.POSTINSTALL && efile.executionStage == ExecutableFile.POSTINSTALL) || (currentStage == ExecutableFile.UNINSTALL && efile.executionStage == ExecutableFile.UNINSTALL)))
+    /**
+     * Executes a group of independent files concurrently.
+     * <p/>
+     * Once a file fails, files that haven't started are skipped. Files that are already running are allowed to
+     * complete.
+     *
+     * @param group        the files to execute
+     * @param currentStage the stage of the installation
+     * @param handler      the handler to notify on errors. Calls to this are serialized
+     * @param executor     the executor to run the files. This must have a thread for each file in the group
+     * @return 0 on success, else the exit status of the first failed command
+     */
+    private int executeGroup(List<ExecutableFile> group, final int currentStage, AbstractUIHandler handler,
+                             ExecutorService executor)
+    {
+        final AtomicInteger exitStatus = new AtomicInteger(0);
+        final AbstractUIHandler serialHandler = new SerialUIHandler(handler);
+        List<Future<?>> futures = new ArrayList<Future<?>>();
+        try
+        {
+            for (final ExecutableFile efile : group)
             {
-                List<String> paramList = new ArrayList<String>();
-                if (ExecutableFile.BIN == efile.type)
+                futures.add(executor.submit(new Runnable()
                 {
-                    paramList.add(file.toString());
-                }
-                else if (ExecutableFile.JAR == efile.type && null == efile.mainClass)
+                    @Override
+                    public void run()
+                    {
+                        if (exitStatus.get() == 0)
+                        {
+                            int status = executeFile(efile, currentStage, serialHandler);
+                            if (status != 0)
+                            {
+                                exitStatus.compareAndSet(0, status);
+                            }
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures)
+            {
+                try
                 {
-                    paramList.add(System.getProperty("java.home") + "/bin/java");
-                    paramList.add("-jar");
-                    paramList.add(file.toString());
+                    future.get();
                 }
-                else if (ExecutableFile.JAR == efile.type && null != efile.mainClass)
+                catch (ExecutionException exception)
                 {
-                    paramList.add(System.getProperty("java.home") + "/bin/java");
-                    paramList.add("-cp");
-                    try
-                    {
-                        paramList.add(buildClassPath(file.toString()));
-                    }
-                    catch (Exception e)
-                    {
-                        exitStatus = -1;
-                        logger.log(Level.WARNING, e.getMessage(), e);
-                    }
-                    paramList.add(efile.mainClass);
+                    logger.log(Level.WARNING, exception.getCause().toString(), exception.getCause());
+                    exitStatus.compareAndSet(0, -1);
                 }
+            }
+        }
+        catch (InterruptedException exception)
+        {
+            logger.log(Level.FINE, exception.toString(), exception);
+            for (Future<?> future : futures)
+            {
+                future.cancel(true);
+            }
+            Thread.currentThread().interrupt();
+            exitStatus.compareAndSet(0, -1);
+        }
+        return exitStatus.get();
+    }
 
-                if (null != efile.argList && !efile.argList.isEmpty())
+    /**
+     * Executes a single file.
+     *
+     * @param efile        the file to execute
+     * @param currentStage the stage of the installation
+     * @param handler      the handler to notify on errors
+     * @return 0 on success, else the exit status of the failed command
+     */
+    private int executeFile(ExecutableFile efile, int currentStage, AbstractUIHandler handler)
+    {
+        int exitStatus = 0;
+        String[] output = new String[2];
+        // String permissions = (System.getProperty("user.name").equals("root"))
+        // ? "a+x" : "u+x";
+        String permissions = "a+x";
+
+        boolean deleteAfterwards = !efile.keepFile;
+        File file = new File(efile.path);
+        logger.fine("Handling executable file " + efile);
+
+        // skip file if not for current OS (it might not have been installed
+        // at all)
+        if (!OsConstraintHelper.oneMatchesCurrentSystem(efile.osList))
+        {
+            return 0;
+        }
+
+        if (ExecutableFile.BIN == efile.type && currentStage != ExecutableFile.UNINSTALL && OsVersion.IS_UNIX)
+        {
+            // fix executable permission for unix systems
+            logger.fine("Making file executable (setting executable flag)");
+            String[] params = {"/bin/chmod", permissions, file.toString()};
+            exitStatus = executeCommand(params, output);
+            if (exitStatus != 0)
+            {
+                handler.emitWarning("file execution error", "Error executing \n" + params[0]
+                        + " " + params[1] + " " + params[2]);
+                return exitStatus;
+            }
+        }
+
+        // execute command in POSTINSTALL stage
+        if ((currentStage == ExecutableFile.POSTINSTALL && efile.executionStage == ExecutableFile.POSTINSTALL)
+                || (currentStage == ExecutableFile.UNINSTALL && efile.executionStage == ExecutableFile.UNINSTALL))
+        {
+            List<String> paramList = new ArrayList<String>();
+            if (ExecutableFile.BIN == efile.type)
+            {
+                paramList.add(file.toString());
+            }
+            else if (ExecutableFile.JAR == efile.type && null == efile.mainClass)
+            {
+                paramList.add(System.getProperty("java.home") + "/bin/java");
+                paramList.add("-jar");
+                paramList.add(file.toString());
+            }
+            else if (ExecutableFile.JAR == efile.type && null != efile.mainClass)
+            {
+                paramList.add(System.getProperty("java.home") + "/bin/java");
+                paramList.add("-cp");
+                try
                 {
-                    paramList.addAll(efile.argList);
+                    paramList.add(buildClassPath(file.toString()));
                 }
-
-                String[] params = new String[paramList.size()];
-                for (int i = 0; i < paramList.size(); i++)
+                catch (Exception e)
                 {
-                    params[i] = paramList.get(i);
+                    exitStatus = -1;
+                    logger.log(Level.WARNING, e.getMessage(), e);
                 }
+                paramList.add(efile.mainClass);
+            }
+
+            if (null != efile.argList && !efile.argList.isEmpty())
+            {
+                paramList.addAll(efile.argList);
+            }
 
-                exitStatus = executeCommand(params, output);
+            String[] params = new String[paramList.size()];
+            for (int i = 0; i < paramList.size(); i++)
+            {
+                params[i] = paramList.get(i);
+            }
+
+            exitStatus = executeCommand(params, output);
 
-                // bring a dialog depending on return code and failure handling
-                if (exitStatus != 0)
+            // bring a dialog depending on return code and failure handling
+            if (exitStatus != 0)
+            {
+                deleteAfterwards = false;
+                String message = output[0] + "\n" + output[1];
+                if (message.length() == 1)
                 {
-                    deleteAfterwards = false;
-                    String message = output[0] + "\n" + output[1];
-                    if (message.length() == 1)
-                    {
-                        message = "Failed to execute " + file.toString() + ".";
-                    }
+                    message = "Failed to execute " + file.toString() + ".";
+                }
 
-                    if (efile.onFailure == ExecutableFile.ABORT)
-                    {
-                        handler.emitError("File execution returned " + exitStatus, message);
-                    }
-                    else if (efile.onFailure == ExecutableFile.WARN)
-                    {
-                        handler.emitWarning("File execution returned " + exitStatus, message);
-                        exitStatus = 0;
-                    }
-                    else if (efile.onFailure == ExecutableFile.IGNORE)
+                if (efile.onFailure == ExecutableFile.ABORT)
+                {
+                    handler.emitError("File execution returned " + exitStatus, message);
+                }
+                else if (efile.onFailure == ExecutableFile.WARN)
+                {
+                    handler.emitWarning("File execution returned " + exitStatus, message);
+                    exitStatus = 0;
+                }
+                else if (efile.onFailure == ExecutableFile.IGNORE)
+                {
+                    // do nothing
+                    exitStatus = 0;
+                }
+                else
+                {
+                    if (handler
+                            .askQuestion("Execution Failed", message + "\nContinue Installation?",
+                                         AbstractUIHandler.CHOICES_YES_NO) == AbstractUIHandler.ANSWER_YES)
                     {
-                        // do nothing
                         exitStatus = 0;
                     }
-                    else
-                    {
-                        if (handler
-                                .askQuestion("Execution Failed", message + "\nContinue Installation?",
-                                             AbstractUIHandler.CHOICES_YES_NO) == AbstractUIHandler.ANSWER_YES)
-                        {
-                            exitStatus = 0;
-                        }
-                    }
-
                 }
 
             }
 
-            // POSTINSTALL executables will be deleted
-            if (efile.executionStage == ExecutableFile.POSTINSTALL && deleteAfterwards)
+        }
+
+        // POSTINSTALL executables will be deleted
+        if (efile.executionStage == ExecutableFile.POSTINSTALL && deleteAfterwards)
+        {
+            if (file.canWrite())
             {
-                if (file.canWrite())
-                {
-                    file.delete();
-                }
+                file.delete();
             }
-
         }
+
         return exitStatus;
     }
 
@@ -496,4 +577,63 @@ public class FileExecutor
      * The files to execute.
      */
     private Collection<ExecutableFile> files;
+
+    /**
+     * An {@link AbstractUIHandler} that serializes calls to another, so that concurrently executing files
+     * only prompt the user one at a time.
+     */
+    private static class SerialUIHandler implements AbstractUIHandler
+    {
+        /**
+         * The handler to delegate to.
+         */
+        private final AbstractUIHandler handler;
+
+        /**
+         * Constructs a <tt>SerialUIHandler</tt>.
+         *
+         * @param handler the handler to delegate to
+         */
+        public SerialUIHandler(AbstractUIHandler handler)
+        {
+            this.handler = handler;
+        }
+
+        @Override
+        public synchronized void emitNotification(String message)
+        {
+            handler.emitNotification(message);
+        }
+
+        @Override
+        public synchronized boolean emitWarning(String title, String message)
+        {
+            return handler.emitWarning(title, message);
+        }
+
+        @Override
+        public synchronized void emitError(String title, String message)
+        {
+            handler.emitError(title, message);
+        }
+
+        @Override
+        @Deprecated
+        public synchronized void emitErrorAndBlockNext(String title, String message)
+        {
+            handler.emitErrorAndBlockNext(title, message);
+        }
+
+        @Override
+        public synchronized int askQuestion(String title, String question, int choices)
+        {
+            return handler.askQuestion(title, question, choices);
+        }
+
+        @Override
+        public synchronized int askQuestion(String title, String question, int choices, int default_choice)
+        {
+            return handler.askQuestion(title, question, choices, default_choice);
+        }
+    }
 }
@@ -93,6 +93,12 @@ public class Librarian implements CleanupClient
      */
     private String extension = "";
 
+    /**
+     * The cache of libraries extracted from jars. May be <tt>null</tt> if caching is disabled, or the process is
+     * elevated.
+     */
+    private final NativeLibraryCache cache = NativeLibraryCache.getDefault();
+
 
     /**
      * Constructs a <tt>Librarian</tt>.
@@ -163,13 +169,18 @@ public class Librarian implements CleanupClient
         // instead of killing the thread in the dlls which provokes a
         // segmentation violation with a 1.5 (also known as 5.0) VM.
 
-        try
-        {
-            LibraryRemover.invoke(temporaryFileNames);
-        }
-        catch (IOException exception)
+        // cached libraries are retained, so there may be nothing to remove
+        if (!temporaryFileNames.isEmpty())
         {
-            logger.log(Level.WARNING, "Cleanup failed for native libraries: " + exception.getMessage(), exception);
+            try
+            {
+                LibraryRemover.invoke(temporaryFileNames);
+            }
+            catch (IOException exception)
+            {
+                logger.log(Level.WARNING, "Cleanup failed for native libraries: " + exception.getMessage(),
+                           exception);
+            }
         }
         clients.clear();
     }
@@ -205,8 +216,8 @@ public class Librarian implements CleanupClient
      * the library, this attempt will fail.
      * <li>If the client is located on the local file system, an attempt is made to load the
      * library from the local files system as well.
-     * <li>If the library is located inside a *.jar file, it is extracted to 'java.io.tmpdir' and
-     * an attempt is made to load it from there.
+     * <li>If the library is located inside a *.jar file, it is extracted to the {@link NativeLibraryCache}, or if
+     * that is disabled or fails, to 'java.io.tmpdir', and an attempt is made to load it from there.
      * </ul>
      * <br>
      * <br>
@@ -290,14 +301,39 @@ public class Librarian implements CleanupClient
 
     /**
      * Attempts to load a library from a jar.
+     * <p/>
+     * The library is loaded from the cache if possible, otherwise it is extracted to a temporary file that is removed
+     * on {@link #cleanUp()}.
      *
      * @param name   the library name
      * @param url    the library URL within the jar
      * @param client the native library client
      * @return <tt>true</tt> if the library was loaded successfully, otherwise <tt>false</tt>
      */
-    private boolean loadJarLibrary(String name, URL url, NativeLibraryClient client)
+    private boolean loadJarLibrary(String name, URL url, final NativeLibraryClient client)
     {
+        if (cache != null)
+        {
+            try
+            {
+                NativeLibraryCache.Loader loader = new NativeLibraryCache.Loader()
+                {
+                    @Override
+                    public boolean load(File file)
+                    {
+                        return Librarian.this.load(file.getAbsolutePath(), client);
+                    }
+                };
+                if (cache.load(name + extension, url, loader))
+                {
+                    return true;
+                }
+            }
+            catch (IOException exception)
+            {
+                logger.log(Level.FINE, "Failed to cache library: " + name + ": " + exception.getMessage(), exception);
+            }
+        }
         boolean result = false;
         File file = null;
         InputStream in = null;
@@ -26,7 +26,9 @@ import java.io.*;
  * terminates if the apropriate stream runs out of data.
  *
  * @author Olexij Tkatchenko <ot@parcs.de>
+ * @deprecated use {@link ProcessExecutor}, which drains process output using pooled threads
  */
+@Deprecated
 public class MonitorInputStream implements Runnable
 {
 
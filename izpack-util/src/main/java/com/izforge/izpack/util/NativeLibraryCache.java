@@ -0,0 +1,382 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.net.JarURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.channels.FileLock;
+import java.util.jar.JarEntry;
+import java.util.zip.CRC32;
+
+import com.izforge.izpack.util.file.FileUtils;
+
+
+/**
+ * A cache of native libraries extracted from jars.
+ * <p/>
+ * Libraries are stored by the CRC and size of their jar entry, in
+ * <em>&lt;cache&gt;/&lt;os&gt;-&lt;arch&gt;/&lt;crc&gt;-&lt;size&gt;/&lt;name&gt;</em>, so a library is only extracted
+ * once per machine and user, no matter how many installers and uninstallers use it. The jar entry doesn't need to be
+ * read to locate the library.
+ * <p/>
+ * A library is checked and loaded while holding a lock on a file in its directory, and is only loaded if its content
+ * matches the jar entry. Libraries that haven't been used for {@link #MAX_AGE} are pruned.
+ * <p/>
+ * The cache is in a directory writable by the user, so it isn't used by {@link #isElevated elevated} processes,
+ * which would otherwise load libraries that unprivileged processes could replace.
+ *
+ * @author agent
+ */
+public class NativeLibraryCache
+{
+
+    /**
+     * Loads a library.
+     */
+    public interface Loader
+    {
+
+        /**
+         * Loads a library.
+         *
+         * @param file the library
+         * @return <tt>true</tt> if the library was loaded, otherwise <tt>false</tt>
+         */
+        boolean load(File file);
+    }
+
+    /**
+     * System property to specify the cache directory. If <tt>false</tt>, libraries aren't cached.
+     * Defaults to <em>&lt;user.home&gt;/.izpack/native</em>.
+     */
+    public static final String CACHE = "izpack.native.cache";
+
+    /**
+     * The time after which unused libraries are pruned, in milliseconds.
+     */
+    public static final long MAX_AGE = 30L * 24 * 60 * 60 * 1000;
+
+    /**
+     * The name of the lock file in each library directory. Its modification time records when the library was
+     * last used.
+     */
+    private static final String LOCK = ".lock";
+
+    /**
+     * Serialises access within this JVM, as file locks are held on behalf of the whole JVM.
+     */
+    private static final Object JVM_LOCK = new Object();
+
+    /**
+     * The cache directory.
+     */
+    private final File root;
+
+
+    /**
+     * Constructs a <tt>NativeLibraryCache</tt>.
+     *
+     * @param root the cache directory
+     */
+    public NativeLibraryCache(File root)
+    {
+        this.root = root;
+    }
+
+    /**
+     * Returns the cache configured by the {@link #CACHE} system property.
+     *
+     * @return the cache, or <tt>null</tt> if caching is disabled, or the process is elevated
+     */
+    public static NativeLibraryCache getDefault()
+    {
+        String dir = System.getProperty(CACHE);
+        if ("false".equalsIgnoreCase(dir) || isElevated())
+        {
+            return null;
+        }
+        File root = (dir != null) ? new File(dir) : new File(System.getProperty("user.home"), ".izpack/native");
+        return new NativeLibraryCache(root);
+    }
+
+    /**
+     * Returns the cache directory.
+     *
+     * @return the cache directory
+     */
+    public File getRoot()
+    {
+        return root;
+    }
+
+    /**
+     * Loads a library from the cache, extracting it if it isn't cached, or the cached copy is invalid.
+     * <p/>
+     * Libraries for the platform that haven't been used for {@link #MAX_AGE} are pruned.
+     *
+     * @param name   the library file name, including its extension
+     * @param url    the library URL. This must be a <em>jar:</em> URL
+     * @param loader the loader to load the cached library
+     * @return <tt>true</tt> if the library was loaded, otherwise <tt>false</tt>
+     * @throws IOException if the library cannot be read or cached
+     */
+    public boolean load(String name, URL url, Loader loader) throws IOException
+    {
+        URLConnection connection = url.openConnection();
+        if (!(connection instanceof JarURLConnection))
+        {
+            throw new IOException("Library is not in a jar: " + url);
+        }
+        JarEntry entry = ((JarURLConnection) connection).getJarEntry();
+        long crc = entry.getCrc();
+        long size = entry.getSize();
+        if (crc == -1 || size == -1)
+        {
+            throw new IOException("Library has no CRC or size: " + url);
+        }
+
+        File platform = new File(root, getPlatform());
+        File dir = new File(platform, Long.toHexString(crc) + "-" + size);
+        if (!dir.mkdirs() && !dir.isDirectory())
+        {
+            throw new IOException("Failed to create directory: " + dir);
+        }
+        File file = new File(dir, name);
+        boolean result;
+        synchronized (JVM_LOCK)
+        {
+            File lockFile = new File(dir, LOCK);
+            RandomAccessFile lockStream = new RandomAccessFile(lockFile, "rw");
+            try
+            {
+                FileLock lock = lockStream.getChannel().lock();
+                try
+                {
+                    if (!isValid(file, crc, size))
+                    {
+                        write(url, file, crc);
+                    }
+                    // load while the lock is held, so that the library can't be replaced after it was checked
+                    result = loader.load(file);
+                    lockFile.setLastModified(System.currentTimeMillis());
+                }
+                finally
+                {
+                    lock.release();
+                }
+            }
+            finally
+            {
+                FileUtils.close(lockStream);
+            }
+            prune(platform, dir);
+        }
+        return result;
+    }
+
+    /**
+     * Determines if the process is elevated.
+     * <p/>
+     * This is the case if it was relaunched with elevated rights by the {@link PrivilegedRunner}, or is run by
+     * <em>root</em>.
+     *
+     * @return <tt>true</tt> if the process is elevated
+     */
+    public static boolean isElevated()
+    {
+        return PrivilegedRunner.isPrivilegedMode() || "root".equals(System.getProperty("user.name"));
+    }
+
+    /**
+     * Removes libraries that haven't been used for {@link #MAX_AGE}.
+     * <p/>
+     * Libraries locked by other processes, or that cannot be deleted because they are loaded, are retained.
+     *
+     * @param platform the platform directory
+     * @param current  the directory of the library being loaded, which is retained
+     */
+    void prune(File platform, File current)
+    {
+        File[] dirs = platform.listFiles();
+        if (dirs == null)
+        {
+            return;
+        }
+        long expiry = System.currentTimeMillis() - MAX_AGE;
+        for (File dir : dirs)
+        {
+            File lockFile = new File(dir, LOCK);
+            if (dir.isDirectory() && !dir.equals(current) && lockFile.lastModified() < expiry)
+            {
+                remove(dir, lockFile);
+            }
+        }
+    }
+
+    /**
+     * Removes a library directory, if it isn't locked by another process.
+     *
+     * @param dir      the library directory
+     * @param lockFile the directory's lock file
+     */
+    private void remove(File dir, File lockFile)
+    {
+        boolean pruned = false;
+        RandomAccessFile lockStream = null;
+        try
+        {
+            lockStream = new RandomAccessFile(lockFile, "rw");
+            FileLock lock = lockStream.getChannel().tryLock();
+            if (lock != null)
+            {
+                try
+                {
+                    pruned = true;
+                    File[] files = dir.listFiles();
+                    if (files != null)
+                    {
+                        for (File file : files)
+                        {
+                            if (!file.equals(lockFile) && !file.delete())
+                            {
+                                pruned = false;
+                            }
+                        }
+                    }
+                }
+                finally
+                {
+                    lock.release();
+                }
+            }
+        }
+        catch (IOException ignore)
+        {
+            // retain the library
+        }
+        finally
+        {
+            FileUtils.close(lockStream);
+        }
+        if (pruned)
+        {
+            FileUtils.delete(lockFile);
+            FileUtils.delete(dir);
+        }
+    }
+
+    /**
+     * Determines if a cached library exists and has the expected content.
+     *
+     * @param file the cached library
+     * @param crc  the expected CRC
+     * @param size the expected size
+     * @return <tt>true</tt> if the library is valid
+     * @throws IOException if the library cannot be read
+     */
+    private boolean isValid(File file, long crc, long size) throws IOException
+    {
+        return file.isFile() && file.length() == size && getCrc(file) == crc;
+    }
+
+    /**
+     * Writes a library to the cache.
+     * <p/>
+     * The library is written to a temporary file in the same directory, and renamed, so that it is never visible
+     * partially written.
+     *
+     * @param url  the library URL
+     * @param file the cached library
+     * @param crc  the expected CRC
+     * @throws IOException if the library cannot be written, or doesn't have the expected CRC
+     */
+    private void write(URL url, File file, long crc) throws IOException
+    {
+        File temp = File.createTempFile(file.getName(), ".tmp", file.getParentFile());
+        InputStream in = null;
+        FileOutputStream out = null;
+        try
+        {
+            in = url.openStream();
+            out = new FileOutputStream(temp);
+            IoHelper.copyStream(in, out);
+        }
+        finally
+        {
+            FileUtils.close(in);
+            FileUtils.close(out);
+        }
+        if (getCrc(temp) != crc)
+        {
+            FileUtils.delete(temp);
+            throw new IOException("Library doesn't match its CRC: " + url);
+        }
+        if ((file.exists() && !file.delete()) || !temp.renameTo(file))
+        {
+            FileUtils.delete(temp);
+            throw new IOException("Failed to cache library: " + file);
+        }
+    }
+
+    /**
+     * Returns the platform directory name, as libraries for different platforms may share names.
+     *
+     * @return the platform directory name
+     */
+    private String getPlatform()
+    {
+        String platform = System.getProperty("os.name") + "-" + System.getProperty("os.arch");
+        return platform.toLowerCase().replaceAll("[^a-z0-9._-]", "_");
+    }
+
+    /**
+     * Returns the CRC of a file.
+     *
+     * @param file the file
+     * @return the CRC
+     * @throws IOException for any I/O error
+     */
+    private static long getCrc(File file) throws IOException
+    {
+        CRC32 crc = new CRC32();
+        InputStream in = new FileInputStream(file);
+        try
+        {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1)
+            {
+                crc.update(buffer, 0, read);
+            }
+        }
+        finally
+        {
+            FileUtils.close(in);
+        }
+        return crc.getValue();
+    }
+}
@@ -0,0 +1,721 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.izforge.izpack.util.file.FileUtils;
+
+
+/**
+ * Executes system processes, and collects their output.
+ * <p/>
+ * Process output is drained without creating threads for each process: standard output and standard error are
+ * read by threads from a pool shared by all executors, which are reused from one process to the next. The pool is
+ * limited to {@link #MAX_DRAINERS} threads; if these are all busy, a stream is drained by a new thread, as a stream
+ * that isn't drained can block its process.
+ * <p/>
+ * The calling thread waits for the process to exit, and then at most the {@link #setDrainTimeout drain timeout} for
+ * its output to close. Output may stay open after the process exits if it is inherited by a child process that
+ * outlives it, e.g. a daemon started by a script. The drains are then detached, and the output read so far is
+ * returned.
+ * <p/>
+ * Output is retained as written by the process, and may be limited. It may also be streamed line by line to an
+ * {@link OutputHandler}.
+ * A timeout may be specified, after which the process is destroyed.
+ *
+ * @author agent
+ */
+public class ProcessExecutor
+{
+
+    /**
+     * Receives process output, a line at a time.
+     * <p/>
+     * Lines from standard output and standard error are delivered by different threads.
+     */
+    public interface OutputHandler
+    {
+
+        /**
+         * Invoked for each line of output.
+         *
+         * @param line   the line, without any line terminator
+         * @param stderr if <tt>true</tt>, the line is from standard error, else it is from standard output
+         */
+        void handleOutput(String line, boolean stderr);
+    }
+
+    /**
+     * The result of executing a process.
+     */
+    public static class Result
+    {
+
+        /**
+         * The exit status.
+         */
+        private final int exitStatus;
+
+        /**
+         * The standard output.
+         */
+        private final String stdout;
+
+        /**
+         * The standard error.
+         */
+        private final String stderr;
+
+        /**
+         * Determines if the process was destroyed because it exceeded the timeout.
+         */
+        private final boolean timedOut;
+
+        /**
+         * Determines if output was discarded because it exceeded the output limit.
+         */
+        private final boolean truncated;
+
+        /**
+         * Constructs a <tt>Result</tt>.
+         *
+         * @param exitStatus the exit status
+         * @param stdout     the standard output
+         * @param stderr     the standard error
+         * @param timedOut   determines if the process was destroyed because it exceeded the timeout
+         * @param truncated  determines if output was discarded because it exceeded the output limit
+         */
+        public Result(int exitStatus, String stdout, String stderr, boolean timedOut, boolean truncated)
+        {
+            this.exitStatus = exitStatus;
+            this.stdout = stdout;
+            this.stderr = stderr;
+            this.timedOut = timedOut;
+            this.truncated = truncated;
+        }
+
+        /**
+         * Returns the exit status of the process.
+         *
+         * @return the exit status
+         */
+        public int getExitStatus()
+        {
+            return exitStatus;
+        }
+
+        /**
+         * Returns the standard output of the process, as written by the process.
+         *
+         * @return the standard output
+         */
+        public String getStdout()
+        {
+            return stdout;
+        }
+
+        /**
+         * Returns the standard error of the process, as written by the process.
+         *
+         * @return the standard error
+         */
+        public String getStderr()
+        {
+            return stderr;
+        }
+
+        /**
+         * Determines if the process was destroyed because it exceeded the timeout.
+         *
+         * @return <tt>true</tt> if the process timed out
+         */
+        public boolean isTimedOut()
+        {
+            return timedOut;
+        }
+
+        /**
+         * Determines if output was discarded because it exceeded the output limit.
+         *
+         * @return <tt>true</tt> if output was discarded
+         */
+        public boolean isTruncated()
+        {
+            return truncated;
+        }
+    }
+
+    /**
+     * The logger.
+     */
+    private static final Logger logger = Logger.getLogger(ProcessExecutor.class.getName());
+
+    /**
+     * The maximum no. of pooled threads used to drain standard error.
+     */
+    public static final int MAX_DRAINERS = 16;
+
+    /**
+     * The default drain timeout, in milliseconds.
+     */
+    public static final long DEFAULT_DRAIN_TIMEOUT = 5000;
+
+    /**
+     * The line separator, appended to the reason a command could not be started.
+     */
+    private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+
+    /**
+     * Creates the threads used to drain standard error.
+     */
+    private static final ThreadFactory drainerFactory = new ProcessThreadFactory("drain");
+
+    /**
+     * The threads used to drain process output. Idle threads are retired after 30 seconds.
+     * <p/>
+     * Drains are never queued, as a queued drain could block its process until an unrelated process completes.
+     * Drains that would exceed {@link #MAX_DRAINERS} are rejected, and run by a thread of their own.
+     */
+    private static final ExecutorService drainers = new ThreadPoolExecutor(
+            0, MAX_DRAINERS, 30, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(), drainerFactory);
+
+    /**
+     * The thread used to destroy processes that exceed their timeout. Created on first use.
+     */
+    private static ScheduledExecutorService watchdog;
+
+    /**
+     * The timeout, in milliseconds. If <tt>0</tt>, processes are not timed out.
+     */
+    private long timeout;
+
+    /**
+     * The maximum no. of characters of output to retain for each stream. If negative, all output is retained.
+     */
+    private int maxOutput = -1;
+
+    /**
+     * The time to wait for output to close once the process has exited, in milliseconds.
+     */
+    private long drainTimeout = DEFAULT_DRAIN_TIMEOUT;
+
+
+    /**
+     * Sets the timeout, after which processes are destroyed.
+     *
+     * @param timeout the timeout, in milliseconds. If <tt>0</tt>, processes are not timed out
+     */
+    public void setTimeout(long timeout)
+    {
+        this.timeout = timeout;
+    }
+
+    /**
+     * Returns the timeout.
+     *
+     * @return the timeout, in milliseconds. If <tt>0</tt>, processes are not timed out
+     */
+    public long getTimeout()
+    {
+        return timeout;
+    }
+
+    /**
+     * Sets the maximum no. of characters of output to retain for each of standard output and standard error.
+     * <p/>
+     * Output beyond the limit is still drained, and passed to any {@link OutputHandler}.
+     *
+     * @param maxOutput the maximum no. of characters to retain. If negative, all output is retained
+     */
+    public void setMaxOutput(int maxOutput)
+    {
+        this.maxOutput = maxOutput;
+    }
+
+    /**
+     * Returns the maximum no. of characters of output to retain for each stream.
+     *
+     * @return the maximum no. of characters to retain. If negative, all output is retained
+     */
+    public int getMaxOutput()
+    {
+        return maxOutput;
+    }
+
+    /**
+     * Sets the time to wait for output to close once a process has exited.
+     * <p/>
+     * Output still open after this time is no longer retained, nor passed to any {@link OutputHandler}.
+     *
+     * @param drainTimeout the drain timeout, in milliseconds
+     */
+    public void setDrainTimeout(long drainTimeout)
+    {
+        this.drainTimeout = drainTimeout;
+    }
+
+    /**
+     * Returns the time to wait for output to close once a process has exited.
+     *
+     * @return the drain timeout, in milliseconds
+     */
+    public long getDrainTimeout()
+    {
+        return drainTimeout;
+    }
+
+    /**
+     * Executes a command, and waits for it to complete.
+     *
+     * @param command the command and its arguments
+     * @param dir     the working directory. May be <tt>null</tt>
+     * @return the result of the command
+     * @throws IOException          if the process cannot be started
+     * @throws InterruptedException if interrupted while waiting for the process to complete
+     */
+    public Result execute(String[] command, File dir) throws IOException, InterruptedException
+    {
+        return execute(new ProcessBuilder(command).directory(dir), null);
+    }
+
+    /**
+     * Starts a process, and waits for it to complete.
+     * <p/>
+     * Once the process has exited, this waits at most the drain timeout for its output to close.
+     *
+     * @param builder the process builder
+     * @param handler the handler to stream output to. May be <tt>null</tt>
+     * @return the result of the process
+     * @throws IOException          if the process cannot be started
+     * @throws InterruptedException if interrupted while waiting for the process to complete
+     */
+    public Result execute(ProcessBuilder builder, OutputHandler handler) throws IOException, InterruptedException
+    {
+        final Process process = builder.start();
+        final AtomicBoolean timedOut = new AtomicBoolean();
+        ScheduledFuture<?> timer = null;
+        if (timeout > 0)
+        {
+            timer = getWatchdog().schedule(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    timedOut.set(true);
+                    process.destroy();
+                }
+            }, timeout, TimeUnit.MILLISECONDS);
+        }
+        try
+        {
+            Drain out = new Drain(process.getInputStream(), false, handler);
+            Future<?> outFuture = drain(out);
+            Drain err = new Drain(process.getErrorStream(), true, handler);
+            Future<?> errFuture = null;
+            if (!builder.redirectErrorStream())
+            {
+                errFuture = drain(err);
+            }
+            int exitStatus = process.waitFor();
+            long deadline = System.currentTimeMillis() + drainTimeout;
+            boolean closed = await(outFuture, deadline);
+            closed &= await(errFuture, deadline);
+            if (!closed)
+            {
+                // a child process still holds the output open. Stop retaining it, so it doesn't change underneath
+                // the result
+                out.detach();
+                err.detach();
+                logger.warning("Output of " + builder.command() + " still open " + drainTimeout
+                                       + "ms after it exited. Ignoring any further output");
+            }
+            return new Result(exitStatus, out.getOutput(), err.getOutput(), timedOut.get(),
+                              out.isTruncated() || err.isTruncated());
+        }
+        finally
+        {
+            if (timer != null)
+            {
+                timer.cancel(false);
+            }
+            // release the process handles, and unblock the drainers if interrupted
+            process.destroy();
+        }
+    }
+
+    /**
+     * Executes a batch of independent commands.
+     * <p/>
+     * Up to <em>threads</em> commands are run concurrently. A command that cannot be started is given an exit
+     * status of <tt>-1</tt>, and the reason is returned as its standard error.
+     *
+     * @param commands the commands to execute
+     * @param dir      the working directory. May be <tt>null</tt>
+     * @param threads  the maximum no. of commands to run concurrently
+     * @return the results of the commands, in the order the commands were supplied
+     * @throws InterruptedException if interrupted while waiting for the commands to complete
+     */
+    public List<Result> execute(List<String[]> commands, final File dir, int threads) throws InterruptedException
+    {
+        List<Result> result = new ArrayList<Result>();
+        int size = Math.max(1, Math.min(threads, commands.size()));
+        ExecutorService executor = Executors.newFixedThreadPool(size, new ProcessThreadFactory("exec"));
+        try
+        {
+            List<Future<Result>> futures = new ArrayList<Future<Result>>();
+            for (final String[] command : commands)
+            {
+                futures.add(executor.submit(new Callable<Result>()
+                {
+                    @Override
+                    public Result call() throws Exception
+                    {
+                        return execute(command, dir);
+                    }
+                }));
+            }
+            for (Future<Result> future : futures)
+            {
+                try
+                {
+                    result.add(future.get());
+                }
+                catch (ExecutionException exception)
+                {
+                    Throwable cause = exception.getCause();
+                    logger.log(Level.WARNING, cause.toString(), cause);
+                    result.add(new Result(-1, "", cause.getMessage() + LINE_SEPARATOR, false, false));
+                }
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+        return result;
+    }
+
+    /**
+     * Waits for a drain to complete.
+     *
+     * @param future   the drain future. May be <tt>null</tt>
+     * @param deadline the time to wait until, in milliseconds since the epoch
+     * @return <tt>true</tt> if the drain completed, <tt>false</tt> if the deadline passed
+     * @throws InterruptedException if interrupted while waiting
+     */
+    private static boolean await(Future<?> future, long deadline) throws InterruptedException
+    {
+        boolean result = true;
+        if (future != null)
+        {
+            try
+            {
+                future.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+            }
+            catch (TimeoutException exception)
+            {
+                result = false;
+            }
+            catch (ExecutionException exception)
+            {
+                logger.log(Level.FINE, exception.getMessage(), exception);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Drains a process stream using a pooled thread, or a new thread if the pool is exhausted.
+     *
+     * @param drain the drain to run
+     * @return the future to wait on for the drain to complete
+     */
+    private static Future<?> drain(Drain drain)
+    {
+        FutureTask<Object> result = new FutureTask<Object>(drain, null);
+        try
+        {
+            drainers.execute(result);
+        }
+        catch (RejectedExecutionException exception)
+        {
+            drainerFactory.newThread(result).start();
+        }
+        return result;
+    }
+
+    /**
+     * Returns the watchdog used to time out processes, creating it if required.
+     *
+     * @return the watchdog
+     */
+    private static synchronized ScheduledExecutorService getWatchdog()
+    {
+        if (watchdog == null)
+        {
+            watchdog = Executors.newSingleThreadScheduledExecutor(new ProcessThreadFactory("watchdog"));
+        }
+        return watchdog;
+    }
+
+    /**
+     * Drains a process stream.
+     * <p/>
+     * Output is copied a buffer at a time. If there is a handler, it is also split into lines, terminated by any of
+     * a line feed, a carriage return, or a carriage return followed by a line feed.
+     * <p/>
+     * Once detached, the stream is still drained, but the output is discarded.
+     */
+    private class Drain implements Runnable
+    {
+
+        /**
+         * The stream reader.
+         */
+        private final Reader reader;
+
+        /**
+         * Determines if the stream is standard error.
+         */
+        private final boolean stderr;
+
+        /**
+         * The handler to stream output to. May be <tt>null</tt>.
+         */
+        private final OutputHandler handler;
+
+        /**
+         * The retained output.
+         */
+        private final StringBuilder output = new StringBuilder();
+
+        /**
+         * Determines if output was discarded.
+         */
+        private boolean truncated;
+
+        /**
+         * Determines if the drain has been detached from its result.
+         */
+        private boolean detached;
+
+        /**
+         * Constructs a <tt>Drain</tt>.
+         *
+         * @param stream  the stream to drain
+         * @param stderr  determines if the stream is standard error
+         * @param handler the handler to stream output to. May be <tt>null</tt>
+         */
+        public Drain(InputStream stream, boolean stderr, OutputHandler handler)
+        {
+            this.reader = new InputStreamReader(stream);
+            this.stderr = stderr;
+            this.handler = handler;
+        }
+
+        /**
+         * Reads the stream until it is exhausted.
+         */
+        @Override
+        public void run()
+        {
+            char[] buffer = new char[4096];
+            StringBuilder line = new StringBuilder();
+            boolean carriageReturn = false;
+            try
+            {
+                int read;
+                while ((read = reader.read(buffer)) != -1)
+                {
+                    if (!retain(buffer, read))
+                    {
+                        line.setLength(0);
+                    }
+                    else if (handler != null)
+                    {
+                        for (int i = 0; i < read; ++i)
+                        {
+                            char ch = buffer[i];
+                            if (ch == '\n' && carriageReturn)
+                            {
+                                // the line feed of a CRLF pair, the line has already been handled
+                                carriageReturn = false;
+                            }
+                            else if (ch == '\n' || ch == '\r')
+                            {
+                                carriageReturn = (ch == '\r');
+                                handler.handleOutput(line.toString(), stderr);
+                                line.setLength(0);
+                            }
+                            else
+                            {
+                                carriageReturn = false;
+                                line.append(ch);
+                            }
+                        }
+                    }
+                }
+            }
+            catch (IOException exception)
+            {
+                // the process was destroyed
+                logger.log(Level.FINE, exception.getMessage(), exception);
+            }
+            finally
+            {
+                FileUtils.close(reader);
+            }
+            if (handler != null && line.length() != 0 && !isDetached())
+            {
+                handler.handleOutput(line.toString(), stderr);
+            }
+        }
+
+        /**
+         * Retains output, up to the output limit.
+         *
+         * @param buffer the output
+         * @param length the no. of characters in the buffer
+         * @return <tt>false</tt> if the drain is detached, and the output was discarded
+         */
+        private synchronized boolean retain(char[] buffer, int length)
+        {
+            if (detached)
+            {
+                return false;
+            }
+            int count = length;
+            if (maxOutput >= 0)
+            {
+                count = Math.min(length, Math.max(0, maxOutput - output.length()));
+                if (count < length)
+                {
+                    truncated = true;
+                }
+            }
+            output.append(buffer, 0, count);
+            return true;
+        }
+
+        /**
+         * Detaches the drain from its result, so any further output is discarded.
+         */
+        public synchronized void detach()
+        {
+            detached = true;
+        }
+
+        /**
+         * Determines if the drain has been detached from its result.
+         *
+         * @return <tt>true</tt> if the drain is detached
+         */
+        public synchronized boolean isDetached()
+        {
+            return detached;
+        }
+
+        /**
+         * Returns the retained output.
+         *
+         * @return the output
+         */
+        public synchronized String getOutput()
+        {
+            return output.toString();
+        }
+
+        /**
+         * Determines if output was discarded.
+         *
+         * @return <tt>true</tt> if output was discarded
+         */
+        public synchronized boolean isTruncated()
+        {
+            return truncated;
+        }
+    }
+
+    /**
+     * Creates daemon threads, so that idle threads don't prevent the JVM from exiting.
+     */
+    private static class ProcessThreadFactory implements ThreadFactory
+    {
+
+        /**
+         * The thread name prefix.
+         */
+        private final String prefix;
+
+        /**
+         * The thread counter.
+         */
+        private final AtomicInteger count = new AtomicInteger();
+
+        /**
+         * Constructs a <tt>ProcessThreadFactory</tt>.
+         *
+         * @param name the thread name, used to distinguish pools
+         */
+        public ProcessThreadFactory(String name)
+        {
+            this.prefix = "IzPack-process-" + name + "-";
+        }
+
+        /**
+         * Constructs a new thread.
+         *
+         * @param runnable the runnable to run
+         * @return a new thread
+         */
+        @Override
+        public Thread newThread(Runnable runnable)
+        {
+            Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -26,6 +26,7 @@ import com.izforge.izpack.util.file.FileUtils;
 import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -57,7 +58,7 @@ import java.util.zip.ZipEntry;
  * <p/>
  * Create a SelfModifier with a target method, then invoke the SelfModifier with arguments to be
  * passed to the target method. The jar file containing the target method's class (obtained by
- * reflection) will be extracted to a temporary directory, and a new java process will be spawned to
+ * reflection) will be copied to a temporary directory, and a new java process will be spawned to
  * invoke the target method. The original jar file may now be modified.
  * <p/>
  * <p/>
@@ -78,13 +79,17 @@ import java.util.zip.ZipEntry;
  * <ol>
  * <li>Program is launched, SelfModifier is created, invoke(String[]) is called
  * <li>A temporary directory (or "sandbox") is created in the default temp directory, and the jar
- * file contents ar extracted into it
+ * file is copied into it, or its contents extracted into it if {@link #EXTRACT_KEY} is set
  * <li>Phase 2 is spawned using the sandbox as it's classpath, SelfModifier as the main class, the
  * arguments to "invoke(String[])" as the main arguments, and the <a
  * href="#selfmodsysprops">SelfModifier system properties</a> set.
  * <li>Immidiately exit so the system unlocks the jar file
  * </ol>
  * <p/>
+ * On platforms other than Windows, files in use may be deleted, so phase 3 is spawned directly instead of phase 2,
+ * and deletes the sandbox when it exits.
+ * <p/>
+ * <p/>
  * <b>Phase 2:</b>
  * <ol>
  * <li>Initializes from system properties.
@@ -163,6 +168,22 @@ public class SelfModifier
 
     public static final String MEMORY_KEY = "self.memory";
 
+    /**
+     * System property name to extract the contents of the jar file into the sandbox, rather than copying the jar.
+     * Extraction is slower, particularly for jars with many entries.
+     */
+    public static final String EXTRACT_KEY = "self.mod.extract";
+
+    /**
+     * System property name of the time phase 1 started, used to log the time taken to reach each phase.
+     */
+    private static final String START_KEY = "self.mod.start";
+
+    /**
+     * System property name indicating that phase 3 was spawned by phase 1, and must delete the sandbox itself.
+     */
+    private static final String CLEANUP_KEY = "self.mod.cleanup";
+
     /**
      * Target method to be invoked in sandbox.
      */
@@ -183,6 +204,21 @@ public class SelfModifier
      */
     private File jarFile = null;
 
+    /**
+     * The class path of phases 2 and 3. This is either the sandbox, or a copy of the jar file within it.
+     */
+    private String classPath = null;
+
+    /**
+     * The time phase 1 started.
+     */
+    private long start = System.currentTimeMillis();
+
+    /**
+     * Determines if phase 3 must delete the sandbox on exit.
+     */
+    private boolean cleanup = false;
+
     /**
      * Current phase of execution: 1, 2, or 3.
      */
@@ -296,6 +332,9 @@ public class SelfModifier
         jarFile = new File(System.getProperty(JAR_KEY));
         logFile = new File(System.getProperty(BASE_KEY) + ".log");
         sandbox = new File(System.getProperty(BASE_KEY) + ".d");
+        classPath = System.getProperty("java.class.path");
+        start = Long.getLong(START_KEY, start);
+        cleanup = Boolean.getBoolean(CLEANUP_KEY);
 
         this.maxmemory = Long.parseLong(System.getProperty(MEMORY_KEY, "64"));
         this.maxpermgensize = this.maxmemory / 4;
@@ -423,9 +462,12 @@ public class SelfModifier
      * calling {@link System#exit(int)}.
      * <p/>
      * <p/>
-     * The contents of the current jar file are extracted copied to a 'sandbox' directory from which
-     * the method is invoked. The path to the original jar file is placed in the system property
-     * {@link #JAR_KEY}.
+     * The current jar file is copied to a 'sandbox' directory from which the method is invoked. If the
+     * {@link #EXTRACT_KEY} system property is <tt>true</tt>, its contents are extracted instead. The path to
+     * the original jar file is placed in the system property {@link #JAR_KEY}.
+     * <p/>
+     * Phase 2 only exists to delete the sandbox once phase 3 exits. On platforms where files in use may be deleted,
+     * phase 3 is spawned directly, and deletes the sandbox itself.
      * <p/>
      *
      * @param args arguments to pass to the target method. May be empty or null to indicate no
@@ -434,6 +476,33 @@ public class SelfModifier
      * @throws IllegalStateException if method's class was not loaded from a jar
      */
     public void invoke(String[] args) throws IOException
+    {
+        File file = findJarFile(method.getDeclaringClass());
+        if (file == null)
+        {
+            throw new IllegalStateException("SelfModifier must be in a jar file");
+        }
+        prepare(file, Boolean.getBoolean(EXTRACT_KEY));
+
+        if (args == null)
+        {
+            args = new String[0];
+        }
+        spawn(args, getNextPhase(OsVersion.IS_WINDOWS));
+
+        // finally, if all went well, the invoking process must exit
+        log("Exit");
+        System.exit(0);
+    }
+
+    /**
+     * Creates the sandbox and log file, and copies or extracts the jar file into the sandbox.
+     *
+     * @param file    the jar file
+     * @param extract if <tt>true</tt>, extract the contents of the jar file, otherwise copy it
+     * @throws IOException if the sandbox cannot be prepared
+     */
+    void prepare(File file, boolean extract) throws IOException
     {
         // Initialize sandbox and log file to be unique, but similarly named
         while (true)
@@ -459,24 +528,34 @@ public class SelfModifier
         sandbox = sandbox.getCanonicalFile();
         logFile = logFile.getCanonicalFile();
 
-        jarFile = findJarFile(method.getDeclaringClass()).getCanonicalFile();
-        if (jarFile == null)
-        {
-            throw new IllegalStateException("SelfModifier must be in a jar file");
-        }
+        jarFile = file.getCanonicalFile();
         log("JarFile: " + jarFile);
 
-        extractJarFile();
-
-        if (args == null)
+        long begin = System.currentTimeMillis();
+        if (extract)
         {
-            args = new String[0];
+            extractJarFile();
+            classPath = sandbox.getAbsolutePath();
+        }
+        else
+        {
+            classPath = copyJarFile().getAbsolutePath();
         }
-        spawn(args, 2);
+        log("Sandbox prepared in " + (System.currentTimeMillis() - begin) + "ms");
+    }
 
-        // finally, if all went well, the invoking process must exit
-        log("Exit");
-        System.exit(0);
+    /**
+     * Returns the phase that phase 1 spawns.
+     * <p/>
+     * On Windows, files in use cannot be deleted, so phase 2 is needed to delete the sandbox once phase 3 exits.
+     * Elsewhere, phase 3 is spawned directly, and deletes the sandbox itself.
+     *
+     * @param windows determines if the platform is Windows
+     * @return the phase to spawn
+     */
+    static int getNextPhase(boolean windows)
+    {
+        return windows ? 2 : 3;
     }
 
     /**
@@ -488,6 +567,30 @@ public class SelfModifier
      * @throws IOException if there is an error getting the canonical name of a path
      */
     private Process spawn(String[] args, int nextPhase) throws IOException
+    {
+        List<String> command = getCommand(args, nextPhase);
+
+        StringBuilder buffer = new StringBuilder("Spawning phase ");
+        buffer.append(nextPhase).append(": ");
+        for (String anEntireCmd : command)
+        {
+            buffer.append("\n\t").append(anEntireCmd);
+        }
+        log(buffer.toString());
+
+//        ProcessBuilder process = new ProcessBuilder(command);       
+//        return process.start();
+        return Runtime.getRuntime().exec(command.toArray(new String[command.size()]), null, null);
+    }
+
+    /**
+     * Returns the command to run a new jvm for phases 2 and 3.
+     *
+     * @param args      the command line arguments
+     * @param nextPhase the next phase
+     * @return the command
+     */
+    List<String> getCommand(String[] args, int nextPhase)
     {
         String base = logFile.getAbsolutePath();
         base = base.substring(0, base.length() - 4);
@@ -519,28 +622,22 @@ public class SelfModifier
         }
 
         command.add("-classpath");
-        command.add(sandbox.getAbsolutePath());
+        command.add(classPath);
         command.add("-D" + BASE_KEY + "=" + base);
         command.add("-D" + JAR_KEY + "=" + jarFile.getPath() + "");
         command.add("-D" + CLASS_KEY + "=" + method.getDeclaringClass().getName());
         command.add("-D" + METHOD_KEY + "=" + method.getName());
         command.add("-D" + PHASE_KEY + "=" + nextPhase);
         command.add("-D" + MEMORY_KEY + "=" + this.maxmemory);
-        command.add(getClass().getName());
-
-        Collections.addAll(command, args);
-
-        StringBuilder buffer = new StringBuilder("Spawning phase ");
-        buffer.append(nextPhase).append(": ");
-        for (String anEntireCmd : command)
+        command.add("-D" + START_KEY + "=" + start);
+        if (phase == 1 && nextPhase == 3)
         {
-            buffer.append("\n\t").append(anEntireCmd);
+            command.add("-D" + CLEANUP_KEY + "=true");
         }
-        log(buffer.toString());
+        command.add(getClass().getName());
 
-//        ProcessBuilder process = new ProcessBuilder(command);       
-//        return process.start();
-        return Runtime.getRuntime().exec(command.toArray(new String[command.size()]), null, null);
+        Collections.addAll(command, args);
+        return command;
     }
 
     /**
@@ -575,7 +672,39 @@ public class SelfModifier
     }
 
     /**
-     * @throws IOException
+     * Copies the jar file into the sandbox, so that the secondary processes don't lock the original.
+     *
+     * @return the copy of the jar file
+     * @throws IOException if the jar file cannot be copied
+     */
+    private File copyJarFile() throws IOException
+    {
+        File copy = new File(sandbox, jarFile.getName());
+        byte[] buf = new byte[65536];
+        InputStream in = new FileInputStream(jarFile);
+        OutputStream out = null;
+        try
+        {
+            out = new FileOutputStream(copy);
+            int n;
+            while ((n = in.read(buf, 0, buf.length)) > 0)
+            {
+                out.write(buf, 0, n);
+            }
+        }
+        finally
+        {
+            FileUtils.close(out);
+            FileUtils.close(in);
+        }
+        log("Copied " + jarFile.getName() + " into " + sandbox.getPath());
+        return copy;
+    }
+
+    /**
+     * Extracts the contents of the jar file into the sandbox.
+     *
+     * @throws IOException if the jar file cannot be extracted
      */
     private void extractJarFile() throws IOException
     {
@@ -652,6 +781,7 @@ public class SelfModifier
     {
 
         int retVal = -1;
+        log("Started " + (System.currentTimeMillis() - start) + "ms after launch");
         try
         {
             // TODO: in jre 1.2, Phs1 consistently needs more time to unlock the
@@ -676,6 +806,7 @@ public class SelfModifier
             new StreamProxy(process.getInputStream(), "out", log).start();
             process.getOutputStream().close();
 
+            long begin = System.currentTimeMillis();
             try
             {
                 retVal = process.waitFor();
@@ -684,6 +815,7 @@ public class SelfModifier
             {
                 log(e);
             }
+            log("Phase 3 ran for " + (System.currentTimeMillis() - begin) + "ms");
 
             // clean up and go
             log("deleteing sandbox");
@@ -723,6 +855,30 @@ public class SelfModifier
      */
     private void invoke3(String[] args)
     {
+        if (cleanup)
+        {
+            // spawned by phase 1, so there is no phase 2 to capture std io, or delete the sandbox
+            try
+            {
+                PrintStream out = new PrintStream(new FileOutputStream(logFile, true), true);
+                System.setOut(out);
+                System.setErr(out);
+            }
+            catch (IOException exception)
+            {
+                log(exception);
+            }
+            Runtime.getRuntime().addShutdownHook(new Thread()
+            {
+                @Override
+                public void run()
+                {
+                    deleteTree(sandbox);
+                }
+            });
+        }
+        errlog("Started " + (System.currentTimeMillis() - start) + "ms after launch");
+
         // std io is being redirected to the log
         try
         {
@@ -0,0 +1,51 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.util.config;
+
+
+/**
+ * A {@link ConfigurableTask} that is only executed if a condition is true.
+ *
+ * @author agent
+ */
+public interface ConditionalTask
+{
+
+    /**
+     * Returns the task to execute.
+     *
+     * @return the task
+     */
+    ConfigurableTask getConfigurableTask();
+
+    /**
+     * Determines if the task has a condition.
+     *
+     * @return <tt>true</tt> if the task has a condition, <tt>false</tt> if it is always executed
+     */
+    boolean hasCondition();
+
+    /**
+     * Determines if the task should be executed.
+     *
+     * @return <tt>true</tt> if the task has no condition, or its condition is true
+     */
+    boolean isEnabled();
+}
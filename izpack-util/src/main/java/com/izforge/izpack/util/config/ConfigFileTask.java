@@ -23,9 +23,14 @@
 package com.izforge.izpack.util.config;
 
 import java.io.File;
+import java.util.logging.Logger;
+
+import com.izforge.izpack.util.config.base.Configurable;
 
 public abstract class ConfigFileTask extends SingleConfigurableTask
 {
+    private static final Logger logger = Logger.getLogger(ConfigFileTask.class.getName());
+
     /*
      * Instance variables.
      */
@@ -93,6 +98,64 @@ public abstract class ConfigFileTask extends SingleConfigurableTask
         return this.comment;
     }
 
+    /**
+     * Executes the task, optionally continuing from the result of a preceding task on the same file.
+     * <p/>
+     * If the configuration isn't written, the file patched from isn't cleaned up either. The caller must invoke
+     * {@link #cleanupOldFile()} once a following task has written the configuration.
+     *
+     * @param input the configuration patched by the preceding task, or <tt>null</tt> to read it from file
+     * @param write if <tt>true</tt>, write the configuration to file, else leave it to a following task
+     * @return the patched configuration
+     * @throws Exception if the configuration cannot be read, patched or written
+     * @see #canChain(ConfigFileTask)
+     */
+    public Configurable execute(Configurable input, boolean write) throws Exception
+    {
+        Configurable result = patch(input);
+        if (write)
+        {
+            writeConfigurable();
+        }
+        return result;
+    }
+
+    /**
+     * Determines if the configuration patched by this task can be passed to another task in memory, rather than
+     * being written, and read back by it.
+     * <p/>
+     * This is the case if the other task is of the same type, has the same settings, and patches the file written
+     * by this task. The other task mustn't patch from an old file, as it would read it from disk, where it may be
+     * the file written by this task, or be cleaned up by it.
+     *
+     * @param next the task following this one
+     * @return <tt>true</tt> if the configuration can be passed to the task
+     */
+    public boolean canChain(ConfigFileTask next)
+    {
+        return next.getClass() == getClass() && toFile.getAbsoluteFile().equals(next.toFile.getAbsoluteFile())
+                && next.oldFile == null
+                && (next.newFile == null || !next.newFile.exists())
+                && (createConfigurable || toFile.exists())
+                && (next.createConfigurable || toFile.exists())
+                && hasSameConfig(next)
+                && (comment == null ? next.comment == null : comment.equals(next.comment));
+    }
+
+    /**
+     * Deletes the file patched from, if cleanup is enabled.
+     */
+    protected void cleanupOldFile()
+    {
+        if (cleanup && oldFile != null && oldFile.exists())
+        {
+            if (!oldFile.delete())
+            {
+                logger.warning("File " + oldFile + " could not be cleant up");
+            }
+        }
+    }
+
     @Override
     protected void checkAttributes() throws Exception
     {
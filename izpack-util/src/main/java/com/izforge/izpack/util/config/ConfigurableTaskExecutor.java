@@ -0,0 +1,433 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.util.config;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import com.izforge.izpack.util.config.base.Configurable;
+
+
+/**
+ * Executes configurable tasks, grouped by the files they access.
+ * <p/>
+ * Tasks are grouped so that tasks sharing any file are executed in order, within the same group. Groups are
+ * independent of each other, and are executed concurrently.
+ * <br/>
+ * Within a group, consecutive INI and option file tasks on the same file pass the patched configuration on in memory,
+ * so the file is parsed and written once, and consecutive XML merges into the same file are combined into one merge.
+ * <p/>
+ * Tasks whose files cannot be determined up front, such as registry tasks, file set copies and merges, act as
+ * barriers: all preceding tasks complete before they are executed, and following tasks start after they complete.
+ * <br/>
+ * The conditions of {@link ConditionalTask}s are evaluated in task order, after all preceding tasks complete, as a
+ * condition may depend on the effects of earlier tasks.
+ * <br/>
+ * Files are identified by their canonical paths, so that links and relative paths to the same file are grouped
+ * together.
+ *
+ * @author agent
+ */
+public class ConfigurableTaskExecutor
+{
+
+    /**
+     * System property specifying the maximum no. of groups to execute concurrently. Defaults to the no. of
+     * available processors. A value of <tt>1</tt> executes all tasks sequentially.
+     */
+    public static final String THREADS = "izpack.config.threads";
+
+    /**
+     * The logger.
+     */
+    private static final Logger logger = Logger.getLogger(ConfigurableTaskExecutor.class.getName());
+
+    /**
+     * The maximum no. of groups to execute concurrently.
+     */
+    private final int threads;
+
+
+    /**
+     * Constructs a <tt>ConfigurableTaskExecutor</tt>.
+     *
+     * @param threads the maximum no. of groups to execute concurrently
+     */
+    public ConfigurableTaskExecutor(int threads)
+    {
+        this.threads = threads;
+    }
+
+    /**
+     * Creates a <tt>ConfigurableTaskExecutor</tt> that executes up to the no. of groups specified by the
+     * {@link #THREADS} system property concurrently, or the no. of available processors if it isn't set.
+     *
+     * @return a new executor
+     */
+    public static ConfigurableTaskExecutor create()
+    {
+        int threads = Integer.getInteger(THREADS, Runtime.getRuntime().availableProcessors());
+        return new ConfigurableTaskExecutor(Math.max(threads, 1));
+    }
+
+    /**
+     * Executes tasks.
+     * <p/>
+     * If a task fails, the remaining tasks in its group aren't executed, and no tasks after the next barrier are
+     * executed. Groups that are already executing run to completion.
+     *
+     * @param tasks the tasks to execute
+     * @throws Exception the first failure
+     */
+    public void execute(List<? extends ConfigurableTask> tasks) throws Exception
+    {
+        List<ConfigurableTask> segment = new ArrayList<ConfigurableTask>();
+        for (ConfigurableTask task : tasks)
+        {
+            add(task, segment);
+        }
+        executeSegment(segment);
+    }
+
+    /**
+     * Executes conditional tasks.
+     * <p/>
+     * Each condition is evaluated when the task is reached, after all preceding tasks have completed. Tasks whose
+     * conditions are false are skipped.
+     *
+     * @param tasks the tasks to execute
+     * @throws Exception the first failure
+     */
+    public void executeConditional(List<? extends ConditionalTask> tasks) throws Exception
+    {
+        List<ConfigurableTask> segment = new ArrayList<ConfigurableTask>();
+        for (ConditionalTask task : tasks)
+        {
+            if (task.hasCondition())
+            {
+                executeSegment(segment);
+                segment.clear();
+                if (!task.isEnabled())
+                {
+                    continue;
+                }
+            }
+            add(task.getConfigurableTask(), segment);
+        }
+        executeSegment(segment);
+    }
+
+    /**
+     * Adds a task to the current segment.
+     * <p/>
+     * If the files of the task cannot be determined, the segment is executed, followed by the task.
+     *
+     * @param task    the task
+     * @param segment the tasks whose files are known, that have yet to be executed
+     * @throws Exception if a task fails
+     */
+    private void add(ConfigurableTask task, List<ConfigurableTask> segment) throws Exception
+    {
+        if (getFiles(task) == null)
+        {
+            executeSegment(segment);
+            segment.clear();
+            task.execute();
+        }
+        else
+        {
+            segment.add(task);
+        }
+    }
+
+    /**
+     * Executes a sequence of tasks whose files are known, grouping them by file.
+     *
+     * @param tasks the tasks to execute
+     * @throws Exception the failure of the earliest failing group
+     */
+    private void executeSegment(List<ConfigurableTask> tasks) throws Exception
+    {
+        List<List<ConfigurableTask>> groups = group(tasks);
+        if (groups.size() <= 1 || threads <= 1)
+        {
+            for (List<ConfigurableTask> group : groups)
+            {
+                executeGroup(group);
+            }
+        }
+        else
+        {
+            logger.fine("Executing " + tasks.size() + " configuration tasks in " + groups.size() + " groups");
+            ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, groups.size()),
+                                                                    new TaskThreadFactory());
+            try
+            {
+                List<Future<Void>> futures = new ArrayList<Future<Void>>();
+                for (final List<ConfigurableTask> group : groups)
+                {
+                    futures.add(executor.submit(new Callable<Void>()
+                    {
+                        @Override
+                        public Void call() throws Exception
+                        {
+                            executeGroup(group);
+                            return null;
+                        }
+                    }));
+                }
+                Exception failure = null;
+                for (Future<Void> future : futures)
+                {
+                    try
+                    {
+                        future.get();
+                    }
+                    catch (ExecutionException exception)
+                    {
+                        if (failure == null)
+                        {
+                            Throwable cause = exception.getCause();
+                            failure = (cause instanceof Exception) ? (Exception) cause : exception;
+                        }
+                    }
+                }
+                if (failure != null)
+                {
+                    throw failure;
+                }
+            }
+            finally
+            {
+                executor.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Executes a group of tasks in order.
+     *
+     * @param tasks the tasks
+     * @throws Exception if a task fails
+     */
+    private void executeGroup(List<ConfigurableTask> tasks) throws Exception
+    {
+        Configurable pending = null;
+        List<ConfigFileTask> chained = new ArrayList<ConfigFileTask>();
+        SingleXmlFileMergeTask merge = null;
+        for (int i = 0; i < tasks.size(); ++i)
+        {
+            ConfigurableTask task = tasks.get(i);
+            ConfigurableTask next = (i + 1 < tasks.size()) ? tasks.get(i + 1) : null;
+            if (task instanceof ConfigFileTask)
+            {
+                ConfigFileTask fileTask = (ConfigFileTask) task;
+                boolean chain = next instanceof ConfigFileTask && fileTask.canChain((ConfigFileTask) next);
+                pending = fileTask.execute(pending, !chain);
+                if (chain)
+                {
+                    chained.add(fileTask);
+                }
+                else
+                {
+                    // the chain has been written, so the files it patched from can be cleaned up
+                    for (ConfigFileTask written : chained)
+                    {
+                        written.cleanupOldFile();
+                    }
+                    chained.clear();
+                    pending = null;
+                }
+            }
+            else if (task instanceof SingleXmlFileMergeTask)
+            {
+                merge = (merge == null) ? (SingleXmlFileMergeTask) task : merge;
+                SingleXmlFileMergeTask combined = null;
+                if (next instanceof SingleXmlFileMergeTask)
+                {
+                    combined = merge.combine((SingleXmlFileMergeTask) next);
+                }
+                if (combined != null)
+                {
+                    merge = combined;
+                }
+                else
+                {
+                    merge.execute();
+                    merge = null;
+                }
+            }
+            else
+            {
+                task.execute();
+            }
+        }
+    }
+
+    /**
+     * Groups tasks so that tasks sharing a file are in the same group, preserving their order.
+     *
+     * @param tasks the tasks
+     * @return the groups, ordered by their first task
+     */
+    private List<List<ConfigurableTask>> group(List<ConfigurableTask> tasks)
+    {
+        int[] parents = new int[tasks.size()];
+        Map<File, Integer> owners = new HashMap<File, Integer>();
+        for (int i = 0; i < tasks.size(); ++i)
+        {
+            parents[i] = i;
+            for (File file : getFiles(tasks.get(i)))
+            {
+                Integer owner = owners.get(file);
+                if (owner != null)
+                {
+                    parents[find(parents, i)] = find(parents, owner);
+                }
+                else
+                {
+                    owners.put(file, i);
+                }
+            }
+        }
+        Map<Integer, List<ConfigurableTask>> groups = new LinkedHashMap<Integer, List<ConfigurableTask>>();
+        for (int i = 0; i < tasks.size(); ++i)
+        {
+            int root = find(parents, i);
+            List<ConfigurableTask> group = groups.get(root);
+            if (group == null)
+            {
+                group = new ArrayList<ConfigurableTask>();
+                groups.put(root, group);
+            }
+            group.add(tasks.get(i));
+        }
+        return new ArrayList<List<ConfigurableTask>>(groups.values());
+    }
+
+    /**
+     * Returns the group root of a task.
+     *
+     * @param parents the task parents
+     * @param index   the task index
+     * @return the index of the root task of the group
+     */
+    private int find(int[] parents, int index)
+    {
+        while (parents[index] != index)
+        {
+            parents[index] = parents[parents[index]];
+            index = parents[index];
+        }
+        return index;
+    }
+
+    /**
+     * Returns the files that a task reads or writes.
+     *
+     * @param task the task
+     * @return the files, or <tt>null</tt> if they cannot be determined
+     */
+    private List<File> getFiles(ConfigurableTask task)
+    {
+        List<File> result = null;
+        if (task instanceof ConfigFileTask)
+        {
+            ConfigFileTask fileTask = (ConfigFileTask) task;
+            result = getFiles(fileTask.oldFile, fileTask.newFile, fileTask.toFile);
+        }
+        else if (task instanceof SingleXmlFileMergeTask)
+        {
+            SingleXmlFileMergeTask merge = (SingleXmlFileMergeTask) task;
+            if (merge.filesets.isEmpty())
+            {
+                result = getFiles(merge.origfile, merge.patchfile, merge.tofile, merge.conffile);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the canonical paths of files.
+     * <p/>
+     * If the canonical path of a file cannot be determined, its absolute path is used.
+     *
+     * @param files the files. Null files are ignored
+     * @return the canonical files
+     */
+    private List<File> getFiles(File... files)
+    {
+        List<File> result = new ArrayList<File>();
+        for (File file : files)
+        {
+            if (file != null)
+            {
+                try
+                {
+                    result.add(file.getCanonicalFile());
+                }
+                catch (IOException exception)
+                {
+                    result.add(file.getAbsoluteFile());
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Creates daemon threads to execute groups of tasks.
+     */
+    private static class TaskThreadFactory implements ThreadFactory
+    {
+
+        /**
+         * The thread counter.
+         */
+        private final AtomicInteger count = new AtomicInteger();
+
+        /**
+         * Constructs a new thread.
+         *
+         * @param runnable the runnable to run
+         * @return a new thread
+         */
+        @Override
+        public Thread newThread(Runnable runnable)
+        {
+            Thread thread = new Thread(runnable, "IzPack-config-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
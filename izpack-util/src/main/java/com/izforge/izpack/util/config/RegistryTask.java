@@ -64,6 +64,7 @@ public class RegistryTask extends SingleConfigurableTask
             try
             {
                 logger.fine("Loading from registry: " + this.fromKey);
+                setGlobalConfig();
                 fromConfigurable = new Reg(this.fromKey);
             }
             catch (IOException ioe)
@@ -81,6 +82,7 @@ public class RegistryTask extends SingleConfigurableTask
             try
             {
                 logger.fine("Loading from registry: " + this.key);
+                setGlobalConfig();
                 configurable = new Reg(this.key);
             }
             catch (IOException ioe)
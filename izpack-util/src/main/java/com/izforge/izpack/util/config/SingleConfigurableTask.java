@@ -184,6 +184,59 @@ public abstract class SingleConfigurableTask implements ConfigurableTask
 
     @Override
     public void execute() throws Exception
+    {
+        patch(null);
+        writeConfigurable();
+    }
+
+    /**
+     * Reads and patches the configurable, without writing it.
+     *
+     * @param input the configurable to patch in place of reading it, or <tt>null</tt> to read it
+     * @return the patched configurable
+     * @throws Exception if the configurable cannot be read or patched
+     */
+    protected Configurable patch(Configurable input) throws Exception
+    {
+        checkAttributes();
+        if (input != null)
+        {
+            configurable = input;
+        }
+        else
+        {
+            readConfigurable();
+        }
+        readSourceConfigurable();
+        patchConfigurable();
+        executeNestedEntries();
+        return configurable;
+    }
+
+    /**
+     * Returns the ini4j settings of this task.
+     * <p/>
+     * Each task has its own settings, so that tasks with different settings may be executed concurrently.
+     *
+     * @return a new configuration, derived from the global configuration
+     */
+    protected Config getConfig()
+    {
+        Config config = Config.getGlobal().clone();
+        config.setHeaderComment(headerComment);
+        config.setEmptyLines(emptyLines);
+        config.setAutoNumbering(autoNumbering);
+        config.setEscape(escape);
+        config.setEscapeNewline(escapeNewLine);
+        config.setOperator(operator);
+        return config;
+    }
+
+    /**
+     * Applies the ini4j settings of this task to the global configuration, for configurables that can only be
+     * constructed from it.
+     */
+    protected void setGlobalConfig()
     {
         Config.getGlobal().setHeaderComment(headerComment);
         Config.getGlobal().setEmptyLines(emptyLines);
@@ -191,12 +244,20 @@ public abstract class SingleConfigurableTask implements ConfigurableTask
         Config.getGlobal().setEscape(escape);
         Config.getGlobal().setEscapeNewline(escapeNewLine);
         Config.getGlobal().setOperator(operator);
-        checkAttributes();
-        readConfigurable();
-        readSourceConfigurable();
-        patchConfigurable();
-        executeNestedEntries();
-        writeConfigurable();
+    }
+
+    /**
+     * Determines if another task has the same ini4j settings as this.
+     *
+     * @param other the other task
+     * @return <tt>true</tt> if the settings are the same
+     */
+    protected boolean hasSameConfig(SingleConfigurableTask other)
+    {
+        return headerComment == other.headerComment && emptyLines == other.emptyLines
+                && autoNumbering == other.autoNumbering && escape == other.escape
+                && escapeNewLine == other.escapeNewLine
+                && (operator == null ? other.operator == null : operator.equals(other.operator));
     }
 
     private String getValueFromOptionMap(OptionMap map, String key, int index)
@@ -48,7 +48,7 @@ public class SingleIniFileTask extends ConfigFileTask
                 }
                 logger.fine("Loading INI file: " + oldFile.getAbsolutePath());
                 // Configuration file type must be the same as the target type
-                fromConfigurable = new Ini(this.oldFile);
+                fromConfigurable = load(this.oldFile);
             }
             catch (IOException ioe)
             {
@@ -65,7 +65,7 @@ public class SingleIniFileTask extends ConfigFileTask
             try
             {
                 logger.fine("Loading original configuration file: " + newFile.getAbsolutePath());
-                configurable = new Ini(newFile);
+                configurable = load(newFile);
             }
             catch (IOException ioe)
             {
@@ -77,7 +77,7 @@ public class SingleIniFileTask extends ConfigFileTask
             try
             {
                 logger.fine("Loading target configuration file: " + toFile.getAbsolutePath());
-                configurable = new Ini(toFile);
+                configurable = load(toFile);
             }
             catch (IOException ioe)
             {
@@ -86,7 +86,7 @@ public class SingleIniFileTask extends ConfigFileTask
         }
         else
         {
-            configurable = new Ini();
+            configurable = create();
         }
     }
 
@@ -125,13 +125,34 @@ public class SingleIniFileTask extends ConfigFileTask
             throw new Exception(ioe);
         }
 
-        if (cleanup && oldFile.exists())
-        {
-            if (!oldFile.delete())
-            {
-                logger.warning("File " + oldFile + " could not be cleant up");
-            }
-        }
+        cleanupOldFile();
+    }
+
+    /**
+     * Creates an empty INI file, with the settings of this task.
+     *
+     * @return a new INI file
+     */
+    private Ini create()
+    {
+        Ini ini = new Ini();
+        ini.setConfig(getConfig());
+        return ini;
+    }
+
+    /**
+     * Loads an INI file, with the settings of this task.
+     *
+     * @param file the file to load
+     * @return the loaded file
+     * @throws IOException if the file cannot be read
+     */
+    private Ini load(File file) throws IOException
+    {
+        Ini ini = create();
+        ini.setFile(file);
+        ini.load();
+        return ini;
     }
 
     @Override
@@ -27,6 +27,7 @@ import java.io.IOException;
 import java.util.logging.Logger;
 
 import com.izforge.izpack.api.adaptator.IXMLElement;
+import com.izforge.izpack.util.config.base.Config;
 import com.izforge.izpack.util.config.base.Options;
 
 public class SingleOptionFileTask extends ConfigFileTask
@@ -48,7 +49,7 @@ public class SingleOptionFileTask extends ConfigFileTask
                 }
                 logger.fine("Loading options file: " + oldFile.getAbsolutePath());
                 // Configuration file type must be the same as the target type
-                fromConfigurable = new Options(this.oldFile);
+                fromConfigurable = load(this.oldFile);
             }
             catch (IOException ioe)
             {
@@ -65,7 +66,7 @@ public class SingleOptionFileTask extends ConfigFileTask
             try
             {
                 logger.fine("Loading original configuration file: " + newFile.getAbsolutePath());
-                configurable = new Options(newFile);
+                configurable = load(newFile);
             }
             catch (IOException ioe)
             {
@@ -77,7 +78,7 @@ public class SingleOptionFileTask extends ConfigFileTask
             try
             {
                 logger.fine("Loading target configuration file: " + toFile.getAbsolutePath());
-                configurable = new Options(toFile);
+                configurable = load(toFile);
             }
             catch (IOException ioe)
             {
@@ -86,7 +87,7 @@ public class SingleOptionFileTask extends ConfigFileTask
         }
         else
         {
-            configurable = new Options();
+            configurable = create();
         }
     }
 
@@ -125,13 +126,36 @@ public class SingleOptionFileTask extends ConfigFileTask
             throw new Exception(ioe);
         }
 
-        if (cleanup && oldFile.exists())
-        {
-            if (!oldFile.delete())
-            {
-                logger.warning("File " + oldFile + " could not be cleant up");
-            }
-        }
+        cleanupOldFile();
+    }
+
+    /**
+     * Creates an empty options file, with the settings of this task.
+     *
+     * @return a new options file
+     */
+    private Options create()
+    {
+        Config config = getConfig();
+        config.setEmptyOption(true);
+        Options options = new Options();
+        options.setConfig(config);
+        return options;
+    }
+
+    /**
+     * Loads an options file, with the settings of this task.
+     *
+     * @param file the file to load
+     * @return the loaded file
+     * @throws IOException if the file cannot be read
+     */
+    private Options load(File file) throws IOException
+    {
+        Options options = create();
+        options.setFile(file);
+        options.load();
+        return options;
     }
 
     @Override
@@ -40,6 +40,7 @@ import com.izforge.izpack.util.xmlmerge.ConfigurationException;
 import com.izforge.izpack.util.xmlmerge.XmlMerge;
 import com.izforge.izpack.util.xmlmerge.config.ConfigurableXmlMerge;
 import com.izforge.izpack.util.xmlmerge.config.PropertyXPathConfigurer;
+import com.izforge.izpack.util.xmlmerge.merge.DefaultXmlMerge;
 
 public class SingleXmlFileMergeTask implements ConfigurableTask
 {
@@ -50,9 +51,15 @@ public class SingleXmlFileMergeTask implements ConfigurableTask
     protected File tofile;
     protected File conffile;
     protected boolean cleanup;
+    protected boolean streaming;
 
     protected Properties confProps = new Properties();
 
+    /**
+     * Patch files of merges combined with this one, merged in order after the other files.
+     */
+    private final List<File> chainedPatchFiles = new ArrayList<File>();
+
 
     public void setOriginalFile(File origfile)
     {
@@ -85,6 +92,16 @@ public class SingleXmlFileMergeTask implements ConfigurableTask
         this.cleanup = cleanup;
     }
 
+    /**
+     * Whether to stream the original file rather than read it into memory, if the merge properties allow it.
+     * A streamed merge preserves the formatting of the original file.
+     * @param streaming True, if the original file should be streamed
+     */
+    public void setStreaming(boolean streaming)
+    {
+        this.streaming = streaming;
+    }
+
     /**
     * List of file sets.
     */
@@ -125,6 +142,41 @@ public class SingleXmlFileMergeTask implements ConfigurableTask
         }
     }
 
+    /**
+     * Returns a merge that performs this merge followed by another merge of its output, so that the output file is
+     * parsed and written once.
+     * <p/>
+     * Merges can only be combined if they write the same file, use the same merge properties, and have explicit
+     * patch files, and this merge would not be skipped.
+     *
+     * @param next the merge following this one
+     * @return the combined merge, or <tt>null</tt> if the merges cannot be combined
+     */
+    public SingleXmlFileMergeTask combine(SingleXmlFileMergeTask next)
+    {
+        if (getClass() != SingleXmlFileMergeTask.class || next.getClass() != SingleXmlFileMergeTask.class
+                || tofile == null || next.origfile == null || next.tofile == null || next.patchfile == null
+                || !tofile.getAbsoluteFile().equals(next.origfile.getAbsoluteFile())
+                || !tofile.getAbsoluteFile().equals(next.tofile.getAbsoluteFile())
+                || !filesets.isEmpty() || !next.filesets.isEmpty()
+                || conffile != null || next.conffile != null || !confProps.equals(next.confProps)
+                || cleanup != next.cleanup || streaming != next.streaming
+                || origfile == null || !origfile.exists() || patchfile == null || !patchfile.exists())
+        {
+            return null;
+        }
+        SingleXmlFileMergeTask result = new SingleXmlFileMergeTask();
+        result.origfile = origfile;
+        result.patchfile = patchfile;
+        result.tofile = tofile;
+        result.cleanup = cleanup;
+        result.streaming = streaming;
+        result.confProps.putAll(confProps);
+        result.chainedPatchFiles.addAll(chainedPatchFiles);
+        result.chainedPatchFiles.add(next.patchfile);
+        return result;
+    }
+
     @Override
     public void execute() throws Exception {
         validate();
@@ -162,6 +214,14 @@ public class SingleXmlFileMergeTask implements ConfigurableTask
             }
         }
 
+        for (File file : chainedPatchFiles)
+        {
+            if (file.exists())
+            {
+                filesToMerge.add(file);
+            }
+        }
+
         if (filesToMerge.size() < 2)
         {
             logger.warning("XML merge skipped, not enough XML input files to merge");
@@ -191,7 +251,9 @@ public class SingleXmlFileMergeTask implements ConfigurableTask
         // Create the XmlMerge instance and execute the merge
         XmlMerge xmlMerge;
         try {
-            xmlMerge = new ConfigurableXmlMerge(new PropertyXPathConfigurer(confProps));
+            DefaultXmlMerge merge = new DefaultXmlMerge();
+            merge.setStreaming(streaming);
+            xmlMerge = new ConfigurableXmlMerge(merge, new PropertyXPathConfigurer(confProps));
         } catch (ConfigurationException e) {
             throw new Exception(e);
         }
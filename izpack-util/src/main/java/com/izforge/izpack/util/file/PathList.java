@@ -0,0 +1,498 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.util.file;
+
+import java.nio.charset.Charset;
+import java.util.AbstractList;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+
+/**
+ * An append-only list of paths, held in front-coded blocks.
+ * <p/>
+ * Each block holds up to {@link #BLOCK_SIZE} paths. The first path of a block is stored in full; each subsequent
+ * path is stored as the length of the prefix it shares with its predecessor, followed by the remaining characters,
+ * UTF-8 encoded. As installed paths share long directory prefixes, this typically needs a small fraction of the
+ * memory of the equivalent list of strings.
+ * <p/>
+ * Paths are decoded on demand. Iteration streams through the blocks; {@link #get(int)} decodes the enclosing block,
+ * which is cached so that sequential access by index only decodes each block once.
+ * <p/>
+ * This class is not thread safe.
+ *
+ * @author agent
+ */
+public class PathList extends AbstractList<String>
+{
+
+    /**
+     * The no. of paths per block.
+     */
+    public static final int BLOCK_SIZE = 16;
+
+    /**
+     * The path encoding.
+     */
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /**
+     * The encoded paths.
+     */
+    private byte[] data = new byte[1024];
+
+    /**
+     * The no. of bytes used in {@link #data}.
+     */
+    private int length;
+
+    /**
+     * The offsets of each block in {@link #data}.
+     */
+    private int[] blocks = new int[16];
+
+    /**
+     * The no. of paths.
+     */
+    private int size;
+
+    /**
+     * The last path added.
+     */
+    private String last;
+
+    /**
+     * The decoded paths of the cached block.
+     */
+    private final String[] cache = new String[BLOCK_SIZE];
+
+    /**
+     * The index of the cached block, or {@code -1} if no block is cached.
+     */
+    private int cached = -1;
+
+
+    /**
+     * Constructs an empty <tt>PathList</tt>.
+     */
+    public PathList()
+    {
+    }
+
+    /**
+     * Adds a path to the end of the list.
+     *
+     * @param path the path to add
+     * @return {@code true}
+     * @throws NullPointerException if the path is {@code null}
+     */
+    @Override
+    public boolean add(String path)
+    {
+        if (path == null)
+        {
+            throw new NullPointerException("Argument 'path' is null");
+        }
+        int shared = 0;
+        if (size % BLOCK_SIZE == 0)
+        {
+            int block = size / BLOCK_SIZE;
+            if (block == blocks.length)
+            {
+                int[] grown = new int[blocks.length * 2];
+                System.arraycopy(blocks, 0, grown, 0, blocks.length);
+                blocks = grown;
+            }
+            blocks[block] = length;
+        }
+        else
+        {
+            shared = getSharedPrefix(last, path);
+        }
+        byte[] suffix = path.substring(shared).getBytes(UTF_8);
+        ensureCapacity(length + 10 + suffix.length);
+        writeInt(shared);
+        writeInt(suffix.length);
+        System.arraycopy(suffix, 0, data, length, suffix.length);
+        length += suffix.length;
+        last = path;
+        if (size / BLOCK_SIZE == cached)
+        {
+            // the cached block is incomplete, so decode it again on next access
+            cached = -1;
+        }
+        ++size;
+        ++modCount;
+        return true;
+    }
+
+    /**
+     * Returns the path at the specified position.
+     *
+     * @param index the index of the path
+     * @return the path at the specified position
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    @Override
+    public String get(int index)
+    {
+        if (index < 0 || index >= size)
+        {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        int block = index / BLOCK_SIZE;
+        if (block != cached)
+        {
+            Decoder decoder = new Decoder(blocks[block]);
+            int count = Math.min(BLOCK_SIZE, size - block * BLOCK_SIZE);
+            String previous = null;
+            for (int i = 0; i < count; ++i)
+            {
+                previous = decoder.next(previous);
+                cache[i] = previous;
+            }
+            cached = block;
+        }
+        return cache[index % BLOCK_SIZE];
+    }
+
+    /**
+     * Returns the no. of paths.
+     *
+     * @return the no. of paths
+     */
+    @Override
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Returns an iterator that decodes the paths in sequence.
+     *
+     * @return an iterator over the paths
+     */
+    @Override
+    public Iterator<String> iterator()
+    {
+        return new PathIterator();
+    }
+
+    /**
+     * Removes all paths.
+     */
+    @Override
+    public void clear()
+    {
+        data = new byte[1024];
+        blocks = new int[16];
+        length = 0;
+        size = 0;
+        last = null;
+        cached = -1;
+        ++modCount;
+    }
+
+    /**
+     * Returns the no. of bytes used to hold the encoded paths.
+     *
+     * @return the encoded size, in bytes
+     */
+    public int getEncodedSize()
+    {
+        return length;
+    }
+
+    /**
+     * Merges lists of paths sorted on the same comparator into a single sorted list.
+     * <p/>
+     * Paths that compare equal to their predecessor are only included once. Only one path from each list is decoded
+     * at a time, so merging doesn't require the paths to be held as strings.
+     *
+     * @param lists      the lists to merge. Each must be sorted using the comparator
+     * @param comparator the comparator
+     * @return the merged paths
+     */
+    public static PathList merge(List<? extends List<String>> lists, final Comparator<String> comparator)
+    {
+        PriorityQueue<Head> heads = new PriorityQueue<Head>(Math.max(1, lists.size()), new Comparator<Head>()
+        {
+            @Override
+            public int compare(Head o1, Head o2)
+            {
+                return comparator.compare(o1.path, o2.path);
+            }
+        });
+        for (List<String> list : lists)
+        {
+            Iterator<String> iterator = list.iterator();
+            if (iterator.hasNext())
+            {
+                heads.add(new Head(iterator));
+            }
+        }
+        PathList result = new PathList();
+        String previous = null;
+        while (!heads.isEmpty())
+        {
+            Head head = heads.poll();
+            if (previous == null || comparator.compare(previous, head.path) != 0)
+            {
+                result.add(head.path);
+                previous = head.path;
+            }
+            if (head.next())
+            {
+                heads.add(head);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the length of the prefix shared by two paths.
+     * <p/>
+     * The prefix never ends between the two halves of a surrogate pair, so that the suffix can be encoded.
+     *
+     * @param path1 the first path
+     * @param path2 the second path
+     * @return the shared prefix length
+     */
+    private static int getSharedPrefix(String path1, String path2)
+    {
+        int max = Math.min(path1.length(), path2.length());
+        int result = 0;
+        while (result < max && path1.charAt(result) == path2.charAt(result))
+        {
+            ++result;
+        }
+        if (result > 0 && Character.isHighSurrogate(path1.charAt(result - 1)))
+        {
+            --result;
+        }
+        return result;
+    }
+
+    /**
+     * Ensures that the encoded data can hold the specified no. of bytes.
+     *
+     * @param capacity the required capacity
+     */
+    private void ensureCapacity(int capacity)
+    {
+        if (capacity > data.length)
+        {
+            byte[] grown = new byte[Math.max(capacity, data.length * 2)];
+            System.arraycopy(data, 0, grown, 0, length);
+            data = grown;
+        }
+    }
+
+    /**
+     * Writes a non-negative integer as a variable length quantity of 7-bit groups.
+     *
+     * @param value the value to write
+     */
+    private void writeInt(int value)
+    {
+        while ((value & ~0x7F) != 0)
+        {
+            data[length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        data[length++] = (byte) value;
+    }
+
+    /**
+     * Decodes paths from a position in the encoded data.
+     */
+    private class Decoder
+    {
+
+        /**
+         * The position of the next path.
+         */
+        private int position;
+
+        /**
+         * Constructs a <tt>Decoder</tt>.
+         *
+         * @param position the position of the first path to decode
+         */
+        public Decoder(int position)
+        {
+            this.position = position;
+        }
+
+        /**
+         * Decodes the next path.
+         *
+         * @param previous the previously decoded path. May be {@code null} if it is the first path of a block
+         * @return the decoded path
+         */
+        public String next(String previous)
+        {
+            int shared = readInt();
+            int count = readInt();
+            String suffix = new String(data, position, count, UTF_8);
+            position += count;
+            return (shared == 0) ? suffix : previous.substring(0, shared) + suffix;
+        }
+
+        /**
+         * Reads a variable length integer.
+         *
+         * @return the integer
+         */
+        private int readInt()
+        {
+            int result = 0;
+            int shift = 0;
+            byte b;
+            do
+            {
+                b = data[position++];
+                result |= (b & 0x7F) << shift;
+                shift += 7;
+            }
+            while ((b & 0x80) != 0);
+            return result;
+        }
+    }
+
+    /**
+     * Iterates over the paths, decoding them in sequence.
+     */
+    private class PathIterator implements Iterator<String>
+    {
+
+        /**
+         * The decoder.
+         */
+        private final Decoder decoder = new Decoder(0);
+
+        /**
+         * The index of the next path.
+         */
+        private int index;
+
+        /**
+         * The previously decoded path.
+         */
+        private String previous;
+
+        /**
+         * The expected modification count.
+         */
+        private final int expectedModCount = modCount;
+
+        /**
+         * Determines if there are more paths.
+         *
+         * @return {@code true} if there are more paths
+         */
+        @Override
+        public boolean hasNext()
+        {
+            return index < size;
+        }
+
+        /**
+         * Returns the next path.
+         *
+         * @return the next path
+         * @throws NoSuchElementException if there are no more paths
+         * @throws ConcurrentModificationException if the list has been modified since the iterator was created
+         */
+        @Override
+        public String next()
+        {
+            if (modCount != expectedModCount)
+            {
+                throw new ConcurrentModificationException();
+            }
+            if (index >= size)
+            {
+                throw new NoSuchElementException();
+            }
+            previous = decoder.next(index % BLOCK_SIZE == 0 ? null : previous);
+            ++index;
+            return previous;
+        }
+
+        /**
+         * Not supported.
+         *
+         * @throws UnsupportedOperationException
+         */
+        @Override
+        public void remove()
+        {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * The head of a list being merged.
+     */
+    private static class Head
+    {
+
+        /**
+         * The iterator over the list.
+         */
+        private final Iterator<String> iterator;
+
+        /**
+         * The current path.
+         */
+        private String path;
+
+        /**
+         * Constructs a <tt>Head</tt>.
+         *
+         * @param iterator the iterator. Must have at least one path
+         */
+        public Head(Iterator<String> iterator)
+        {
+            this.iterator = iterator;
+            path = iterator.next();
+        }
+
+        /**
+         * Advances to the next path.
+         *
+         * @return {@code true} if there was a next path, otherwise {@code false}
+         */
+        public boolean next()
+        {
+            if (iterator.hasNext())
+            {
+                path = iterator.next();
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -22,6 +22,8 @@ import com.izforge.izpack.util.FileExecutor;
 
 import java.io.*;
 import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Helper Methods for unix-systems and derived.
@@ -42,6 +44,12 @@ public class UnixHelper
 
     public final static String VERSION = "$Revision$";
 
+    /**
+     * The absolute paths of commands located with <code>which</code>, keyed on command name. Commands don't move
+     * during an installation, so each is only looked up once.
+     */
+    private static final Map<String, String> commands = new ConcurrentHashMap<String, String>();
+
     // ~ Methods ****************************************************************************
 
     /**
@@ -176,7 +184,7 @@ public class UnixHelper
      */
     public static String getCpCommand()
     {
-        return FileExecutor.getExecOutput(new String[]{getWhichCommand(), "cp"}).trim();
+        return getCustomCommand("cp");
     }
 
     /**
@@ -187,7 +195,7 @@ public class UnixHelper
      */
     public static String getSuCommand()
     {
-        return FileExecutor.getExecOutput(new String[]{getWhichCommand(), "su"}).trim();
+        return getCustomCommand("su");
     }
 
     /**
@@ -198,7 +206,7 @@ public class UnixHelper
      */
     public static String getRmCommand()
     {
-        return FileExecutor.getExecOutput(new String[]{whichCommand, "rm"}).trim();
+        return getCustomCommand("rm");
     }
 
     /**
@@ -209,20 +217,26 @@ public class UnixHelper
      */
     public static String getYpCatCommand()
     {
-        return FileExecutor.getExecOutput(new String[]{whichCommand, "ypcat"}).trim();
+        return getCustomCommand("ypcat");
     }
 
     /**
      * Gets the absolute Pathe to the given custom command. This is necessary, because the command
      * may be located at /bin on linux but in /usr/bin on Sun Solaris. Which can locate it in your
-     * $PATH for you.
+     * $PATH for you. The result is cached.
      *
      * @param aCommand a Custom Command
      * @return /bin/aCommand on linux /usr/bin/aCommand on solaris
      */
     public static String getCustomCommand(String aCommand)
     {
-        return FileExecutor.getExecOutput(new String[]{whichCommand, aCommand}).trim();
+        String result = commands.get(aCommand);
+        if (result == null)
+        {
+            result = FileExecutor.getExecOutput(new String[]{whichCommand, aCommand}).trim();
+            commands.put(aCommand, result);
+        }
+        return result;
     }
 
     /**
@@ -22,9 +22,13 @@
 package com.izforge.izpack.util.unix;
 
 import com.izforge.izpack.util.FileExecutor;
+import com.izforge.izpack.util.file.FileUtils;
 
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.util.StringTokenizer;
 
 
@@ -73,6 +77,11 @@ public class UnixUser
      */
     private String itsShell;
 
+    /**
+     * internal itsXdgDesktopfolder, determined on first access
+     */
+    private String itsXdgDesktopfolder;
+
     /**
      * internal name
      */
@@ -245,31 +254,104 @@ public class UnixUser
 
     /**
      * Gets the Name of the XDG-Desktop Folder if defined in the $HOME/.config/user-dirs.dirs File as absolute File/Pathname
+     * <p/>
+     * The folder is read directly from the file where possible. Only entries that need the shell to expand them
+     * are evaluated by a script. The result is cached.
      *
      * @return The absolute File/Pathname of the Desktop foldername.
      */
     public String getXdgDesktopfolder()
     {
-        File configFile = new File(getHome() + File.separator + ".config" + File.separator + "user-dirs.dirs");
-        if (configFile.exists())
+        if (itsXdgDesktopfolder == null)
         {
-            if (XDGDesktopFolderNameScript == null)
-            /** TODO: can be optimized with a shared script **/
+            File configFile = new File(getHome() + File.separator + ".config" + File.separator + "user-dirs.dirs");
+            if (configFile.exists())
             {
-                XDGDesktopFolderNameScriptFilename = getCreatedXDGDesktopFolderNameScriptFilename();
+                String xdgDesktopfolder = readXdgDesktopfolder(configFile);
+                if (xdgDesktopfolder == null)
+                {
+                    xdgDesktopfolder = execXdgDesktopfolder();
+                }
+                itsXdgDesktopfolder = xdgDesktopfolder;
             }
+            else
+            {
+                itsXdgDesktopfolder = getHome() + File.separator + "Desktop";
+            }
+        }
+        return itsXdgDesktopfolder;
+    }
 
-            FileExecutor.getExecOutput(new String[]{UnixHelper.getCustomCommand("chmod"), "+x", XDGDesktopFolderNameScriptFilename}, true);
-            String xdgDesktopfolder = FileExecutor.getExecOutput(new String[]{XDGDesktopFolderNameScriptFilename}, true).trim();
-            new File(XDGDesktopFolderNameScriptFilename).delete();
-
-            return xdgDesktopfolder;
-
+    /**
+     * Reads the XDG_DESKTOP_DIR entry from a user-dirs.dirs file.
+     * <p/>
+     * Entries are of the form <code>XDG_DESKTOP_DIR="$HOME/Desktop"</code> or <code>XDG_DESKTOP_DIR="/Desktop"</code>.
+     *
+     * @param configFile the user-dirs.dirs file
+     * @return the absolute Desktop foldername, or <code>null</code> if it needs to be evaluated by the shell
+     */
+    private String readXdgDesktopfolder(File configFile)
+    {
+        String result = null;
+        BufferedReader reader = null;
+        try
+        {
+            reader = new BufferedReader(new InputStreamReader(new FileInputStream(configFile)));
+            String line;
+            while ((line = reader.readLine()) != null)
+            {
+                line = line.trim();
+                if (line.startsWith("XDG_DESKTOP_DIR="))
+                {
+                    String value = line.substring("XDG_DESKTOP_DIR=".length());
+                    if (value.length() > 1 && value.startsWith("\"") && value.endsWith("\""))
+                    {
+                        value = value.substring(1, value.length() - 1);
+                    }
+                    if (value.startsWith("$HOME"))
+                    {
+                        value = getHome() + value.substring("$HOME".length());
+                    }
+                    if (value.startsWith("/") && value.indexOf('$') == -1 && value.indexOf('`') == -1
+                            && value.indexOf('\\') == -1 && value.indexOf('"') == -1)
+                    {
+                        result = value;
+                    }
+                    else
+                    {
+                        // leave it to the shell
+                        result = null;
+                    }
+                }
+            }
+        }
+        catch (IOException exception)
+        {
+            result = null;
+        }
+        finally
+        {
+            FileUtils.close(reader);
         }
-        else
+        return result;
+    }
+
+    /**
+     * Evaluates the XDG_DESKTOP_DIR of the user-dirs.dirs file by sourcing it in a script.
+     *
+     * @return the absolute Desktop foldername.
+     */
+    private String execXdgDesktopfolder()
+    {
+        if (XDGDesktopFolderNameScript == null)
+        /** TODO: can be optimized with a shared script **/
         {
-            return getHome() + File.separator + "Desktop";
+            XDGDesktopFolderNameScriptFilename = getCreatedXDGDesktopFolderNameScriptFilename();
         }
+        FileExecutor.getExecOutput(new String[]{UnixHelper.getCustomCommand("chmod"), "+x", XDGDesktopFolderNameScriptFilename}, true);
+        String xdgDesktopfolder = FileExecutor.getExecOutput(new String[]{XDGDesktopFolderNameScriptFilename}, true).trim();
+        new File(XDGDesktopFolderNameScriptFilename).delete();
+        return xdgDesktopfolder;
     }
 
     /**
@@ -41,6 +41,11 @@ public class UnixUsers extends ArrayList<UnixUser>
      */
     private static final long serialVersionUID = -4804842346742194981L;
 
+    /**
+     * The users with valid shells, existing homes and desktops, read on first access.
+     */
+    private static ArrayList<UnixUser> usersWithDesktops;
+
     // ~ Constructors ***********************************************************************
 
     /**
@@ -152,14 +157,20 @@ public class UnixUsers extends ArrayList<UnixUser>
     /**
      * Gets all known users with valid shells and really existing (not dummy) Home And!
      * freedesktop.org/RFC-based "Desktop" folders.
+     * <p/>
+     * The users are only read once, as reading them is expensive when there are many accounts, or they come
+     * from NIS.
      *
      * @return an UnixUsers Arraylist of these users
      */
-    public static ArrayList<UnixUser> getUsersWithValidShellsExistingHomesAndDesktops()
+    public static synchronized ArrayList<UnixUser> getUsersWithValidShellsExistingHomesAndDesktops()
     {
-        UnixUsers users = new UnixUsers();
-
-        return users._getUsersWithValidShellsExistingHomesAndDesktops();
+        if (usersWithDesktops == null)
+        {
+            UnixUsers users = new UnixUsers();
+            usersWithDesktops = users._getUsersWithValidShellsExistingHomesAndDesktops();
+        }
+        return new ArrayList<UnixUser>(usersWithDesktops);
     }
 
     /**
@@ -76,4 +76,34 @@ public abstract class AbstractMergeAction implements MergeAction
         m_actionFactory = factory;
     }
 
+    /**
+     * Returns the mapper factory.
+     *
+     * @return The mapper factory
+     */
+    public OperationFactory getMapperFactory()
+    {
+        return m_mapperFactory;
+    }
+
+    /**
+     * Returns the matcher factory.
+     *
+     * @return The matcher factory
+     */
+    public OperationFactory getMatcherFactory()
+    {
+        return m_matcherFactory;
+    }
+
+    /**
+     * Returns the action factory.
+     *
+     * @return The action factory
+     */
+    public OperationFactory getActionFactory()
+    {
+        return m_actionFactory;
+    }
+
 }
@@ -95,7 +95,17 @@ public class OperationResolver
         }
         try
         {
-            return (Operation) field.get(null);
+            Operation operation = (Operation) field.get(null);
+            if (operation instanceof MergeAction)
+            {
+                // merge actions are configured with the factories of the merge using them, so can't be shared
+                operation = operation.getClass().newInstance();
+            }
+            return operation;
+        }
+        catch (InstantiationException e)
+        {
+            throw new ConfigurationException(e);
         }
         catch (IllegalAccessException e)
         {
@@ -23,7 +23,6 @@
 package com.izforge.izpack.util.xmlmerge.factory;
 
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.Map;
 
 import org.jaxen.JaxenException;
@@ -52,6 +51,20 @@ public class XPathOperationFactory implements OperationFactory
      */
     Operation m_defaultOperation;
 
+    /**
+     * The compiled XPath expressions, keyed on expression.
+     * <p/>
+     * Compiled expressions aren't thread safe, so each thread has its own.
+     */
+    private final ThreadLocal<Map<String, JDOMXPath>> m_compiled = new ThreadLocal<Map<String, JDOMXPath>>()
+    {
+        @Override
+        protected Map<String, JDOMXPath> initialValue()
+        {
+            return new HashMap<String, JDOMXPath>();
+        }
+    };
+
     /**
      * Sets the factory's map containing configuration properties.
      *
@@ -72,6 +85,26 @@ public class XPathOperationFactory implements OperationFactory
         this.m_defaultOperation = operation;
     }
 
+    /**
+     * Returns the factory's map of XPath expressions to operations.
+     *
+     * @return The map of XPath expressions to operations
+     */
+    public Map<String, Operation> getOperationMap()
+    {
+        return m_map;
+    }
+
+    /**
+     * Returns the default operation returned by this factory.
+     *
+     * @return The default operation
+     */
+    public Operation getDefaultOperation()
+    {
+        return m_defaultOperation;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -103,7 +136,13 @@ public class XPathOperationFactory implements OperationFactory
 
         try
         {
-            JDOMXPath xPath = new JDOMXPath(xPathString);
+            Map<String, JDOMXPath> compiled = m_compiled.get();
+            JDOMXPath xPath = compiled.get(xPathString);
+            if (xPath == null)
+            {
+                xPath = new JDOMXPath(xPathString);
+                compiled.put(xPathString, xPath);
+            }
 
             boolean result = xPath.selectNodes(element.getParent()).contains(element);
 
@@ -34,6 +34,7 @@ import org.jdom.output.DOMOutputter;
 import org.jdom.output.Format;
 import org.jdom.output.XMLOutputter;
 
+import com.izforge.izpack.util.file.FileUtils;
 import com.izforge.izpack.util.xmlmerge.AbstractXmlMergeException;
 import com.izforge.izpack.util.xmlmerge.DocumentException;
 import com.izforge.izpack.util.xmlmerge.Mapper;
@@ -66,6 +67,11 @@ public class DefaultXmlMerge implements XmlMerge
      */
     private Matcher m_rootMatcher = new AttributeMatcher();
 
+    /**
+     * Determines if files are streamed when the merge configuration allows it.
+     */
+    private boolean m_streaming;
+
     /**
      * Creates a new DefaultXmlMerge instance.
      */
@@ -91,6 +97,30 @@ public class DefaultXmlMerge implements XmlMerge
         this.m_rootMergeAction = rootMergeAction;
     }
 
+    /**
+     * Determines if {@link #merge(File[], File)} streams the original file rather than reading it into memory,
+     * when the merge configuration allows it.
+     * <p/>
+     * A streamed merge preserves the formatting of the original file, whereas a merge in memory pretty prints the
+     * result. Streaming is disabled by default.
+     *
+     * @param streaming if <tt>true</tt>, stream files where possible
+     */
+    public void setStreaming(boolean streaming)
+    {
+        this.m_streaming = streaming;
+    }
+
+    /**
+     * Determines if {@link #merge(File[], File)} streams the original file when the merge configuration allows it.
+     *
+     * @return <tt>true</tt> if files are streamed where possible
+     */
+    public boolean isStreaming()
+    {
+        return m_streaming;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -209,8 +239,30 @@ public class DefaultXmlMerge implements XmlMerge
 
     /**
      * {@inheritDoc}
+     * <p/>
+     * If streaming is enabled and the merge configuration allows it, the original file is streamed rather than read
+     * into memory. See {@link #setStreaming(boolean)}.
      */
     public void merge(File[] sources, File target) throws AbstractXmlMergeException
+    {
+        if (m_streaming && StreamingSupport.isSupported(m_rootMergeAction))
+        {
+            new StreamingXmlMerge(m_rootMergeAction, m_rootMatcher).merge(sources, target);
+        }
+        else
+        {
+            mergeDocuments(sources, target);
+        }
+    }
+
+    /**
+     * Merges files by reading them into memory.
+     *
+     * @param sources The files to merge
+     * @param target The file to write to
+     * @throws AbstractXmlMergeException If an error occurred during the merge
+     */
+    void mergeDocuments(File[] sources, File target) throws AbstractXmlMergeException
     {
         SAXBuilder sxb = new SAXBuilder();
 
@@ -243,14 +295,20 @@ public class DefaultXmlMerge implements XmlMerge
         prettyFormatter.setLineSeparator(System.getProperty("line.separator"));
         XMLOutputter sortie = new XMLOutputter(prettyFormatter);
 
+        OutputStream out = null;
         try
         {
-            sortie.output(result, new FileOutputStream(target));
+            out = new FileOutputStream(target);
+            sortie.output(result, out);
         }
         catch (IOException ex)
         {
             throw new DocumentException(result, ex);
         }
+        finally
+        {
+            FileUtils.close(out);
+        }
     }
 
     /**
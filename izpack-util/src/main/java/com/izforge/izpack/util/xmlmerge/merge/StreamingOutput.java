@@ -0,0 +1,401 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.util.xmlmerge.merge;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.jdom.Attribute;
+import org.jdom.Namespace;
+
+
+/**
+ * Writes to a StAX writer, tracking namespace declarations.
+ * <p/>
+ * Element starts are deferred until the next event, so that elements without content are written as empty
+ * elements.
+ *
+ * @author agent
+ */
+class StreamingOutput
+{
+
+    /**
+     * The writer.
+     */
+    private final XMLStreamWriter writer;
+
+    /**
+     * The namespace declarations of each open element, keyed on prefix. Elements that don't declare namespaces
+     * have <tt>null</tt> entries.
+     */
+    private final List<Map<String, String>> scopes = new ArrayList<Map<String, String>>();
+
+    /**
+     * Determines if an element start has been deferred.
+     */
+    private boolean pending;
+
+    /**
+     * The prefix of the deferred element.
+     */
+    private String prefix;
+
+    /**
+     * The local name of the deferred element.
+     */
+    private String name;
+
+    /**
+     * The namespace URI of the deferred element.
+     */
+    private String uri;
+
+    /**
+     * The namespaces declared by the deferred element, as prefix, URI pairs.
+     */
+    private final List<String[]> namespaces = new ArrayList<String[]>();
+
+    /**
+     * The attributes of the deferred element, as prefix, URI, local name, value tuples.
+     */
+    private final List<String[]> attributes = new ArrayList<String[]>();
+
+
+    /**
+     * Constructs a <tt>StreamingOutput</tt>.
+     *
+     * @param writer the writer
+     */
+    public StreamingOutput(XMLStreamWriter writer)
+    {
+        this.writer = writer;
+    }
+
+    /**
+     * Starts an element, copying the current element of a reader.
+     *
+     * @param reader the reader
+     * @throws XMLStreamException for any StAX error
+     */
+    public void start(XMLStreamReader reader) throws XMLStreamException
+    {
+        start(reader.getPrefix(), reader.getLocalName(), reader.getNamespaceURI());
+        for (int i = 0; i < reader.getNamespaceCount(); ++i)
+        {
+            namespaces.add(new String[]{nonNull(reader.getNamespacePrefix(i)),
+                    nonNull(reader.getNamespaceURI(i))});
+        }
+        for (int i = 0; i < reader.getAttributeCount(); ++i)
+        {
+            attributes.add(new String[]{nonNull(reader.getAttributePrefix(i)),
+                    nonNull(reader.getAttributeNamespace(i)), reader.getAttributeLocalName(i),
+                    reader.getAttributeValue(i)});
+        }
+    }
+
+    /**
+     * Starts an element.
+     *
+     * @param namespace  the element namespace
+     * @param name       the element name
+     * @param namespaces additional namespaces declared by the element
+     * @param attributes the element attributes
+     * @throws XMLStreamException for any StAX error
+     */
+    public void start(Namespace namespace, String name, List<?> namespaces, Iterable<?> attributes)
+            throws XMLStreamException
+    {
+        start(namespace.getPrefix(), name, namespace.getURI());
+        for (Object object : namespaces)
+        {
+            Namespace additional = (Namespace) object;
+            this.namespaces.add(new String[]{additional.getPrefix(), additional.getURI()});
+        }
+        for (Object object : attributes)
+        {
+            Attribute attribute = (Attribute) object;
+            this.attributes.add(new String[]{attribute.getNamespacePrefix(), attribute.getNamespaceURI(),
+                    attribute.getName(), attribute.getValue()});
+        }
+    }
+
+    /**
+     * Ends the current element.
+     *
+     * @throws XMLStreamException for any StAX error
+     */
+    public void end() throws XMLStreamException
+    {
+        if (pending)
+        {
+            writeStart(true);
+        }
+        else
+        {
+            writer.writeEndElement();
+        }
+        scopes.remove(scopes.size() - 1);
+    }
+
+    /**
+     * Writes text.
+     *
+     * @param text the text
+     * @throws XMLStreamException for any StAX error
+     */
+    public void characters(String text) throws XMLStreamException
+    {
+        flush();
+        writer.writeCharacters(text);
+    }
+
+    /**
+     * Writes text.
+     *
+     * @param text   the text
+     * @param start  the start of the text
+     * @param length the length of the text
+     * @throws XMLStreamException for any StAX error
+     */
+    public void characters(char[] text, int start, int length) throws XMLStreamException
+    {
+        flush();
+        writer.writeCharacters(text, start, length);
+    }
+
+    /**
+     * Writes a CDATA section.
+     *
+     * @param text the text
+     * @throws XMLStreamException for any StAX error
+     */
+    public void cdata(String text) throws XMLStreamException
+    {
+        flush();
+        writer.writeCData(text);
+    }
+
+    /**
+     * Writes a comment.
+     *
+     * @param text the comment text
+     * @throws XMLStreamException for any StAX error
+     */
+    public void comment(String text) throws XMLStreamException
+    {
+        flush();
+        writer.writeComment(text);
+    }
+
+    /**
+     * Writes a processing instruction.
+     *
+     * @param target the target
+     * @param data   the data. May be <tt>null</tt>
+     * @throws XMLStreamException for any StAX error
+     */
+    public void processingInstruction(String target, String data) throws XMLStreamException
+    {
+        flush();
+        if (data == null || data.length() == 0)
+        {
+            writer.writeProcessingInstruction(target);
+        }
+        else
+        {
+            writer.writeProcessingInstruction(target, data);
+        }
+    }
+
+    /**
+     * Writes an entity reference.
+     *
+     * @param name the entity name
+     * @throws XMLStreamException for any StAX error
+     */
+    public void entityRef(String name) throws XMLStreamException
+    {
+        flush();
+        writer.writeEntityRef(name);
+    }
+
+    /**
+     * Writes a document type declaration.
+     *
+     * @param dtd the declaration
+     * @throws XMLStreamException for any StAX error
+     */
+    public void dtd(String dtd) throws XMLStreamException
+    {
+        writer.writeDTD(dtd);
+    }
+
+    /**
+     * Defers the start of an element.
+     *
+     * @param prefix the element prefix. May be <tt>null</tt>
+     * @param name   the local name
+     * @param uri    the namespace URI. May be <tt>null</tt>
+     * @throws XMLStreamException for any StAX error
+     */
+    private void start(String prefix, String name, String uri) throws XMLStreamException
+    {
+        flush();
+        pending = true;
+        this.prefix = nonNull(prefix);
+        this.name = name;
+        this.uri = nonNull(uri);
+        namespaces.clear();
+        attributes.clear();
+        scopes.add(null);
+    }
+
+    /**
+     * Writes the deferred element start, if any.
+     *
+     * @throws XMLStreamException for any StAX error
+     */
+    private void flush() throws XMLStreamException
+    {
+        if (pending)
+        {
+            writeStart(false);
+        }
+    }
+
+    /**
+     * Writes the deferred element start, declaring namespaces that aren't in scope.
+     *
+     * @param empty if <tt>true</tt>, write an empty element
+     * @throws XMLStreamException for any StAX error
+     */
+    private void writeStart(boolean empty) throws XMLStreamException
+    {
+        pending = false;
+        if (empty)
+        {
+            writer.writeEmptyElement(prefix, name, uri);
+        }
+        else
+        {
+            writer.writeStartElement(prefix, name, uri);
+        }
+        for (String[] namespace : namespaces)
+        {
+            declare(namespace[0], namespace[1], true);
+        }
+        declare(prefix, uri, false);
+        for (String[] attribute : attributes)
+        {
+            if (attribute[0].length() != 0)
+            {
+                declare(attribute[0], attribute[1], false);
+            }
+        }
+        for (String[] attribute : attributes)
+        {
+            if (attribute[0].length() == 0)
+            {
+                writer.writeAttribute(attribute[2], attribute[3]);
+            }
+            else
+            {
+                writer.writeAttribute(attribute[0], attribute[1], attribute[2], attribute[3]);
+            }
+        }
+    }
+
+    /**
+     * Declares a namespace on the current element.
+     *
+     * @param prefix the prefix
+     * @param uri    the namespace URI
+     * @param always if <tt>true</tt>, declare the namespace even if it is already in scope
+     * @throws XMLStreamException for any StAX error
+     */
+    private void declare(String prefix, String uri, boolean always) throws XMLStreamException
+    {
+        int current = scopes.size() - 1;
+        Map<String, String> scope = scopes.get(current);
+        if ((always && (scope == null || !scope.containsKey(prefix))) || !uri.equals(lookup(prefix)))
+        {
+            if (XMLConstants.XML_NS_PREFIX.equals(prefix))
+            {
+                return;
+            }
+            if (prefix.length() == 0)
+            {
+                writer.writeDefaultNamespace(uri);
+            }
+            else
+            {
+                writer.writeNamespace(prefix, uri);
+            }
+            if (scope == null)
+            {
+                scope = new HashMap<String, String>();
+                scopes.set(current, scope);
+            }
+            scope.put(prefix, uri);
+        }
+    }
+
+    /**
+     * Returns the namespace URI bound to a prefix.
+     *
+     * @param prefix the prefix
+     * @return the namespace URI, or <tt>null</tt> if the prefix isn't bound
+     */
+    private String lookup(String prefix)
+    {
+        for (int i = scopes.size() - 1; i >= 0; --i)
+        {
+            Map<String, String> scope = scopes.get(i);
+            if (scope != null && scope.containsKey(prefix))
+            {
+                return scope.get(prefix);
+            }
+        }
+        if (prefix.length() == 0)
+        {
+            return "";
+        }
+        return XMLConstants.XML_NS_PREFIX.equals(prefix) ? XMLConstants.XML_NS_URI : null;
+    }
+
+    /**
+     * Returns a prefix or namespace URI, converting <tt>null</tt> to an empty string.
+     *
+     * @param value the value. May be <tt>null</tt>
+     * @return the value, or an empty string if it is <tt>null</tt>
+     */
+    static String nonNull(String value)
+    {
+        return (value != null) ? value : "";
+    }
+}
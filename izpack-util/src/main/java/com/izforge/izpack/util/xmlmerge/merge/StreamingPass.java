@@ -0,0 +1,658 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.util.xmlmerge.merge;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.jdom.Attribute;
+import org.jdom.CDATA;
+import org.jdom.Comment;
+import org.jdom.Content;
+import org.jdom.Document;
+import org.jdom.Element;
+import org.jdom.EntityRef;
+import org.jdom.Namespace;
+import org.jdom.ProcessingInstruction;
+import org.jdom.Text;
+
+import com.izforge.izpack.util.xmlmerge.AbstractXmlMergeException;
+import com.izforge.izpack.util.xmlmerge.Action;
+import com.izforge.izpack.util.xmlmerge.Mapper;
+import com.izforge.izpack.util.xmlmerge.Matcher;
+import com.izforge.izpack.util.xmlmerge.MergeAction;
+import com.izforge.izpack.util.xmlmerge.OperationFactory;
+import com.izforge.izpack.util.xmlmerge.action.AbstractMergeAction;
+import com.izforge.izpack.util.xmlmerge.action.CompleteAction;
+import com.izforge.izpack.util.xmlmerge.action.DeleteAction;
+import com.izforge.izpack.util.xmlmerge.action.FullMergeAction;
+import com.izforge.izpack.util.xmlmerge.action.KeepAction;
+import com.izforge.izpack.util.xmlmerge.action.OverrideAction;
+import com.izforge.izpack.util.xmlmerge.action.PreserveAction;
+import com.izforge.izpack.util.xmlmerge.action.ReplaceAction;
+
+
+/**
+ * Merges a patch into a stream, for {@link StreamingXmlMerge}.
+ * <p/>
+ * The original is read from a StAX reader and written as it is read. Original elements that must be processed
+ * more than once are read into memory and merged by the DOM actions.
+ *
+ * @author agent
+ */
+class StreamingPass
+{
+
+    /**
+     * The logger.
+     */
+    private static final Logger logger = Logger.getLogger(StreamingPass.class.getName());
+
+    /**
+     * Outcome where the original element is written.
+     */
+    private static final int ORIGINAL = 0;
+
+    /**
+     * Outcome where the patch element is written.
+     */
+    private static final int PATCH = 1;
+
+    /**
+     * Outcome where neither element is written.
+     */
+    private static final int NOTHING = 2;
+
+    /**
+     * Outcome where the elements are merged.
+     */
+    private static final int MERGE = 3;
+
+    /**
+     * Outcome where the original element is read into memory, and the action performed on it.
+     */
+    private static final int PERFORM = 4;
+
+    /**
+     * The root matcher.
+     */
+    private final Matcher rootMatcher;
+
+    /**
+     * The action factory.
+     */
+    private final OperationFactory actionFactory;
+
+    /**
+     * The mapper factory.
+     */
+    private final OperationFactory mapperFactory;
+
+    /**
+     * The matcher factory.
+     */
+    private final OperationFactory matcherFactory;
+
+    /**
+     * The original.
+     */
+    private final XMLStreamReader reader;
+
+    /**
+     * The output.
+     */
+    private final StreamingOutput out;
+
+    /**
+     * The root element of the patch. May be <tt>null</tt>.
+     */
+    private final Element patch;
+
+    /**
+     * The element that DOM actions write to.
+     */
+    private final Element holder = new Element("root");
+
+
+    /**
+     * Constructs a <tt>StreamingPass</tt>.
+     *
+     * @param reader          the original
+     * @param out             the output
+     * @param patch           the root element of the patch. May be <tt>null</tt>
+     * @param rootMergeAction the root merge action. Must be supported
+     * @param rootMatcher     the matcher used to check that root elements match
+     * @see StreamingSupport#isSupported(MergeAction)
+     */
+    public StreamingPass(XMLStreamReader reader, StreamingOutput out, Element patch, MergeAction rootMergeAction,
+                         Matcher rootMatcher)
+    {
+        AbstractMergeAction action = (AbstractMergeAction) rootMergeAction;
+        this.rootMatcher = rootMatcher;
+        actionFactory = action.getActionFactory();
+        mapperFactory = action.getMapperFactory();
+        matcherFactory = action.getMatcherFactory();
+        this.reader = reader;
+        this.out = out;
+        this.patch = patch;
+    }
+
+    /**
+     * Merges the patch into the original.
+     *
+     * @throws XMLStreamException        for any StAX error
+     * @throws AbstractXmlMergeException if the merge fails
+     */
+    public void run() throws XMLStreamException, AbstractXmlMergeException
+    {
+        String eol = System.getProperty("line.separator");
+        out.characters(eol);
+        while (reader.hasNext())
+        {
+            switch (reader.next())
+            {
+                case XMLStreamConstants.START_ELEMENT:
+                    if (patch == null)
+                    {
+                        out.start(reader);
+                        copy();
+                    }
+                    else
+                    {
+                        Element root = readTag();
+                        new Document(root);
+                        if (!rootMatcher.matches(root, patch))
+                        {
+                            throw new IllegalArgumentException("Root elements do not match.");
+                        }
+                        merge(root, patch);
+                    }
+                    out.characters(eol);
+                    break;
+                case XMLStreamConstants.DTD:
+                    out.dtd(reader.getText());
+                    out.characters(eol);
+                    break;
+                case XMLStreamConstants.COMMENT:
+                    out.comment(reader.getText());
+                    out.characters(eol);
+                    break;
+                case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                    out.processingInstruction(reader.getPITarget(), reader.getPIData());
+                    out.characters(eol);
+                    break;
+                default:
+                    // whitespace outside the root element is replaced by line separators
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Merges an original element with a patch element.
+     * <p/>
+     * On entry, the reader is positioned at the start of the original element. On return, it is positioned at
+     * its end.
+     *
+     * @param original the skeleton of the original element
+     * @param patch    the patch element
+     * @throws XMLStreamException        for any StAX error
+     * @throws AbstractXmlMergeException if the merge fails
+     */
+    private void merge(Element original, Element patch) throws XMLStreamException, AbstractXmlMergeException
+    {
+        Map<String, Attribute> attributes = new LinkedHashMap<String, Attribute>();
+        for (Object attribute : original.getAttributes())
+        {
+            attributes.put(((Attribute) attribute).getQualifiedName(), (Attribute) attribute);
+        }
+        for (Object attribute : patch.getAttributes())
+        {
+            attributes.put(((Attribute) attribute).getQualifiedName(), (Attribute) attribute);
+        }
+        out.start(original.getNamespace(), original.getName(), original.getAdditionalNamespaces(),
+                  attributes.values());
+
+        List<?> patchChildren = patch.getChildren();
+        Set<Object> matched = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+        boolean elements = false;
+        StringBuilder space = new StringBuilder();
+        String indent = null;
+        while (true)
+        {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT)
+            {
+                elements = true;
+                indent = space.toString();
+                flush(space);
+                Element child = readTag();
+                original.addContent(child);
+                List<Element> matches = new ArrayList<Element>();
+                for (Object object : patchChildren)
+                {
+                    Element patchChild = (Element) object;
+                    if (((Matcher) matcherFactory.getOperation(patchChild, child)).matches(patchChild, child))
+                    {
+                        matches.add(patchChild);
+                        matched.add(patchChild);
+                    }
+                }
+                if (matches.size() > 1)
+                {
+                    logger.fine("Reading " + child + " into memory to merge with multiple patch elements");
+                    readContent(child);
+                    for (Element match : matches)
+                    {
+                        perform(child, match);
+                    }
+                    writeHolder(null);
+                }
+                else
+                {
+                    apply(child, matches.isEmpty() ? null : matches.get(0));
+                }
+                child.detach();
+            }
+            else if (event == XMLStreamConstants.END_ELEMENT)
+            {
+                if (elements)
+                {
+                    // apply unmatched patch elements, as FullMergeAction does
+                    for (Object object : patchChildren)
+                    {
+                        if (!matched.contains(object))
+                        {
+                            perform(null, (Element) object);
+                            writeHolder(indent);
+                        }
+                    }
+                }
+                flush(space);
+                out.end();
+                return;
+            }
+            else if ((event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.SPACE)
+                    && reader.isWhiteSpace())
+            {
+                space.append(reader.getText());
+            }
+            else
+            {
+                flush(space);
+                copyEvent(event);
+            }
+        }
+    }
+
+    /**
+     * Applies the action for an original element and a patch element.
+     * <p/>
+     * On entry, the reader is positioned at the start of the original element. On return, it is positioned at
+     * its end.
+     *
+     * @param original the skeleton of the original element
+     * @param patch    the matching patch element. May be <tt>null</tt>
+     * @throws XMLStreamException        for any StAX error
+     * @throws AbstractXmlMergeException if the merge fails
+     */
+    private void apply(Element original, Element patch) throws XMLStreamException, AbstractXmlMergeException
+    {
+        Action action = (Action) actionFactory.getOperation(original, patch);
+        Mapper mapper = (Mapper) mapperFactory.getOperation(original, patch);
+        Element mapped = mapper.map(patch);
+        switch (getOutcome(action, mapped != null))
+        {
+            case ORIGINAL:
+                out.start(reader);
+                copy();
+                break;
+            case PATCH:
+                skip();
+                write(mapped);
+                break;
+            case NOTHING:
+                skip();
+                break;
+            case MERGE:
+                merge(original, mapped);
+                break;
+            default:
+                logger.fine("Reading " + original + " into memory to perform " + action);
+                readContent(original);
+                perform(action, original, mapped);
+                writeHolder(null);
+                break;
+        }
+    }
+
+    /**
+     * Performs the action for an original element and a patch element, as FullMergeAction does.
+     * <p/>
+     * The output is added to the holder.
+     *
+     * @param original the original element. May be <tt>null</tt>
+     * @param patch    the patch element. May be <tt>null</tt>
+     * @throws AbstractXmlMergeException if the merge fails
+     */
+    private void perform(Element original, Element patch) throws AbstractXmlMergeException
+    {
+        Action action = (Action) actionFactory.getOperation(original, patch);
+        Mapper mapper = (Mapper) mapperFactory.getOperation(original, patch);
+        perform(action, original, mapper.map(patch));
+    }
+
+    /**
+     * Performs an action, adding the output to the holder.
+     *
+     * @param action   the action
+     * @param original the original element. May be <tt>null</tt>
+     * @param patch    the mapped patch element. May be <tt>null</tt>
+     * @throws AbstractXmlMergeException if the merge fails
+     */
+    private void perform(Action action, Element original, Element patch) throws AbstractXmlMergeException
+    {
+        if (action instanceof MergeAction)
+        {
+            MergeAction mergeAction = (MergeAction) action;
+            mergeAction.setActionFactory(actionFactory);
+            mergeAction.setMapperFactory(mapperFactory);
+            mergeAction.setMatcherFactory(matcherFactory);
+        }
+        action.perform(original, patch, holder);
+    }
+
+    /**
+     * Writes and removes the elements added to the holder.
+     *
+     * @param indent the whitespace to write before each element. May be <tt>null</tt>
+     * @throws XMLStreamException for any StAX error
+     */
+    private void writeHolder(String indent) throws XMLStreamException
+    {
+        for (Object content : holder.removeContent())
+        {
+            if (indent != null && content instanceof Element)
+            {
+                out.characters(indent);
+            }
+            write((Content) content);
+        }
+    }
+
+    /**
+     * Writes JDOM content.
+     *
+     * @param content the content
+     * @throws XMLStreamException for any StAX error
+     */
+    private void write(Content content) throws XMLStreamException
+    {
+        if (content instanceof Element)
+        {
+            Element element = (Element) content;
+            out.start(element.getNamespace(), element.getName(), element.getAdditionalNamespaces(),
+                      element.getAttributes());
+            for (Object child : element.getContent())
+            {
+                write((Content) child);
+            }
+            out.end();
+        }
+        else if (content instanceof CDATA)
+        {
+            out.cdata(((CDATA) content).getText());
+        }
+        else if (content instanceof Text)
+        {
+            out.characters(((Text) content).getText());
+        }
+        else if (content instanceof Comment)
+        {
+            out.comment(((Comment) content).getText());
+        }
+        else if (content instanceof ProcessingInstruction)
+        {
+            ProcessingInstruction instruction = (ProcessingInstruction) content;
+            out.processingInstruction(instruction.getTarget(), instruction.getData());
+        }
+        else if (content instanceof EntityRef)
+        {
+            out.entityRef(((EntityRef) content).getName());
+        }
+    }
+
+    /**
+     * Copies the content of the current element, up to and including its end.
+     *
+     * @throws XMLStreamException for any StAX error
+     */
+    private void copy() throws XMLStreamException
+    {
+        int depth = 1;
+        while (depth > 0)
+        {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT)
+            {
+                out.start(reader);
+                ++depth;
+            }
+            else if (event == XMLStreamConstants.END_ELEMENT)
+            {
+                out.end();
+                --depth;
+            }
+            else
+            {
+                copyEvent(event);
+            }
+        }
+    }
+
+    /**
+     * Skips the content of the current element, up to and including its end.
+     *
+     * @throws XMLStreamException for any StAX error
+     */
+    private void skip() throws XMLStreamException
+    {
+        int depth = 1;
+        while (depth > 0)
+        {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT)
+            {
+                ++depth;
+            }
+            else if (event == XMLStreamConstants.END_ELEMENT)
+            {
+                --depth;
+            }
+        }
+    }
+
+    /**
+     * Copies the current event, if it isn't an element start or end.
+     *
+     * @param event the event
+     * @throws XMLStreamException for any StAX error
+     */
+    private void copyEvent(int event) throws XMLStreamException
+    {
+        switch (event)
+        {
+            case XMLStreamConstants.CHARACTERS:
+            case XMLStreamConstants.SPACE:
+                out.characters(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                break;
+            case XMLStreamConstants.CDATA:
+                out.cdata(reader.getText());
+                break;
+            case XMLStreamConstants.COMMENT:
+                out.comment(reader.getText());
+                break;
+            case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                out.processingInstruction(reader.getPITarget(), reader.getPIData());
+                break;
+            case XMLStreamConstants.ENTITY_REFERENCE:
+                out.entityRef(reader.getLocalName());
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Writes buffered whitespace.
+     *
+     * @param space the whitespace. Cleared on return
+     * @throws XMLStreamException for any StAX error
+     */
+    private void flush(StringBuilder space) throws XMLStreamException
+    {
+        if (space.length() != 0)
+        {
+            out.characters(space.toString());
+            space.setLength(0);
+        }
+    }
+
+    /**
+     * Creates an element from the name, namespace declarations and attributes of the current element.
+     *
+     * @return a new element, without content
+     */
+    private Element readTag()
+    {
+        Element element = new Element(reader.getLocalName(), Namespace.getNamespace(
+                StreamingOutput.nonNull(reader.getPrefix()), StreamingOutput.nonNull(reader.getNamespaceURI())));
+        for (int i = 0; i < reader.getNamespaceCount(); ++i)
+        {
+            Namespace namespace = Namespace.getNamespace(StreamingOutput.nonNull(reader.getNamespacePrefix(i)),
+                                                         StreamingOutput.nonNull(reader.getNamespaceURI(i)));
+            if (!namespace.getPrefix().equals(element.getNamespacePrefix())
+                    || !namespace.getURI().equals(element.getNamespaceURI()))
+            {
+                element.addNamespaceDeclaration(namespace);
+            }
+        }
+        for (int i = 0; i < reader.getAttributeCount(); ++i)
+        {
+            Namespace namespace = Namespace.getNamespace(StreamingOutput.nonNull(reader.getAttributePrefix(i)),
+                                                         StreamingOutput.nonNull(reader.getAttributeNamespace(i)));
+            element.setAttribute(new Attribute(reader.getAttributeLocalName(i), reader.getAttributeValue(i),
+                                               namespace));
+        }
+        return element;
+    }
+
+    /**
+     * Reads the content of the current element into an element.
+     * <p/>
+     * On return, the reader is positioned at the end of the element.
+     *
+     * @param element the element to add content to
+     * @throws XMLStreamException for any StAX error
+     */
+    private void readContent(Element element) throws XMLStreamException
+    {
+        while (true)
+        {
+            switch (reader.next())
+            {
+                case XMLStreamConstants.START_ELEMENT:
+                    Element child = readTag();
+                    element.addContent(child);
+                    readContent(child);
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    return;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.SPACE:
+                    element.addContent(new Text(reader.getText()));
+                    break;
+                case XMLStreamConstants.CDATA:
+                    element.addContent(new CDATA(reader.getText()));
+                    break;
+                case XMLStreamConstants.COMMENT:
+                    element.addContent(new Comment(reader.getText()));
+                    break;
+                case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                    element.addContent(new ProcessingInstruction(reader.getPITarget(),
+                                                                 StreamingOutput.nonNull(reader.getPIData())));
+                    break;
+                case XMLStreamConstants.ENTITY_REFERENCE:
+                    element.addContent(new EntityRef(reader.getLocalName()));
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Determines the outcome of an action on an original element.
+     *
+     * @param action the action
+     * @param patch  determines if there is a patch element
+     * @return the outcome
+     */
+    private static int getOutcome(Action action, boolean patch)
+    {
+        Class<?> type = action.getClass();
+        int result;
+        if (type == FullMergeAction.class)
+        {
+            result = patch ? MERGE : ORIGINAL;
+        }
+        else if (type == KeepAction.class)
+        {
+            result = patch ? PATCH : NOTHING;
+        }
+        else if (type == ReplaceAction.class || type == OverrideAction.class)
+        {
+            result = patch ? PATCH : ORIGINAL;
+        }
+        else if (type == DeleteAction.class)
+        {
+            result = patch ? NOTHING : ORIGINAL;
+        }
+        else if (type == CompleteAction.class || type == PreserveAction.class)
+        {
+            result = ORIGINAL;
+        }
+        else
+        {
+            result = PERFORM;
+        }
+        return result;
+    }
+}
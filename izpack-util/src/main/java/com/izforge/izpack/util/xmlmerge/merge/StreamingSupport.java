@@ -0,0 +1,365 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.util.xmlmerge.merge;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+
+import org.jaxen.JaxenException;
+import org.jaxen.expr.AllNodeStep;
+import org.jaxen.expr.BinaryExpr;
+import org.jaxen.expr.EqualityExpr;
+import org.jaxen.expr.Expr;
+import org.jaxen.expr.FunctionCallExpr;
+import org.jaxen.expr.LiteralExpr;
+import org.jaxen.expr.LocationPath;
+import org.jaxen.expr.LogicalExpr;
+import org.jaxen.expr.NameStep;
+import org.jaxen.expr.NumberExpr;
+import org.jaxen.expr.PathExpr;
+import org.jaxen.expr.Predicate;
+import org.jaxen.expr.RelationalExpr;
+import org.jaxen.expr.Step;
+import org.jaxen.expr.UnaryExpr;
+import org.jaxen.expr.UnionExpr;
+import org.jaxen.jdom.JDOMXPath;
+import org.jaxen.saxpath.Axis;
+
+import com.izforge.izpack.util.xmlmerge.MergeAction;
+import com.izforge.izpack.util.xmlmerge.Operation;
+import com.izforge.izpack.util.xmlmerge.OperationFactory;
+import com.izforge.izpack.util.xmlmerge.action.AbstractMergeAction;
+import com.izforge.izpack.util.xmlmerge.action.CompleteAction;
+import com.izforge.izpack.util.xmlmerge.action.DeleteAction;
+import com.izforge.izpack.util.xmlmerge.action.FullMergeAction;
+import com.izforge.izpack.util.xmlmerge.action.KeepAction;
+import com.izforge.izpack.util.xmlmerge.action.OrderedMergeAction;
+import com.izforge.izpack.util.xmlmerge.action.OverrideAction;
+import com.izforge.izpack.util.xmlmerge.action.PreserveAction;
+import com.izforge.izpack.util.xmlmerge.action.ReplaceAction;
+import com.izforge.izpack.util.xmlmerge.factory.StaticOperationFactory;
+import com.izforge.izpack.util.xmlmerge.factory.XPathOperationFactory;
+import com.izforge.izpack.util.xmlmerge.matcher.AttributeMatcher;
+import com.izforge.izpack.util.xmlmerge.matcher.IdAttributeMatcher;
+import com.izforge.izpack.util.xmlmerge.matcher.NameAttributeMatcher;
+import com.izforge.izpack.util.xmlmerge.matcher.SkipMatcher;
+import com.izforge.izpack.util.xmlmerge.matcher.TagMatcher;
+
+
+/**
+ * Determines if a merge configuration can be performed by {@link StreamingXmlMerge}.
+ * <p/>
+ * A configuration can be streamed if its matchers only compare element names and attributes, its actions can be
+ * applied without looking at siblings already written, and its XPath expressions can be evaluated against a
+ * skeleton of an element and its ancestors.
+ *
+ * @author agent
+ */
+final class StreamingSupport
+{
+
+    /**
+     * The logger.
+     */
+    private static final Logger logger = Logger.getLogger(StreamingSupport.class.getName());
+
+    /**
+     * The actions supported when streaming.
+     */
+    private static final Set<Class<?>> ACTIONS = new HashSet<Class<?>>(Arrays.<Class<?>>asList(
+            FullMergeAction.class, OrderedMergeAction.class, KeepAction.class, ReplaceAction.class,
+            OverrideAction.class, CompleteAction.class, DeleteAction.class, PreserveAction.class));
+
+    /**
+     * The matchers supported when streaming. These only compare element names and attributes.
+     */
+    private static final Set<Class<?>> MATCHERS = new HashSet<Class<?>>(Arrays.<Class<?>>asList(
+            TagMatcher.class, AttributeMatcher.class, IdAttributeMatcher.class, NameAttributeMatcher.class,
+            SkipMatcher.class));
+
+    /**
+     * The axes that may be used to select elements, given a skeleton of the element and its ancestors.
+     */
+    private static final Set<Integer> AXES = new HashSet<Integer>(Arrays.asList(
+            Axis.CHILD, Axis.DESCENDANT, Axis.DESCENDANT_OR_SELF, Axis.SELF, Axis.PARENT, Axis.ANCESTOR,
+            Axis.ANCESTOR_OR_SELF));
+
+    /**
+     * XPath functions that may be used in predicates, with or without arguments.
+     */
+    private static final Set<String> FUNCTIONS = new HashSet<String>(Arrays.asList(
+            "not", "true", "false", "boolean", "local-name", "name", "namespace-uri"));
+
+    /**
+     * XPath functions that may be used in predicates, if their arguments don't refer to element content.
+     */
+    private static final Set<String> STRING_FUNCTIONS = new HashSet<String>(Arrays.asList(
+            "contains", "starts-with", "concat", "substring", "substring-before", "substring-after", "translate",
+            "normalize-space", "string-length", "string"));
+
+
+    /**
+     * Prevents construction.
+     */
+    private StreamingSupport()
+    {
+    }
+
+    /**
+     * Determines if a merge configuration can be streamed.
+     *
+     * @param rootMergeAction the root merge action
+     * @return <tt>true</tt> if the configuration can be streamed, <tt>false</tt> if it requires the documents to be
+     *         read into memory
+     */
+    public static boolean isSupported(MergeAction rootMergeAction)
+    {
+        if (rootMergeAction == null || rootMergeAction.getClass() != FullMergeAction.class)
+        {
+            return false;
+        }
+        AbstractMergeAction action = (AbstractMergeAction) rootMergeAction;
+        return isSupported(action.getActionFactory(), ACTIONS)
+                && isSupported(action.getMatcherFactory(), MATCHERS)
+                && isSupported(action.getMapperFactory(), null);
+    }
+
+    /**
+     * Determines if the operations of a factory can be used when streaming.
+     *
+     * @param factory the factory
+     * @param types   the supported operation types, or <tt>null</tt> if any type is supported
+     * @return <tt>true</tt> if the operations can be used when streaming
+     */
+    private static boolean isSupported(OperationFactory factory, Set<Class<?>> types)
+    {
+        List<Operation> operations = new ArrayList<Operation>();
+        if (factory.getClass() == StaticOperationFactory.class)
+        {
+            operations.add(((StaticOperationFactory) factory).getOperation(null, null));
+        }
+        else if (factory.getClass() == XPathOperationFactory.class)
+        {
+            XPathOperationFactory xpaths = (XPathOperationFactory) factory;
+            operations.add(xpaths.getDefaultOperation());
+            for (Map.Entry<String, Operation> entry : xpaths.getOperationMap().entrySet())
+            {
+                if (!isSupported(entry.getKey()))
+                {
+                    logger.fine("XPath expression " + entry.getKey() + " cannot be streamed");
+                    return false;
+                }
+                operations.add(entry.getValue());
+            }
+        }
+        else
+        {
+            return false;
+        }
+        for (Operation operation : operations)
+        {
+            if (operation == null || (types != null && !types.contains(operation.getClass())))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Determines if an XPath expression can be evaluated against a skeleton of an element and its ancestors.
+     * <p/>
+     * This is the case for location paths whose steps select elements along the ancestor and descendant axes, and
+     * whose predicates only refer to attributes.
+     *
+     * @param xpath the XPath expression
+     * @return <tt>true</tt> if the expression can be evaluated against a skeleton
+     */
+    private static boolean isSupported(String xpath)
+    {
+        try
+        {
+            return isPath(new JDOMXPath(xpath).getRootExpr());
+        }
+        catch (JaxenException exception)
+        {
+            // leave it to the DOM merge to report
+            return false;
+        }
+    }
+
+    /**
+     * Determines if an expression is a location path selecting elements, with supported predicates.
+     *
+     * @param expr the expression
+     * @return <tt>true</tt> if the expression is supported
+     */
+    private static boolean isPath(Expr expr)
+    {
+        if (expr instanceof UnionExpr)
+        {
+            return isPath(((UnionExpr) expr).getLHS()) && isPath(((UnionExpr) expr).getRHS());
+        }
+        LocationPath path = getLocationPath(expr);
+        if (path == null)
+        {
+            return false;
+        }
+        for (Object object : path.getSteps())
+        {
+            Step step = (Step) object;
+            if (!AXES.contains(step.getAxis()) || !isNodeTest(step))
+            {
+                return false;
+            }
+            for (Object predicate : step.getPredicates())
+            {
+                if (!isCondition(((Predicate) predicate).getExpr()))
+                {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Determines if a step selects elements by name, or selects any node.
+     *
+     * @param step the step
+     * @return <tt>true</tt> if the step is a name or node() step
+     */
+    private static boolean isNodeTest(Step step)
+    {
+        return step instanceof NameStep || step instanceof AllNodeStep;
+    }
+
+    /**
+     * Determines if a predicate expression is a boolean condition on attributes.
+     * <p/>
+     * Numeric predicates select by position, and so are not supported.
+     *
+     * @param expr the expression
+     * @return <tt>true</tt> if the expression is supported
+     */
+    private static boolean isCondition(Expr expr)
+    {
+        if (expr instanceof LogicalExpr)
+        {
+            return isCondition(((BinaryExpr) expr).getLHS()) && isCondition(((BinaryExpr) expr).getRHS());
+        }
+        if (expr instanceof EqualityExpr || expr instanceof RelationalExpr)
+        {
+            return isValue(((BinaryExpr) expr).getLHS()) && isValue(((BinaryExpr) expr).getRHS());
+        }
+        if (expr instanceof FunctionCallExpr)
+        {
+            String name = ((FunctionCallExpr) expr).getFunctionName();
+            return ("not".equals(name) || "boolean".equals(name) || "true".equals(name) || "false".equals(name)
+                    || "contains".equals(name) || "starts-with".equals(name)) && isValue(expr);
+        }
+        return isAttribute(expr);
+    }
+
+    /**
+     * Determines if an expression only refers to attributes, literals and the names of the context element.
+     *
+     * @param expr the expression
+     * @return <tt>true</tt> if the expression is supported
+     */
+    private static boolean isValue(Expr expr)
+    {
+        if (expr instanceof LiteralExpr || expr instanceof NumberExpr)
+        {
+            return true;
+        }
+        if (expr instanceof LogicalExpr || expr instanceof EqualityExpr || expr instanceof RelationalExpr)
+        {
+            return isCondition(expr);
+        }
+        if (expr instanceof UnaryExpr)
+        {
+            return isValue(((UnaryExpr) expr).getExpr());
+        }
+        if (expr instanceof BinaryExpr && !(expr instanceof UnionExpr))
+        {
+            // arithmetic
+            return isValue(((BinaryExpr) expr).getLHS()) && isValue(((BinaryExpr) expr).getRHS());
+        }
+        if (expr instanceof FunctionCallExpr)
+        {
+            FunctionCallExpr function = (FunctionCallExpr) expr;
+            String prefix = function.getPrefix();
+            String name = function.getFunctionName();
+            List<?> parameters = function.getParameters();
+            if ((prefix != null && prefix.length() != 0)
+                    || !(FUNCTIONS.contains(name) || (STRING_FUNCTIONS.contains(name) && !parameters.isEmpty())))
+            {
+                return false;
+            }
+            for (Object parameter : parameters)
+            {
+                if (!isValue((Expr) parameter))
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return isAttribute(expr);
+    }
+
+    /**
+     * Determines if an expression selects attributes of the context element.
+     *
+     * @param expr the expression
+     * @return <tt>true</tt> if the expression selects attributes of the context element
+     */
+    private static boolean isAttribute(Expr expr)
+    {
+        LocationPath path = getLocationPath(expr);
+        if (path == null || path.isAbsolute() || path.getSteps().size() != 1)
+        {
+            return false;
+        }
+        Step step = (Step) path.getSteps().get(0);
+        return step.getAxis() == Axis.ATTRIBUTE && step.getPredicates().isEmpty();
+    }
+
+    /**
+     * Returns the location path of an expression.
+     *
+     * @param expr the expression
+     * @return the location path, or <tt>null</tt> if the expression isn't a location path
+     */
+    private static LocationPath getLocationPath(Expr expr)
+    {
+        if (expr instanceof PathExpr && ((PathExpr) expr).getFilterExpr() == null)
+        {
+            return ((PathExpr) expr).getLocationPath();
+        }
+        return (expr instanceof LocationPath) ? (LocationPath) expr : null;
+    }
+}
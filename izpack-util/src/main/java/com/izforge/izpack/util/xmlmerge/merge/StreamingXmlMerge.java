@@ -0,0 +1,263 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.util.xmlmerge.merge;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.logging.Logger;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.jdom.Element;
+import org.jdom.JDOMException;
+import org.jdom.input.SAXBuilder;
+
+import com.izforge.izpack.util.file.FileUtils;
+import com.izforge.izpack.util.xmlmerge.AbstractXmlMergeException;
+import com.izforge.izpack.util.xmlmerge.DocumentException;
+import com.izforge.izpack.util.xmlmerge.Matcher;
+import com.izforge.izpack.util.xmlmerge.MergeAction;
+import com.izforge.izpack.util.xmlmerge.ParseException;
+
+
+/**
+ * Merges XML files without building a document for the original file.
+ * <p/>
+ * The original file is read with StAX and written as it is read, so memory use depends on the depth of the
+ * original rather than its size. Patch files are parsed with JDOM, as by {@link DefaultXmlMerge}.
+ * <br/>
+ * Elements are matched and merged using the same matchers, mappers, actions and XPath configuration as
+ * {@link DefaultXmlMerge}, evaluated against a skeleton of each original element and its ancestors holding their
+ * names and attributes. Configurations that depend on element content or siblings in the original, or that insert
+ * elements relative to siblings already written, aren't supported. See {@link StreamingSupport}.
+ * <br/>
+ * Each patch is merged in a {@link StreamingPass}. Where an original element must be processed more than once, as
+ * for an ordered merge or when it matches several patch elements, that element alone is read into memory and
+ * merged by the DOM actions.
+ * <p/>
+ * Unlike {@link DefaultXmlMerge}, the formatting of the original file is preserved rather than pretty printed.
+ *
+ * @author agent
+ */
+class StreamingXmlMerge
+{
+
+    /**
+     * The logger.
+     */
+    private static final Logger logger = Logger.getLogger(StreamingXmlMerge.class.getName());
+
+    /**
+     * The root merge action.
+     */
+    private final MergeAction rootMergeAction;
+
+    /**
+     * The root matcher.
+     */
+    private final Matcher rootMatcher;
+
+    /**
+     * The StAX input factory.
+     */
+    private final XMLInputFactory inputFactory;
+
+    /**
+     * The StAX output factory.
+     */
+    private final XMLOutputFactory outputFactory;
+
+
+    /**
+     * Constructs a <tt>StreamingXmlMerge</tt>.
+     *
+     * @param rootMergeAction the root merge action. Must be supported
+     * @param rootMatcher     the matcher used to check that root elements match
+     * @see StreamingSupport#isSupported(MergeAction)
+     */
+    public StreamingXmlMerge(MergeAction rootMergeAction, Matcher rootMatcher)
+    {
+        this.rootMergeAction = rootMergeAction;
+        this.rootMatcher = rootMatcher;
+        inputFactory = XMLInputFactory.newInstance();
+        inputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+        outputFactory = XMLOutputFactory.newInstance();
+    }
+
+    /**
+     * Merges files.
+     *
+     * @param sources the files to merge. The first is the original, the remainder are patches applied in order
+     * @param target  the file to write to. May be one of the sources
+     * @throws AbstractXmlMergeException if the merge fails
+     */
+    public void merge(File[] sources, File target) throws AbstractXmlMergeException
+    {
+        File dir = target.getAbsoluteFile().getParentFile();
+        File input = sources[0];
+        File output = null;
+        try
+        {
+            int i = 1;
+            do
+            {
+                Element patch = (i < sources.length) ? parse(sources[i]) : null;
+                output = createTempFile(dir);
+                merge(input, patch, output);
+                if (input != sources[0])
+                {
+                    delete(input);
+                }
+                input = output;
+            }
+            while (++i < sources.length);
+            if ((target.exists() && !target.delete()) || !output.renameTo(target))
+            {
+                throw new DocumentException(null, "Failed to replace " + target);
+            }
+            output = null;
+        }
+        finally
+        {
+            if (output != null)
+            {
+                delete(output);
+            }
+        }
+    }
+
+    /**
+     * Merges a patch into a file.
+     *
+     * @param original the original file
+     * @param patch    the root element of the patch. If <tt>null</tt>, the original is copied
+     * @param target   the file to write to
+     * @throws AbstractXmlMergeException if the merge fails
+     */
+    private void merge(File original, Element patch, File target) throws AbstractXmlMergeException
+    {
+        logger.fine("Streaming merge of " + original + " to " + target);
+        InputStream in = null;
+        OutputStream out = null;
+        try
+        {
+            in = new BufferedInputStream(new FileInputStream(original));
+            out = new BufferedOutputStream(new FileOutputStream(target));
+            XMLStreamReader reader = inputFactory.createXMLStreamReader(original.toURI().toString(), in);
+            try
+            {
+                String encoding = reader.getCharacterEncodingScheme();
+                if (encoding == null)
+                {
+                    encoding = "UTF-8";
+                }
+                XMLStreamWriter writer = outputFactory.createXMLStreamWriter(out, encoding);
+                String version = reader.getVersion();
+                writer.writeStartDocument(encoding, (version != null) ? version : "1.0");
+                new StreamingPass(reader, new StreamingOutput(writer), patch, rootMergeAction, rootMatcher).run();
+                writer.writeEndDocument();
+                writer.close();
+            }
+            finally
+            {
+                reader.close();
+            }
+            out.flush();
+        }
+        catch (XMLStreamException exception)
+        {
+            throw new ParseException("Failed to merge " + original, exception);
+        }
+        catch (IOException exception)
+        {
+            throw new DocumentException(null, exception);
+        }
+        finally
+        {
+            FileUtils.close(in);
+            FileUtils.close(out);
+        }
+    }
+
+    /**
+     * Parses a patch file.
+     *
+     * @param file the file
+     * @return the root element
+     * @throws AbstractXmlMergeException if the file cannot be parsed
+     */
+    private Element parse(File file) throws AbstractXmlMergeException
+    {
+        try
+        {
+            return new SAXBuilder().build(file).getRootElement();
+        }
+        catch (JDOMException exception)
+        {
+            throw new ParseException(exception);
+        }
+        catch (IOException exception)
+        {
+            throw new ParseException(exception);
+        }
+    }
+
+    /**
+     * Creates a temporary file.
+     *
+     * @param dir the directory to create the file in
+     * @return a new file
+     * @throws AbstractXmlMergeException if the file cannot be created
+     */
+    private File createTempFile(File dir) throws AbstractXmlMergeException
+    {
+        try
+        {
+            return File.createTempFile("xmlmerge", ".tmp", dir);
+        }
+        catch (IOException exception)
+        {
+            throw new DocumentException(null, exception);
+        }
+    }
+
+    /**
+     * Deletes a temporary file.
+     *
+     * @param file the file
+     */
+    private void delete(File file)
+    {
+        if (!file.delete())
+        {
+            logger.warning("Failed to delete temporary file " + file);
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.izforge.izpack.util;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.izforge.izpack.api.data.binding.OsModel;
+import com.izforge.izpack.api.handler.AbstractUIHandler;
+import com.izforge.izpack.data.ExecutableFile;
+
+
+/**
+ * Tests the {@link FileExecutor}.
+ *
+ * @author agent
+ */
+public class FileExecutorTest
+{
+    /**
+     * Temporary folder.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * The handler.
+     */
+    private TestHandler handler;
+
+    /**
+     * Sets up the test case.
+     */
+    @Before
+    public void setUp()
+    {
+        assumeTrue(OsVersion.IS_UNIX);
+        handler = new TestHandler();
+    }
+
+    /**
+     * Verifies that executables in the same group are run concurrently.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testGroupRunsConcurrently() throws Exception
+    {
+        List<ExecutableFile> files = new ArrayList<ExecutableFile>();
+        for (int i = 0; i < 4; ++i)
+        {
+            files.add(createExecutable("sleep" + i, "sleep 1", "services", ExecutableFile.ABORT));
+        }
+
+        long start = System.currentTimeMillis();
+        FileExecutor executor = new FileExecutor(files);
+        assertEquals(0, executor.executeFiles(ExecutableFile.POSTINSTALL, handler));
+        long elapsed = System.currentTimeMillis() - start;
+        assertTrue("Group took " + elapsed + "ms", elapsed < 3500);
+        assertEquals(0, handler.errors);
+    }
+
+    /**
+     * Verifies that a failure in a group stops subsequent executables from running.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testGroupFailureAborts() throws Exception
+    {
+        File marker = new File(temporaryFolder.getRoot(), "marker");
+        List<ExecutableFile> files = new ArrayList<ExecutableFile>();
+        files.add(createExecutable("ok", "exit 0", "services", ExecutableFile.ABORT));
+        files.add(createExecutable("fail", "exit 3", "services", ExecutableFile.ABORT));
+        files.add(createExecutable("after", "touch " + marker.getPath(), null, ExecutableFile.ABORT));
+
+        FileExecutor executor = new FileExecutor(files);
+        assertEquals(3, executor.executeFiles(ExecutableFile.POSTINSTALL, handler));
+        assertEquals(1, handler.errors);
+        assertFalse(marker.exists());
+    }
+
+    /**
+     * Verifies that executables without a group are run in order.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testUngroupedRunInOrder() throws Exception
+    {
+        File log = new File(temporaryFolder.getRoot(), "log");
+        List<ExecutableFile> files = new ArrayList<ExecutableFile>();
+        files.add(createExecutable("first", "sleep 1; echo first >> " + log.getPath(), null, ExecutableFile.ABORT));
+        files.add(createExecutable("second", "echo second >> " + log.getPath(), null, ExecutableFile.ABORT));
+
+        FileExecutor executor = new FileExecutor(files);
+        assertEquals(0, executor.executeFiles(ExecutableFile.POSTINSTALL, handler));
+        BufferedReader reader = new BufferedReader(new FileReader(log));
+        assertEquals("first", reader.readLine());
+        assertEquals("second", reader.readLine());
+        reader.close();
+    }
+
+    /**
+     * Creates a shell script executable.
+     *
+     * @param name      the script name
+     * @param command   the command to run
+     * @param group     the execution group. May be {@code null}
+     * @param onFailure the failure handling
+     * @return a new executable
+     * @throws IOException for any I/O error
+     */
+    private ExecutableFile createExecutable(String name, String command, String group, int onFailure)
+            throws IOException
+    {
+        File file = temporaryFolder.newFile(name + ".sh");
+        PrintWriter writer = new PrintWriter(file);
+        writer.println("#!/bin/sh");
+        writer.println(command);
+        writer.close();
+        ExecutableFile result = new ExecutableFile(file.getPath(), ExecutableFile.POSTINSTALL, onFailure,
+                                                   new ArrayList<OsModel>(), true);
+        result.argList = new ArrayList<String>();
+        result.group = group;
+        return result;
+    }
+
+    /**
+     * Handler that counts errors.
+     */
+    private static class TestHandler implements AbstractUIHandler
+    {
+        private int errors;
+
+        @Override
+        public void emitNotification(String message)
+        {
+        }
+
+        @Override
+        public boolean emitWarning(String title, String message)
+        {
+            return true;
+        }
+
+        @Override
+        public synchronized void emitError(String title, String message)
+        {
+            ++errors;
+        }
+
+        @Override
+        public void emitErrorAndBlockNext(String title, String message)
+        {
+            emitError(title, message);
+        }
+
+        @Override
+        public int askQuestion(String title, String question, int choices)
+        {
+            return ANSWER_NO;
+        }
+
+        @Override
+        public int askQuestion(String title, String question, int choices, int default_choice)
+        {
+            return ANSWER_NO;
+        }
+    }
+}
@@ -0,0 +1,316 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.URL;
+import java.nio.channels.OverlappingFileLockException;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.izforge.izpack.util.file.FileUtils;
+
+
+/**
+ * Tests the {@link NativeLibraryCache} class.
+ *
+ * @author agent
+ */
+public class NativeLibraryCacheTest
+{
+
+    /**
+     * Temporary folder.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+
+    /**
+     * Verifies that a library is extracted once, and reused while its content is unchanged.
+     *
+     * @throws IOException for any I/O error
+     */
+    @Test
+    public void testCache() throws IOException
+    {
+        NativeLibraryCache cache = new NativeLibraryCache(temporaryFolder.newFolder("cache"));
+        URL url = createJar("first.jar", new byte[]{1, 2, 3});
+
+        File library = load(cache, url);
+        assertEquals("ShellLink.dll", library.getName());
+        assertArrayEquals(new byte[]{1, 2, 3}, read(library));
+
+        // the cached copy is reused
+        assertTrue(library.setLastModified(0));
+        assertEquals(library, load(cache, url));
+        assertEquals(0, library.lastModified());
+
+        // a library with different content is cached separately
+        File other = load(cache, createJar("second.jar", new byte[]{4, 5, 6}));
+        assertFalse(library.equals(other));
+        assertArrayEquals(new byte[]{4, 5, 6}, read(other));
+        assertArrayEquals(new byte[]{1, 2, 3}, read(library));
+    }
+
+    /**
+     * Verifies that a cached library is replaced if its content doesn't match the jar entry.
+     *
+     * @throws IOException for any I/O error
+     */
+    @Test
+    public void testReplaceCorruptLibrary() throws IOException
+    {
+        NativeLibraryCache cache = new NativeLibraryCache(temporaryFolder.newFolder("cache"));
+        URL url = createJar("library.jar", new byte[]{1, 2, 3});
+
+        File library = load(cache, url);
+        write(library, new byte[]{1, 2, 4});
+
+        assertEquals(library, load(cache, url));
+        assertArrayEquals(new byte[]{1, 2, 3}, read(library));
+    }
+
+    /**
+     * Verifies that a library is loaded while the lock on its directory is held.
+     *
+     * @throws IOException for any I/O error
+     */
+    @Test
+    public void testLoadWhileLocked() throws IOException
+    {
+        NativeLibraryCache cache = new NativeLibraryCache(temporaryFolder.newFolder("cache"));
+        final boolean[] locked = {false};
+        NativeLibraryCache.Loader loader = new NativeLibraryCache.Loader()
+        {
+            @Override
+            public boolean load(File file)
+            {
+                try
+                {
+                    RandomAccessFile lockFile = new RandomAccessFile(new File(file.getParentFile(), ".lock"), "rw");
+                    try
+                    {
+                        lockFile.getChannel().tryLock();
+                    }
+                    finally
+                    {
+                        FileUtils.close(lockFile);
+                    }
+                }
+                catch (OverlappingFileLockException expected)
+                {
+                    locked[0] = true;
+                }
+                catch (IOException exception)
+                {
+                    throw new IllegalStateException(exception);
+                }
+                return false;
+            }
+        };
+        assertFalse(cache.load("ShellLink.dll", createJar("library.jar", new byte[]{1, 2, 3}), loader));
+        assertTrue(locked[0]);
+    }
+
+    /**
+     * Verifies that libraries that haven't been used for {@link NativeLibraryCache#MAX_AGE} are pruned.
+     *
+     * @throws IOException for any I/O error
+     */
+    @Test
+    public void testPrune() throws IOException
+    {
+        NativeLibraryCache cache = new NativeLibraryCache(temporaryFolder.newFolder("cache"));
+        File first = load(cache, createJar("first.jar", new byte[]{1, 2, 3}));
+        File second = load(cache, createJar("second.jar", new byte[]{4, 5, 6}));
+        File firstLock = new File(first.getParentFile(), ".lock");
+        File secondLock = new File(second.getParentFile(), ".lock");
+        long expired = System.currentTimeMillis() - NativeLibraryCache.MAX_AGE - 60000;
+        assertTrue(firstLock.setLastModified(expired));
+        assertTrue(secondLock.setLastModified(expired));
+
+        // loading the second library prunes the first, but not the second
+        load(cache, createJar("second.jar", new byte[]{4, 5, 6}));
+        assertFalse(first.getParentFile().exists());
+        assertTrue(second.exists());
+        assertTrue(secondLock.lastModified() > expired);
+    }
+
+    /**
+     * Verifies that libraries that aren't in a jar aren't cached.
+     *
+     * @throws IOException for any I/O error
+     */
+    @Test(expected = IOException.class)
+    public void testNotJar() throws IOException
+    {
+        NativeLibraryCache cache = new NativeLibraryCache(temporaryFolder.newFolder("cache"));
+        File source = write(temporaryFolder.newFile("ShellLink.dll"), new byte[]{1, 2, 3});
+        load(cache, source.toURI().toURL());
+    }
+
+    /**
+     * Tests the {@link NativeLibraryCache#getDefault()} method.
+     */
+    @Test
+    public void testGetDefault()
+    {
+        String previous = System.getProperty(NativeLibraryCache.CACHE);
+        try
+        {
+            System.setProperty(NativeLibraryCache.CACHE, "false");
+            assertNull(NativeLibraryCache.getDefault());
+
+            System.setProperty(NativeLibraryCache.CACHE, "foo");
+            if (NativeLibraryCache.isElevated())
+            {
+                // elevated processes don't use the cache
+                assertNull(NativeLibraryCache.getDefault());
+            }
+            else
+            {
+                assertEquals(new File("foo"), NativeLibraryCache.getDefault().getRoot());
+            }
+        }
+        finally
+        {
+            if (previous != null)
+            {
+                System.setProperty(NativeLibraryCache.CACHE, previous);
+            }
+            else
+            {
+                System.clearProperty(NativeLibraryCache.CACHE);
+            }
+        }
+    }
+
+    /**
+     * Loads <em>ShellLink.dll</em> from the cache.
+     *
+     * @param cache the cache
+     * @param url   the library URL
+     * @return the cached library
+     * @throws IOException for any I/O error
+     */
+    private File load(NativeLibraryCache cache, URL url) throws IOException
+    {
+        final File[] result = new File[1];
+        NativeLibraryCache.Loader loader = new NativeLibraryCache.Loader()
+        {
+            @Override
+            public boolean load(File file)
+            {
+                result[0] = file;
+                return true;
+            }
+        };
+        assertTrue(cache.load("ShellLink.dll", url, loader));
+        return result[0];
+    }
+
+    /**
+     * Creates a jar containing <em>ShellLink.dll</em>.
+     *
+     * @param name the jar name
+     * @param data the library content
+     * @return the URL of the library in the jar
+     * @throws IOException for any I/O error
+     */
+    private URL createJar(String name, byte[] data) throws IOException
+    {
+        File jar = new File(temporaryFolder.getRoot(), name);
+        if (!jar.exists())
+        {
+            JarOutputStream out = new JarOutputStream(new FileOutputStream(jar));
+            try
+            {
+                out.putNextEntry(new JarEntry("ShellLink.dll"));
+                out.write(data);
+                out.closeEntry();
+            }
+            finally
+            {
+                FileUtils.close(out);
+            }
+        }
+        return new URL("jar:" + jar.toURI() + "!/ShellLink.dll");
+    }
+
+    /**
+     * Writes data to a file.
+     *
+     * @param file the file
+     * @param data the data to write
+     * @return the file
+     * @throws IOException for any I/O error
+     */
+    private File write(File file, byte[] data) throws IOException
+    {
+        FileOutputStream out = new FileOutputStream(file);
+        try
+        {
+            out.write(data);
+        }
+        finally
+        {
+            FileUtils.close(out);
+        }
+        return file;
+    }
+
+    /**
+     * Reads a file.
+     *
+     * @param file the file
+     * @return the file content
+     * @throws IOException for any I/O error
+     */
+    private byte[] read(File file) throws IOException
+    {
+        FileInputStream in = new FileInputStream(file);
+        try
+        {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            IoHelper.copyStream(in, out);
+            return out.toByteArray();
+        }
+        finally
+        {
+            FileUtils.close(in);
+        }
+    }
+}
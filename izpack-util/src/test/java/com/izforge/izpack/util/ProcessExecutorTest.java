@@ -0,0 +1,208 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+
+/**
+ * Tests the {@link ProcessExecutor} class.
+ *
+ * @author agent
+ */
+public class ProcessExecutorTest
+{
+
+    /**
+     * Sets up the test case.
+     */
+    @Before
+    public void setUp()
+    {
+        assumeTrue(OsVersion.IS_UNIX);
+    }
+
+    /**
+     * Verifies that standard output and standard error are collected, and streamed to the handler.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testExecute() throws Exception
+    {
+        final List<String> lines = Collections.synchronizedList(new ArrayList<String>());
+        ProcessBuilder builder = new ProcessBuilder("sh", "-c", "echo foo; echo bar >&2; echo baz; exit 3");
+        ProcessExecutor.Result result = new ProcessExecutor().execute(builder, new ProcessExecutor.OutputHandler()
+        {
+            @Override
+            public void handleOutput(String line, boolean stderr)
+            {
+                lines.add((stderr ? "err:" : "out:") + line);
+            }
+        });
+
+        assertEquals(3, result.getExitStatus());
+        assertEquals("foo\nbaz\n", result.getStdout());
+        assertEquals("bar\n", result.getStderr());
+        assertFalse(result.isTimedOut());
+        assertFalse(result.isTruncated());
+        assertEquals(3, lines.size());
+        assertTrue(lines.containsAll(Arrays.asList("out:foo", "err:bar", "out:baz")));
+    }
+
+    /**
+     * Verifies that output is retained as written, while the handler receives lines without their terminators.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testLineTerminators() throws Exception
+    {
+        final List<String> lines = new ArrayList<String>();
+        ProcessBuilder builder = new ProcessBuilder("printf", "a\\r\\nb\\rc\\n\\nd");
+        ProcessExecutor.Result result = new ProcessExecutor().execute(builder, new ProcessExecutor.OutputHandler()
+        {
+            @Override
+            public void handleOutput(String line, boolean stderr)
+            {
+                lines.add(line);
+            }
+        });
+        assertEquals("a\r\nb\rc\n\nd", result.getStdout());
+        assertEquals(Arrays.asList("a", "b", "c", "", "d"), lines);
+
+        result = new ProcessExecutor().execute(builder, null);
+        assertEquals("a\r\nb\rc\n\nd", result.getStdout());
+    }
+
+    /**
+     * Verifies that standard error is drained when there are more concurrent processes than pooled drainers.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testExhaustDrainers() throws Exception
+    {
+        List<String[]> commands = new ArrayList<String[]>();
+        int count = ProcessExecutor.MAX_DRAINERS * 2;
+        for (int i = 0; i < count; ++i)
+        {
+            commands.add(new String[]{"sh", "-c", "sleep 1; echo " + i + " >&2"});
+        }
+        List<ProcessExecutor.Result> results = new ProcessExecutor().execute(commands, null, count);
+        for (int i = 0; i < count; ++i)
+        {
+            assertEquals(0, results.get(i).getExitStatus());
+            assertEquals(i + "\n", results.get(i).getStderr());
+        }
+    }
+
+    /**
+     * Verifies that a process is destroyed if it exceeds the timeout.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testTimeout() throws Exception
+    {
+        ProcessExecutor executor = new ProcessExecutor();
+        executor.setTimeout(500);
+        long start = System.currentTimeMillis();
+        ProcessExecutor.Result result = executor.execute(new String[]{"sleep", "30"}, null);
+        assertTrue(result.isTimedOut());
+        assertTrue(result.getExitStatus() != 0);
+        assertTrue(System.currentTimeMillis() - start < 10000);
+    }
+
+    /**
+     * Verifies that a process that exits while a child process still holds its output open doesn't block the caller
+     * beyond the drain timeout, and that the output written before the process exited is returned.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testOutputHeldByChild() throws Exception
+    {
+        ProcessExecutor executor = new ProcessExecutor();
+        executor.setDrainTimeout(1000);
+        long start = System.currentTimeMillis();
+        ProcessExecutor.Result result = executor.execute(
+                new String[]{"sh", "-c", "echo foo; echo bar >&2; sleep 20 & exit 2"}, null);
+        assertTrue(System.currentTimeMillis() - start < 10000);
+        assertEquals(2, result.getExitStatus());
+        assertEquals("foo\n", result.getStdout());
+        assertEquals("bar\n", result.getStderr());
+        assertFalse(result.isTimedOut());
+    }
+
+    /**
+     * Verifies that retained output is limited, while all of it is still drained.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testMaxOutput() throws Exception
+    {
+        ProcessExecutor executor = new ProcessExecutor();
+        executor.setMaxOutput(10);
+        ProcessExecutor.Result result = executor.execute(new String[]{"sh", "-c", "seq 1 10000"}, null);
+        assertEquals(0, result.getExitStatus());
+        assertTrue(result.isTruncated());
+        assertTrue(result.getStdout().length() <= 10);
+        assertEquals("1\n2\n3\n4\n5\n", result.getStdout());
+    }
+
+    /**
+     * Verifies that a batch of commands are executed, with results returned in order.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testExecuteBatch() throws Exception
+    {
+        List<String[]> commands = new ArrayList<String[]>();
+        for (int i = 0; i < 5; ++i)
+        {
+            commands.add(new String[]{"sh", "-c", "echo " + i});
+        }
+        commands.add(new String[]{"/nonexistent/command"});
+
+        List<ProcessExecutor.Result> results = new ProcessExecutor().execute(commands, null, 3);
+        assertEquals(6, results.size());
+        for (int i = 0; i < 5; ++i)
+        {
+            assertEquals(0, results.get(i).getExitStatus());
+            assertEquals(i + "\n", results.get(i).getStdout());
+        }
+        assertEquals(-1, results.get(5).getExitStatus());
+        assertFalse(results.get(5).getStderr().isEmpty());
+    }
+}
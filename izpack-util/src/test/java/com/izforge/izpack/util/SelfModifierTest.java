@@ -0,0 +1,385 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.izforge.izpack.util.file.FileUtils;
+
+
+/**
+ * Tests the {@link SelfModifier} class.
+ *
+ * @author agent
+ */
+public class SelfModifierTest
+{
+
+    /**
+     * Temporary folder.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * The jar containing the SelfModifier and the target method.
+     */
+    private File jar;
+
+    /**
+     * The sandbox created by the test, or <tt>null</tt> if none has been created.
+     */
+    private File sandbox;
+
+    /**
+     * The log file created by the test, or <tt>null</tt> if none has been created.
+     */
+    private File log;
+
+
+    /**
+     * Sets up the test case.
+     *
+     * @throws Exception for any error
+     */
+    @Before
+    public void setUp() throws Exception
+    {
+        jar = createJar();
+    }
+
+    /**
+     * Cleans up after the test case.
+     */
+    @After
+    public void tearDown()
+    {
+        if (sandbox != null)
+        {
+            SelfModifier.deleteTree(sandbox);
+        }
+        if (log != null)
+        {
+            FileUtils.delete(log);
+        }
+    }
+
+    /**
+     * Verifies that the jar file is copied into the sandbox, and the copy is used as the class path.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testCopyJarFile() throws Exception
+    {
+        SelfModifier modifier = createModifier();
+        modifier.prepare(jar, false);
+        List<String> command = getCommand(modifier, 3);
+
+        File copy = new File(sandbox, jar.getName());
+        assertTrue(copy.isFile());
+        assertArrayEquals(read(jar), read(copy));
+        assertEquals(copy.getAbsolutePath(), getClassPath(command));
+        assertEquals(1, sandbox.list().length);
+    }
+
+    /**
+     * Verifies that the jar file is extracted into the sandbox, and the sandbox is used as the class path, if
+     * extraction is requested.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testExtractJarFile() throws Exception
+    {
+        SelfModifier modifier = createModifier();
+        modifier.prepare(jar, true);
+        List<String> command = getCommand(modifier, 3);
+
+        assertTrue(new File(sandbox, "com/izforge/izpack/util/SelfModifier.class").isFile());
+        assertTrue(new File(sandbox, "com/izforge/izpack/util/SelfModifierTest$Target.class").isFile());
+        assertFalse(new File(sandbox, jar.getName()).exists());
+        assertEquals(sandbox.getAbsolutePath(), getClassPath(command));
+    }
+
+    /**
+     * Verifies that phase 1 only spawns phase 2 on Windows, and that phase 3 is only told to clean up the sandbox
+     * when it is spawned by phase 1.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testPhases() throws Exception
+    {
+        assertEquals(2, SelfModifier.getNextPhase(true));
+        assertEquals(3, SelfModifier.getNextPhase(false));
+
+        SelfModifier modifier = createModifier();
+        modifier.prepare(jar, false);
+        List<String> phase2 = getCommand(modifier, 2);
+        List<String> phase3 = getCommand(modifier, 3);
+        assertTrue(phase2.contains("-D" + SelfModifier.PHASE_KEY + "=2"));
+        assertFalse(phase2.contains("-Dself.mod.cleanup=true"));
+        assertTrue(phase3.contains("-D" + SelfModifier.PHASE_KEY + "=3"));
+        assertTrue(phase3.contains("-Dself.mod.cleanup=true"));
+        assertEquals("arg", phase3.get(phase3.size() - 1));
+    }
+
+    /**
+     * Verifies that when phase 3 is spawned by phase 1, it invokes the target method with its std io redirected to
+     * the log, and deletes the sandbox when it exits.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testPhase3Cleanup() throws Exception
+    {
+        assumeTrue(!OsVersion.IS_WINDOWS);
+        File output = new File(temporaryFolder.getRoot(), "output.txt");
+        SelfModifier modifier = createModifier();
+        modifier.prepare(jar, false);
+        List<String> command = modifier.getCommand(new String[]{output.getPath()}, 3);
+        sandbox = getSandbox(command);
+        log = new File(sandbox.getPath().substring(0, sandbox.getPath().length() - 2) + ".log");
+        assertTrue(sandbox.isDirectory());
+
+        Process process = Runtime.getRuntime().exec(command.toArray(new String[command.size()]));
+        process.getOutputStream().close();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SelfModifier.StreamProxy stdout = new SelfModifier.StreamProxy(process.getInputStream(), "out", out);
+        SelfModifier.StreamProxy stderr = new SelfModifier.StreamProxy(process.getErrorStream(), "err", out);
+        stdout.start();
+        stderr.start();
+        assertEquals(0, process.waitFor());
+        stdout.join();
+        stderr.join();
+
+        assertEquals("invoked", new String(read(output), "UTF-8"));
+        String logged = new String(read(log), "UTF-8");
+        assertTrue(logged, logged.contains(Target.MESSAGE));
+        assertFalse(out.toString(), out.toString().contains(Target.MESSAGE));
+        assertFalse(sandbox.exists());
+    }
+
+    /**
+     * A target method, invoked by phase 3.
+     */
+    public static class Target
+    {
+
+        /**
+         * The message written to std out.
+         */
+        public static final String MESSAGE = "Message from phase 3";
+
+        /**
+         * Writes <em>invoked</em> to the file named by the first argument, and {@link #MESSAGE} to std out.
+         *
+         * @param args the arguments
+         * @throws IOException for any I/O error
+         */
+        public static void run(String[] args) throws IOException
+        {
+            OutputStream out = new FileOutputStream(args[0]);
+            try
+            {
+                out.write("invoked".getBytes("UTF-8"));
+            }
+            finally
+            {
+                out.close();
+            }
+            System.out.println(MESSAGE);
+        }
+    }
+
+    /**
+     * Creates a modifier to invoke {@link Target#run(String[])}.
+     *
+     * @return a new modifier
+     * @throws Exception for any error
+     */
+    private SelfModifier createModifier() throws Exception
+    {
+        Method method = Target.class.getMethod("run", String[].class);
+        return new SelfModifier(method);
+    }
+
+    /**
+     * Returns the command to spawn a phase, recording the sandbox and log file so they can be deleted.
+     *
+     * @param modifier the modifier
+     * @param phase    the phase to spawn
+     * @return the command
+     */
+    private List<String> getCommand(SelfModifier modifier, int phase)
+    {
+        List<String> command = modifier.getCommand(new String[]{"arg"}, phase);
+        sandbox = getSandbox(command);
+        log = new File(sandbox.getPath().substring(0, sandbox.getPath().length() - 2) + ".log");
+        return command;
+    }
+
+    /**
+     * Returns the sandbox from a command.
+     *
+     * @param command the command
+     * @return the sandbox
+     */
+    private File getSandbox(List<String> command)
+    {
+        String prefix = "-D" + SelfModifier.BASE_KEY + "=";
+        for (String arg : command)
+        {
+            if (arg.startsWith(prefix))
+            {
+                return new File(arg.substring(prefix.length()) + ".d");
+            }
+        }
+        throw new IllegalStateException("No sandbox in command: " + command);
+    }
+
+    /**
+     * Returns the class path from a command.
+     *
+     * @param command the command
+     * @return the class path
+     */
+    private String getClassPath(List<String> command)
+    {
+        return command.get(command.indexOf("-classpath") + 1);
+    }
+
+    /**
+     * Creates a jar containing the izpack-util classes, and the {@link Target} class.
+     *
+     * @return the jar
+     * @throws Exception for any error
+     */
+    private File createJar() throws Exception
+    {
+        File classes = new File(SelfModifier.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        assumeTrue(classes.isDirectory());
+        File result = new File(temporaryFolder.getRoot(), "util.jar");
+        JarOutputStream out = new JarOutputStream(new FileOutputStream(result));
+        try
+        {
+            List<File> files = new ArrayList<File>();
+            addFiles(classes, files);
+            for (File file : files)
+            {
+                String name = file.getPath().substring(classes.getPath().length() + 1).replace('\\', '/');
+                add(out, name, file);
+            }
+            String target = Target.class.getName().replace('.', '/') + ".class";
+            add(out, target, new File(Target.class.getResource("/" + target).toURI()));
+        }
+        finally
+        {
+            out.close();
+        }
+        return result;
+    }
+
+    /**
+     * Collects the files in a directory, recursively.
+     *
+     * @param dir   the directory
+     * @param files the collected files
+     */
+    private void addFiles(File dir, List<File> files)
+    {
+        File[] children = dir.listFiles();
+        if (children != null)
+        {
+            for (File child : children)
+            {
+                if (child.isDirectory())
+                {
+                    addFiles(child, files);
+                }
+                else
+                {
+                    files.add(child);
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds a file to a jar.
+     *
+     * @param out  the jar
+     * @param name the entry name
+     * @param file the file
+     * @throws IOException for any I/O error
+     */
+    private void add(JarOutputStream out, String name, File file) throws IOException
+    {
+        out.putNextEntry(new JarEntry(name));
+        out.write(read(file));
+        out.closeEntry();
+    }
+
+    /**
+     * Reads a file.
+     *
+     * @param file the file
+     * @return the file content
+     * @throws IOException for any I/O error
+     */
+    private byte[] read(File file) throws IOException
+    {
+        InputStream in = new FileInputStream(file);
+        try
+        {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            IoHelper.copyStream(in, out);
+            return out.toByteArray();
+        }
+        finally
+        {
+            FileUtils.close(in);
+        }
+    }
+}
@@ -0,0 +1,452 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.util.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.izforge.izpack.api.adaptator.impl.XMLParser;
+import com.izforge.izpack.util.config.base.Ini;
+import com.izforge.izpack.util.file.FileUtils;
+
+
+/**
+ * Tests the {@link ConfigurableTaskExecutor} class.
+ *
+ * @author agent
+ */
+public class ConfigurableTaskExecutorTest
+{
+
+    /**
+     * Temporary folder.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+
+    /**
+     * Verifies that option file tasks on the same file are chained, and tasks on other files are executed.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testOptionFileTasks() throws Exception
+    {
+        File first = temporaryFolder.newFile("first.properties");
+        write(first, "foo=1", "bar=0", "baz=0");
+        File second = temporaryFolder.newFile("second.properties");
+        write(second, "x=0");
+
+        SingleOptionFileTask task1 = createOptionTask(first, "<entry key='bar' value='2'/>");
+        SingleOptionFileTask task2 = createOptionTask(second, "<entry key='x' value='y'/>");
+        SingleOptionFileTask task3 = createOptionTask(first, "<entry key='baz' value='3'/>");
+        assertTrue(task1.canChain(task3));
+        assertFalse(task1.canChain(task2));
+
+        new ConfigurableTaskExecutor(2).execute(Arrays.asList(task1, task2, task3));
+
+        Properties properties = read(first);
+        assertEquals("1", properties.getProperty("foo"));
+        assertEquals("2", properties.getProperty("bar"));
+        assertEquals("3", properties.getProperty("baz"));
+        assertEquals("y", read(second).getProperty("x"));
+    }
+
+    /**
+     * Verifies that INI file tasks on the same file are chained.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testIniFileTasks() throws Exception
+    {
+        File file = temporaryFolder.newFile("app.ini");
+        write(file, "[main]", "foo=1");
+
+        SingleIniFileTask task1 = createIniTask(file, "<entry section='main' key='bar' value='2'/>");
+        SingleIniFileTask task2 = createIniTask(file, "<entry section='other' key='baz' value='3'/>");
+        assertTrue(task1.canChain(task2));
+
+        new ConfigurableTaskExecutor(2).execute(Arrays.asList(task1, task2));
+
+        Ini ini = new Ini(file);
+        assertEquals("1", ini.get("main", "foo"));
+        assertEquals("2", ini.get("main", "bar"));
+        assertEquals("3", ini.get("other", "baz"));
+    }
+
+    /**
+     * Verifies that consecutive XML merges into the same file are combined.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testXmlMerges() throws Exception
+    {
+        File original = temporaryFolder.newFile("original.xml");
+        write(original, "<root><a>1</a></root>");
+        File patch1 = temporaryFolder.newFile("patch1.xml");
+        write(patch1, "<root><b>2</b></root>");
+        File patch2 = temporaryFolder.newFile("patch2.xml");
+        write(patch2, "<root><c>3</c></root>");
+        File target = new File(temporaryFolder.getRoot(), "target.xml");
+
+        SingleXmlFileMergeTask merge1 = createMerge(original, patch1, target);
+        SingleXmlFileMergeTask merge2 = createMerge(target, patch2, target);
+        assertNotNull(merge1.combine(merge2));
+
+        new ConfigurableTaskExecutor(2).execute(Arrays.asList(merge1, merge2));
+
+        String result = FileUtils.readFully(new FileReader(target));
+        assertTrue(result.contains("<a>1</a>"));
+        assertTrue(result.contains("<b>2</b>"));
+        assertTrue(result.contains("<c>3</c>"));
+    }
+
+    /**
+     * Verifies that conditions are evaluated in task order, after the preceding tasks have completed.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testConditions() throws Exception
+    {
+        final File first = temporaryFolder.newFile("first.properties");
+        write(first, "foo=1", "bar=0");
+        File second = temporaryFolder.newFile("second.properties");
+        write(second, "x=0");
+        File third = temporaryFolder.newFile("third.properties");
+        write(third, "y=0");
+
+        ConditionalTask task1 = createConditional(createOptionTask(first, "<entry key='bar' value='2'/>"), null);
+
+        // only true once task1 has executed
+        ConditionalTask task2 = createConditional(createOptionTask(second, "<entry key='x' value='1'/>"),
+                                                  new Callable<Boolean>()
+                                                  {
+                                                      @Override
+                                                      public Boolean call() throws Exception
+                                                      {
+                                                          return "2".equals(read(first).getProperty("bar"));
+                                                      }
+                                                  });
+        ConditionalTask task3 = createConditional(createOptionTask(third, "<entry key='y' value='1'/>"),
+                                                  new Callable<Boolean>()
+                                                  {
+                                                      @Override
+                                                      public Boolean call() throws Exception
+                                                      {
+                                                          return false;
+                                                      }
+                                                  });
+
+        new ConfigurableTaskExecutor(2).executeConditional(Arrays.asList(task1, task2, task3));
+
+        assertEquals("2", read(first).getProperty("bar"));
+        assertEquals("1", read(second).getProperty("x"));
+        assertEquals("0", read(third).getProperty("y"));
+    }
+
+    /**
+     * Verifies that tasks on the same file referred to by different paths are executed in the same group.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testAliasedFiles() throws Exception
+    {
+        File file = temporaryFolder.newFile("app.properties");
+        write(file, "foo=1", "bar=0", "baz=0");
+        File dir = temporaryFolder.newFolder("dir");
+        File alias = new File(dir, "../app.properties");
+
+        SingleOptionFileTask task1 = createOptionTask(file, "<entry key='bar' value='2'/>");
+        SingleOptionFileTask task2 = createOptionTask(alias, "<entry key='baz' value='3'/>");
+
+        new ConfigurableTaskExecutor(2).execute(Arrays.asList(task1, task2));
+
+        Properties properties = read(file);
+        assertEquals("1", properties.getProperty("foo"));
+        assertEquals("2", properties.getProperty("bar"));
+        assertEquals("3", properties.getProperty("baz"));
+    }
+
+    /**
+     * Verifies that a task isn't chained to a task that patches from an old file, as the old file would be read from
+     * disk.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testNoChainToOldFile() throws Exception
+    {
+        File file = temporaryFolder.newFile("app.properties");
+        write(file, "foo=1", "bar=0", "baz=0");
+        File old = temporaryFolder.newFile("old.properties");
+        write(old, "foo=0");
+
+        SingleOptionFileTask task1 = createOptionTask(file, "<entry key='bar' value='2'/>");
+        SingleOptionFileTask task2 = createOptionTask(file, "<entry key='baz' value='3'/>");
+        assertTrue(task1.canChain(task2));
+
+        task2.setOldFile(old);
+        assertFalse(task1.canChain(task2));
+
+        task2.setOldFile(file);
+        assertFalse(task1.canChain(task2));
+
+        new ConfigurableTaskExecutor(2).execute(Arrays.asList(task1, task2));
+        Properties properties = read(file);
+        assertEquals("2", properties.getProperty("bar"));
+        assertEquals("3", properties.getProperty("baz"));
+    }
+
+    /**
+     * Verifies that when tasks are chained, the files they patch from are only cleaned up once the chain has been
+     * written.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testCleanupAfterChainWritten() throws Exception
+    {
+        File file = temporaryFolder.newFile("app.properties");
+        write(file, "foo=1", "bar=0", "baz=0");
+        File old = temporaryFolder.newFile("old.properties");
+        write(old, "foo=0");
+
+        // the write of the chain fails, so the old file must be kept
+        FailingOptionFileTask task1 = createFailingTask(file, old, "<entry key='bar' value='2'/>");
+        FailingOptionFileTask task2 = createFailingTask(file, null, "<entry key='baz' value='3'/>");
+        task2.fail = true;
+        assertTrue(task1.canChain(task2));
+        try
+        {
+            new ConfigurableTaskExecutor(1).execute(Arrays.asList(task1, task2));
+            fail("Expected the write to fail");
+        }
+        catch (Exception expected)
+        {
+            // expected
+        }
+        assertTrue(old.exists());
+
+        task1 = createFailingTask(file, old, "<entry key='bar' value='2'/>");
+        task2 = createFailingTask(file, null, "<entry key='baz' value='3'/>");
+        new ConfigurableTaskExecutor(1).execute(Arrays.asList(task1, task2));
+        assertFalse(old.exists());
+        Properties properties = read(file);
+        assertEquals("2", properties.getProperty("bar"));
+        assertEquals("3", properties.getProperty("baz"));
+    }
+
+    /**
+     * An option file task that can be made to fail when writing.
+     */
+    private static class FailingOptionFileTask extends SingleOptionFileTask
+    {
+
+        /**
+         * Determines if writing fails.
+         */
+        private boolean fail;
+
+        /**
+         * Writes the configuration, unless writing has been made to fail.
+         *
+         * @throws Exception if writing fails
+         */
+        @Override
+        protected void writeConfigurable() throws Exception
+        {
+            if (fail)
+            {
+                throw new Exception("Write failed");
+            }
+            super.writeConfigurable();
+        }
+    }
+
+    /**
+     * Creates a task that can be made to fail when writing.
+     *
+     * @param file    the file to patch
+     * @param oldFile the file to patch from, cleaned up once written. May be {@code null}
+     * @param entries the XML for the entries to apply
+     * @return a new task
+     */
+    private FailingOptionFileTask createFailingTask(File file, File oldFile, String entries)
+    {
+        FailingOptionFileTask task = new FailingOptionFileTask();
+        task.setToFile(file);
+        task.setOldFile(oldFile);
+        task.setCleanup(true);
+        task.readFromXML(new XMLParser().parse("<configurable>" + entries + "</configurable>"));
+        return task;
+    }
+
+    /**
+     * Creates a conditional task.
+     *
+     * @param task      the task
+     * @param condition the condition, or {@code null} if the task is unconditional
+     * @return a new task
+     */
+    private ConditionalTask createConditional(final ConfigurableTask task, final Callable<Boolean> condition)
+    {
+        return new ConditionalTask()
+        {
+            @Override
+            public ConfigurableTask getConfigurableTask()
+            {
+                return task;
+            }
+
+            @Override
+            public boolean hasCondition()
+            {
+                return condition != null;
+            }
+
+            @Override
+            public boolean isEnabled()
+            {
+                try
+                {
+                    return condition == null || condition.call();
+                }
+                catch (Exception exception)
+                {
+                    throw new IllegalStateException(exception);
+                }
+            }
+        };
+    }
+
+    /**
+     * Creates an option file task.
+     *
+     * @param file    the file to patch
+     * @param entries the XML for the entries to apply
+     * @return a new task
+     */
+    private SingleOptionFileTask createOptionTask(File file, String entries)
+    {
+        SingleOptionFileTask task = new SingleOptionFileTask();
+        task.setToFile(file);
+        task.readFromXML(new XMLParser().parse("<configurable>" + entries + "</configurable>"));
+        return task;
+    }
+
+    /**
+     * Creates an INI file task.
+     *
+     * @param file    the file to patch
+     * @param entries the XML for the entries to apply
+     * @return a new task
+     */
+    private SingleIniFileTask createIniTask(File file, String entries)
+    {
+        SingleIniFileTask task = new SingleIniFileTask();
+        task.setToFile(file);
+        task.readFromXML(new XMLParser().parse("<configurable>" + entries + "</configurable>"));
+        return task;
+    }
+
+    /**
+     * Creates an XML merge.
+     *
+     * @param original the original file
+     * @param patch    the patch file
+     * @param target   the target file
+     * @return a new merge
+     */
+    private SingleXmlFileMergeTask createMerge(File original, File patch, File target)
+    {
+        SingleXmlFileMergeTask merge = new SingleXmlFileMergeTask();
+        merge.setOriginalFile(original);
+        merge.setPatchFile(patch);
+        merge.setToFile(target);
+        return merge;
+    }
+
+    /**
+     * Reads a properties file.
+     *
+     * @param file the file
+     * @return the properties
+     * @throws IOException for any I/O error
+     */
+    private Properties read(File file) throws IOException
+    {
+        Properties properties = new Properties();
+        FileInputStream in = new FileInputStream(file);
+        try
+        {
+            properties.load(in);
+        }
+        finally
+        {
+            FileUtils.close(in);
+        }
+        return properties;
+    }
+
+    /**
+     * Writes lines to a file.
+     *
+     * @param file  the file
+     * @param lines the lines to write
+     * @throws IOException for any I/O error
+     */
+    private void write(File file, String... lines) throws IOException
+    {
+        PrintWriter writer = new PrintWriter(new FileWriter(file));
+        try
+        {
+            for (String line : lines)
+            {
+                writer.println(line);
+            }
+        }
+        finally
+        {
+            writer.close();
+        }
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.util.file;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Test;
+
+
+/**
+ * Tests the {@link PathList} class.
+ *
+ * @author agent
+ */
+public class PathListTest
+{
+
+    /**
+     * Verifies that paths are returned as added, by index and by iteration, across several blocks.
+     */
+    @Test
+    public void testAddAndGet()
+    {
+        List<String> expected = new ArrayList<String>();
+        PathList list = new PathList();
+        for (int i = 0; i < 100; ++i)
+        {
+            String path = "/opt/myapp/lib" + (i / 10) + "/file" + i + ".jar";
+            expected.add(path);
+            list.add(path);
+        }
+        // paths with no common prefix, an empty path, and characters outside the BMP
+        String[] others = {"C:\\Program Files\\myapp", "", "/opt/myapp/\u00e9t\u00e9", "/opt/\ud834\udd1e/a",
+                "/opt/\ud834\udd1f/b"};
+        for (String path : others)
+        {
+            expected.add(path);
+            list.add(path);
+        }
+
+        assertEquals(expected.size(), list.size());
+        assertEquals(expected, new ArrayList<String>(list));
+        for (int i = expected.size() - 1; i >= 0; --i)
+        {
+            assertEquals(expected.get(i), list.get(i));
+        }
+        assertTrue(list.getEncodedSize() < charCount(expected));
+    }
+
+    /**
+     * Verifies that paths added after a block has been read by index are returned.
+     */
+    @Test
+    public void testInterleavedAddAndGet()
+    {
+        PathList list = new PathList();
+        list.add("/a/b");
+        assertEquals("/a/b", list.get(0));
+        list.add("/a/c");
+        assertEquals("/a/c", list.get(1));
+
+        for (int i = 2; i < 3 * PathList.BLOCK_SIZE; ++i)
+        {
+            String path = "/a/file" + i;
+            list.add(path);
+            assertEquals(path, list.get(i));
+            assertEquals("/a/b", list.get(0));
+        }
+    }
+
+    /**
+     * Verifies that indexes outside the list are rejected.
+     */
+    @Test
+    public void testIndexOutOfBounds()
+    {
+        PathList list = new PathList();
+        list.add("a");
+        try
+        {
+            list.get(1);
+            fail("Expected IndexOutOfBoundsException");
+        }
+        catch (IndexOutOfBoundsException expected)
+        {
+            // expected
+        }
+    }
+
+    /**
+     * Verifies that iterators fail if the list is modified.
+     */
+    @Test
+    public void testConcurrentModification()
+    {
+        PathList list = new PathList();
+        list.add("a");
+        list.add("b");
+        Iterator<String> iterator = list.iterator();
+        assertEquals("a", iterator.next());
+        list.clear();
+        try
+        {
+            iterator.next();
+            fail("Expected ConcurrentModificationException");
+        }
+        catch (ConcurrentModificationException expected)
+        {
+            // expected
+        }
+        assertEquals(0, list.size());
+    }
+
+    /**
+     * Tests the {@link PathList#merge(List, java.util.Comparator)} method.
+     */
+    @Test
+    public void testMerge()
+    {
+        PathList list1 = create("myapp/dir2/file1", "myapp/dir2/dir3", "myapp/dir1");
+        PathList list2 = create("myapp/dir2/file1", "myapp/dir2/dir3/file2", "myapp/dir2");
+        PathList list3 = new PathList();
+
+        PathList merged = PathList.merge(Arrays.asList(list1, list2, list3), Collections.<String>reverseOrder());
+        assertEquals(Arrays.asList("myapp/dir2/file1", "myapp/dir2/dir3/file2", "myapp/dir2/dir3", "myapp/dir2",
+                                   "myapp/dir1"), merged);
+        assertEquals(0, PathList.merge(Collections.<PathList>emptyList(), Collections.<String>reverseOrder()).size());
+    }
+
+    /**
+     * Creates a path list.
+     *
+     * @param paths the paths
+     * @return a new list
+     */
+    private PathList create(String... paths)
+    {
+        PathList result = new PathList();
+        result.addAll(Arrays.asList(paths));
+        return result;
+    }
+
+    /**
+     * Returns the total no. of characters in a list of strings.
+     *
+     * @param strings the strings
+     * @return the no. of characters
+     */
+    private int charCount(List<String> strings)
+    {
+        int result = 0;
+        for (String string : strings)
+        {
+            result += string.length();
+        }
+        return result;
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.util.unix;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+
+/**
+ * Tests the {@link UnixUser} class.
+ *
+ * @author agent
+ */
+public class UnixUserTest
+{
+
+    /**
+     * Temporary folder.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+
+    /**
+     * Tests parsing of /etc/passwd lines.
+     */
+    @Test
+    public void testFromEtcPasswdLine()
+    {
+        UnixUser user = new UnixUser().fromEtcPasswdLine("foo:x:500:100:Foo Bar:/home/foo:/bin/bash");
+        assertEquals("foo", user.getName());
+        assertEquals("500", user.getId());
+        assertEquals("100", user.getGid());
+        assertEquals("Foo Bar", user.getDescription());
+        assertEquals("/home/foo", user.getHome());
+        assertEquals("/bin/bash", user.getShell());
+    }
+
+    /**
+     * Verifies that the desktop folder defaults to <em>$HOME/Desktop</em> if there is no user-dirs.dirs file.
+     */
+    @Test
+    public void testDefaultDesktopFolder()
+    {
+        File home = temporaryFolder.getRoot();
+        UnixUser user = createUser(home);
+        assertEquals(home + File.separator + "Desktop", user.getXdgDesktopfolder());
+    }
+
+    /**
+     * Verifies that the desktop folder is read from the user-dirs.dirs file.
+     *
+     * @throws IOException for any I/O error
+     */
+    @Test
+    public void testDesktopFolder() throws IOException
+    {
+        File home = temporaryFolder.getRoot();
+        File dirs = new File(temporaryFolder.newFolder(".config"), "user-dirs.dirs");
+        write(dirs, "# comment", "XDG_DOWNLOAD_DIR=\"$HOME/Downloads\"", "XDG_DESKTOP_DIR=\"$HOME/Schreibtisch\"");
+        assertEquals(home + "/Schreibtisch", createUser(home).getXdgDesktopfolder());
+
+        write(dirs, "XDG_DESKTOP_DIR=\"/srv/desktop\"");
+        assertEquals("/srv/desktop", createUser(home).getXdgDesktopfolder());
+    }
+
+    /**
+     * Writes lines to a file.
+     *
+     * @param file  the file
+     * @param lines the lines to write
+     * @throws IOException for any I/O error
+     */
+    private void write(File file, String... lines) throws IOException
+    {
+        PrintWriter writer = new PrintWriter(new FileWriter(file));
+        try
+        {
+            for (String line : lines)
+            {
+                writer.println(line);
+            }
+        }
+        finally
+        {
+            writer.close();
+        }
+    }
+
+    /**
+     * Creates a user.
+     *
+     * @param home the user's home directory
+     * @return a new user
+     */
+    private UnixUser createUser(File home)
+    {
+        return new UnixUser().fromEtcPasswdLine("foo:x:500:100:Foo:" + home.getAbsolutePath() + ":/bin/bash");
+    }
+}
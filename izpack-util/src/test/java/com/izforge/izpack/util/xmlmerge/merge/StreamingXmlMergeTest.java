@@ -0,0 +1,371 @@
+/*
+ * IzPack - Copyright 2001-2012 Julien Ponge, All Rights Reserved.
+ *
+ * http://izpack.org/
+ * http://izpack.codehaus.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.util.xmlmerge.merge;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringReader;
+
+import org.jdom.Document;
+import org.jdom.Element;
+import org.jdom.Namespace;
+import org.jdom.input.SAXBuilder;
+import org.jdom.output.Format;
+import org.jdom.output.XMLOutputter;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.izforge.izpack.util.file.FileUtils;
+import com.izforge.izpack.util.xmlmerge.MergeAction;
+import com.izforge.izpack.util.xmlmerge.config.PropertyXPathConfigurer;
+
+
+/**
+ * Tests the {@link StreamingXmlMerge} and {@link StreamingSupport} classes.
+ * <p/>
+ * Streamed merges are compared with those performed by {@link DefaultXmlMerge} on documents in memory.
+ *
+ * @author agent
+ */
+public class StreamingXmlMergeTest
+{
+
+    /**
+     * Temporary folder.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+
+    /**
+     * Verifies that the default configuration merges attributes and elements recursively.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testFullMerge() throws Exception
+    {
+        check("",
+              "<root a='1'><!-- c --><x id='1'><y>one</y></x><x id='2'/><z/></root>",
+              "<root a='1'><x id='1'><y>uno</y><w/></x><v/></root>");
+    }
+
+    /**
+     * Verifies that actions configured by XPath expressions are applied.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testXPathActions() throws Exception
+    {
+        String config = "xpath.replace=/root/x[@id='1']\n"
+                + "action.replace=replace\n"
+                + "xpath.delete=//z\n"
+                + "action.delete=delete\n"
+                + "xpath.keep=/root/k\n"
+                + "action.keep=keep\n";
+        String result = check(config,
+                              "<root><x id='1'><a/></x><x id='2'><a/></x><y><z/></y><k><a/></k></root>",
+                              "<root><x id='1'><b/></x><x id='2'><b/></x><y><z/></y><k><b/></k></root>");
+        assertTrue(result.contains("<x id=\"1\"><b /></x>"));
+        assertTrue(result.contains("<x id=\"2\"><a /><b /></x>"));
+        assertTrue(result.contains("<y />"));
+        assertTrue(result.contains("<k><b /></k>"));
+    }
+
+    /**
+     * Verifies that an original element matching several patch elements is merged with each of them.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testMultipleMatches() throws Exception
+    {
+        check("matcher.default=tag\n",
+              "<root><x><a/></x><y/></root>",
+              "<root><x><b/></x><x><c/></x></root>");
+    }
+
+    /**
+     * Verifies that ordered merges are performed on the original element in memory.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testOrderedMerge() throws Exception
+    {
+        check("xpath.ordered=/root/list\naction.ordered=orderedmerge\n",
+              "<root><list><a/><c/><e/></list><other/></root>",
+              "<root><list><a/><b/><c/><d/></list></root>");
+    }
+
+    /**
+     * Verifies that several patches are applied in order, and that the original may be the target.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testMultiplePatches() throws Exception
+    {
+        File original = write("original.xml", "<root><a x='1'/></root>");
+        File patch1 = write("patch1.xml", "<root><a x='1'><b/></a></root>");
+        File patch2 = write("patch2.xml", "<root><c/></root>");
+        File expected = new File(temporaryFolder.getRoot(), "expected.xml");
+        createMerge("").mergeDocuments(new File[]{original, patch1, patch2}, expected);
+
+        createMerge("").merge(new File[]{original, patch1, patch2}, original);
+        assertEquals(normalise(read(expected)), normalise(read(original)));
+        assertEquals(4, temporaryFolder.getRoot().list().length);
+    }
+
+    /**
+     * Verifies that the formatting, comments and namespaces of the original are preserved.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testFormatting() throws Exception
+    {
+        String original = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                + "<!-- header -->\n"
+                + "<root xmlns:n=\"urn:n\">\n"
+                + "    <!-- keep me -->\n"
+                + "    <n:a n:attr=\"1\"/>\n"
+                + "    <e></e>\n"
+                + "    <t>some &amp; text</t>\n"
+                + "</root>\n";
+        String patch = "<root xmlns:n='urn:n' xmlns:m='urn:m'><n:a n:attr='1' m:b='2'/><m:new/></root>";
+        String result = stream("matcher.default=tag", original, patch);
+
+        assertTrue(result.contains("<!-- header -->"));
+        assertTrue(result.contains("    <!-- keep me -->\n"));
+        assertTrue(result.contains("    <e/>\n"));
+        assertTrue(result.contains("    <t>some &amp; text</t>\n    <m:new"));
+        assertTrue(result.endsWith("/>\n</root>\n"));
+
+        Element root = new SAXBuilder().build(new StringReader(result)).getRootElement();
+        Element a = root.getChild("a", Namespace.getNamespace("urn:n"));
+        assertEquals("1", a.getAttributeValue("attr", Namespace.getNamespace("urn:n")));
+        assertEquals("2", a.getAttributeValue("b", Namespace.getNamespace("urn:m")));
+        assertEquals(1, root.getChildren("new", Namespace.getNamespace("urn:m")).size());
+    }
+
+    /**
+     * Verifies that files are only streamed if streaming is enabled, so that by default the result is formatted the
+     * same way as a merge in memory.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testStreamingDisabledByDefault() throws Exception
+    {
+        File[] sources = {write("original.xml", "<root>\n  <a x='1'/>\n\n\n  <b/></root>"),
+                write("patch.xml", "<root><a x='1'><c/></a></root>")};
+        DefaultXmlMerge merge = new DefaultXmlMerge();
+        new PropertyXPathConfigurer("").configure(merge);
+        assertFalse(merge.isStreaming());
+
+        File expected = new File(temporaryFolder.getRoot(), "expected.xml");
+        merge.mergeDocuments(sources, expected);
+        File actual = new File(temporaryFolder.getRoot(), "actual.xml");
+        merge.merge(sources, actual);
+        assertEquals(read(expected), read(actual));
+
+        merge.setStreaming(true);
+        merge.merge(sources, actual);
+        assertTrue(read(actual).contains("\n\n\n  <b/></root>"));
+    }
+
+    /**
+     * Verifies that configurations that depend on the content of the original aren't streamed.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testSupported() throws Exception
+    {
+        assertTrue(isSupported(""));
+        assertTrue(isSupported("action.default=replace\nmatcher.default=id_attribute"));
+        assertTrue(isSupported("xpath.p=/root/a[@id='x' and not(@b)]\naction.p=replace"));
+        assertTrue(isSupported("xpath.p=//a[starts-with(@id, 'x')] | /root/b\naction.p=keep"));
+        assertTrue(isSupported("xpath.p=//a[local-name()='a' and @id]\naction.p=keep"));
+
+        assertFalse(isSupported("action.default=insert"));
+        assertFalse(isSupported("action.default=dtd"));
+        assertFalse(isSupported("xpath.p=/root/a[1]\naction.p=replace"));
+        assertFalse(isSupported("xpath.p=/root/a[b='1']\naction.p=replace"));
+        assertFalse(isSupported("xpath.p=/root/a[last()]\nmatcher.p=tag"));
+        assertFalse(isSupported("xpath.p=/root/a/following-sibling::b\nmapper.p=identity"));
+        assertFalse(isSupported("xpath.p=//a[string-length()=0]\naction.p=keep"));
+    }
+
+    /**
+     * Merges documents in memory and streamed, and verifies the results are the same.
+     *
+     * @param config    the merge configuration
+     * @param original  the original document
+     * @param patch     the patch document
+     * @return the normalised result
+     * @throws Exception for any error
+     */
+    private String check(String config, String original, String patch) throws Exception
+    {
+        File originalFile = write("original.xml", original);
+        File patchFile = write("patch.xml", patch);
+        File[] sources = {originalFile, patchFile};
+        DefaultXmlMerge merge = createMerge(config);
+        assertTrue(StreamingSupport.isSupported(getRootMergeAction(config)));
+
+        File expected = new File(temporaryFolder.getRoot(), "expected.xml");
+        merge.mergeDocuments(sources, expected);
+        File actual = new File(temporaryFolder.getRoot(), "actual.xml");
+        merge.merge(sources, actual);
+        String result = normalise(read(actual));
+        assertEquals(normalise(read(expected)), result);
+        return result;
+    }
+
+    /**
+     * Merges documents, streamed.
+     *
+     * @param config   the merge configuration
+     * @param original the original document
+     * @param patch    the patch document
+     * @return the result
+     * @throws Exception for any error
+     */
+    private String stream(String config, String original, String patch) throws Exception
+    {
+        File target = new File(temporaryFolder.getRoot(), "target.xml");
+        createMerge(config).merge(new File[]{write("original.xml", original), write("patch.xml", patch)}, target);
+        return read(target);
+    }
+
+    /**
+     * Creates a merge that streams files.
+     *
+     * @param config the merge configuration
+     * @return a new merge
+     * @throws Exception for any error
+     */
+    private DefaultXmlMerge createMerge(String config) throws Exception
+    {
+        DefaultXmlMerge merge = new DefaultXmlMerge();
+        merge.setStreaming(true);
+        new PropertyXPathConfigurer(config).configure(merge);
+        return merge;
+    }
+
+    /**
+     * Determines if a merge configuration can be streamed.
+     *
+     * @param config the merge configuration
+     * @return <tt>true</tt> if the configuration can be streamed
+     * @throws Exception for any error
+     */
+    private boolean isSupported(String config) throws Exception
+    {
+        return StreamingSupport.isSupported(getRootMergeAction(config));
+    }
+
+    /**
+     * Returns the root merge action for a configuration.
+     *
+     * @param config the merge configuration
+     * @return the root merge action
+     * @throws Exception for any error
+     */
+    private MergeAction getRootMergeAction(String config) throws Exception
+    {
+        final MergeAction[] result = new MergeAction[1];
+        new PropertyXPathConfigurer(config).configure(new DefaultXmlMerge()
+        {
+            @Override
+            public void setRootMergeAction(MergeAction rootMergeAction)
+            {
+                result[0] = rootMergeAction;
+            }
+        });
+        return result[0];
+    }
+
+    /**
+     * Normalises a document, so that documents differing only in formatting compare equal.
+     *
+     * @param xml the document
+     * @return the normalised document
+     * @throws Exception for any error
+     */
+    private String normalise(String xml) throws Exception
+    {
+        Document document = new SAXBuilder().build(new StringReader(xml));
+        return new XMLOutputter(Format.getCompactFormat()).outputString(document.getRootElement());
+    }
+
+    /**
+     * Writes a file.
+     *
+     * @param name    the file name
+     * @param content the file content
+     * @return the file
+     * @throws IOException for any I/O error
+     */
+    private File write(String name, String content) throws IOException
+    {
+        File file = new File(temporaryFolder.getRoot(), name);
+        PrintWriter writer = new PrintWriter(file, "UTF-8");
+        try
+        {
+            writer.print(content);
+        }
+        finally
+        {
+            writer.close();
+        }
+        return file;
+    }
+
+    /**
+     * Reads a file.
+     *
+     * @param file the file
+     * @return the file content
+     * @throws IOException for any I/O error
+     */
+    private String read(File file) throws IOException
+    {
+        FileReader reader = new FileReader(file);
+        try
+        {
+            return FileUtils.readFully(reader);
+        }
+        finally
+        {
+            reader.close();
+        }
+    }
+}